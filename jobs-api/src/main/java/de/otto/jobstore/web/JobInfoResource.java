@@ -1,6 +1,7 @@
 package de.otto.jobstore.web;
 
 import de.otto.jobstore.common.*;
+import de.otto.jobstore.repository.ItemIterator;
 import de.otto.jobstore.service.JobInfoService;
 import de.otto.jobstore.service.JobService;
 import de.otto.jobstore.service.exception.*;
@@ -9,13 +10,19 @@ import de.otto.jobstore.web.representation.JobNameRepresentation;
 import org.apache.abdera.Abdera;
 import org.apache.abdera.model.Entry;
 import org.apache.abdera.model.Feed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.ws.rs.*;
 import javax.ws.rs.core.*;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.StringWriter;
+import java.io.Writer;
 import java.net.URI;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
@@ -23,11 +30,15 @@ import java.util.concurrent.TimeUnit;
 @Path("/jobs")
 public class JobInfoResource {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(JobInfoResource.class);
+
     public static final String OTTO_JOBS_XML  = "application/vnd.otto.jobs+xml";
     public static final String OTTO_JOBS_JSON = "application/vnd.otto.jobs+json";
 
     public static final int MAX_LOG_LINES = 100;
 
+    public static final int HISTORY_BATCH_SIZE = 100;
+
     private final JobService jobService;
 
     private final JobInfoService jobInfoService;
@@ -110,8 +121,7 @@ public class JobInfoResource {
         }
         try {
             final String jobId = jobService.executeJob(name, JobExecutionPriority.FORCE_EXECUTION, parameters);
-            final JobInfo jobInfo = jobInfoService.getById(jobId);
-            final URI uri = uriInfo.getBaseUriBuilder().path(this.getClass()).path(jobInfo.getName()).path(jobId).build();
+            final URI uri = uriInfo.getBaseUriBuilder().path(this.getClass()).path(name).path(jobId).build();
             return Response.created(uri).build();
         } catch (JobNotRegisteredException e) {
             return Response.status(Response.Status.NOT_FOUND).entity(e.getMessage()).build();
@@ -177,6 +187,51 @@ public class JobInfoResource {
         return Response.ok(feed).build();
     }
 
+    /**
+     * Returns the jobs with the given name which were last modified within the given number of hours. The jobs are
+     * written to the response while they are read, so the whole history is never held in memory. The log lines are
+     * left out, they are returned with the single job. If writing fails after the response was started, the
+     * response is cut off.
+     *
+     * @param name The name of the jobs to return
+     * @param hours The hours the jobs go back into the past
+     * @param resultCodes Filter the jobs by their result status (default null == unfiltered)
+     * @return The jobs sorted descending by their creation time
+     */
+    @GET
+    @Path("/{name}/history")
+    @Produces(OTTO_JOBS_XML)
+    public Response getJobHistoryByName(@PathParam("name") final String name, @QueryParam("hours") @DefaultValue("12") final int hours,
+                                        @QueryParam("resultCode") final Set<ResultCode> resultCodes) {
+        final Date dt = new Date(new Date().getTime() - TimeUnit.HOURS.toMillis(hours));
+        final Marshaller marshaller;
+        try {
+            marshaller = JAXBContext.newInstance(JobInfoRepresentation.class).createMarshaller();
+            marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+        } catch (JAXBException e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR).build();
+        }
+        final StreamingOutput output = new StreamingOutput() {
+            @Override
+            public void write(OutputStream outputStream) throws IOException {
+                try (ItemIterator<JobInfo> jobInfos = jobInfoService.streamByNameAndTimeRange(name, dt, new Date(), resultCodes, HISTORY_BATCH_SIZE)) {
+                    final Writer writer = new OutputStreamWriter(outputStream, "UTF-8");
+                    writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?><jobInfos>");
+                    for (JobInfo jobInfo : jobInfos) {
+                        marshaller.marshal(JobInfoRepresentation.fromJobInfo(jobInfo, 0), writer);
+                    }
+                    writer.write("</jobInfos>");
+                    writer.flush();
+                } catch (JAXBException e) {
+                    LOGGER.error("ltag=JobInfoResource.getJobHistoryByName Cut off history of jobs with name={}: {}",
+                            name, e.getMessage(), e);
+                    outputStream.close();
+                }
+            }
+        };
+        return Response.ok(output).build();
+    }
+
     /**
      * Enables execution of jobs with the given name
      * @param name The name of the job to enable/disable
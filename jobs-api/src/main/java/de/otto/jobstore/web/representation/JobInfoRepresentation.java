@@ -130,9 +130,9 @@ public final class JobInfoRepresentation {
 
     public static JobInfoRepresentation fromJobInfo(JobInfo jobInfo, int maxLogLines) {
         // Limit to the last recent N loglines
-        final int nrLogLines = Math.min(maxLogLines, jobInfo.getLogLines().size());
-        final List<LogLineRepresentation> logLines = new ArrayList<>(nrLogLines);
-        for (LogLine ll : jobInfo.getLastLogLines(nrLogLines)) {
+        final List<LogLine> lastLogLines = jobInfo.getLastLogLines(maxLogLines);
+        final List<LogLineRepresentation> logLines = new ArrayList<>(lastLogLines.size());
+        for (LogLine ll : lastLogLines) {
             logLines.add(LogLineRepresentation.fromLogLine(ll));
         }
         return new JobInfoRepresentation(jobInfo.getId(), jobInfo.getName(), jobInfo.getHost(),
@@ -5,8 +5,10 @@ import com.sun.jersey.api.uri.UriBuilderImpl;
 import com.sun.jersey.core.util.MultivaluedMapImpl;
 import de.otto.jobstore.common.JobExecutionPriority;
 import de.otto.jobstore.common.JobInfo;
+import de.otto.jobstore.common.LogLine;
 import de.otto.jobstore.common.RunningState;
 import de.otto.jobstore.common.properties.JobInfoProperty;
+import de.otto.jobstore.repository.ItemIterator;
 import de.otto.jobstore.service.JobInfoService;
 import de.otto.jobstore.service.JobService;
 import de.otto.jobstore.service.exception.JobAlreadyQueuedException;
@@ -17,14 +19,18 @@ import de.otto.jobstore.web.representation.JobInfoRepresentation;
 import de.otto.jobstore.web.representation.JobNameRepresentation;
 import org.apache.abdera.model.Entry;
 import org.apache.abdera.model.Feed;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.Unmarshaller;
+import java.io.ByteArrayOutputStream;
 import java.io.StringReader;
 import java.util.*;
 
@@ -33,8 +39,10 @@ import static de.otto.jobstore.TestSetup.remoteJobDefinition;
 import static org.mockito.Matchers.*;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
 import static org.testng.AssertJUnit.assertTrue;
 
 @SuppressWarnings("unchecked")
@@ -214,6 +222,39 @@ public class JobInfoResourceTest {
         assertEquals(0, history.get("foo").size());
     }
 
+    @Test
+    public void testGetJobHistoryByNameIsStreamed() throws Exception {
+        final List<JobInfo> jobList = createJobs(2, "foo");
+        jobList.get(0).appendLogLine(new LogLine("line 1", new Date()));
+        final Iterator<JobInfo> jobs = jobList.iterator();
+        final ItemIterator<JobInfo> jobInfos = mock(ItemIterator.class);
+        when(jobInfos.iterator()).thenReturn(jobInfos);
+        when(jobInfos.hasNext()).thenAnswer(new Answer<Boolean>() {
+            public Boolean answer(InvocationOnMock invocation) {
+                return jobs.hasNext();
+            }
+        });
+        when(jobInfos.next()).thenAnswer(new Answer<JobInfo>() {
+            public JobInfo answer(InvocationOnMock invocation) {
+                return jobs.next();
+            }
+        });
+        when(jobInfoService.streamByNameAndTimeRange(eq("foo"), any(Date.class), any(Date.class), any(Set.class),
+                eq(JobInfoResource.HISTORY_BATCH_SIZE))).thenReturn(jobInfos);
+
+        Response response = jobInfoResource.getJobHistoryByName("foo", 5, null);
+        assertEquals(200, response.getStatus());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ((StreamingOutput) response.getEntity()).write(out);
+
+        String history = out.toString("UTF-8");
+        assertTrue(history.contains("<jobInfos><jobInfo><id>0</id><name>foo</name>"));
+        assertTrue(history.contains("<jobInfo><id>1</id><name>foo</name>"));
+        assertTrue(history.endsWith("</jobInfo></jobInfos>"));
+        assertFalse(history.contains("line 1"));
+        verify(jobInfos).close();
+    }
+
     @Test
     public void testStatusJob() throws Exception {
         Response response = jobInfoResource.statusOfAllJobs();
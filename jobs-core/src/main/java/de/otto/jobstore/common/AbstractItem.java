@@ -1,17 +1,30 @@
 package de.otto.jobstore.common;
 
+import com.mongodb.BasicDBList;
 import com.mongodb.BasicDBObject;
 import com.mongodb.DBObject;
 import de.otto.jobstore.common.properties.ItemProperty;
+import org.bson.LazyBSONObject;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  *  Abstract Class for Objects to be stored in MongoDB
+ *
+ *  An item may wrap a lazily decoded, read only document. Its properties are then decoded on their first access
+ *  and the document is copied into a modifiable one once a property is added or the document is requested. Decoding
+ *  and copying are synchronized, so an item may be read by several threads like one wrapping a modifiable document.
  */
 public abstract class AbstractItem implements Serializable {
 
-    private final DBObject dbObject;
+    private volatile DBObject dbObject;
+
+    private transient Map<String, Object> decodedProperties;
 
     AbstractItem() {
         dbObject = new BasicDBObject();
@@ -22,20 +35,79 @@ public abstract class AbstractItem implements Serializable {
     }
 
     public final DBObject toDbObject() {
+        materialize();
         return dbObject;
     }
 
     final void addProperty(final ItemProperty key, final Object value) {
+        materialize();
         dbObject.put(key.val(), value);
     }
 
     @SuppressWarnings("unchecked")
     final <E> E getProperty(final ItemProperty key) {
-        return (E) dbObject.get(key.val());
+        final DBObject object = dbObject;
+        if (object instanceof LazyBSONObject) {
+            return (E) getDecodedProperty(key.val());
+        }
+        return (E) object.get(key.val());
     }
 
     final boolean hasProperty(final ItemProperty key) {
         return dbObject.containsField(key.val());
     }
 
+    private synchronized Object getDecodedProperty(final String key) {
+        if (!(dbObject instanceof LazyBSONObject)) {
+            // materialized meanwhile, the decoded properties are part of the document now
+            return dbObject.get(key);
+        }
+        if (decodedProperties == null) {
+            decodedProperties = new HashMap<>();
+        }
+        if (decodedProperties.containsKey(key)) {
+            return decodedProperties.get(key);
+        }
+        final Object value = decode(dbObject.get(key));
+        decodedProperties.put(key, value);
+        return value;
+    }
+
+    private synchronized void materialize() {
+        if (dbObject instanceof LazyBSONObject) {
+            final DBObject decoded = new BasicDBObject();
+            for (String key : dbObject.keySet()) {
+                decoded.put(key, getDecodedProperty(key));
+            }
+            dbObject = decoded;
+            decodedProperties = null;
+        }
+    }
+
+    /**
+     * Converts lazily decoded, read only documents and lists into modifiable ones
+     */
+    private static Object decode(final Object value) {
+        if (value instanceof List && value instanceof LazyBSONObject) {
+            final BasicDBList list = new BasicDBList();
+            for (Object element : (List<?>) value) {
+                list.add(decode(element));
+            }
+            return list;
+        } else if (value instanceof LazyBSONObject) {
+            final LazyBSONObject lazyObject = (LazyBSONObject) value;
+            final BasicDBObject object = new BasicDBObject();
+            for (String key : lazyObject.keySet()) {
+                object.put(key, decode(lazyObject.get(key)));
+            }
+            return object;
+        }
+        return value;
+    }
+
+    private void writeObject(final ObjectOutputStream out) throws IOException {
+        materialize();
+        out.defaultWriteObject();
+    }
+
 }
@@ -1,6 +1,6 @@
 package de.otto.jobstore.common;
 
-public abstract class AbstractLocalJobDefinition implements JobDefinition {
+public abstract class AbstractLocalJobDefinition implements ExtendedJobDefinition {
 
     @Override
     public final long getPollingInterval() {
@@ -27,5 +27,19 @@ public abstract class AbstractLocalJobDefinition implements JobDefinition {
         return false;
     }
 
+    @Override
+    public long getRetentionTime() {
+        return -1;
+    }
+
+    @Override
+    public boolean isInterruptible() {
+        return false;
+    }
+
+    @Override
+    public String getCronExpression() {
+        return null;
+    }
 
 }
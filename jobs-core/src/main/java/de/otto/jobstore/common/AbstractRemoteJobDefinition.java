@@ -1,7 +1,7 @@
 package de.otto.jobstore.common;
 
 
-public abstract class AbstractRemoteJobDefinition implements JobDefinition {
+public abstract class AbstractRemoteJobDefinition implements ExtendedJobDefinition {
 
     @Override
     public long getMaxRetries() {
@@ -23,4 +23,19 @@ public abstract class AbstractRemoteJobDefinition implements JobDefinition {
         return false;
     }
 
+    @Override
+    public long getRetentionTime() {
+        return -1;
+    }
+
+    @Override
+    public boolean isInterruptible() {
+        return false;
+    }
+
+    @Override
+    public String getCronExpression() {
+        return null;
+    }
+
 }
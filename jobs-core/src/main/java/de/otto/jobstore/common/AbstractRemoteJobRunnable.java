@@ -26,11 +26,8 @@ public abstract class AbstractRemoteJobRunnable implements JobRunnable {
     public RemoteJobStatus getRemoteStatus(JobExecutionContext context) {
         final String remoteJobUri = context.getJobLogger().getAdditionalData(JobInfoProperty.REMOTE_JOB_URI.val());
         final RemoteJobStatus status = remoteJobExecutorService.getStatus(URI.create(remoteJobUri));
-        final JobInfo jobInfo = jobInfoService.getById(context.getId());
-
-        if (jobInfo != null && status.logLines != null
-                && jobInfo.getLogLines() != null && !jobInfo.getLogLines().isEmpty()) {
-            final int currentLength = jobInfo.getLogLines().size();
+        final int currentLength = jobInfoService.countLogLines(context.getId());
+        if (status.logLines != null && currentLength > 0) {
             // Assume that old lines are already included, and therefore can be cut off
             if (currentLength <= status.logLines.size()) {
                 status.logLines = status.logLines.subList(currentLength, status.logLines.size());
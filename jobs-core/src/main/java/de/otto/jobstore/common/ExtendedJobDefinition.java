@@ -0,0 +1,35 @@
+package de.otto.jobstore.common;
+
+/**
+ * Optional properties of a job definition. They are kept apart from {@link JobDefinition}, so existing
+ * implementations of it stay valid. Job definitions which do not implement this interface are kept for the
+ * default retention time, are not interrupted on abort and are not executed automatically.
+ * {@link AbstractLocalJobDefinition} and {@link AbstractRemoteJobDefinition} implement it with these defaults.
+ */
+public interface ExtendedJobDefinition extends JobDefinition {
+
+    /**
+     * The time after which a finished job is removed from the job store (in milliseconds). A value of 0 or less
+     * keeps the job for the default retention time of the repository.
+     */
+    long getRetentionTime();
+
+    /**
+     * Flag if the thread executing the job is interrupted once the job is aborted, in addition to the abort being
+     * reported by {@link JobExecutionContext#checkForAbort()}. Only applies to jobs executed locally.
+     *
+     * @return true - The thread executing the job is interrupted on abort</br>
+     *         false - The job is only stopped by checking for the abort
+     */
+    boolean isInterruptible();
+
+    /**
+     * The cron expression defining when the job is executed automatically, e.g. "0 3 * * *" for every day at 03:00,
+     * see {@link de.otto.jobstore.common.util.CronExpression}. Each fire time is executed by one node of the cluster
+     * only.
+     *
+     * @return The cron expression or null if the job is not executed automatically
+     */
+    String getCronExpression();
+
+}
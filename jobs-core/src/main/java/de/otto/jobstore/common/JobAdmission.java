@@ -0,0 +1,53 @@
+package de.otto.jobstore.common;
+
+/**
+ * The result of admitting a job for execution, {@link de.otto.jobstore.repository.JobInfoRepository#admitJob}
+ */
+public final class JobAdmission {
+
+    public enum Decision {
+        /** The job was created in state RUNNING and may be executed */
+        RUN,
+        /** The job was created in state QUEUED */
+        QUEUE,
+        /** A job with the same name is already queued with an equal or higher priority */
+        ALREADY_QUEUED,
+        /** Another instance created a running job with the same name concurrently */
+        ALREADY_RUNNING,
+        /** A job with the same name is already running with an equal or higher priority */
+        NOT_NECESSARY
+    }
+
+    private final Decision decision;
+    private final JobInfo jobInfo;
+
+    public JobAdmission(Decision decision, JobInfo jobInfo) {
+        this.decision = decision;
+        this.jobInfo = jobInfo;
+    }
+
+    public Decision getDecision() {
+        return decision;
+    }
+
+    /**
+     * Returns the created job if the job was admitted, otherwise the existing job which prevented the admission
+     * or null if it is unknown.
+     */
+    public JobInfo getJobInfo() {
+        return jobInfo;
+    }
+
+    public boolean isAdmitted() {
+        return decision == Decision.RUN || decision == Decision.QUEUE;
+    }
+
+    @Override
+    public String toString() {
+        return "JobAdmission{" +
+                "decision=" + decision +
+                ", jobInfo=" + jobInfo +
+                '}';
+    }
+
+}
@@ -0,0 +1,90 @@
+package de.otto.jobstore.common;
+
+import de.otto.jobstore.repository.JobDefinitionRepository;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Node-local cache of stored job definitions. At most once per update interval the version of the job definitions
+ * is read from the repository. Only if it changed, cached definitions are dropped and reloaded on their next access.
+ * A definition loaded while the cache was invalidated is not kept, as it may have been read before the change.
+ */
+public class JobDefinitionCache {
+
+    private static final long UNKNOWN_VERSION = -1;
+
+    private final JobDefinitionRepository jobDefinitionRepository;
+    private final long updateInterval;
+    private final ConcurrentMap<String, StoredJobDefinition> jobDefinitions = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+    private volatile long lastUpdate = 0;
+    private volatile long version = UNKNOWN_VERSION;
+
+    public JobDefinitionCache(JobDefinitionRepository jobDefinitionRepository, long updateInterval) {
+        this.jobDefinitionRepository = jobDefinitionRepository;
+        this.updateInterval = updateInterval;
+    }
+
+    /**
+     * Returns the stored job definition with the given name
+     *
+     * @param name The name of the job definition
+     * @return The job definition or null if none exists with the given name
+     */
+    public StoredJobDefinition get(String name) {
+        checkVersion();
+        StoredJobDefinition jobDefinition = jobDefinitions.get(name);
+        if (jobDefinition == null) {
+            final long invalidationsBeforeLoad = invalidations.get();
+            jobDefinition = jobDefinitionRepository.find(name);
+            if (jobDefinition != null) {
+                jobDefinitions.put(name, jobDefinition);
+                if (invalidations.get() != invalidationsBeforeLoad) {
+                    // the cache was invalidated while loading, the definition may be stale
+                    jobDefinitions.remove(name, jobDefinition);
+                }
+            }
+        }
+        return jobDefinition;
+    }
+
+    /**
+     * Removes the job definition with the given name from the cache, so it is reloaded on its next access.
+     *
+     * @param name The name of the job definition
+     */
+    public void invalidate(String name) {
+        invalidations.incrementAndGet();
+        jobDefinitions.remove(name);
+    }
+
+    /**
+     * Removes all job definitions from the cache and forces a version check on the next access.
+     */
+    public void invalidate() {
+        lastUpdate = 0;
+        version = UNKNOWN_VERSION;
+        invalidations.incrementAndGet();
+        jobDefinitions.clear();
+    }
+
+    private void checkVersion() {
+        final long currentTime = System.currentTimeMillis();
+        if (lastUpdate + updateInterval < currentTime) {
+            synchronized (this) {
+                if (lastUpdate + updateInterval < currentTime) {
+                    lastUpdate = currentTime;
+                    final long currentVersion = jobDefinitionRepository.getVersion();
+                    if (currentVersion != version) {
+                        invalidations.incrementAndGet();
+                        jobDefinitions.clear();
+                        version = currentVersion;
+                    }
+                }
+            }
+        }
+    }
+
+}
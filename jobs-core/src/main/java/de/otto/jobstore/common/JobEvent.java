@@ -0,0 +1,76 @@
+package de.otto.jobstore.common;
+
+import com.mongodb.DBObject;
+import de.otto.jobstore.common.properties.JobEventProperty;
+import org.bson.types.ObjectId;
+
+import java.util.Date;
+
+/**
+ * An event in the lifecycle of a job which is published to all nodes
+ *
+ * {@link de.otto.jobstore.repository.JobEventRepository}
+ */
+public final class JobEvent extends AbstractItem {
+
+    private static final long serialVersionUID = 4361094207125587212L;
+
+    public enum Type {
+        /** The job was created in state QUEUED */
+        QUEUED,
+        /** The queued job was set to state RUNNING */
+        ACTIVATED,
+        /** Aborting the job was requested */
+        ABORT_REQUESTED,
+        /** The job was marked as finished */
+        FINISHED
+    }
+
+    public JobEvent(DBObject dbObject) {
+        super(dbObject);
+    }
+
+    /**
+     * Creates an event of the given job
+     *
+     * @param type The type of the event
+     * @param jobId The id of the job
+     * @param name The name of the job or null if it is not known to the publisher
+     */
+    public JobEvent(Type type, String jobId, String name) {
+        addProperty(JobEventProperty.ID, new ObjectId());
+        addProperty(JobEventProperty.TYPE, type.name());
+        addProperty(JobEventProperty.JOB_ID, jobId);
+        if (name != null) {
+            addProperty(JobEventProperty.NAME, name);
+        }
+        addProperty(JobEventProperty.CREATION_TIME, new Date());
+    }
+
+    public ObjectId getId() {
+        return getProperty(JobEventProperty.ID);
+    }
+
+    public Type getType() {
+        final String type = getProperty(JobEventProperty.TYPE);
+        return type == null ? null : Type.valueOf(type);
+    }
+
+    public String getJobId() {
+        return getProperty(JobEventProperty.JOB_ID);
+    }
+
+    public String getName() {
+        return getProperty(JobEventProperty.NAME);
+    }
+
+    public Date getCreationTime() {
+        return getProperty(JobEventProperty.CREATION_TIME);
+    }
+
+    @Override
+    public String toString() {
+        return "{\"type\":\"" + getType() + "\", \"jobId\":\"" + getJobId() + "\", \"name\":\"" + getName() + "\"}";
+    }
+
+}
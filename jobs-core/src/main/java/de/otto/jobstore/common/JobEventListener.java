@@ -0,0 +1,10 @@
+package de.otto.jobstore.common;
+
+/**
+ * Receives the lifecycle events of jobs published by any node, {@link de.otto.jobstore.service.JobEventFollower}
+ */
+public interface JobEventListener {
+
+    void onEvent(JobEvent event);
+
+}
@@ -7,6 +7,8 @@ import java.util.Map;
 
 public class JobExecutionContext {
 
+    private static final long CACHE_CHECK_INTERVAL = 1000;
+
     private final String id;
     private final JobLogger jobLogger;
     private final JobExecutionPriority executionPriority;
@@ -15,6 +17,8 @@ public class JobExecutionContext {
 
     private volatile ResultCode resultCode = ResultCode.SUCCESSFUL;
     private String resultMessage;
+    private volatile boolean aborted = false;
+    private long nextCacheCheck = 0;
 
     public JobExecutionContext(String id, JobLogger jobLogger, JobInfoCache jobInfoCache, JobExecutionPriority executionPriority, JobDefinition jobDefinition) {
         this.id = id;
@@ -53,18 +57,39 @@ public class JobExecutionContext {
     }
 
     /**
-     * checks if conditions are met to abort the job, either an external abort request or the job reached its timeout condition
+     * Marks the job as aborted, it is stopped with the next call of {@link #checkForAbort()}. Used if the abort was
+     * requested in or announced to the JVM executing the job.
+     */
+    public void abort() {
+        aborted = true;
+    }
+
+    public boolean isAborted() {
+        return aborted;
+    }
+
+    /**
+     * checks if conditions are met to abort the job, either an external abort request or the job reached its timeout condition.
+     * The abort flag set by {@link #abort()} is checked on every call, the cached job at most once per second.
      * @throws JobExecutionAbortedException
      * @throws JobExecutionTimeoutException
      */
     public void checkForAbort() throws JobExecutionAbortedException, JobExecutionTimeoutException {
-        if(jobInfoCache.isAborted()) {
+        if (aborted) {
             throw JobExecutionAbortedException.fromJobName(getId());
         }
-        if(jobInfoCache.isTimedOut()) {
-            throw JobExecutionTimeoutException.fromJobName(getId());
+        final long currentTime = System.currentTimeMillis();
+        if (currentTime >= nextCacheCheck) {
+            // not volatile as the job is usually checked by a single thread, another thread at worst checks the cache again
+            nextCacheCheck = currentTime + CACHE_CHECK_INTERVAL;
+            if (jobInfoCache.isAborted()) {
+                aborted = true;
+                throw JobExecutionAbortedException.fromJobName(getId());
+            }
+            if (jobInfoCache.isTimedOut()) {
+                throw JobExecutionTimeoutException.fromJobName(getId());
+            }
         }
-
     }
 
     public Map<String, String> getParameters() {
@@ -3,6 +3,7 @@ package de.otto.jobstore.common;
 import com.mongodb.BasicDBObject;
 import com.mongodb.DBObject;
 import de.otto.jobstore.common.properties.JobInfoProperty;
+import de.otto.jobstore.repository.JobLogRepository;
 
 import java.util.*;
 
@@ -10,10 +11,21 @@ public class JobInfo extends AbstractItem {
 
     private static final long serialVersionUID = 2454224303569320787L;
 
+    private transient JobLogRepository jobLogRepository;
+    private transient List<LogLine> storedLogLines;
+
     public JobInfo(DBObject dbObject) {
         super(dbObject);
     }
 
+    /**
+     * Creates a job info whose log lines are read on demand from the given repository
+     */
+    public JobInfo(DBObject dbObject, JobLogRepository jobLogRepository) {
+        super(dbObject);
+        this.jobLogRepository = jobLogRepository;
+    }
+
     public JobInfo(String name, String host, String thread, Long maxIdleTime, Long maxExecutionTime, Long retries) {
         this(name, host, thread, maxIdleTime, maxExecutionTime, retries, RunningState.QUEUED);
     }
@@ -34,15 +46,18 @@ public class JobInfo extends AbstractItem {
         addProperty(JobInfoProperty.NAME, name);
         addProperty(JobInfoProperty.HOST, host);
         addProperty(JobInfoProperty.THREAD, thread);
+        addProperty(JobInfoProperty.MAX_IDLE_TIME, maxIdleTime);
+        addProperty(JobInfoProperty.MAX_EXECUTION_TIME, maxExecutionTime);
         if (state != RunningState.QUEUED) {
             addProperty(JobInfoProperty.START_TIME, dt);
+            if (maxExecutionTime != null) {
+                addProperty(JobInfoProperty.EXECUTION_DEADLINE, new Date(dt.getTime() + maxExecutionTime));
+            }
         }
         addProperty(JobInfoProperty.CREATION_TIME, dt);
         addProperty(JobInfoProperty.EXECUTION_PRIORITY, executionPriority.name());
         addProperty(JobInfoProperty.RUNNING_STATE, state.name());
         setLastModifiedTime(dt);
-        addProperty(JobInfoProperty.MAX_IDLE_TIME, maxIdleTime);
-        addProperty(JobInfoProperty.MAX_EXECUTION_TIME, maxExecutionTime);
         addProperty(JobInfoProperty.RETRIES, retries);
 
         if (parameters != null) {
@@ -202,41 +217,99 @@ public class JobInfo extends AbstractItem {
         }
     }
 
+    /**
+     * Checks for log lines of the job, only the last one is read from the job log repository.
+     */
     public boolean hasLogLines() {
-        final List<DBObject> logLines = getProperty(JobInfoProperty.LOG_LINES);
-        return logLines != null && !logLines.isEmpty();
+        return !getLastLogLines(1).isEmpty();
     }
 
+    /**
+     * Returns all log lines of the job. Lines kept in the job log repository are read on the first access.
+     */
     public List<LogLine> getLogLines() {
-        final List<DBObject> logLines = getProperty(JobInfoProperty.LOG_LINES);
-        if (logLines == null) return Collections.emptyList();
-
-        final List<LogLine> result = new ArrayList<>(logLines.size());
-        for (DBObject logLine : logLines) {
-            result.add(new LogLine(logLine));
+        final List<LogLine> embeddedLogLines = getEmbeddedLogLines();
+        if (jobLogRepository == null || getId() == null) {
+            return embeddedLogLines;
         }
+        if (storedLogLines == null) {
+            storedLogLines = jobLogRepository.findLogLines(getId());
+        }
+        final List<LogLine> result = new ArrayList<>(embeddedLogLines.size() + storedLogLines.size());
+        result.addAll(embeddedLogLines);
+        result.addAll(storedLogLines);
         return result;
     }
 
+    /**
+     * Returns the last log lines of the job. Only the lines needed are read from the job log repository.
+     */
     public List<LogLine> getLastLogLines(int maxLines) {
+        final List<LogLine> logLines;
+        if (jobLogRepository == null || getId() == null) {
+            logLines = getEmbeddedLogLines();
+        } else if (storedLogLines != null) {
+            logLines = getLogLines();
+        } else {
+            final List<LogLine> lastStoredLogLines = jobLogRepository.findLastLogLines(getId(), maxLines);
+            if (lastStoredLogLines.size() >= maxLines) {
+                return lastStoredLogLines;
+            }
+            logLines = new ArrayList<>(getEmbeddedLogLines());
+            logLines.addAll(lastStoredLogLines);
+        }
+        int endPos = logLines.size();
+        int startPos = Math.max(0, endPos - maxLines);
+        return new ArrayList<>(logLines.subList(startPos, endPos));
+    }
+
+    private List<LogLine> getEmbeddedLogLines() {
         final List<DBObject> logLines = getProperty(JobInfoProperty.LOG_LINES);
         if (logLines == null) return Collections.emptyList();
 
-        final List<LogLine> result = new ArrayList<>(Math.min(logLines.size(), maxLines));
-        int endPos = logLines.size();
-        int startPos = Math.max(0, endPos - maxLines);
-        for (DBObject logLine : logLines.subList(startPos, endPos)) {
+        final List<LogLine> result = new ArrayList<>(logLines.size());
+        for (DBObject logLine : logLines) {
             result.add(new LogLine(logLine));
         }
         return result;
     }
 
+    /**
+     * The date after which the finished job is removed from the job store, null as long as the job is not finished
+     */
+    public Date getExpireAt() {
+        return getProperty(JobInfoProperty.EXPIRE_AT);
+    }
+
     public Date getLastModifiedTime() {
         return getProperty(JobInfoProperty.LAST_MODIFICATION_TIME);
     }
 
+    /**
+     * Sets the last modification time and advances the idle deadline of the job accordingly
+     */
     public void setLastModifiedTime(Date lastModifiedTime) {
         addProperty(JobInfoProperty.LAST_MODIFICATION_TIME, lastModifiedTime);
+        final Long maxIdleTime = getMaxIdleTime();
+        if (lastModifiedTime != null && maxIdleTime != null) {
+            addProperty(JobInfoProperty.IDLE_DEADLINE, new Date(lastModifiedTime.getTime() + maxIdleTime));
+        }
+    }
+
+    /**
+     * Returns the date after which the job is timed out (startTime + maxExecutionTime) or null if the job is not
+     * running or was stored before deadlines were persisted
+     */
+    public Date getExecutionDeadline() {
+        return getProperty(JobInfoProperty.EXECUTION_DEADLINE);
+    }
+
+    /**
+     * Returns the date after which the job is considered to be dead if unmodified (lastModificationTime + maxIdleTime)
+     * or null if the job was stored before deadlines were persisted
+     */
+    public Date getIdleDeadline() {
+        return getProperty(JobInfoProperty.IDLE_DEADLINE);
     }
 
     public String getRunningState() {
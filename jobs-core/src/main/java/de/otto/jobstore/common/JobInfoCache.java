@@ -1,13 +1,16 @@
 package de.otto.jobstore.common;
 
+import de.otto.jobstore.repository.JobInfoProjection;
 import de.otto.jobstore.repository.JobInfoRepository;
 
+import java.util.HashMap;
 import java.util.Map;
 
 public class JobInfoCache {
 
     private final String id;
     private final JobInfoRepository jobInfoRepository;
+    private final JobInfoWatcher jobInfoWatcher;
     private long updateInterval;
     private volatile long lastUpdate = 0;
     private volatile JobInfo jobInfo;
@@ -15,29 +18,53 @@ public class JobInfoCache {
     public JobInfoCache(String id, JobInfoRepository jobInfoRepository, long updateInterval) {
         this.id = id;
         this.jobInfoRepository = jobInfoRepository;
+        this.jobInfoWatcher = null;
         this.jobInfo = getJobInfo();
         this.updateInterval = updateInterval;
     }
 
+    /**
+     * Creates a cache which reads the job from the given node-wide watcher instead of the repository
+     *
+     * @param id The id of the job
+     * @param jobInfoWatcher The watcher of the jobs executed by this node
+     */
+    public JobInfoCache(String id, JobInfoWatcher jobInfoWatcher) {
+        this.id = id;
+        this.jobInfoRepository = null;
+        this.jobInfoWatcher = jobInfoWatcher;
+        this.jobInfo = jobInfoWatcher.get(id);
+    }
+
     public boolean isAborted() {
-        return getJobInfo().isAborted();
+        final JobInfo jobInfo = getJobInfo();
+        return jobInfo != null && jobInfo.isAborted();
     }
 
     public boolean isTimedOut() {
-        return getJobInfo().isTimedOut();
+        final JobInfo jobInfo = getJobInfo();
+        return jobInfo != null && jobInfo.isTimedOut();
     }
 
     public Map<String, String> getParameters() {
-        return getJobInfo().getParameters();
+        final JobInfo jobInfo = getJobInfo();
+        return jobInfo == null ? new HashMap<String, String>() : jobInfo.getParameters();
     }
 
     private JobInfo getJobInfo() {
+        if (jobInfoWatcher != null) {
+            final JobInfo watchedJobInfo = jobInfoWatcher.get(id);
+            if (watchedJobInfo != null) {
+                jobInfo = watchedJobInfo;
+            }
+            return jobInfo;
+        }
         final long currentTime = System.currentTimeMillis();
         if (lastUpdate + updateInterval < currentTime) {
             synchronized (this) {
                 if (lastUpdate + updateInterval < currentTime) {
                     lastUpdate = currentTime;
-                    jobInfo = jobInfoRepository.findById(id);
+                    jobInfo = jobInfoRepository.findById(id, JobInfoProjection.CONTROL);
                 }
             }
         }
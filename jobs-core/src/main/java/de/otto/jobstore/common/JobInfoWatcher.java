@@ -0,0 +1,159 @@
+package de.otto.jobstore.common;
+
+import de.otto.jobstore.repository.JobInfoProjection;
+import de.otto.jobstore.repository.JobInfoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Node-wide watcher of the jobs executed by this node. Instead of reading each job separately, the abort flag,
+ * start time, max execution time and parameters of all watched running jobs are read with a single query once per
+ * update interval and published to a map, from which the executing jobs read without accessing the database.
+ * Jobs which are no longer running are not watched anymore.
+ */
+public class JobInfoWatcher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JobInfoWatcher.class);
+
+    private final JobInfoRepository jobInfoRepository;
+    private final long updateInterval;
+    private final ConcurrentMap<String, JobInfo> jobInfos = new ConcurrentHashMap<>();
+    private ScheduledExecutorService executorService;
+
+    /**
+     * Creates a JobInfoWatcher, the watching thread is started with the first watched job and again with the first
+     * job watched after a shutdown
+     *
+     * @param jobInfoRepository The repository to read the jobs from
+     * @param updateInterval The time in milliseconds after which the watched jobs are read again
+     */
+    public JobInfoWatcher(JobInfoRepository jobInfoRepository, long updateInterval) {
+        this.jobInfoRepository = jobInfoRepository;
+        this.updateInterval = updateInterval;
+    }
+
+    /**
+     * Returns the most recently read state of the job with the given id. The job is watched from now on, if it is
+     * not yet, and read once.
+     *
+     * @param id The id of the job
+     * @return The job with the properties of the projection {@link JobInfoProjection#WATCH}
+     *          or null if no job with the given id exists
+     */
+    public JobInfo get(String id) {
+        JobInfo jobInfo = jobInfos.get(id);
+        if (jobInfo == null) {
+            jobInfo = jobInfoRepository.findById(id, JobInfoProjection.WATCH);
+            if (jobInfo != null) {
+                jobInfos.put(id, jobInfo);
+                start();
+            }
+        }
+        return jobInfo;
+    }
+
+    /**
+     * Reads the job with the given id again if it is watched, e.g. because another node requested to abort it
+     *
+     * @param id The id of the job
+     */
+    public void refresh(String id) {
+        if (jobInfos.containsKey(id)) {
+            final JobInfo jobInfo = jobInfoRepository.findById(id, JobInfoProjection.WATCH);
+            if (jobInfo == null) {
+                jobInfos.remove(id);
+            } else {
+                jobInfos.replace(id, jobInfo);
+            }
+        }
+    }
+
+    /**
+     * Stops watching the job with the given id
+     *
+     * @param id The id of the job
+     */
+    public void unwatch(String id) {
+        jobInfos.remove(id);
+    }
+
+    /**
+     * Returns the number of watched jobs
+     */
+    public int size() {
+        return jobInfos.size();
+    }
+
+    /**
+     * Reads all watched jobs with a single query and publishes their state
+     */
+    public void update() {
+        final Set<String> ids = new HashSet<>(jobInfos.keySet());
+        if (ids.isEmpty()) {
+            return;
+        }
+        final List<JobInfo> runningJobs = jobInfoRepository.findByIdsAndRunningState(ids, RunningState.RUNNING, JobInfoProjection.WATCH);
+        final Set<String> notRunningIds = new HashSet<>(ids);
+        for (JobInfo jobInfo : runningJobs) {
+            // a job unwatched in the meantime must not be added again
+            jobInfos.replace(jobInfo.getId(), jobInfo);
+            notRunningIds.remove(jobInfo.getId());
+        }
+        for (String id : notRunningIds) {
+            jobInfos.remove(id);
+        }
+    }
+
+    /**
+     * Stops the watching thread and forgets the watched jobs
+     */
+    public synchronized void shutdown() {
+        if (executorService != null) {
+            executorService.shutdownNow();
+            executorService = null;
+        }
+        jobInfos.clear();
+    }
+
+    private synchronized void start() {
+        if (executorService == null) {
+            executorService = Executors.newSingleThreadScheduledExecutor(new JobInfoWatcherThreadFactory());
+            executorService.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        update();
+                    } catch (Exception e) {
+                        LOGGER.error("ltag=JobInfoWatcher.update could not read watched jobs", e);
+                    }
+                }
+            }, updateInterval, updateInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static class JobInfoWatcherThreadFactory implements ThreadFactory {
+        private final ThreadGroup group;
+
+        JobInfoWatcherThreadFactory() {
+            final SecurityManager s = System.getSecurityManager();
+            group = (s == null) ? Thread.currentThread().getThreadGroup() : s.getThreadGroup();
+        }
+
+        public Thread newThread(Runnable r) {
+            final Thread t = new Thread(group, r, "jobInfoWatcher", 0);
+            t.setDaemon(true);
+            return t;
+        }
+    }
+
+}
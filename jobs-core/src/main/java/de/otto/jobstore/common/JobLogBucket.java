@@ -0,0 +1,53 @@
+package de.otto.jobstore.common;
+
+import com.mongodb.DBObject;
+import de.otto.jobstore.common.properties.JobLogProperty;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A bucket holding consecutive log lines of a job. The buckets of a job are ordered by their sequence number.
+ *
+ * {@link de.otto.jobstore.repository.JobLogRepository}
+ */
+public final class JobLogBucket extends AbstractItem {
+
+    private static final long serialVersionUID = -3197730843207486093L;
+
+    public JobLogBucket(DBObject dbObject) {
+        super(dbObject);
+    }
+
+    public String getJobId() {
+        return getProperty(JobLogProperty.JOB_ID);
+    }
+
+    public int getSequence() {
+        final Integer sequence = getProperty(JobLogProperty.SEQUENCE);
+        return sequence == null ? 0 : sequence;
+    }
+
+    public int getCount() {
+        final Integer count = getProperty(JobLogProperty.COUNT);
+        return count == null ? 0 : count;
+    }
+
+    public Date getExpireAt() {
+        return getProperty(JobLogProperty.EXPIRE_AT);
+    }
+
+    public List<LogLine> getLogLines() {
+        final List<DBObject> logLines = getProperty(JobLogProperty.LOG_LINES);
+        if (logLines == null) return Collections.emptyList();
+
+        final List<LogLine> result = new ArrayList<>(logLines.size());
+        for (DBObject logLine : logLines) {
+            result.add(new LogLine(logLine));
+        }
+        return result;
+    }
+
+}
@@ -5,6 +5,18 @@ import org.slf4j.LoggerFactory;
 
 public abstract class JobSchedule implements Runnable {
 
+    /**
+     * Defines how the ticks are handled which became due while the schedule was still running
+     */
+    public enum MissedTickPolicy {
+        /** the missed ticks are dropped, the schedule runs again at its next regular tick */
+        SKIP,
+        /** the missed ticks are merged into a single run right after the current one */
+        COALESCE,
+        /** the schedule runs once for every missed tick, one after the other */
+        CATCH_UP
+    }
+
     private static final Logger LOGGER = LoggerFactory.getLogger(JobSchedule.class);
 
     private long count=0;
@@ -33,7 +45,26 @@ public abstract class JobSchedule implements Runnable {
 
     public abstract String getName();
 
+    /**
+     * The policy for the ticks missed while the schedule was running, the default is {@link MissedTickPolicy#COALESCE}
+     */
+    public MissedTickPolicy missedTickPolicy() {
+        return MissedTickPolicy.COALESCE;
+    }
+
+    /**
+     * Flag if the schedule may block for a long time, e.g. waiting for remote systems. A blocking schedule runs on
+     * a thread of its own, so that it does not delay the other schedules. The default is false.
+     */
+    public boolean blocking() {
+        return false;
+    }
+
     public static JobSchedule create(final String name, final long interval, final Runnable runnable) {
+        return create(name, interval, MissedTickPolicy.COALESCE, runnable);
+    }
+
+    public static JobSchedule create(final String name, final long interval, final MissedTickPolicy missedTickPolicy, final Runnable runnable) {
         return new JobSchedule() {
             @Override
             public long interval() {
@@ -53,6 +84,11 @@ public abstract class JobSchedule implements Runnable {
             public String getName() {
                 return name;
             }
+
+            @Override
+            public MissedTickPolicy missedTickPolicy() {
+                return missedTickPolicy;
+            }
         };
     }
 }
\ No newline at end of file
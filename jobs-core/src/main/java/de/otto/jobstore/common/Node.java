@@ -0,0 +1,60 @@
+package de.otto.jobstore.common;
+
+import com.mongodb.DBObject;
+import de.otto.jobstore.common.properties.NodeProperty;
+
+import java.util.Date;
+
+/**
+ * A node running a JobService instance. The id of a node is the host name which is stored with the jobs it executes.
+ */
+public final class Node extends AbstractItem {
+
+    private static final long serialVersionUID = 4177461378470165322L;
+
+    public Node(DBObject dbObject) {
+        super(dbObject);
+    }
+
+    public Node(String id, String host, Date startTime) {
+        addProperty(NodeProperty.ID, id);
+        addProperty(NodeProperty.HOST, host);
+        addProperty(NodeProperty.START_TIME, startTime);
+        addProperty(NodeProperty.LAST_HEARTBEAT, startTime);
+    }
+
+    public String getId() {
+        return getProperty(NodeProperty.ID);
+    }
+
+    public String getHost() {
+        return getProperty(NodeProperty.HOST);
+    }
+
+    public Date getStartTime() {
+        return getProperty(NodeProperty.START_TIME);
+    }
+
+    public Date getLastHeartbeat() {
+        return getProperty(NodeProperty.LAST_HEARTBEAT);
+    }
+
+    /**
+     * Flag if the node sent a heartbeat within the given time
+     *
+     * @param maxAge The time in milliseconds after which a node without heartbeat is considered to be dead
+     */
+    public boolean isAlive(long maxAge) {
+        final Date lastHeartbeat = getLastHeartbeat();
+        return lastHeartbeat != null && lastHeartbeat.getTime() + maxAge >= System.currentTimeMillis();
+    }
+
+    @Override
+    public String toString() {
+        return "{\"id\":\"" + getId() +
+                "\", \"host\":\"" + getHost() +
+                "\", \"startTime\":\"" + getStartTime() +
+                "\", \"lastHeartbeat\":\"" + getLastHeartbeat() + "\"}";
+    }
+
+}
@@ -7,7 +7,7 @@ import de.otto.jobstore.common.properties.JobDefinitionProperty;
 import java.util.Date;
 import java.util.concurrent.TimeUnit;
 
-public final class StoredJobDefinition extends AbstractItem implements JobDefinition {
+public final class StoredJobDefinition extends AbstractItem implements ExtendedJobDefinition {
 
     public static final StoredJobDefinition JOB_EXEC_SEMAPHORE = new StoredJobDefinition("ALL_JOBS", 0, 0, 0, 0, 0, false, false);
 
@@ -30,6 +30,12 @@ public final class StoredJobDefinition extends AbstractItem implements JobDefini
 
     public StoredJobDefinition(JobDefinition jd) {
         this(jd.getName(), jd.getMaxIdleTime(), jd.getMaxExecutionTime(), jd.getPollingInterval(), jd.getMaxRetries(), jd.getRetryInterval(), jd.isRemote(), jd.isAbortable());
+        if (jd instanceof ExtendedJobDefinition) {
+            final ExtendedJobDefinition extendedJd = (ExtendedJobDefinition) jd;
+            addProperty(JobDefinitionProperty.RETENTION_TIME, extendedJd.getRetentionTime());
+            addProperty(JobDefinitionProperty.INTERRUPTIBLE, extendedJd.isInterruptible());
+            addProperty(JobDefinitionProperty.CRON_EXPRESSION, extendedJd.getCronExpression());
+        }
     }
 
     public String getName() {
@@ -72,6 +78,27 @@ public final class StoredJobDefinition extends AbstractItem implements JobDefini
         return abortable == null ? false : abortable;
     }
 
+    public long getRetentionTime() {
+        final Long retentionTime = getProperty(JobDefinitionProperty.RETENTION_TIME);
+        return retentionTime == null ? -1 : retentionTime;
+    }
+
+    public boolean isInterruptible() {
+        final Boolean interruptible = getProperty(JobDefinitionProperty.INTERRUPTIBLE);
+        return interruptible == null ? false : interruptible;
+    }
+
+    public String getCronExpression() {
+        return getProperty(JobDefinitionProperty.CRON_EXPRESSION);
+    }
+
+    /**
+     * The time at which the job is executed next according to its cron expression or null if it is not scheduled
+     */
+    public Date getNextFireTime() {
+        return getProperty(JobDefinitionProperty.NEXT_FIRE_TIME);
+    }
+
     public void setDisabled(boolean disabled) {
         addProperty(JobDefinitionProperty.DISABLED, disabled);
     }
@@ -16,7 +16,12 @@ public enum JobDefinitionProperty implements ItemProperty {
     REMOTE("remote"),
     DISABLED("disabled", true),
     LAST_NOT_EXECUTED("lastNotExecuted", true),
-    ABORTABLE("abortable");
+    ABORTABLE("abortable"),
+    RETENTION_TIME("retentionTime"),
+    INTERRUPTIBLE("interruptible"),
+    CRON_EXPRESSION("cronExpression", true),
+    NEXT_FIRE_TIME("nextFireTime", true),
+    VERSION("version", true);
 
     private final String value;
     private final boolean dynamic;
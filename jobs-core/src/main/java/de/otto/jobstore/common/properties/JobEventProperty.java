@@ -0,0 +1,26 @@
+package de.otto.jobstore.common.properties;
+
+/**
+ * Key names used to refer to properties in JobEvent.
+ *
+ * {@link de.otto.jobstore.common.JobEvent}
+ */
+public enum JobEventProperty implements ItemProperty {
+
+    ID("_id"),
+    TYPE("type"),
+    JOB_ID("jobId"),
+    NAME("name"),
+    CREATION_TIME("creationTime");
+
+    private final String value;
+
+    private JobEventProperty(String value) {
+        this.value = value;
+    }
+
+    public String val() {
+        return value;
+    }
+
+}
@@ -24,9 +24,12 @@ public enum JobInfoProperty implements ItemProperty {
     MAX_EXECUTION_TIME("maxExecutionTime"),
     RETRIES("retries"),
     LAST_MODIFICATION_TIME("lastModificationTime"),
+    EXECUTION_DEADLINE("executionDeadline"),
+    IDLE_DEADLINE("idleDeadline"),
     ADDITIONAL_DATA("additionalData"),
     LOG_LINES("logLines"),
     REMOTE_JOB_URI("remoteJobUri"),
+    EXPIRE_AT("expireAt"),
     ABORTED("aborted");
 
     private final String value;
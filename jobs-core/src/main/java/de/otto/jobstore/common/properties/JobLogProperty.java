@@ -0,0 +1,27 @@
+package de.otto.jobstore.common.properties;
+
+/**
+ * Key names used to refer to properties in JobLogBucket.
+ *
+ * {@link de.otto.jobstore.common.JobLogBucket}
+ */
+public enum JobLogProperty implements ItemProperty {
+
+    ID("_id"),
+    JOB_ID("jobId"),
+    SEQUENCE("seq"),
+    COUNT("count"),
+    LOG_LINES("logLines"),
+    EXPIRE_AT("expireAt");
+
+    private final String value;
+
+    private JobLogProperty(String value) {
+        this.value = value;
+    }
+
+    public String val() {
+        return value;
+    }
+
+}
@@ -0,0 +1,25 @@
+package de.otto.jobstore.common.properties;
+
+/**
+ * Key names used to refer to properties in Node.
+ *
+ * {@link de.otto.jobstore.common.Node}
+ */
+public enum NodeProperty implements ItemProperty {
+
+    ID("_id"),
+    HOST("host"),
+    START_TIME("startTime"),
+    LAST_HEARTBEAT("lastHeartbeat");
+
+    private final String value;
+
+    private NodeProperty(String value) {
+        this.value = value;
+    }
+
+    public String val() {
+        return value;
+    }
+
+}
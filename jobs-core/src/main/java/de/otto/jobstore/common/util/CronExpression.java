@@ -0,0 +1,158 @@
+package de.otto.jobstore.common.util;
+
+import java.util.BitSet;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * A cron expression with the five fields minute, hour, day of month, month and day of week, e.g. "0 3 * * 1-5"
+ * for 03:00 on every weekday. Each field is either "*", a value, a range "a-b", a step "*&#47;n" or "a-b/n",
+ * or a comma separated list of these. Day of week 0 and 7 both denote sunday. As in the classic cron, a time
+ * matches if either the day of month or the day of week matches when both of them are restricted.
+ */
+public final class CronExpression {
+
+    private static final int MAX_YEARS_AHEAD = 5;
+
+    private final String expression;
+    private final TimeZone timeZone;
+    private final BitSet minutes;
+    private final BitSet hours;
+    private final BitSet daysOfMonth;
+    private final BitSet months;
+    private final BitSet daysOfWeek;
+    private final boolean daysOfMonthRestricted;
+    private final boolean daysOfWeekRestricted;
+
+    /**
+     * Parses the expression, times are computed in the default time zone
+     *
+     * @param expression The cron expression
+     * @throws IllegalArgumentException If the expression is not valid
+     */
+    public CronExpression(String expression) {
+        this(expression, TimeZone.getDefault());
+    }
+
+    /**
+     * Parses the expression
+     *
+     * @param expression The cron expression
+     * @param timeZone The time zone in which the times of the expression are computed
+     * @throws IllegalArgumentException If the expression is not valid
+     */
+    public CronExpression(String expression, TimeZone timeZone) {
+        if (expression == null) {
+            throw new IllegalArgumentException("cron expression may not be null");
+        }
+        final String[] fields = expression.trim().split("\\s+");
+        if (fields.length != 5) {
+            throw new IllegalArgumentException("cron expression '" + expression + "' must consist of 5 fields but has " + fields.length);
+        }
+        this.expression = expression.trim();
+        this.timeZone = timeZone;
+        minutes = parseField(fields[0], 0, 59, expression);
+        hours = parseField(fields[1], 0, 23, expression);
+        daysOfMonth = parseField(fields[2], 1, 31, expression);
+        months = parseField(fields[3], 1, 12, expression);
+        daysOfWeek = parseField(fields[4], 0, 7, expression);
+        if (daysOfWeek.get(7)) {
+            daysOfWeek.set(0);
+        }
+        daysOfMonthRestricted = !fields[2].equals("*");
+        daysOfWeekRestricted = !fields[4].equals("*");
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    /**
+     * Returns the first time matching the expression which is after the given time
+     *
+     * @param after The time after which the next matching time is searched
+     * @return The next matching time at the full minute or null if the expression does not match within the next
+     *          years, e.g. for the 30th of February
+     */
+    public Date next(Date after) {
+        final Calendar calendar = Calendar.getInstance(timeZone);
+        calendar.setTime(after);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        calendar.add(Calendar.MINUTE, 1);
+        final int maxYear = calendar.get(Calendar.YEAR) + MAX_YEARS_AHEAD;
+        while (calendar.get(Calendar.YEAR) <= maxYear) {
+            if (!months.get(calendar.get(Calendar.MONTH) + 1)) {
+                calendar.add(Calendar.MONTH, 1);
+                calendar.set(Calendar.DAY_OF_MONTH, 1);
+                calendar.set(Calendar.HOUR_OF_DAY, 0);
+                calendar.set(Calendar.MINUTE, 0);
+            } else if (!matchesDay(calendar)) {
+                calendar.add(Calendar.DAY_OF_MONTH, 1);
+                calendar.set(Calendar.HOUR_OF_DAY, 0);
+                calendar.set(Calendar.MINUTE, 0);
+            } else if (!hours.get(calendar.get(Calendar.HOUR_OF_DAY))) {
+                calendar.add(Calendar.HOUR_OF_DAY, 1);
+                calendar.set(Calendar.MINUTE, 0);
+            } else if (!minutes.get(calendar.get(Calendar.MINUTE))) {
+                calendar.add(Calendar.MINUTE, 1);
+            } else {
+                return calendar.getTime();
+            }
+        }
+        return null;
+    }
+
+    private boolean matchesDay(Calendar calendar) {
+        final boolean dayOfMonth = daysOfMonth.get(calendar.get(Calendar.DAY_OF_MONTH));
+        final boolean dayOfWeek = daysOfWeek.get(calendar.get(Calendar.DAY_OF_WEEK) - 1);
+        if (daysOfMonthRestricted && daysOfWeekRestricted) {
+            return dayOfMonth || dayOfWeek;
+        }
+        return dayOfMonth && dayOfWeek;
+    }
+
+    private static BitSet parseField(String field, int min, int max, String expression) {
+        final BitSet values = new BitSet(max + 1);
+        for (String part : field.split(",")) {
+            try {
+                int step = 1;
+                String range = part;
+                final int slash = part.indexOf('/');
+                if (slash >= 0) {
+                    step = Integer.parseInt(part.substring(slash + 1));
+                    range = part.substring(0, slash);
+                }
+                int from;
+                int to;
+                if (range.equals("*")) {
+                    from = min;
+                    to = max;
+                } else if (range.indexOf('-') > 0) {
+                    from = Integer.parseInt(range.substring(0, range.indexOf('-')));
+                    to = Integer.parseInt(range.substring(range.indexOf('-') + 1));
+                } else {
+                    from = Integer.parseInt(range);
+                    to = slash >= 0 ? max : from;
+                }
+                if (from < min || to > max || from > to || step < 1) {
+                    throw new IllegalArgumentException("field '" + field + "' of cron expression '" + expression +
+                            "' must be within " + min + " and " + max);
+                }
+                for (int value = from; value <= to; value += step) {
+                    values.set(value);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("field '" + field + "' of cron expression '" + expression + "' is not valid", e);
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+}
@@ -5,19 +5,25 @@ import java.net.UnknownHostException;
 
 public final class InternetUtils {
 
+    private static volatile String hostName;
+
     private InternetUtils() {}
 
     /**
-     * Returns the canonical hostname
+     * Returns the canonical hostname. The hostname is resolved only once, as the reverse lookup may take
+     * a considerable amount of time.
      * @return canonical hostname
      */
     public static String getHostName() {
-        try {
-            final InetAddress address = InetAddress.getLocalHost();
-            return address.getCanonicalHostName();
-        } catch (UnknownHostException e) {
-            return "N/A";
+        if (hostName == null) {
+            try {
+                final InetAddress address = InetAddress.getLocalHost();
+                hostName = address.getCanonicalHostName();
+            } catch (UnknownHostException e) {
+                return "N/A";
+            }
         }
+        return hostName;
     }
 
 }
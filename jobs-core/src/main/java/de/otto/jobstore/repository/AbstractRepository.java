@@ -19,6 +19,8 @@ public abstract class AbstractRepository<E extends AbstractItem> {
 
     private WriteConcern safeWriteConcern = WriteConcern.SAFE;
 
+    private WriteConcernPolicy writeConcernPolicy;
+
     public AbstractRepository(final Mongo mongo, final String dbName, final String collectionName) {
         this(mongo, dbName, collectionName, null, null);
     }
@@ -39,6 +41,7 @@ public abstract class AbstractRepository<E extends AbstractItem> {
         collection = db.getCollection(collectionName);
         logger.info("Prepare access to MongoDB collection '{}' on {}/{}", new Object[]{collectionName, mongo, dbName});
         prepareCollection();
+        writeConcernPolicy = createDefaultWriteConcernPolicy();
     }
 
     public AbstractRepository(final Mongo mongo, final String dbName, final String collectionName, final String username, final String password, WriteConcern safeWriteConcern) {
@@ -47,15 +50,40 @@ public abstract class AbstractRepository<E extends AbstractItem> {
             throw new NullPointerException("writeConcern may not be null");
         }
         this.safeWriteConcern = safeWriteConcern;
+        writeConcernPolicy = createDefaultWriteConcernPolicy();
     }
 
     public WriteConcern getSafeWriteConcern() {
         return safeWriteConcern;
     }
 
+    public WriteConcernPolicy getWriteConcernPolicy() {
+        return writeConcernPolicy;
+    }
+
+    /**
+     * Sets the policy which defines the write concern of each category of writes. By default state transitions and
+     * changes of job definitions are written with the safe write concern of the repository, log lines, progress
+     * information and lifecycle events with the write concern of the collection.
+     *
+     * @param writeConcernPolicy The policy
+     */
+    public void setWriteConcernPolicy(WriteConcernPolicy writeConcernPolicy) {
+        if (writeConcernPolicy == null) {
+            throw new NullPointerException("writeConcernPolicy may not be null");
+        }
+        this.writeConcernPolicy = writeConcernPolicy;
+    }
+
     public void save(E item) {
         final DBObject obj = item.toDbObject();
-        final WriteResult wr = collection.save(obj,getSafeWriteConcern());
+        final long start = System.nanoTime();
+        final WriteResult wr;
+        try {
+            wr = collection.save(obj, writeConcernPolicy.getWriteConcern(WriteConcernPolicy.Category.STATE_TRANSITION));
+        } finally {
+            writeConcernPolicy.recordLatency(WriteConcernPolicy.Category.STATE_TRANSITION, System.nanoTime() - start);
+        }
         final CommandResult cr = wr.getLastError();
         if (!cr.ok()) {
             logger.error("Unable to save job info object={} wr={}: ", wr, obj);
@@ -97,6 +125,107 @@ public abstract class AbstractRepository<E extends AbstractItem> {
         return elements;
     }
 
+    /**
+     * Returns an iterator over the elements of the cursor which fetches them with the given batch size
+     */
+    protected ItemIterator<E> stream(final DBCursor cursor, final int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be at least 1 but was " + batchSize);
+        }
+        return new ItemIterator<>(cursor.batchSize(batchSize), this);
+    }
+
+    /**
+     * Updates the documents matching the query with the write concern of the given category
+     */
+    protected WriteResult update(final WriteConcernPolicy.Category category, final DBObject query, final DBObject update,
+                                 final boolean upsert, final boolean multi) {
+        final long start = System.nanoTime();
+        try {
+            return collection.update(query, update, upsert, multi, writeConcernPolicy.getWriteConcern(category));
+        } finally {
+            writeConcernPolicy.recordLatency(category, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Updates the documents matching the query with the write concern of the given category and returns the result
+     * containing the number of updated documents. Writes of categories configured without acknowledgement are
+     * acknowledged nevertheless, as the number of updated documents and duplicate keys are only reported then.
+     */
+    protected WriteResult updateAndCount(final WriteConcernPolicy.Category category, final DBObject query, final DBObject update,
+                                         final boolean upsert, final boolean multi) {
+        final WriteConcern writeConcern = writeConcernPolicy.getWriteConcern(category);
+        final long start = System.nanoTime();
+        try {
+            return collection.update(query, update, upsert, multi,
+                    writeConcern.callGetLastError() ? writeConcern : WriteConcern.ACKNOWLEDGED);
+        } finally {
+            writeConcernPolicy.recordLatency(category, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Inserts the document with the write concern of the given category
+     */
+    protected WriteResult insert(final WriteConcernPolicy.Category category, final DBObject document) {
+        final long start = System.nanoTime();
+        try {
+            return collection.insert(document, writeConcernPolicy.getWriteConcern(category));
+        } finally {
+            writeConcernPolicy.recordLatency(category, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Removes the documents matching the query with the write concern of the given category
+     */
+    protected WriteResult remove(final WriteConcernPolicy.Category category, final DBObject query) {
+        final long start = System.nanoTime();
+        try {
+            return collection.remove(query, writeConcernPolicy.getWriteConcern(category));
+        } finally {
+            writeConcernPolicy.recordLatency(category, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Runs a command, e.g. a findAndModify, and records its latency for the given category. Commands are always
+     * acknowledged by the server, if the write concern of the category asks for more, e.g. replication or
+     * journaling, it is awaited with a getLastError on the same connection after a successful command.
+     *
+     * @throws MongoException If the write concern of the category could not be fulfilled
+     */
+    protected CommandResult command(final WriteConcernPolicy.Category category, final DBObject command) {
+        final WriteConcern writeConcern = writeConcernPolicy.getWriteConcern(category);
+        final boolean awaitWriteConcern = writeConcern.callGetLastError() && !WriteConcern.ACKNOWLEDGED.equals(writeConcern);
+        final DB db = collection.getDB();
+        final long start = System.nanoTime();
+        if (awaitWriteConcern) {
+            db.requestStart();
+        }
+        try {
+            final CommandResult result = db.command(command);
+            if (awaitWriteConcern && result.ok()) {
+                db.getLastError(writeConcern).throwOnError();
+            }
+            return result;
+        } finally {
+            if (awaitWriteConcern) {
+                db.requestDone();
+            }
+            writeConcernPolicy.recordLatency(category, System.nanoTime() - start);
+        }
+    }
+
+    private WriteConcernPolicy createDefaultWriteConcernPolicy() {
+        final WriteConcernPolicy policy = new WriteConcernPolicy(safeWriteConcern);
+        policy.setWriteConcern(WriteConcernPolicy.Category.LOG, collection.getWriteConcern());
+        policy.setWriteConcern(WriteConcernPolicy.Category.STATUS, collection.getWriteConcern());
+        policy.setWriteConcern(WriteConcernPolicy.Category.EVENT, collection.getWriteConcern());
+        return policy;
+    }
+
     protected E getFirst(final DBCursor cursor) {
         if (cursor.hasNext()) {
             return fromDbObject(cursor.next());
@@ -0,0 +1,51 @@
+package de.otto.jobstore.repository;
+
+import com.mongodb.DBCursor;
+import de.otto.jobstore.common.AbstractItem;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+/**
+ * Iterates over the items matched by a query while they are fetched from the database in batches, so that only
+ * the current batch is held in memory. The iterator has to be closed once it is no longer needed to release
+ * the server side cursor, e.g. with a try-with-resources statement.
+ *
+ * It is iterable only once, {@link #iterator()} returns this iterator.
+ */
+public class ItemIterator<E extends AbstractItem> implements Iterator<E>, Iterable<E>, Closeable {
+
+    private final DBCursor cursor;
+    private final AbstractRepository<E> repository;
+
+    ItemIterator(DBCursor cursor, AbstractRepository<E> repository) {
+        this.cursor = cursor;
+        this.repository = repository;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return cursor.hasNext();
+    }
+
+    @Override
+    public E next() {
+        return repository.fromDbObject(cursor.next());
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("items cannot be removed by the iterator");
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return this;
+    }
+
+    @Override
+    public void close() {
+        cursor.close();
+    }
+
+}
@@ -5,6 +5,7 @@ import de.otto.jobstore.common.*;
 import de.otto.jobstore.common.properties.JobDefinitionProperty;
 
 import java.util.Date;
+import java.util.List;
 
 
 public class JobDefinitionRepository extends AbstractRepository<StoredJobDefinition> {
@@ -25,6 +26,7 @@ public class JobDefinitionRepository extends AbstractRepository<StoredJobDefinit
     @Override
     protected void prepareCollection() {
         collection.ensureIndex(new BasicDBObject(JobDefinitionProperty.NAME.val(), 1), "name", true);
+        collection.ensureIndex(new BasicDBObject(JobDefinitionProperty.NEXT_FIRE_TIME.val(), 1), "nextFireTime");
     }
 
     @Override
@@ -37,7 +39,12 @@ public class JobDefinitionRepository extends AbstractRepository<StoredJobDefinit
 
     public void addOrUpdate(StoredJobDefinition jobDefinition) {
         final DBObject obj = new BasicDBObject(MongoOperator.SET.op(), buildUpdateObject(jobDefinition));
-        collection.update(new BasicDBObject(JobDefinitionProperty.NAME.val(), jobDefinition.getName()), obj, true, false, getSafeWriteConcern());
+        if (jobDefinition.getCronExpression() == null) {
+            // a job which is no longer executed automatically loses its schedule with the same write
+            obj.put(MongoOperator.UNSET.op(), new BasicDBObject(JobDefinitionProperty.CRON_EXPRESSION.val(), 1).
+                    append(JobDefinitionProperty.NEXT_FIRE_TIME.val(), 1));
+        }
+        update(WriteConcernPolicy.Category.DEFINITION, new BasicDBObject(JobDefinitionProperty.NAME.val(), jobDefinition.getName()), obj, true, false);
     }
 
     private BasicDBObject buildUpdateObject(StoredJobDefinition jobDefinition) {
@@ -52,13 +59,94 @@ public class JobDefinitionRepository extends AbstractRepository<StoredJobDefinit
     }
 
     public void setJobExecutionEnabled(String name, boolean executionEnabled) {
-        collection.update(new BasicDBObject(JobDefinitionProperty.NAME.val(), name),
-                new BasicDBObject(MongoOperator.SET.op(), new BasicDBObject(JobDefinitionProperty.DISABLED.val(), !executionEnabled)));
+        update(WriteConcernPolicy.Category.DEFINITION, new BasicDBObject(JobDefinitionProperty.NAME.val(), name),
+                new BasicDBObject(MongoOperator.SET.op(), new BasicDBObject(JobDefinitionProperty.DISABLED.val(), !executionEnabled)), false, false);
+        incrementVersion();
+    }
+
+    /**
+     * Returns the version of the stored job definitions. The version is increased every time the execution of
+     * a job or of all jobs is enabled or disabled and thus allows to detect changes with a single cheap read.
+     *
+     * @return The current version of the job definitions
+     */
+    public long getVersion() {
+        final DBObject object = collection.findOne(new BasicDBObject(JobDefinitionProperty.NAME.val(), StoredJobDefinition.JOB_EXEC_SEMAPHORE.getName()),
+                new BasicDBObject(JobDefinitionProperty.VERSION.val(), 1));
+        if (object == null) {
+            return 0;
+        }
+        final Number version = (Number) object.get(JobDefinitionProperty.VERSION.val());
+        return version == null ? 0 : version.longValue();
+    }
+
+    private void incrementVersion() {
+        update(WriteConcernPolicy.Category.DEFINITION, new BasicDBObject(JobDefinitionProperty.NAME.val(), StoredJobDefinition.JOB_EXEC_SEMAPHORE.getName()),
+                new BasicDBObject(MongoOperator.INC.op(), new BasicDBObject(JobDefinitionProperty.VERSION.val(), 1L)), false, false);
     }
 
     public void setLastNotExecuted(String name, Date date) {
-        collection.update(new BasicDBObject(JobDefinitionProperty.NAME.val(), name),
-                new BasicDBObject(MongoOperator.SET.op(), new BasicDBObject(JobDefinitionProperty.LAST_NOT_EXECUTED.val(), date)));
+        update(WriteConcernPolicy.Category.DEFINITION, new BasicDBObject(JobDefinitionProperty.NAME.val(), name),
+                new BasicDBObject(MongoOperator.SET.op(), new BasicDBObject(JobDefinitionProperty.LAST_NOT_EXECUTED.val(), date)), false, false);
+    }
+
+    /**
+     * Sets the cron expression of the job and the time at which it is executed next. The next fire time is only
+     * set if the cron expression changed, so that registering the job again on any node keeps the fire time
+     * which may be claimed already.
+     *
+     * @param name The name of the job
+     * @param cronExpression The cron expression or null if the job is not executed automatically
+     * @param nextFireTime The time at which the job is executed next or null if it is not executed automatically
+     */
+    public void setSchedule(String name, String cronExpression, Date nextFireTime) {
+        final DBObject query = new BasicDBObject(JobDefinitionProperty.NAME.val(), name).
+                append(JobDefinitionProperty.CRON_EXPRESSION.val(), new BasicDBObject(MongoOperator.NE.op(), cronExpression));
+        update(WriteConcernPolicy.Category.DEFINITION, query, new BasicDBObject(MongoOperator.SET.op(),
+                new BasicDBObject(JobDefinitionProperty.CRON_EXPRESSION.val(), cronExpression).
+                        append(JobDefinitionProperty.NEXT_FIRE_TIME.val(), nextFireTime)), false, false);
+    }
+
+    /**
+     * Returns the job definitions whose next fire time is reached
+     *
+     * @param now The current time
+     * @return The job definitions which are due
+     */
+    public List<StoredJobDefinition> findDueSchedules(Date now) {
+        return getAll(collection.find(new BasicDBObject(JobDefinitionProperty.NEXT_FIRE_TIME.val(),
+                new BasicDBObject(MongoOperator.LTE.op(), now))));
+    }
+
+    /**
+     * Claims the execution of the job at the given fire time by atomically moving its fire time to the next one.
+     * Only one of the nodes trying to claim the same fire time succeeds. The claim fails as well if the cron
+     * expression of the job was changed meanwhile.
+     *
+     * @param name The name of the job
+     * @param cronExpression The cron expression the fire times were computed with
+     * @param fireTime The fire time to claim as read with {@link #findDueSchedules(java.util.Date)}
+     * @param nextFireTime The fire time following the claimed one or null if there is none
+     * @return true - The fire time was claimed and the job has to be executed<br/>
+     *         false - The fire time was claimed by another node or the schedule has changed
+     */
+    public boolean claimFire(String name, String cronExpression, Date fireTime, Date nextFireTime) {
+        final DBObject command = new BasicDBObject("findandmodify", collection.getName()).
+                append("query", new BasicDBObject(JobDefinitionProperty.NAME.val(), name).
+                        append(JobDefinitionProperty.CRON_EXPRESSION.val(), cronExpression).
+                        append(JobDefinitionProperty.NEXT_FIRE_TIME.val(), fireTime)).
+                append("update", new BasicDBObject(MongoOperator.SET.op(),
+                        new BasicDBObject(JobDefinitionProperty.NEXT_FIRE_TIME.val(), nextFireTime))).
+                append("fields", new BasicDBObject(JobDefinitionProperty.NAME.val(), 1));
+        final CommandResult result = command(WriteConcernPolicy.Category.DEFINITION, command);
+        if (!result.ok()) {
+            // older servers report a findAndModify without a matching document as an error
+            if (String.valueOf(result.getErrorMessage()).contains("No matching object found")) {
+                return false;
+            }
+            result.throwOnError();
+        }
+        return result.get("value") != null;
     }
 
 }
@@ -0,0 +1,115 @@
+package de.otto.jobstore.repository;
+
+import com.mongodb.*;
+import de.otto.jobstore.common.JobEvent;
+import de.otto.jobstore.common.properties.JobEventProperty;
+import org.bson.types.ObjectId;
+
+/**
+ * A repository which publishes the lifecycle events of jobs to all nodes. The events are appended to a capped
+ * collection, which keeps them in insertion order and drops the oldest events once it is full, and are followed
+ * by the nodes with a tailable cursor. Publishing an event never fails the operation which caused it, as the nodes
+ * still poll the jobs and the events are a hint to react earlier only.
+ */
+public class JobEventRepository extends AbstractRepository<JobEvent> {
+
+    private static final long CAPPED_COLLECTION_SIZE = 1024 * 1024;
+    private static final int TAIL_BATCH_SIZE = 100;
+
+    public JobEventRepository(Mongo mongo, String dbName, String collectionName) {
+        super(mongo, dbName, collectionName);
+    }
+
+    public JobEventRepository(Mongo mongo, String dbName, String collectionName, String username, String password) {
+        super(mongo, dbName, collectionName, username, password);
+    }
+
+    public JobEventRepository(Mongo mongo, String dbName, String collectionName, String username, String password, WriteConcern safeWriteConcern) {
+        super(mongo, dbName, collectionName, username, password, safeWriteConcern);
+    }
+
+    /**
+     * Publishes an event of the given job
+     *
+     * @param type The type of the event
+     * @param jobId The id of the job
+     * @param name The name of the job or null if it is not known
+     */
+    public void publish(final JobEvent.Type type, final String jobId, final String name) {
+        final JobEvent event = new JobEvent(type, jobId, name);
+        try {
+            insert(WriteConcernPolicy.Category.EVENT, event.toDbObject());
+        } catch (MongoException e) {
+            logger.warn("Could not publish event={}: {}", event, e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the id of the most recently published event
+     *
+     * @return The id of the event or null if no event was published yet
+     */
+    public ObjectId findLastId() {
+        final JobEvent event = getFirst(collection.find(new BasicDBObject(), new BasicDBObject(JobEventProperty.ID.val(), 1)).
+                sort(new BasicDBObject("$natural", SortOrder.DESC.val())).limit(1));
+        return event == null ? null : event.getId();
+    }
+
+    /**
+     * Returns an iterator over the events published after the event with the given id, which waits for further
+     * events once all events are read. Its hasNext method returns false if no event was published for a while or
+     * the cursor was invalidated. The iterator has to be closed afterwards.
+     *
+     * The events are read in the order they were appended to the capped collection and the events up to the given
+     * one are skipped. Their ids are generated by the publishing nodes and are not ordered if their clocks differ,
+     * so the events cannot be queried by their ids. If the given event was dropped from the capped collection
+     * already, all events kept are newer and are returned.
+     *
+     * @param afterId The id of the last event already read or null to read all events
+     * @return The iterator over the events
+     */
+    public ItemIterator<JobEvent> tail(final ObjectId afterId) {
+        final boolean skip = afterId != null &&
+                collection.findOne(new BasicDBObject(JobEventProperty.ID.val(), afterId), new BasicDBObject(JobEventProperty.ID.val(), 1)) != null;
+        final ItemIterator<JobEvent> events = stream(collection.find().
+                addOption(Bytes.QUERYOPTION_TAILABLE).addOption(Bytes.QUERYOPTION_AWAITDATA), TAIL_BATCH_SIZE);
+        if (skip) {
+            try {
+                while (events.hasNext()) {
+                    if (afterId.equals(events.next().getId())) {
+                        break;
+                    }
+                }
+            } catch (RuntimeException e) {
+                events.close();
+                throw e;
+            }
+        }
+        return events;
+    }
+
+    @Override
+    protected void prepareCollection() {
+        final DB db = collection.getDB();
+        if (!db.collectionExists(collection.getName())) {
+            try {
+                db.createCollection(collection.getName(),
+                        new BasicDBObject("capped", true).append("size", CAPPED_COLLECTION_SIZE));
+            } catch (CommandFailureException e) {
+                // the collection was created concurrently by another node
+                logger.info("Capped collection {} not created: {}", collection.getFullName(), e.getMessage());
+            }
+        } else if (!collection.isCapped()) {
+            logger.warn("Collection {} is not capped, events cannot be followed", collection.getFullName());
+        }
+    }
+
+    @Override
+    protected JobEvent fromDbObject(DBObject dbObject) {
+        if (dbObject == null) {
+            return null;
+        }
+        return new JobEvent(dbObject);
+    }
+
+}
@@ -0,0 +1,66 @@
+package de.otto.jobstore.repository;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import de.otto.jobstore.common.properties.JobInfoProperty;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * The properties of a job which are read from the repository
+ */
+public enum JobInfoProjection {
+
+    /** All properties of the job */
+    FULL,
+    /** All properties except log lines which might still be embedded in the job */
+    SUMMARY,
+    /** Only the properties needed to control the execution of the job, e.g. state, timeouts, abort flag and parameters */
+    CONTROL(JobInfoProperty.ID, JobInfoProperty.NAME, JobInfoProperty.HOST, JobInfoProperty.CREATION_TIME,
+            JobInfoProperty.START_TIME, JobInfoProperty.FINISH_TIME, JobInfoProperty.PARAMETERS, JobInfoProperty.EXECUTION_PRIORITY,
+            JobInfoProperty.RUNNING_STATE, JobInfoProperty.RESULT_STATE, JobInfoProperty.MAX_IDLE_TIME,
+            JobInfoProperty.MAX_EXECUTION_TIME, JobInfoProperty.RETRIES, JobInfoProperty.LAST_MODIFICATION_TIME,
+            JobInfoProperty.EXECUTION_DEADLINE, JobInfoProperty.IDLE_DEADLINE, JobInfoProperty.ABORTED),
+    /** Only the properties watched while the job is executed, i.e. abort flag, timeout and parameters */
+    WATCH(JobInfoProperty.ID, JobInfoProperty.START_TIME, JobInfoProperty.MAX_EXECUTION_TIME, JobInfoProperty.PARAMETERS,
+            JobInfoProperty.ABORTED);
+
+    private final JobInfoProperty[] properties;
+
+    private JobInfoProjection(JobInfoProperty... properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Returns the fields to pass to a query with this projection
+     */
+    DBObject fields() {
+        final BasicDBObject fields = new BasicDBObject();
+        if (this == SUMMARY) {
+            fields.append(JobInfoProperty.LOG_LINES.val(), 0);
+        }
+        for (JobInfoProperty property : properties) {
+            fields.append(property.val(), 1);
+        }
+        return fields;
+    }
+
+    /**
+     * Returns the properties contained in this projection, used where fields have to be listed explicitly
+     * as in a $group stage of an aggregation
+     */
+    List<JobInfoProperty> properties() {
+        switch (this) {
+            case FULL:
+                return Arrays.asList(JobInfoProperty.values());
+            case SUMMARY:
+                return new ArrayList<>(EnumSet.complementOf(EnumSet.of(JobInfoProperty.LOG_LINES)));
+            default:
+                return Arrays.asList(properties);
+        }
+    }
+
+}
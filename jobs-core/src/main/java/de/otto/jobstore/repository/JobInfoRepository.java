@@ -9,32 +9,112 @@ import org.bson.types.ObjectId;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A repository which stores information on jobs. For each distinct job name only one job can be running or queued.
  *
  * The method {@link #cleanupTimedOutJobs} needs to be called regularly to remove possible timed out jobs which would
- * otherwise stop new jobs from being able to execute.
+ * otherwise stop new jobs from being able to execute. To find them with an index, the execution and idle deadline of
+ * a running job are stored with the job and the idle deadline is advanced on every update of its lastModified date.
  */
 public class JobInfoRepository extends AbstractRepository<JobInfo> {
 
-    private static final String JOB_NAME_CLEANUP              = "JobInfo_Cleanup";
     private static final String JOB_NAME_TIMED_OUT_CLEANUP    = "JobInfo_TimedOut_Cleanup";
     private static final long FIVE_MINUTES = 5 * 60 * 1000;
+    private static final int MAX_IDLE_TIMES_SIZE = 1000;
+    private static final int DEFAULT_HOURS_AFTER_WHICH_OLD_JOBS_ARE_DELETED = 7 * 24;
+    private static final String JOB_ID = "jobId";
 
-    private int hoursAfterWhichOldJobsAreDeleted         = 7 * 24;
+    private static final String LOG_LINES_COLLECTION_SUFFIX = "LogLines";
+    private static final String EVENTS_COLLECTION_SUFFIX = "Events";
+
+    private final JobLogRepository jobLogRepository;
+    private final JobEventRepository jobEventRepository;
+    private final Map<String, Long> retentionTimes = new ConcurrentHashMap<>();
+    /**
+     * The max idle times of the jobs recently created, activated or modified by this instance, bounded as jobs
+     * finished by other instances or removed by the server are never removed from it
+     */
+    private final Map<String, Long> maxIdleTimes = Collections.synchronizedMap(new LinkedHashMap<String, Long>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > MAX_IDLE_TIMES_SIZE;
+        }
+    });
+    private int hoursAfterWhichOldJobsAreDeleted         = DEFAULT_HOURS_AFTER_WHICH_OLD_JOBS_ARE_DELETED;
     private int hoursAfterWhichNotExecutedJobsAreDeleted = 2;
 
     public JobInfoRepository(Mongo mongo, String dbName, String collectionName) {
         super(mongo, dbName, collectionName);
+        jobLogRepository = new JobLogRepository(mongo, dbName, collectionName + LOG_LINES_COLLECTION_SUFFIX);
+        jobLogRepository.setWriteConcernPolicy(getWriteConcernPolicy());
+        jobEventRepository = new JobEventRepository(mongo, dbName, collectionName + EVENTS_COLLECTION_SUFFIX);
+        jobEventRepository.setWriteConcernPolicy(getWriteConcernPolicy());
     }
 
     public JobInfoRepository(Mongo mongo, String dbName, String collectionName, String username, String password) {
         super(mongo, dbName, collectionName, username, password);
+        jobLogRepository = new JobLogRepository(mongo, dbName, collectionName + LOG_LINES_COLLECTION_SUFFIX, username, password);
+        jobLogRepository.setWriteConcernPolicy(getWriteConcernPolicy());
+        jobEventRepository = new JobEventRepository(mongo, dbName, collectionName + EVENTS_COLLECTION_SUFFIX, username, password);
+        jobEventRepository.setWriteConcernPolicy(getWriteConcernPolicy());
     }
 
     public JobInfoRepository(Mongo mongo, String dbName, String collectionName, String username, String password, WriteConcern safeWriteConcern) {
         super(mongo, dbName, collectionName, username, password, safeWriteConcern);
+        jobLogRepository = new JobLogRepository(mongo, dbName, collectionName + LOG_LINES_COLLECTION_SUFFIX, username, password, safeWriteConcern);
+        jobLogRepository.setWriteConcernPolicy(getWriteConcernPolicy());
+        jobEventRepository = new JobEventRepository(mongo, dbName, collectionName + EVENTS_COLLECTION_SUFFIX, username, password, safeWriteConcern);
+        jobEventRepository.setWriteConcernPolicy(getWriteConcernPolicy());
+    }
+
+    /**
+     * Returns the repository holding the log lines of the jobs, which are stored in the collection named
+     * after the collection of the jobs with the suffix "LogLines"
+     */
+    public JobLogRepository getJobLogRepository() {
+        return jobLogRepository;
+    }
+
+    /**
+     * Returns the repository to which the lifecycle events of the jobs are published, which is stored in the
+     * collection named after the collection of the jobs with the suffix "Events"
+     */
+    public JobEventRepository getJobEventRepository() {
+        return jobEventRepository;
+    }
+
+    /**
+     * Sets the policy which defines the write concern of each category of writes, the policy is shared with
+     * the repositories of the log lines and of the lifecycle events.
+     *
+     * @param writeConcernPolicy The policy
+     */
+    @Override
+    public void setWriteConcernPolicy(WriteConcernPolicy writeConcernPolicy) {
+        super.setWriteConcernPolicy(writeConcernPolicy);
+        jobLogRepository.setWriteConcernPolicy(writeConcernPolicy);
+        jobEventRepository.setWriteConcernPolicy(writeConcernPolicy);
+    }
+
+    public boolean isLazyDecoding() {
+        return collection.getDBDecoderFactory() == LazyDBDecoder.FACTORY;
+    }
+
+    /**
+     * Enables or disables lazy decoding of read jobs. If enabled, the documents of the jobs are kept in their binary
+     * form and a property is decoded on its first access, so that e.g. listing jobs by their name and state does not
+     * decode their log lines, parameters and additional data.
+     *
+     * @param lazyDecoding true - Jobs are decoded lazily<br/>
+     *                     false - Jobs are decoded completely when read, which is the default
+     */
+    public void setLazyDecoding(boolean lazyDecoding) {
+        collection.setDBDecoderFactory(lazyDecoding ? LazyDBDecoder.FACTORY : DefaultDBDecoder.FACTORY);
     }
 
     public int getHoursAfterWhichOldJobsAreDeleted() {
@@ -42,7 +122,8 @@ public class JobInfoRepository extends AbstractRepository<JobInfo> {
     }
 
     /**
-     * Sets the number of hours after which old jobs are removed.
+     * Sets the number of hours after which finished jobs are removed, unless a retention time is set for their name.
+     * Queued jobs are removed after the same time if they are not started. Applies to jobs queued or finished afterwards.
      *
      * @param hours The number of hours
      */
@@ -50,6 +131,21 @@ public class JobInfoRepository extends AbstractRepository<JobInfo> {
         this.hoursAfterWhichOldJobsAreDeleted = hours;
     }
 
+    /**
+     * Sets the time after which finished jobs with the given name are removed, queued jobs which are not started are
+     * removed after the same time. Applies to jobs queued or finished afterwards.
+     *
+     * @param name The name of the jobs
+     * @param retentionTime The time in milliseconds, a value of 0 or less resets to the default retention time
+     */
+    public void setRetentionTime(final String name, final long retentionTime) {
+        if (retentionTime > 0) {
+            retentionTimes.put(name, retentionTime);
+        } else {
+            retentionTimes.remove(name);
+        }
+    }
+
     /**
      * Creates a new job with the given parameters. Host and thread executing the job are determined automatically.
      *
@@ -92,8 +188,15 @@ public class JobInfoRepository extends AbstractRepository<JobInfo> {
             long retries = evaluateRetriesBasedOnPreviouslyFailedJobs(name, maxRetries);
 
             final JobInfo jobInfo = new JobInfo(name, host, thread, maxIdleTime, maxExecutionTime, retries, runningState, executionPriority, parameters);
+            if (runningState == RunningState.QUEUED) {
+                jobInfo.toDbObject().put(JobInfoProperty.EXPIRE_AT.val(), new Date(System.currentTimeMillis() + getRetentionTime(name)));
+            }
 
             save(jobInfo);
+            maxIdleTimes.put(jobInfo.getId(), maxIdleTime);
+            if (runningState == RunningState.QUEUED) {
+                jobEventRepository.publish(JobEvent.Type.QUEUED, jobInfo.getId(), name);
+            }
             return jobInfo.getId();
         } catch (MongoException.DuplicateKey e) {
             logger.warn("job={} with state={} already exists, creation skipped!", name, runningState);
@@ -101,8 +204,103 @@ public class JobInfoRepository extends AbstractRepository<JobInfo> {
         }
     }
 
+    /**
+     * Admits a new job with the given name for execution and decides whether it is run, queued or rejected.
+     * The running and queued job with the given name are read with a single query, afterwards the new job is created
+     * with one atomic upsert against the unique name/state index. Host and thread executing the job are determined
+     * automatically. Losing the race against another instance does not raise an exception but is reported by
+     * the decision of the returned admission.
+     *
+     * @param name The name of the job
+     * @param maxIdleTime Sets the time after which a job is considered to be dead if unmodified (lastModifiedTime + timeout).
+     * @param maxExecutionTime Sets the time after which a job is considered to be dead (startTime + timeout).
+     * @param maxRetries Sets the number of maximum automatic retries if job fails.
+     * @param executionPriority The priority with which the job is to be executed
+     * @param parameters Additional information to be stored with the job
+     * @return The admission containing the decision and the created job or the job which prevented the admission
+     */
+    public JobAdmission admitJob(final String name, final long maxIdleTime, final long maxExecutionTime, final long maxRetries,
+                                 final JobExecutionPriority executionPriority, final Map<String, String> parameters) {
+        JobInfo queuedJob = null;
+        JobInfo runningJob = null;
+        final DBObject query = new BasicDBObject(JobInfoProperty.NAME.val(), name).
+                append(JobInfoProperty.RUNNING_STATE.val(), new BasicDBObject(MongoOperator.IN.op(),
+                        toStringList(EnumSet.of(RunningState.QUEUED, RunningState.RUNNING))));
+        for (JobInfo jobInfo : getAll(collection.find(query, JobInfoProjection.SUMMARY.fields()))) {
+            if (RunningState.QUEUED.name().equals(jobInfo.getRunningState())) {
+                queuedJob = jobInfo;
+            } else {
+                runningJob = jobInfo;
+            }
+        }
+
+        if (queuedJob != null) {
+            if (!queuedJob.hasLowerPriority(executionPriority)) {
+                return new JobAdmission(JobAdmission.Decision.ALREADY_QUEUED, queuedJob);
+            }
+            remove(queuedJob.getId());
+            return admit(name, maxIdleTime, maxExecutionTime, maxRetries, RunningState.QUEUED, executionPriority, parameters);
+        } else if (runningJob == null) {
+            return admit(name, maxIdleTime, maxExecutionTime, maxRetries, RunningState.RUNNING, executionPriority, parameters);
+        } else if (runningJob.hasLowerPriority(executionPriority)) {
+            return admit(name, maxIdleTime, maxExecutionTime, maxRetries, RunningState.QUEUED, executionPriority, parameters);
+        } else {
+            return new JobAdmission(JobAdmission.Decision.NOT_NECESSARY, runningJob);
+        }
+    }
+
+    private JobAdmission admit(final String name, final long maxIdleTime, final long maxExecutionTime, final long maxRetries,
+                               final RunningState runningState, final JobExecutionPriority executionPriority, final Map<String, String> parameters) {
+        logger.info("Admit job={} in state={} ...", name, runningState);
+        final long retries = maxRetries > 0 ? evaluateRetriesBasedOnPreviouslyFailedJobs(name, maxRetries) : maxRetries;
+        final JobInfo jobInfo = new JobInfo(name, InternetUtils.getHostName(), Thread.currentThread().getName(),
+                maxIdleTime, maxExecutionTime, retries, runningState, executionPriority, parameters);
+        final DBObject insert = new BasicDBObject(jobInfo.toDbObject().toMap());
+        insert.removeField(JobInfoProperty.NAME.val());
+        insert.removeField(JobInfoProperty.RUNNING_STATE.val());
+        if (runningState == RunningState.QUEUED) {
+            insert.put(JobInfoProperty.EXPIRE_AT.val(), new Date(System.currentTimeMillis() + getRetentionTime(name)));
+        }
+
+        final DBObject command = new BasicDBObject("findandmodify", collection.getName()).
+                append("query", createFindByNameAndRunningStateQuery(name, runningState.name())).
+                append("update", new BasicDBObject(MongoOperator.SET_ON_INSERT.op(), insert)).
+                append("new", true).
+                append("upsert", true);
+        final CommandResult result = command(WriteConcernPolicy.Category.STATE_TRANSITION, command);
+        if (!result.ok()) {
+            if (isDuplicateKey(result)) {
+                logger.warn("job={} with state={} already exists, admission skipped!", name, runningState);
+                return new JobAdmission(runningState == RunningState.RUNNING ?
+                        JobAdmission.Decision.ALREADY_RUNNING : JobAdmission.Decision.ALREADY_QUEUED, null);
+            }
+            result.throwOnError();
+        }
+
+        final DBObject lastError = (DBObject) result.get("lastErrorObject");
+        final JobInfo admittedJob = fromDbObject((DBObject) result.get("value"));
+        if (lastError != null && Boolean.TRUE.equals(lastError.get("updatedExisting"))) {
+            logger.warn("job={} with state={} already exists, admission skipped!", name, runningState);
+            return new JobAdmission(runningState == RunningState.RUNNING ?
+                    JobAdmission.Decision.ALREADY_RUNNING : JobAdmission.Decision.ALREADY_QUEUED, admittedJob);
+        }
+        maxIdleTimes.put(admittedJob.getId(), maxIdleTime);
+        if (runningState == RunningState.QUEUED) {
+            jobEventRepository.publish(JobEvent.Type.QUEUED, admittedJob.getId(), name);
+        }
+        return new JobAdmission(runningState == RunningState.RUNNING ?
+                JobAdmission.Decision.RUN : JobAdmission.Decision.QUEUE, admittedJob);
+    }
+
+    private boolean isDuplicateKey(CommandResult result) {
+        final String errorMessage = result.getErrorMessage();
+        final Object code = result.get("code");
+        return (code instanceof Number && (((Number) code).intValue() == 11000 || ((Number) code).intValue() == 11001)) ||
+                (errorMessage != null && errorMessage.contains("E11000"));
+    }
+
     public long evaluateRetriesBasedOnPreviouslyFailedJobs(String name, long maxRetries) {
-        JobInfo jobInfo = findMostRecentFinished(name);
+        JobInfo jobInfo = findMostRecentFinished(name, JobInfoProjection.CONTROL);
         if(jobInfo == null || jobInfo.getResultState() == ResultCode.SUCCESSFUL) {
             return maxRetries;
         } else {
@@ -118,10 +316,75 @@ public class JobInfoRepository extends AbstractRepository<JobInfo> {
      * @return The running job or null if no job with the given name is currently running
      */
     public JobInfo findByNameAndRunningState(final String name, final RunningState runningState) {
-        final DBObject jobInfo = collection.findOne(createFindByNameAndRunningStateQuery(name, runningState.name()));
+        return findByNameAndRunningState(name, runningState, JobInfoProjection.FULL);
+    }
+
+    /**
+     * Returns job with the given name and running state
+     *
+     * @param name The name of the job
+     * @param runningState The running state of the job
+     * @param projection The properties of the job to read
+     * @return The running job or null if no job with the given name is currently running
+     */
+    public JobInfo findByNameAndRunningState(final String name, final RunningState runningState, final JobInfoProjection projection) {
+        final DBObject jobInfo = collection.findOne(createFindByNameAndRunningStateQuery(name, runningState.name()), projection.fields());
         return fromDbObject(jobInfo);
     }
 
+    /**
+     * Returns all jobs with one of the given names and the given state without their log lines
+     *
+     * @param names The names of the jobs
+     * @param runningState The running state of the jobs
+     * @return The jobs with one of the given names and the given state
+     */
+    public List<JobInfo> findByNamesAndRunningState(final Collection<String> names, final RunningState runningState) {
+        final DBCursor cursor = collection.find(new BasicDBObject(JobInfoProperty.NAME.val(), new BasicDBObject(MongoOperator.IN.op(), new ArrayList<>(names))).
+                append(JobInfoProperty.RUNNING_STATE.val(), runningState.name()), JobInfoProjection.SUMMARY.fields());
+        return getAll(cursor);
+    }
+
+    /**
+     * Returns the jobs with one of the given ids and the given running state
+     *
+     * @param ids The ids of the jobs
+     * @param runningState The running state of the jobs
+     * @param projection The properties of the jobs to read
+     * @return The jobs with one of the given ids and the given state
+     */
+    public List<JobInfo> findByIdsAndRunningState(final Collection<String> ids, final RunningState runningState, final JobInfoProjection projection) {
+        final List<ObjectId> objectIds = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            if (ObjectId.isValid(id)) {
+                objectIds.add(new ObjectId(id));
+            }
+        }
+        if (objectIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        final DBCursor cursor = collection.find(new BasicDBObject(JobInfoProperty.ID.val(), new BasicDBObject(MongoOperator.IN.op(), objectIds)).
+                append(JobInfoProperty.RUNNING_STATE.val(), runningState.name()), projection.fields());
+        return getAll(cursor);
+    }
+
+    /**
+     * Returns all jobs with the given running state which are not owned by one of the given hosts and were not
+     * started on a remote job executor. Remote jobs are polled by every node, so they do not depend on their host.
+     *
+     * @param runningState The running state of the jobs
+     * @param hosts The hosts which own the jobs which should not be returned
+     * @return The local jobs owned by other hosts
+     */
+    public List<JobInfo> findLocalJobsByRunningStateAndHostNotIn(final RunningState runningState, final Collection<String> hosts) {
+        final DBCursor cursor = collection.find(new BasicDBObject(JobInfoProperty.RUNNING_STATE.val(), runningState.name()).
+                append(JobInfoProperty.HOST.val(), new BasicDBObject(MongoOperator.NIN.op(), new ArrayList<>(hosts))).
+                append(JobInfoProperty.ADDITIONAL_DATA.val() + "." + JobInfoProperty.REMOTE_JOB_URI.val(),
+                        new BasicDBObject(MongoOperator.EXISTS.op(), false)),
+                JobInfoProjection.CONTROL.fields());
+        return getAll(cursor);
+    }
+
     /**
      * Checks if a job with the given name and state exists
      *
@@ -131,7 +394,25 @@ public class JobInfoRepository extends AbstractRepository<JobInfo> {
      *          false - A job with the given name is not running
      */
     public boolean hasJob(final String name, final RunningState runningState) {
-        return findByNameAndRunningState(name, runningState) != null;
+        return collection.findOne(createFindByNameAndRunningStateQuery(name, runningState.name()),
+                new BasicDBObject(JobInfoProperty.ID.val(), 1)) != null;
+    }
+
+    /**
+     * Checks if a job with one of the given names exists in one of the given states
+     *
+     * @param names The names of the jobs
+     * @param runningStates The running states to check for
+     * @return true - A job with one of the given names and states exists<br/>
+     *          false - No job with one of the given names and states exists
+     */
+    public boolean hasAnyJob(final Collection<String> names, final Set<RunningState> runningStates) {
+        if (names.isEmpty() || runningStates.isEmpty()) {
+            return false;
+        }
+        final DBObject query = new BasicDBObject(JobInfoProperty.NAME.val(), new BasicDBObject(MongoOperator.IN.op(), new ArrayList<>(names))).
+                append(JobInfoProperty.RUNNING_STATE.val(), new BasicDBObject(MongoOperator.IN.op(), toStringList(runningStates)));
+        return collection.findOne(query, new BasicDBObject(JobInfoProperty.ID.val(), 1)) != null;
     }
 
     /**
@@ -140,7 +421,33 @@ public class JobInfoRepository extends AbstractRepository<JobInfo> {
      * @return The queued jobs
      */
     public List<JobInfo> findQueuedJobsSortedAscByCreationTime() {
-        final DBCursor cursor = collection.find(new BasicDBObject(JobInfoProperty.RUNNING_STATE.val(), RunningState.QUEUED.name())).
+        return getAll(createQueuedJobsCursor());
+    }
+
+    /**
+     * Returns all queued jobs sorted ascending by start time. The jobs are read in batches while iterating.
+     *
+     * @param batchSize The number of jobs to read with one round trip
+     * @return The iterator over the queued jobs, which has to be closed
+     */
+    public ItemIterator<JobInfo> streamQueuedJobsSortedAscByCreationTime(final int batchSize) {
+        return stream(createQueuedJobsCursor(), batchSize);
+    }
+
+    private DBCursor createQueuedJobsCursor() {
+        return collection.find(new BasicDBObject(JobInfoProperty.RUNNING_STATE.val(), RunningState.QUEUED.name())).
+                sort(new BasicDBObject(JobInfoProperty.CREATION_TIME.val(), SortOrder.ASC.val()));
+    }
+
+    /**
+     * Returns all queued jobs with one of the given names sorted ascending by start time
+     *
+     * @param names The names of the jobs
+     * @return The queued jobs
+     */
+    public List<JobInfo> findQueuedJobsSortedAscByCreationTime(final Collection<String> names) {
+        final DBCursor cursor = collection.find(new BasicDBObject(JobInfoProperty.NAME.val(), new BasicDBObject(MongoOperator.IN.op(), new ArrayList<>(names))).
+                append(JobInfoProperty.RUNNING_STATE.val(), RunningState.QUEUED.name())).
                 sort(new BasicDBObject(JobInfoProperty.CREATION_TIME.val(), SortOrder.ASC.val()));
         return getAll(cursor);
     }
@@ -156,10 +463,42 @@ public class JobInfoRepository extends AbstractRepository<JobInfo> {
      * @return The list of jobs sorted by creationTime in descending order
      */
     public List<JobInfo> findByNameAndTimeRange(final String name, final Date start, final Date end, final Collection<ResultCode> resultCodes) {
-            return findByNameAndTimeRange(name, start, end, resultCodes, false);
+            return findByNameAndTimeRange(name, start, end, resultCodes, JobInfoProjection.FULL);
     }
 
-    private List<JobInfo> findByNameAndTimeRange(final String name, final Date start, final Date end, final Collection<ResultCode> resultCodes, boolean excludeLogLines) {
+    /**
+     * Returns all jobs with the given name which were last modified within the given time range
+     *
+     * @param name The name of the jobs to return
+     * @param start The date on or after which the jobs were last modified
+     * @param end The date on or before which the jobs were last modified
+     * @param resultCodes Limit to the jobs with the specified result states
+     * @param projection The properties of the jobs to read
+     * @return The list of jobs sorted by creationTime in descending order
+     */
+    public List<JobInfo> findByNameAndTimeRange(final String name, final Date start, final Date end, final Collection<ResultCode> resultCodes, final JobInfoProjection projection) {
+        return getAll(createByNameAndTimeRangeCursor(name, start, end, resultCodes, projection));
+    }
+
+    /**
+     * Returns all jobs with the given name which were last modified within the given time range. The jobs are read
+     * in batches while iterating.
+     *
+     * @param name The name of the jobs to return
+     * @param start The date on or after which the jobs were last modified
+     * @param end The date on or before which the jobs were last modified
+     * @param resultCodes Limit to the jobs with the specified result states
+     * @param projection The properties of the jobs to read
+     * @param batchSize The number of jobs to read with one round trip
+     * @return The iterator over the jobs sorted by creationTime in descending order, which has to be closed
+     */
+    public ItemIterator<JobInfo> streamByNameAndTimeRange(final String name, final Date start, final Date end, final Collection<ResultCode> resultCodes,
+                                                          final JobInfoProjection projection, final int batchSize) {
+        return stream(createByNameAndTimeRangeCursor(name, start, end, resultCodes, projection), batchSize);
+    }
+
+    private DBCursor createByNameAndTimeRangeCursor(final String name, final Date start, final Date end, final Collection<ResultCode> resultCodes,
+                                                    final JobInfoProjection projection) {
         final BasicDBObjectBuilder query = new BasicDBObjectBuilder().append(JobInfoProperty.NAME.val(), name);
 
         BasicDBObjectBuilder betweenTimeQuery = new BasicDBObjectBuilder();
@@ -178,28 +517,66 @@ public class JobInfoRepository extends AbstractRepository<JobInfo> {
             query.append(JobInfoProperty.RESULT_STATE.val(), new BasicDBObject(MongoOperator.IN.op(), resultCodeAsStrings));
         }
 
-        BasicDBObject keys = new BasicDBObject();
-        if(excludeLogLines) {
-            keys.put(JobInfoProperty.LOG_LINES.val(), 0);
-        }
-
-        final DBCursor cursor = collection.find(query.get(), keys).
+        final DBCursor cursor = collection.find(query.get(), projection.fields()).
                 sort(new BasicDBObject(JobInfoProperty.CREATION_TIME.val(), SortOrder.DESC.val()));
         logger.info("findByNameAndTimeRange executing cursor {} ", cursor);
-        return getAll(cursor);
+        return cursor;
     }
 
     /**
      * Sets the status of the queued job with the given name to running. The lastModified date of the job is set
-     * to the current date.
+     * to the current date and the execution and idle deadline of the job are computed from it.
      *
      * @param id The id of the job
      * @return true - If the job with the given name was activated successfully<br/>
      *         false - If no queued job with the current name could be found and thus could not activated
      */
     public boolean activateQueuedJobById(final String id) {
+        final DBObject job = collection.findOne(createIdQuery(id), new BasicDBObject(JobInfoProperty.MAX_IDLE_TIME.val(), 1).
+                append(JobInfoProperty.MAX_EXECUTION_TIME.val(), 1));
+        if (job == null) {
+            return false;
+        }
+        final Number maxIdleTime = (Number) job.get(JobInfoProperty.MAX_IDLE_TIME.val());
+        final Number maxExecutionTime = (Number) job.get(JobInfoProperty.MAX_EXECUTION_TIME.val());
+        return activateQueuedJobById(id, maxIdleTime == null ? null : maxIdleTime.longValue(),
+                maxExecutionTime == null ? null : maxExecutionTime.longValue());
+    }
+
+    /**
+     * Sets the status of the queued job with the given name to running without reading the job. The lastModified
+     * date of the job is set to the current date and the execution and idle deadline of the job are computed from it
+     * and the given times, which replace those stored with the job.
+     *
+     * @param id The id of the job
+     * @param maxIdleTime The time after which the job is considered to be dead if unmodified or null if it has none
+     * @param maxExecutionTime The time after which the job is considered to be dead or null if it has none
+     * @return true - If the job with the given name was activated successfully<br/>
+     *         false - If no queued job with the current name could be found and thus could not activated
+     */
+    public boolean activateQueuedJobById(final String id, final Long maxIdleTime, final Long maxExecutionTime) {
         logger.info("Activate job={} ...", id);
-        return changeState(id, RunningState.RUNNING, new Date());
+        final Date dt = new Date();
+        final BasicDBObjectBuilder set = new BasicDBObjectBuilder().
+                append(JobInfoProperty.START_TIME.val(), dt);
+        if (maxExecutionTime != null) {
+            set.append(JobInfoProperty.MAX_EXECUTION_TIME.val(), maxExecutionTime).
+                    append(JobInfoProperty.EXECUTION_DEADLINE.val(), new Date(dt.getTime() + maxExecutionTime));
+        }
+        if (maxIdleTime != null) {
+            set.append(JobInfoProperty.MAX_IDLE_TIME.val(), maxIdleTime).
+                    append(JobInfoProperty.IDLE_DEADLINE.val(), new Date(dt.getTime() + maxIdleTime));
+        }
+        // a running job must not be removed by the server, it expires once it is finished
+        final boolean activated = changeState(id, RunningState.RUNNING, dt, set,
+                new BasicDBObject(MongoOperator.UNSET.op(), new BasicDBObject(JobInfoProperty.EXPIRE_AT.val(), 1)));
+        if (activated) {
+            if (maxIdleTime != null) {
+                maxIdleTimes.put(id, maxIdleTime);
+            }
+            jobEventRepository.publish(JobEvent.Type.ACTIVATED, id, null);
+        }
+        return activated;
     }
 
     /**
@@ -212,17 +589,22 @@ public class JobInfoRepository extends AbstractRepository<JobInfo> {
      */
     public boolean deactivateRunningJob(final String id) {
         logger.info("Deactivate job={} ...", id);
-        return changeState(id, RunningState.QUEUED, null);
+        final Date dt = new Date();
+        final BasicDBObjectBuilder set = new BasicDBObjectBuilder().
+                append(JobInfoProperty.START_TIME.val(), null).
+                append(JobInfoProperty.EXPIRE_AT.val(), new Date(dt.getTime() + getRetentionTime(id, null)));
+        // the deadlines are removed instead of set to null, the timed out query looks for missing ones with $exists
+        final DBObject unset = new BasicDBObject(JobInfoProperty.EXECUTION_DEADLINE.val(), 1).
+                append(JobInfoProperty.IDLE_DEADLINE.val(), 1);
+        return changeState(id, RunningState.QUEUED, dt, set, new BasicDBObject(MongoOperator.UNSET.op(), unset));
     }
 
-    private boolean changeState(final String id, RunningState toState, Date startTime) {
-        final Date dt = new Date();
-        final DBObject update = new BasicDBObject().append(MongoOperator.SET.op(),
-                new BasicDBObject(JobInfoProperty.RUNNING_STATE.val(), toState.name()).
-                        append(JobInfoProperty.START_TIME.val(), startTime).
-                        append(JobInfoProperty.LAST_MODIFICATION_TIME.val(), dt));
+    private boolean changeState(final String id, final RunningState toState, final Date dt, final BasicDBObjectBuilder set, final DBObject update) {
+        set.append(JobInfoProperty.RUNNING_STATE.val(), toState.name()).
+                append(JobInfoProperty.LAST_MODIFICATION_TIME.val(), dt);
+        update.put(MongoOperator.SET.op(), set.get());
         try {
-            final WriteResult result = collection.update(createIdQuery(id), update, false, false, getSafeWriteConcern());
+            final WriteResult result = updateAndCount(WriteConcernPolicy.Category.STATE_TRANSITION, createIdQuery(id), update, false, false);
             return result.getN() == 1;
         } catch (MongoException.DuplicateKey e){
             return false;
@@ -230,14 +612,15 @@ public class JobInfoRepository extends AbstractRepository<JobInfo> {
     }
 
     /**
-     * Set the aborted property of the job to true
+     * Set the aborted property of the job to true and publishes the abort request to all nodes
      *
      * @param id The id of the Job to abort
      */
     public void abortJob(String id) {
         if (ObjectId.isValid(id)) {
-            collection.update(createIdQuery(id),
-                    new BasicDBObject(MongoOperator.SET.op(), new BasicDBObject(JobInfoProperty.ABORTED.val(), true)), false, false, getSafeWriteConcern());
+            update(WriteConcernPolicy.Category.STATE_TRANSITION, createIdQuery(id),
+                    new BasicDBObject(MongoOperator.SET.op(), new BasicDBObject(JobInfoProperty.ABORTED.val(), true)), false, false);
+            jobEventRepository.publish(JobEvent.Type.ABORT_REQUESTED, id, null);
         }
     }
 
@@ -265,7 +648,7 @@ public class JobInfoRepository extends AbstractRepository<JobInfo> {
     public void updateHostThreadInformation(final String id, final String host, final String thread) {
         final DBObject update = new BasicDBObject().append(MongoOperator.SET.op(),
                 new BasicDBObject(JobInfoProperty.HOST.val(), host).append(JobInfoProperty.THREAD.val(), thread));
-        collection.update(createIdQuery(id), update);
+        update(WriteConcernPolicy.Category.STATUS, createIdQuery(id), update, false, false);
     }
 
     /**
@@ -290,8 +673,23 @@ public class JobInfoRepository extends AbstractRepository<JobInfo> {
      *         false - No running job with the given name could be found
      */
     public boolean markAsFinished(final String id, final ResultCode resultCode, final String resultMessage) {
+        return markAsFinished(id, null, resultCode, resultMessage);
+    }
+
+    /**
+     * Marks a job with the given id as finished. Passing the name of the job saves reading it to determine
+     * the retention time of the job.
+     *
+     * @param id The id of the job
+     * @param name The name of the job or null if it is not known
+     * @param resultCode The result state of the job
+     * @param resultMessage The resultMessage of the job
+     * @return true - The job was marked as requested<br/>
+     *         false - No running job with the given name could be found
+     */
+    public boolean markAsFinished(final String id, final String name, final ResultCode resultCode, final String resultMessage) {
         return ObjectId.isValid(id) &&
-                markAsFinished(createIdQuery(id), resultCode, resultMessage);
+                doMarkAsFinished(id, name, resultCode, resultMessage);
     }
 
     /**
@@ -303,7 +701,21 @@ public class JobInfoRepository extends AbstractRepository<JobInfo> {
      *         false - No running job with the given name could be found
      */
     public boolean markAsFinished(final String id, final Throwable t) {
-        return markAsFinished(id, ResultCode.FAILED, t == null ? null : exceptionToMessage(t));
+        return markAsFinished(id, null, t);
+    }
+
+    /**
+     * Marks a job with the given id as finished. Passing the name of the job saves reading it to determine
+     * the retention time of the job.
+     *
+     * @param id The id of the job
+     * @param name The name of the job or null if it is not known
+     * @param t An exception
+     * @return true - The job was marked as requested<br/>
+     *         false - No running job with the given name could be found
+     */
+    public boolean markAsFinished(final String id, final String name, final Throwable t) {
+        return markAsFinished(id, name, ResultCode.FAILED, t == null ? null : exceptionToMessage(t));
     }
 
     /**
@@ -319,9 +731,9 @@ public class JobInfoRepository extends AbstractRepository<JobInfo> {
      */
     public void addAdditionalData(final String id, final String key, final String value) {
         final DBObject update = new BasicDBObject().append(MongoOperator.SET.op(),
-                new BasicDBObjectBuilder().append(JobInfoProperty.LAST_MODIFICATION_TIME.val(), new Date()).
+                createLastModificationUpdate(id, new Date()).
                         append(JobInfoProperty.ADDITIONAL_DATA.val() + "." + key, value).get());
-        collection.update(createIdQuery(id), update);
+        update(WriteConcernPolicy.Category.STATUS, createIdQuery(id), update, false, false);
     }
 
     /**
@@ -335,9 +747,9 @@ public class JobInfoRepository extends AbstractRepository<JobInfo> {
      */
     public void setStatusMessage(final String id, String message) {
         final DBObject update = new BasicDBObject().append(MongoOperator.SET.op(),
-                new BasicDBObjectBuilder().append(JobInfoProperty.LAST_MODIFICATION_TIME.val(), new Date()).
+                createLastModificationUpdate(id, new Date()).
                         append(JobInfoProperty.STATUS_MESSAGE.val(), message).get());
-        collection.update(createIdQuery(id), update);
+        update(WriteConcernPolicy.Category.STATUS, createIdQuery(id), update, false, false);
     }
 
     /**
@@ -347,8 +759,19 @@ public class JobInfoRepository extends AbstractRepository<JobInfo> {
      * @return The job with the given id or null if no corresponding job was found.
      */
     public JobInfo findById(final String id) {
+        return findById(id, JobInfoProjection.FULL);
+    }
+
+    /**
+     * Find a job by its id.
+     *
+     * @param id The id of the job
+     * @param projection The properties of the job to read
+     * @return The job with the given id or null if no corresponding job was found.
+     */
+    public JobInfo findById(final String id, final JobInfoProjection projection) {
         if (ObjectId.isValid(id)) {
-            return fromDbObject(collection.findOne(createIdQuery(id)));
+            return fromDbObject(collection.findOne(createIdQuery(id), projection.fields()));
         } else {
             return null;
         }
@@ -363,9 +786,19 @@ public class JobInfoRepository extends AbstractRepository<JobInfo> {
      * @return All jobs with the given name sorted descending by last modified date
      */
     public List<JobInfo> findByName(final String name, final Integer limit) {
-        final BasicDBObjectBuilder query = new BasicDBObjectBuilder().append(JobInfoProperty.NAME.val(), name);
-        final DBCursor cursor = collection.find(query.get()).
-                sort(new BasicDBObject(JobInfoProperty.CREATION_TIME.val(), SortOrder.DESC.val()));
+        return findByName(name, limit, JobInfoProjection.FULL);
+    }
+
+    /**
+     * Returns all jobs with the given name.
+     *
+     * @param name The name of the jobs
+     * @param limit The maximum number of jobs to return
+     * @param projection The properties of the jobs to read
+     * @return All jobs with the given name sorted descending by creation date
+     */
+    public List<JobInfo> findByName(final String name, final Integer limit, final JobInfoProjection projection) {
+        final DBCursor cursor = createByNameCursor(name, projection);
         if (limit == null) {
             return getAll(cursor);
         } else {
@@ -373,6 +806,23 @@ public class JobInfoRepository extends AbstractRepository<JobInfo> {
         }
     }
 
+    /**
+     * Returns all jobs with the given name. The jobs are read in batches while iterating.
+     *
+     * @param name The name of the jobs
+     * @param projection The properties of the jobs to read
+     * @param batchSize The number of jobs to read with one round trip
+     * @return The iterator over the jobs sorted descending by creation date, which has to be closed
+     */
+    public ItemIterator<JobInfo> streamByName(final String name, final JobInfoProjection projection, final int batchSize) {
+        return stream(createByNameCursor(name, projection), batchSize);
+    }
+
+    private DBCursor createByNameCursor(final String name, final JobInfoProjection projection) {
+        return collection.find(new BasicDBObject(JobInfoProperty.NAME.val(), name), projection.fields()).
+                sort(new BasicDBObject(JobInfoProperty.CREATION_TIME.val(), SortOrder.DESC.val()));
+    }
+
     /**
      * Returns the job with the given name and the most current last modified timestamp.
      * TODO: last modified ODER creation time?
@@ -381,21 +831,108 @@ public class JobInfoRepository extends AbstractRepository<JobInfo> {
      * @return The job with the given name and the most current timestamp or null if none could be found.
      */
     public JobInfo findMostRecent(final String name) {
+        return findMostRecent(name, JobInfoProjection.FULL);
+    }
+
+    /**
+     * Returns the job with the given name and the most current creation timestamp.
+     *
+     * @param name The name of the job
+     * @param projection The properties of the job to read
+     * @return The job with the given name and the most current timestamp or null if none could be found.
+     */
+    public JobInfo findMostRecent(final String name, final JobInfoProjection projection) {
         final DBCursor cursor = collection.find(new BasicDBObject().
-                append(JobInfoProperty.NAME.val(), name)).
+                append(JobInfoProperty.NAME.val(), name), projection.fields()).
                 sort(new BasicDBObject(JobInfoProperty.CREATION_TIME.val(), SortOrder.DESC.val())).limit(1);
         return getFirst(cursor);
     }
 
     public JobInfo findMostRecentFinished(String name) {
+        return findMostRecentFinished(name, JobInfoProjection.FULL);
+    }
+
+    /**
+     * Returns the finished job with the given name and the most current creation timestamp.
+     *
+     * @param name The name of the job
+     * @param projection The properties of the job to read
+     * @return The most recent finished job or null if none could be found.
+     */
+    public JobInfo findMostRecentFinished(final String name, final JobInfoProjection projection) {
         final List<String> resultStates = toStringList(EnumSet.complementOf(EnumSet.of(RunningState.FINISHED)));
         final DBCursor cursor = collection.find(new BasicDBObject().
                 append(JobInfoProperty.NAME.val(), name).
-                append(JobInfoProperty.RUNNING_STATE.val(), new BasicDBObject(MongoOperator.NIN.op(), resultStates))).
+                append(JobInfoProperty.RUNNING_STATE.val(), new BasicDBObject(MongoOperator.NIN.op(), resultStates)), projection.fields()).
                 sort(new BasicDBObject(JobInfoProperty.CREATION_TIME.val(), SortOrder.DESC.val())).limit(1);
         return getFirst(cursor);
     }
 
+    /**
+     * Returns the most recent finished job for each of the given names with a single aggregation. Only the
+     * properties needed to control the execution are returned, e.g. log lines and additional data are omitted.
+     *
+     * @param names The names of the jobs
+     * @return The most recent finished jobs by their name, names without a finished job are not contained
+     */
+    public Map<String, JobInfo> findMostRecentFinished(final Collection<String> names) {
+        if (names.isEmpty()) {
+            return new HashMap<>();
+        }
+        return aggregateMostRecent(createFinishedQuery().
+                append(JobInfoProperty.NAME.val(), new BasicDBObject(MongoOperator.IN.op(), new ArrayList<>(names))),
+                JobInfoProjection.CONTROL);
+    }
+
+    /**
+     * Returns for all existing job names the most recent finished job with a single aggregation.
+     *
+     * @param projection The properties of the jobs to read
+     * @return The most recent finished jobs sorted by their name
+     */
+    public List<JobInfo> findMostRecentFinished(final JobInfoProjection projection) {
+        return new ArrayList<>(aggregateMostRecent(createFinishedQuery(), projection).values());
+    }
+
+    private BasicDBObject createFinishedQuery() {
+        final List<String> resultStates = toStringList(EnumSet.complementOf(EnumSet.of(RunningState.FINISHED)));
+        return new BasicDBObject(JobInfoProperty.RUNNING_STATE.val(), new BasicDBObject(MongoOperator.NIN.op(), resultStates));
+    }
+
+    /**
+     * Returns the most recent job for each name matched by the query. The jobs are sorted along the name_creationTime
+     * index and the first job of each name is picked within the same aggregation.
+     */
+    private Map<String, JobInfo> aggregateMostRecent(final DBObject query, final JobInfoProjection projection) {
+        final List<JobInfoProperty> properties = new ArrayList<>(projection.properties());
+        properties.remove(JobInfoProperty.ID);
+        properties.remove(JobInfoProperty.NAME);
+        final DBObject sort = new BasicDBObject(MongoOperator.SORT.op(), new BasicDBObject().
+                append(JobInfoProperty.NAME.val(), SortOrder.DESC.val()).append(JobInfoProperty.CREATION_TIME.val(), SortOrder.DESC.val()));
+        final DBObject group = new BasicDBObject(JobInfoProperty.ID.val(), "$" + JobInfoProperty.NAME.val()).
+                append(JOB_ID, new BasicDBObject(MongoOperator.FIRST.op(), "$" + JobInfoProperty.ID.val()));
+        for (JobInfoProperty property : properties) {
+            group.put(property.val(), new BasicDBObject(MongoOperator.FIRST.op(), "$" + property.val()));
+        }
+
+        final AggregationOutput output = collection.aggregate(new BasicDBObject(MongoOperator.MATCH.op(), query), sort,
+                new BasicDBObject(MongoOperator.GROUP.op(), group));
+        final Map<String, JobInfo> jobInfos = new TreeMap<>();
+        for (DBObject result : output.results()) {
+            final DBObject dbObject = new BasicDBObject(JobInfoProperty.ID.val(), result.get(JOB_ID)).
+                    append(JobInfoProperty.NAME.val(), result.get(JobInfoProperty.ID.val()));
+            for (JobInfoProperty property : properties) {
+                final Object value = result.get(property.val());
+                if (value != null) {
+                    dbObject.put(property.val(), value);
+                }
+            }
+            final JobInfo jobInfo = fromDbObject(dbObject);
+            jobInfos.put(jobInfo.getName(), jobInfo);
+        }
+        return jobInfos;
+    }
+
     /**
      * Returns the job with the given name and result state(s) as well as the most current last modified timestamp.
      *
@@ -412,19 +949,24 @@ public class JobInfoRepository extends AbstractRepository<JobInfo> {
     }
 
     /**
-     * Returns for all existing job names the job with the most current last modified timestamp regardless of its state.
+     * Returns for all existing job names the job with the most current creation timestamp regardless of its state
+     * without log lines.
      *
-     * @return The jobs with distinct names and the most current last modified timestamp
+     * @return The jobs with distinct names and the most current timestamp sorted by their name
      */
     public List<JobInfo> findMostRecent() {
-        final List<JobInfo> jobs = new ArrayList<>();
-        for (String name : distinctJobNames()) {
-            final JobInfo jobInfo = findMostRecent(name);
-            if (jobInfo != null) {
-                jobs.add(jobInfo);
-            }
-        }
-        return jobs;
+        return findMostRecent(JobInfoProjection.SUMMARY);
+    }
+
+    /**
+     * Returns for all existing job names the job with the most current creation timestamp regardless of its state
+     * with a single aggregation.
+     *
+     * @param projection The properties of the jobs to read
+     * @return The jobs with distinct names and the most current timestamp sorted by their name
+     */
+    public List<JobInfo> findMostRecent(final JobInfoProjection projection) {
+        return new ArrayList<>(aggregateMostRecent(new BasicDBObject(), projection).values());
     }
 
     /**
@@ -447,11 +989,10 @@ public class JobInfoRepository extends AbstractRepository<JobInfo> {
      */
     public void addLogLine(final String jobId, final String line) {
         final Date dt = new Date();
-        final LogLine logLine = new LogLine(line, dt);
+        jobLogRepository.append(jobId, Collections.singletonList(new LogLine(line, dt)));
         final DBObject update = new BasicDBObject().
-                append(MongoOperator.PUSH.op(), new BasicDBObject(JobInfoProperty.LOG_LINES.val(), logLine.toDbObject())).
-                append(MongoOperator.SET.op(), new BasicDBObject(JobInfoProperty.LAST_MODIFICATION_TIME.val(), dt));
-        collection.update(createIdQuery(jobId), update);
+                append(MongoOperator.SET.op(), createLastModificationUpdate(jobId, dt).get());
+        update(WriteConcernPolicy.Category.LOG, createIdQuery(jobId), update, false, false);
     }
 
     /**
@@ -465,15 +1006,36 @@ public class JobInfoRepository extends AbstractRepository<JobInfo> {
      */
     public boolean appendLogLines(final String id, final List<String> lines) {
         final Date dt = new Date();
-        final List<DBObject> logLines = new ArrayList<>();
+        final DBObject update = new BasicDBObject().
+                append(MongoOperator.SET.op(), createLastModificationUpdate(id, dt).get());
+        final WriteResult result = updateAndCount(WriteConcernPolicy.Category.LOG, createIdQuery(id), update, false, false);
+        if (result.getN() != 1) {
+            return false;
+        }
+        final List<LogLine> logLines = new ArrayList<>(lines.size());
         for (String line : lines) {
-            logLines.add(new LogLine(line, dt).toDbObject());
+            logLines.add(new LogLine(line, dt));
         }
-        final DBObject update = new BasicDBObject().
-                append(MongoOperator.PUSH_ALL.op(), new BasicDBObject(JobInfoProperty.LOG_LINES.val(), logLines)).
-                append(MongoOperator.SET.op(), new BasicDBObject(JobInfoProperty.LAST_MODIFICATION_TIME.val(), dt));
-        final WriteResult result = collection.update(createIdQuery(id), update, false, false, getSafeWriteConcern());
-        return result.getN() == 1;
+        jobLogRepository.append(id, logLines);
+        return true;
+    }
+
+    /**
+     * Appends the log lines and sets the additional data of the job with the given id. The lastModified date of the
+     * job is set to the current date, so that log lines and additional data collected over a period of time
+     * are written with one update of the job.
+     *
+     * @param id The id of the job
+     * @param logLines The log lines to append
+     * @param additionalData The additional data to set, existing information with the same key is overwritten
+     */
+    public void appendLogData(final String id, final List<LogLine> logLines, final Map<String, String> additionalData) {
+        final BasicDBObjectBuilder set = createLastModificationUpdate(id, new Date());
+        for (Map.Entry<String, String> entry : additionalData.entrySet()) {
+            set.append(JobInfoProperty.ADDITIONAL_DATA.val() + "." + entry.getKey(), entry.getValue());
+        }
+        update(WriteConcernPolicy.Category.LOG, createIdQuery(id), new BasicDBObject(MongoOperator.SET.op(), set.get()), false, false);
+        jobLogRepository.append(id, logLines);
     }
 
     /**
@@ -483,15 +1045,17 @@ public class JobInfoRepository extends AbstractRepository<JobInfo> {
      * @param currentDate The current date
      */
     public void removeJobIfTimedOut(final String name, final Date currentDate) {
-        final JobInfo job = findByNameAndRunningState(name, RunningState.RUNNING);
+        final JobInfo job = findByNameAndRunningState(name, RunningState.RUNNING, JobInfoProjection.CONTROL);
         if (job != null && (job.isTimedOut(currentDate) || job.isIdleTimeExceeded(currentDate))) {
-            markAsFinished(job.getId(), ResultCode.TIMED_OUT);
+            markAsFinished(job.getId(), name, ResultCode.TIMED_OUT, null);
         }
     }
 
     public void remove(final String id) {
         if (ObjectId.isValid(id)) {
-            collection.remove(createIdQuery(id), getSafeWriteConcern());
+            remove(WriteConcernPolicy.Category.STATE_TRANSITION, createIdQuery(id));
+            jobLogRepository.remove(id);
+            maxIdleTimes.remove(id);
         }
     }
 
@@ -505,7 +1069,8 @@ public class JobInfoRepository extends AbstractRepository<JobInfo> {
     }
 
     /**
-     * Flags all running jobs as timed out if the have not be updated within the max execution time
+     * Flags all running jobs as timed out whose execution or idle deadline has passed. The jobs are found with a
+     * single query along the runningState_executionDeadline and runningState_idleDeadline indexes.
      */
     public int cleanupTimedOutJobs() {
         logger.info("cleanupTimedOutJobs called");
@@ -526,11 +1091,12 @@ public class JobInfoRepository extends AbstractRepository<JobInfo> {
         if (!hasJob(JOB_NAME_TIMED_OUT_CLEANUP, RunningState.RUNNING)) {
             final String id = create(JOB_NAME_TIMED_OUT_CLEANUP, FIVE_MINUTES, FIVE_MINUTES, 0, RunningState.RUNNING, JobExecutionPriority.CHECK_PRECONDITIONS, new HashMap<String, String>());
             if (id != null) { //Job konnte wirklich von diesem Server erzeugt werden.
-                final DBCursor cursor = collection.find(new BasicDBObject(JobInfoProperty.RUNNING_STATE.val(), RunningState.RUNNING.name()));
+                final DBCursor cursor = collection.find(createTimedOutQuery(currentDate), JobInfoProjection.CONTROL.fields());
                 final List<String> removedJobs = new ArrayList<>();
                 for (JobInfo jobInfo : getAll(cursor)) {
-                    if (jobInfo.isTimedOut(currentDate) || jobInfo.isIdleTimeExceeded(currentDate)) {
-                        if (markAsFinished(jobInfo.getId(), ResultCode.TIMED_OUT)) {
+                    // jobs stored without deadlines are matched as well and have to be checked here
+                    if (jobInfo.getIdleDeadline() != null || jobInfo.isTimedOut(currentDate) || jobInfo.isIdleTimeExceeded(currentDate)) {
+                        if (markAsFinished(jobInfo.getId(), jobInfo.getName(), ResultCode.TIMED_OUT, null)) {
                             removedJobs.add(jobInfo.getName() + " - " + jobInfo.getId());
                             ++numberOfRemovedJobs;
                         } else {
@@ -543,97 +1109,116 @@ public class JobInfoRepository extends AbstractRepository<JobInfo> {
                 if (!removedJobs.isEmpty()) {
                     addAdditionalData(id, "removedJobs", removedJobs.toString());
                 }
-                markAsFinished(id, ResultCode.SUCCESSFUL);
+                markAsFinished(id, JOB_NAME_TIMED_OUT_CLEANUP, ResultCode.SUCCESSFUL, null);
             }
         }
         return numberOfRemovedJobs;
     }
 
-    public int cleanupOldJobs() {
-        logger.info("cleanupOldJobs called");
-        try {
-            return doCleanupOldJobs();
-        } catch(Exception e) {
-            logger.error("cleanupOldJobs exception occurred",e);
-        } finally {
-            logger.info("cleanupOldJobs finished");
-        }
-        return 0;
+    private DBObject createTimedOutQuery(final Date currentDate) {
+        final DBObject before = new BasicDBObject(MongoOperator.LT.op(), currentDate);
+        return new BasicDBObject(MongoOperator.OR.op(), Arrays.asList(
+                createRunningQuery().append(JobInfoProperty.EXECUTION_DEADLINE.val(), before),
+                createRunningQuery().append(JobInfoProperty.IDLE_DEADLINE.val(), before),
+                createRunningQuery().append(JobInfoProperty.IDLE_DEADLINE.val(), new BasicDBObject(MongoOperator.EXISTS.op(), false))));
     }
 
-    private int doCleanupOldJobs() {
-        final Date currentDate = new Date();
-        removeJobIfTimedOut(JOB_NAME_CLEANUP, currentDate);
-        int numberOfRemovedJobs = 0;
-        if (!hasJob(JOB_NAME_CLEANUP, RunningState.RUNNING)) {
-            /* register clean up job with max execution time */
-            final String id = create(JOB_NAME_CLEANUP, FIVE_MINUTES, FIVE_MINUTES, 0, RunningState.RUNNING, JobExecutionPriority.CHECK_PRECONDITIONS, new HashMap<String, String>());
-            if (id != null) { //Job konnte wirklich von diesem Server erzeugt werden.
-                final Date beforeDate = new Date(currentDate.getTime() - hoursAfterWhichOldJobsAreDeleted * 60 * 60 * 1000);
-                logger.info("Going to delete not runnnig jobs before {} ...", beforeDate);
-                /* ... good bye ... */
-                numberOfRemovedJobs = cleanupNotRunning(beforeDate);
-                logger.info("Deleted {} not runnnig jobs.", numberOfRemovedJobs);
-                addAdditionalData(id, "numberOfRemovedJobs", String.valueOf(numberOfRemovedJobs));
-                markAsFinished(id, ResultCode.SUCCESSFUL);
+    private BasicDBObject createRunningQuery() {
+        return new BasicDBObject(JobInfoProperty.RUNNING_STATE.val(), RunningState.RUNNING.name());
+    }
+
+    /**
+     * Returns the update of the lastModified date of the job with the given id together with its idle deadline.
+     * The max idle time of the job is only read if it is not remembered from its creation, activation or
+     * a previous modification.
+     */
+    private BasicDBObjectBuilder createLastModificationUpdate(final String id, final Date dt) {
+        final BasicDBObjectBuilder set = new BasicDBObjectBuilder().append(JobInfoProperty.LAST_MODIFICATION_TIME.val(), dt);
+        Long maxIdleTime = maxIdleTimes.get(id);
+        if (maxIdleTime == null) {
+            final DBObject job = collection.findOne(createIdQuery(id), new BasicDBObject(JobInfoProperty.MAX_IDLE_TIME.val(), 1));
+            if (job != null && job.get(JobInfoProperty.MAX_IDLE_TIME.val()) != null) {
+                maxIdleTime = ((Number) job.get(JobInfoProperty.MAX_IDLE_TIME.val())).longValue();
+                maxIdleTimes.put(id, maxIdleTime);
             }
         }
-        return numberOfRemovedJobs;
+        if (maxIdleTime != null) {
+            set.append(JobInfoProperty.IDLE_DEADLINE.val(), new Date(dt.getTime() + maxIdleTime));
+        }
+        return set;
     }
 
     // ~~
 
-    protected int cleanupNotRunning(Date clearJobsBefore) {
-        final WriteResult result = collection.remove(new BasicDBObject().
-                append(JobInfoProperty.CREATION_TIME.val(), new BasicDBObject(MongoOperator.LT.op(), clearJobsBefore)).
-                append(JobInfoProperty.RUNNING_STATE.val(), new BasicDBObject(MongoOperator.NE.op(), RunningState.RUNNING.name())),
-                getSafeWriteConcern());
-        return result.getN();
-    }
-
     protected void prepareCollection() {
+        collection.ensureIndex(new BasicDBObject(JobInfoProperty.EXPIRE_AT.val(), 1),
+                new BasicDBObject("name", "expireAt").append("expireAfterSeconds", 0));
         collection.ensureIndex(new BasicDBObject(JobInfoProperty.NAME.val(), 1));
         collection.ensureIndex(new BasicDBObject(JobInfoProperty.LAST_MODIFICATION_TIME.val(), 1));
         collection.ensureIndex(new BasicDBObject().
                 append(JobInfoProperty.RUNNING_STATE.val(), 1).append(JobInfoProperty.CREATION_TIME.val(), 1), "runningState_creationTime");
         collection.ensureIndex(new BasicDBObject().
                 append(JobInfoProperty.NAME.val(), 1).append(JobInfoProperty.CREATION_TIME.val(), 1), "name_creationTime");
+        collection.ensureIndex(new BasicDBObject().
+                append(JobInfoProperty.RUNNING_STATE.val(), 1).append(JobInfoProperty.EXECUTION_DEADLINE.val(), 1), "runningState_executionDeadline");
+        collection.ensureIndex(new BasicDBObject().
+                append(JobInfoProperty.RUNNING_STATE.val(), 1).append(JobInfoProperty.IDLE_DEADLINE.val(), 1), "runningState_idleDeadline");
         collection.ensureIndex(new BasicDBObject().
                 append(JobInfoProperty.NAME.val(), 1).append(JobInfoProperty.RUNNING_STATE.val(), 1), "name_state", true);
+        expireJobsWithoutExpireAt();
+    }
+
+    /**
+     * Sets the expireAt of jobs finished or queued by versions which did not set it yet, they are removed after the
+     * default retention time from now on. Called while the repository is constructed, so the default applies.
+     */
+    private void expireJobsWithoutExpireAt() {
+        final DBObject query = new BasicDBObject(JobInfoProperty.EXPIRE_AT.val(), new BasicDBObject(MongoOperator.EXISTS.op(), false)).
+                append(JobInfoProperty.RUNNING_STATE.val(), new BasicDBObject(MongoOperator.NE.op(), RunningState.RUNNING.name()));
+        final Date expireAt = new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(DEFAULT_HOURS_AFTER_WHICH_OLD_JOBS_ARE_DELETED));
+        final WriteResult result = collection.update(query, new BasicDBObject(MongoOperator.SET.op(),
+                new BasicDBObject(JobInfoProperty.EXPIRE_AT.val(), expireAt)), false, true);
+        if (result.getN() > 0) {
+            logger.info("Set expireAt={} of {} jobs without it", expireAt, result.getN());
+        }
     }
 
     protected JobInfo fromDbObject(final DBObject dbObject) {
         if (dbObject == null) {
             return null;
         }
-        return new JobInfo(dbObject);
+        return new JobInfo(dbObject, jobLogRepository);
     }
 
-    private DBObject createIdQuery(String id) {
+    private BasicDBObject createIdQuery(String id) {
         return new BasicDBObject(JobInfoProperty.ID.val(), new ObjectId(id));
     }
 
     /**
-     * Marks a running job with the given name as finished.
+     * Marks a running job with the given id as finished. The job and its log lines are removed by the server
+     * once the retention time of the job has passed.
      *
-     * @param query The query of to find object to update
+     * @param id The id of the job
+     * @param name The name of the job or null if it is not known
      * @param resultCode The result state of the job
      * @param resultMessage An optional error message
      * @return true - The job was marked as requested<br/>
      *         false - No running job with the given name could be found
      */
-    private boolean markAsFinished(final DBObject query, final ResultCode resultCode, final String resultMessage) {
+    private boolean doMarkAsFinished(final String id, final String name, final ResultCode resultCode, final String resultMessage) {
         final Date dt = new Date();
+        final Date expireAt = new Date(dt.getTime() + getRetentionTime(id, name));
         final BasicDBObjectBuilder set = new BasicDBObjectBuilder().
                 append(JobInfoProperty.RUNNING_STATE.val(), createFinishedRunningState()).
                 append(JobInfoProperty.LAST_MODIFICATION_TIME.val(), dt).
                 append(JobInfoProperty.FINISH_TIME.val(), dt).
+                append(JobInfoProperty.EXPIRE_AT.val(), expireAt).
                 append(JobInfoProperty.RESULT_STATE.val(), resultCode.name());
         if (resultMessage != null) {
             set.append(JobInfoProperty.RESULT_MESSAGE.val(), resultMessage);
         }
         final DBObject update = new BasicDBObject().append(MongoOperator.SET.op(), set.get());
-        final WriteResult result = collection.update(query, update, false, false, getSafeWriteConcern());
+        final WriteResult result = updateAndCount(WriteConcernPolicy.Category.STATE_TRANSITION, createIdQuery(id), update, false, false);
         String lastConcern = null;
         boolean updateCount = false;
         try {
@@ -643,9 +1228,31 @@ public class JobInfoRepository extends AbstractRepository<JobInfo> {
             logger.error("Exception occured during update lastConcern=" + lastConcern + " updateCount=" + updateCount + " ExceptionMessage: " + e.getMessage());
             throw e;
         }
+        if (updateCount) {
+            jobLogRepository.expire(id, expireAt);
+            jobEventRepository.publish(JobEvent.Type.FINISHED, id, null);
+        }
+        maxIdleTimes.remove(id);
         return updateCount;
     }
 
+    /**
+     * Returns the retention time of the job with the given id, its name is only read if it is not given and
+     * retention times are set for some names.
+     */
+    private long getRetentionTime(final String id, final String name) {
+        if (name == null && !retentionTimes.isEmpty()) {
+            final DBObject job = collection.findOne(createIdQuery(id), new BasicDBObject(JobInfoProperty.NAME.val(), 1));
+            return getRetentionTime(job == null ? null : (String) job.get(JobInfoProperty.NAME.val()));
+        }
+        return getRetentionTime(name);
+    }
+
+    private long getRetentionTime(final String name) {
+        final Long retentionTime = name == null ? null : retentionTimes.get(name);
+        return retentionTime == null ? TimeUnit.HOURS.toMillis(hoursAfterWhichOldJobsAreDeleted) : retentionTime;
+    }
+
     private BasicDBObject createFindByNameAndRunningStateQuery(final String name, final String state) {
         return new BasicDBObject().append(JobInfoProperty.NAME.val(), name).
                 append(JobInfoProperty.RUNNING_STATE.val(), state);
@@ -677,21 +1284,47 @@ public class JobInfoRepository extends AbstractRepository<JobInfo> {
         return strings;
     }
 
-    public void appendParameters(String id, Map<String, String> additionalParameters) {
-        JobInfo jobInfo = findById(id);
-        if(jobInfo != null) {
-            Map<String, String> parameters = appendParameters(jobInfo, additionalParameters);
-            jobInfo.setParameters(parameters);
-            save(jobInfo);
+    /**
+     * Adds the given parameters to the parameters of the job with the given id, existing parameters are kept.
+     * The job is not read, each update only sets parameters which are still missing, so concurrent updates
+     * of the job, e.g. of its log lines, abort flag or parameters, are not lost. Usually the first update
+     * sets all parameters, the parameters are only set one by one if some of them exist already.
+     *
+     * @param id The id of the job
+     * @param additionalParameters The parameters to add
+     */
+    public void appendParameters(final String id, final Map<String, String> additionalParameters) {
+        if (additionalParameters == null || additionalParameters.isEmpty() || !ObjectId.isValid(id)) {
+            return;
+        }
+        final DBObject query = createParametersObjectQuery(id);
+        final BasicDBObjectBuilder set = new BasicDBObjectBuilder();
+        for (Map.Entry<String, String> entry : additionalParameters.entrySet()) {
+            query.put(JobInfoProperty.PARAMETERS.val() + "." + entry.getKey(), new BasicDBObject(MongoOperator.EXISTS.op(), false));
+            set.append(JobInfoProperty.PARAMETERS.val() + "." + entry.getKey(), entry.getValue());
+        }
+        if (updateParameters(query, set.get())) {
+            return;
+        }
+        // a job stored without parameters gets all of them at once
+        if (updateParameters(createIdQuery(id).append(JobInfoProperty.PARAMETERS.val(), null),
+                new BasicDBObject(JobInfoProperty.PARAMETERS.val(), new BasicDBObject(additionalParameters)))) {
+            return;
+        }
+        for (Map.Entry<String, String> entry : additionalParameters.entrySet()) {
+            final String field = JobInfoProperty.PARAMETERS.val() + "." + entry.getKey();
+            updateParameters(createParametersObjectQuery(id).append(field, new BasicDBObject(MongoOperator.EXISTS.op(), false)),
+                    new BasicDBObject(field, entry.getValue()));
         }
     }
 
-    Map<String, String> appendParameters(JobInfo jobInfo, Map<String, String> additionalParameters) {
-        Map<String, String> parameters = new HashMap<>();
-        parameters.putAll(additionalParameters);
-        parameters.putAll(jobInfo.getParameters());
-        return parameters;
+    private BasicDBObject createParametersObjectQuery(final String id) {
+        // the fields of the parameters can only be set if they are stored as an object
+        return createIdQuery(id).append(JobInfoProperty.PARAMETERS.val(), new BasicDBObject(MongoOperator.TYPE.op(), 3));
     }
 
+    private boolean updateParameters(final DBObject query, final DBObject set) {
+        return updateAndCount(WriteConcernPolicy.Category.STATUS, query, new BasicDBObject(MongoOperator.SET.op(), set), false, false).getN() == 1;
+    }
 
 }
@@ -0,0 +1,220 @@
+package de.otto.jobstore.repository;
+
+import com.mongodb.*;
+import de.otto.jobstore.common.JobLogBucket;
+import de.otto.jobstore.common.LogLine;
+import de.otto.jobstore.common.properties.JobLogProperty;
+
+import java.util.*;
+
+/**
+ * A repository which stores the log lines of jobs outside of the job documents. The log lines of a job are stored
+ * in buckets, each bucket holds a limited number of lines and is identified by the id of the job and a sequence number.
+ * Appending lines thus never grows the job document and reading a job does not transfer its log.
+ */
+public class JobLogRepository extends AbstractRepository<JobLogBucket> {
+
+    private static final int DEFAULT_BUCKET_SIZE = 100;
+
+    private int bucketSize = DEFAULT_BUCKET_SIZE;
+
+    public JobLogRepository(Mongo mongo, String dbName, String collectionName) {
+        super(mongo, dbName, collectionName);
+    }
+
+    public JobLogRepository(Mongo mongo, String dbName, String collectionName, String username, String password) {
+        super(mongo, dbName, collectionName, username, password);
+    }
+
+    public JobLogRepository(Mongo mongo, String dbName, String collectionName, String username, String password, WriteConcern safeWriteConcern) {
+        super(mongo, dbName, collectionName, username, password, safeWriteConcern);
+    }
+
+    public int getBucketSize() {
+        return bucketSize;
+    }
+
+    /**
+     * Sets the number of log lines after which a new bucket is started. The default is 100 lines.
+     *
+     * @param bucketSize The number of log lines per bucket
+     */
+    public void setBucketSize(int bucketSize) {
+        this.bucketSize = bucketSize;
+    }
+
+    /**
+     * Appends the log lines to the log of the job with the given id. The lines are added to the last bucket of the
+     * job as long as it is not full, otherwise a new bucket is started. A new bucket expires together with the last
+     * bucket, so lines appended after the job was finished are removed with the rest of its log.
+     *
+     * @param jobId The id of the job
+     * @param logLines The log lines to append
+     */
+    public void append(final String jobId, final List<LogLine> logLines) {
+        if (logLines.isEmpty()) {
+            return;
+        }
+        final DBObject update = createAppendUpdate(logLines);
+        final JobLogBucket lastBucket = getFirst(collection.find(new BasicDBObject(JobLogProperty.JOB_ID.val(), jobId),
+                new BasicDBObject(JobLogProperty.SEQUENCE.val(), 1).append(JobLogProperty.COUNT.val(), 1).
+                        append(JobLogProperty.EXPIRE_AT.val(), 1)).
+                sort(new BasicDBObject(JobLogProperty.SEQUENCE.val(), SortOrder.DESC.val())).limit(1));
+        if (lastBucket != null && lastBucket.getCount() < bucketSize) {
+            final WriteResult result = updateAndCount(WriteConcernPolicy.Category.LOG, createBucketQuery(jobId, lastBucket.getSequence()).
+                    append(JobLogProperty.COUNT.val(), new BasicDBObject(MongoOperator.LT.op(), bucketSize)),
+                    update, false, false);
+            if (result.getN() == 1) {
+                return;
+            }
+        }
+        final BasicDBObject nextBucketQuery = createBucketQuery(jobId, lastBucket == null ? 0 : lastBucket.getSequence() + 1);
+        if (lastBucket != null && lastBucket.getExpireAt() != null) {
+            update.put(MongoOperator.SET.op(), new BasicDBObject(JobLogProperty.EXPIRE_AT.val(), lastBucket.getExpireAt()));
+        }
+        try {
+            updateAndCount(WriteConcernPolicy.Category.LOG, nextBucketQuery, update, true, false);
+        } catch (MongoException.DuplicateKey e) {
+            // the bucket was started concurrently, lines may exceed the bucket size in this case
+            update(WriteConcernPolicy.Category.LOG, nextBucketQuery, update, false, false);
+        }
+    }
+
+    /**
+     * Returns all log lines of the job with the given id
+     *
+     * @param jobId The id of the job
+     * @return The log lines in the order they were appended
+     */
+    public List<LogLine> findLogLines(final String jobId) {
+        final DBCursor cursor = collection.find(new BasicDBObject(JobLogProperty.JOB_ID.val(), jobId)).
+                sort(new BasicDBObject(JobLogProperty.SEQUENCE.val(), SortOrder.ASC.val()));
+        final List<LogLine> logLines = new ArrayList<>();
+        for (JobLogBucket bucket : getAll(cursor)) {
+            logLines.addAll(bucket.getLogLines());
+        }
+        return logLines;
+    }
+
+    /**
+     * Returns the last log lines of the job with the given id, only the buckets holding these lines are read
+     *
+     * @param jobId The id of the job
+     * @param maxLines The maximum number of log lines to return
+     * @return The last log lines in the order they were appended
+     */
+    public List<LogLine> findLastLogLines(final String jobId, final int maxLines) {
+        if (maxLines <= 0) {
+            return Collections.emptyList();
+        }
+        final DBCursor cursor = collection.find(new BasicDBObject(JobLogProperty.JOB_ID.val(), jobId)).
+                sort(new BasicDBObject(JobLogProperty.SEQUENCE.val(), SortOrder.DESC.val()));
+        final LinkedList<List<LogLine>> buckets = new LinkedList<>();
+        int nrLines = 0;
+        try {
+            while (nrLines < maxLines && cursor.hasNext()) {
+                final List<LogLine> bucketLines = fromDbObject(cursor.next()).getLogLines();
+                buckets.addFirst(bucketLines);
+                nrLines += bucketLines.size();
+            }
+        } finally {
+            cursor.close();
+        }
+        final List<LogLine> logLines = new ArrayList<>(nrLines);
+        for (List<LogLine> bucketLines : buckets) {
+            logLines.addAll(bucketLines);
+        }
+        return logLines.subList(Math.max(0, logLines.size() - maxLines), logLines.size());
+    }
+
+    /**
+     * Returns the number of log lines of the job with the given id without reading the lines
+     *
+     * @param jobId The id of the job
+     */
+    public int countLogLines(final String jobId) {
+        final DBCursor cursor = collection.find(new BasicDBObject(JobLogProperty.JOB_ID.val(), jobId),
+                new BasicDBObject(JobLogProperty.COUNT.val(), 1));
+        int count = 0;
+        for (JobLogBucket bucket : getAll(cursor)) {
+            count += bucket.getCount();
+        }
+        return count;
+    }
+
+    /**
+     * Sets the date after which the log lines of the job with the given id are removed by the server. If the job
+     * has no log lines yet an empty bucket is started, so lines appended later on expire as well.
+     *
+     * @param jobId The id of the job
+     * @param expireAt The date after which the log lines are removed
+     */
+    public void expire(final String jobId, final Date expireAt) {
+        final DBObject update = new BasicDBObject(MongoOperator.SET.op(), new BasicDBObject(JobLogProperty.EXPIRE_AT.val(), expireAt));
+        final WriteResult result = updateAndCount(WriteConcernPolicy.Category.STATE_TRANSITION,
+                new BasicDBObject(JobLogProperty.JOB_ID.val(), jobId), update, false, true);
+        if (result.getN() > 0) {
+            return;
+        }
+        try {
+            updateAndCount(WriteConcernPolicy.Category.STATE_TRANSITION, createBucketQuery(jobId, 0),
+                    new BasicDBObject(update.toMap()).append(MongoOperator.SET_ON_INSERT.op(), new BasicDBObject(JobLogProperty.COUNT.val(), 0)),
+                    true, false);
+        } catch (MongoException.DuplicateKey e) {
+            // the first bucket was started concurrently
+            update(WriteConcernPolicy.Category.STATE_TRANSITION, new BasicDBObject(JobLogProperty.JOB_ID.val(), jobId), update, false, true);
+        }
+    }
+
+    /**
+     * Removes the log lines of the job with the given id
+     *
+     * @param jobId The id of the job
+     */
+    public void remove(final String jobId) {
+        remove(WriteConcernPolicy.Category.STATE_TRANSITION, new BasicDBObject(JobLogProperty.JOB_ID.val(), jobId));
+    }
+
+    /**
+     * Removes the log lines of the jobs with the given ids
+     *
+     * @param jobIds The ids of the jobs
+     */
+    public void remove(final Collection<String> jobIds) {
+        if (!jobIds.isEmpty()) {
+            remove(WriteConcernPolicy.Category.STATE_TRANSITION, new BasicDBObject(JobLogProperty.JOB_ID.val(),
+                    new BasicDBObject(MongoOperator.IN.op(), new ArrayList<>(jobIds))));
+        }
+    }
+
+    @Override
+    protected void prepareCollection() {
+        collection.ensureIndex(new BasicDBObject(JobLogProperty.EXPIRE_AT.val(), 1),
+                new BasicDBObject("name", "expireAt").append("expireAfterSeconds", 0));
+        collection.ensureIndex(new BasicDBObject().
+                append(JobLogProperty.JOB_ID.val(), 1).append(JobLogProperty.SEQUENCE.val(), 1), "jobId_seq", true);
+    }
+
+    @Override
+    protected JobLogBucket fromDbObject(DBObject dbObject) {
+        if (dbObject == null) {
+            return null;
+        }
+        return new JobLogBucket(dbObject);
+    }
+
+    private BasicDBObject createBucketQuery(final String jobId, final int sequence) {
+        return new BasicDBObject(JobLogProperty.JOB_ID.val(), jobId).append(JobLogProperty.SEQUENCE.val(), sequence);
+    }
+
+    private DBObject createAppendUpdate(final List<LogLine> logLines) {
+        final List<DBObject> lines = new ArrayList<>(logLines.size());
+        for (LogLine logLine : logLines) {
+            lines.add(logLine.toDbObject());
+        }
+        return new BasicDBObject().
+                append(MongoOperator.PUSH.op(), new BasicDBObject(JobLogProperty.LOG_LINES.val(), new BasicDBObject(MongoOperator.EACH.op(), lines))).
+                append(MongoOperator.INC.op(), new BasicDBObject(JobLogProperty.COUNT.val(), logLines.size()));
+    }
+
+}
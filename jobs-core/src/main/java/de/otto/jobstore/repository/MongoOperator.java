@@ -7,15 +7,27 @@ package de.otto.jobstore.repository;
  */
 enum MongoOperator {
 
+    EACH("$each"),
+    EXISTS("$exists"),
+    FIRST("$first"),
+    GROUP("$group"),
+    GT("$gt"),
     GTE("$gte"),
     IN("$in"),
+    INC("$inc"),
     LT("$lt"),
     LTE("$lte"),
+    MATCH("$match"),
     NE("$ne"),
     NIN("$nin"),
+    OR("$or"),
     PUSH("$push"),
     PUSH_ALL("$pushAll"),
-    SET("$set");
+    SET("$set"),
+    SET_ON_INSERT("$setOnInsert"),
+    SORT("$sort"),
+    TYPE("$type"),
+    UNSET("$unset");
 
     private final String op;
 
@@ -0,0 +1,75 @@
+package de.otto.jobstore.repository;
+
+import com.mongodb.*;
+import de.otto.jobstore.common.Node;
+import de.otto.jobstore.common.properties.NodeProperty;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A repository which stores the nodes running a JobService instance together with their last heartbeat.
+ */
+public class NodeRepository extends AbstractRepository<Node> {
+
+    public NodeRepository(Mongo mongo, String dbName, String collectionName) {
+        super(mongo, dbName, collectionName);
+    }
+
+    public NodeRepository(Mongo mongo, String dbName, String collectionName, String username, String password) {
+        super(mongo, dbName, collectionName, username, password);
+    }
+
+    public Node find(String id) {
+        return fromDbObject(collection.findOne(new BasicDBObject(NodeProperty.ID.val(), id)));
+    }
+
+    /**
+     * Registers the given node, a previously registered node with the same id is replaced
+     */
+    public void register(Node node) {
+        save(node);
+    }
+
+    /**
+     * Updates the last heartbeat of the node with the given id
+     *
+     * @param id The id of the node
+     * @return true - The heartbeat was stored<br/>
+     *         false - No node with the given id is registered
+     */
+    public boolean heartbeat(String id) {
+        final WriteResult result = collection.update(new BasicDBObject(NodeProperty.ID.val(), id),
+                new BasicDBObject(MongoOperator.SET.op(), new BasicDBObject(NodeProperty.LAST_HEARTBEAT.val(), new Date())));
+        return result.getN() == 1;
+    }
+
+    /**
+     * Returns all nodes which sent a heartbeat within the given time
+     *
+     * @param maxAge The time in milliseconds after which a node without heartbeat is considered to be dead
+     */
+    public List<Node> findAlive(long maxAge) {
+        final DBCursor cursor = collection.find(new BasicDBObject(NodeProperty.LAST_HEARTBEAT.val(),
+                new BasicDBObject(MongoOperator.GTE.op(), new Date(System.currentTimeMillis() - maxAge))));
+        return getAll(cursor);
+    }
+
+    public void remove(String id) {
+        collection.remove(new BasicDBObject(NodeProperty.ID.val(), id));
+    }
+
+    @Override
+    protected void prepareCollection() {
+        collection.ensureIndex(new BasicDBObject(NodeProperty.LAST_HEARTBEAT.val(), 1));
+    }
+
+    @Override
+    protected Node fromDbObject(DBObject dbObject) {
+        if (dbObject == null) {
+            return null;
+        }
+        return new Node(dbObject);
+    }
+
+}
@@ -0,0 +1,177 @@
+package de.otto.jobstore.repository;
+
+import com.mongodb.WriteConcern;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Defines the write concern with which the writes of a repository are executed, depending on the category of the
+ * write, and measures the latency of the writes of each category. A policy can be shared by several repositories,
+ * its statistics then cover the writes of all of them.
+ */
+public final class WriteConcernPolicy {
+
+    public enum Category {
+        /** Creation, activation, abortion, completion and removal of jobs, which must not get lost */
+        STATE_TRANSITION,
+        /** Changes of job definitions, e.g. enabling or disabling their execution */
+        DEFINITION,
+        /** Log lines of jobs */
+        LOG,
+        /** Progress information of running jobs, e.g. additional data, status message and host */
+        STATUS,
+        /** Lifecycle events of jobs published to all nodes, which are a hint only as the nodes still poll */
+        EVENT
+    }
+
+    /** The time in milliseconds the state transitions of the tiered policy wait for the majority of the replica set */
+    public static final int MAJORITY_TIMEOUT = 5000;
+
+    private final Map<Category, WriteConcern> writeConcerns = new EnumMap<>(Category.class);
+    private final Map<Category, Latency> latencies = new EnumMap<>(Category.class);
+
+    /**
+     * Creates a policy which executes all writes with the given write concern
+     *
+     * @param writeConcern The write concern of all categories
+     */
+    public WriteConcernPolicy(WriteConcern writeConcern) {
+        for (Category category : Category.values()) {
+            writeConcerns.put(category, writeConcern);
+            latencies.put(category, new Latency());
+        }
+    }
+
+    /**
+     * Creates a policy which executes state transitions with majority and journaled durability, changes of job
+     * definitions journaled, log lines acknowledged and progress information and lifecycle events without waiting
+     * for an acknowledgement.
+     * <p/>
+     * A state transition waits up to {@link #MAJORITY_TIMEOUT} for the majority, so that writes do not hang while the
+     * replica set has no majority. If the timeout passes the write fails with a MongoException, although it was
+     * applied on the primary and may still reach the majority. The caller thus cannot tell if the transition took
+     * place, e.g. a job may be marked as finished although the exception is logged as failure to finish it.
+     */
+    public static WriteConcernPolicy tiered() {
+        final WriteConcernPolicy policy = new WriteConcernPolicy(WriteConcern.ACKNOWLEDGED);
+        policy.setWriteConcern(Category.STATE_TRANSITION, new WriteConcern("majority", MAJORITY_TIMEOUT, false, true));
+        policy.setWriteConcern(Category.DEFINITION, WriteConcern.JOURNALED);
+        policy.setWriteConcern(Category.STATUS, WriteConcern.UNACKNOWLEDGED);
+        policy.setWriteConcern(Category.EVENT, WriteConcern.UNACKNOWLEDGED);
+        return policy;
+    }
+
+    public WriteConcern getWriteConcern(Category category) {
+        return writeConcerns.get(category);
+    }
+
+    /**
+     * Sets the write concern of the given category
+     *
+     * @param category The category of writes
+     * @param writeConcern The write concern with which writes of the category are executed
+     */
+    public void setWriteConcern(Category category, WriteConcern writeConcern) {
+        if (writeConcern == null) {
+            throw new NullPointerException("writeConcern may not be null");
+        }
+        writeConcerns.put(category, writeConcern);
+    }
+
+    void recordLatency(Category category, long nanos) {
+        latencies.get(category).record(nanos);
+    }
+
+    /**
+     * Returns a snapshot of the latency of the writes of the given category
+     */
+    public Statistics getStatistics(Category category) {
+        final Latency latency = latencies.get(category);
+        return new Statistics(category, writeConcerns.get(category), latency.count.get(), latency.totalNanos.get(), latency.maxNanos.get());
+    }
+
+    /**
+     * Returns a snapshot of the latency of the writes of all categories
+     */
+    public List<Statistics> getStatistics() {
+        final List<Statistics> statistics = new ArrayList<>();
+        for (Category category : Category.values()) {
+            statistics.add(getStatistics(category));
+        }
+        return statistics;
+    }
+
+    private static final class Latency {
+
+        private final AtomicLong count = new AtomicLong(0);
+        private final AtomicLong totalNanos = new AtomicLong(0);
+        private final AtomicLong maxNanos = new AtomicLong(0);
+
+        void record(long nanos) {
+            count.incrementAndGet();
+            totalNanos.addAndGet(nanos);
+            long max = maxNanos.get();
+            while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+                max = maxNanos.get();
+            }
+        }
+    }
+
+    public static final class Statistics {
+
+        private final Category category;
+        private final WriteConcern writeConcern;
+        private final long writes;
+        private final long totalNanos;
+        private final long maxNanos;
+
+        Statistics(Category category, WriteConcern writeConcern, long writes, long totalNanos, long maxNanos) {
+            this.category = category;
+            this.writeConcern = writeConcern;
+            this.writes = writes;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+        }
+
+        public Category getCategory() {
+            return category;
+        }
+
+        public WriteConcern getWriteConcern() {
+            return writeConcern;
+        }
+
+        public long getWrites() {
+            return writes;
+        }
+
+        /**
+         * The average latency of the writes in microseconds
+         */
+        public long getAverageLatency() {
+            return writes == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalNanos / writes);
+        }
+
+        /**
+         * The maximum latency of the writes in microseconds
+         */
+        public long getMaxLatency() {
+            return TimeUnit.NANOSECONDS.toMicros(maxNanos);
+        }
+
+        @Override
+        public String toString() {
+            return "{\"category\":\"" + category +
+                    "\", \"writeConcern\":\"" + writeConcern +
+                    "\", \"writes\":\"" + writes +
+                    "\", \"averageLatency\":\"" + getAverageLatency() +
+                    "\", \"maxLatency\":\"" + getMaxLatency() + "\"}";
+        }
+    }
+
+}
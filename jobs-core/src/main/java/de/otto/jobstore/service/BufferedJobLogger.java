@@ -0,0 +1,206 @@
+package de.otto.jobstore.service;
+
+import de.otto.jobstore.common.JobInfo;
+import de.otto.jobstore.common.JobLogger;
+import de.otto.jobstore.common.LogLine;
+import de.otto.jobstore.repository.JobInfoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Flushable;
+import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects log lines and additional data of a job in memory and writes them asynchronously,
+ * {@link JobLogFlusher}. At most capacity lines are kept in memory, both for writing and for
+ * {@link #getLoggingData()}. A batch which could not be written is put back into the buffer. Additional data set
+ * with this logger is read back from memory, also while it is written.
+ */
+final class BufferedJobLogger implements JobLogger, Flushable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BufferedJobLogger.class);
+
+    private final String jobId;
+    private final JobInfoRepository jobInfoRepository;
+    private final ScheduledExecutorService executorService;
+    private final int flushSize;
+    private final long flushInterval;
+    private final int capacity;
+    private final JobLogFlusher.OverflowPolicy overflowPolicy;
+
+    private final Deque<String> logLines = new ArrayDeque<>();
+    private final Deque<LogLine> bufferedLogLines = new ArrayDeque<>();
+    private final Map<String, String> bufferedAdditionalData = new LinkedHashMap<>();
+    // the values handed to a write, so they are read back while the write is in progress
+    private final Map<String, String> writtenAdditionalData = new HashMap<>();
+    private final Object flushLock = new Object();
+    private boolean delayedFlushScheduled = false;
+    private boolean flushScheduled = false;
+    private long droppedLogLines = 0;
+
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            try {
+                flush();
+            } catch (Exception e) {
+                LOGGER.error("ltag=BufferedJobLogger.flush jobId=" + jobId + " failed: " + e.getMessage(), e);
+            }
+        }
+    };
+
+    BufferedJobLogger(String jobId, JobInfoRepository jobInfoRepository, ScheduledExecutorService executorService,
+                      int flushSize, long flushInterval, int capacity, JobLogFlusher.OverflowPolicy overflowPolicy) {
+        this.jobId = jobId;
+        this.jobInfoRepository = jobInfoRepository;
+        this.executorService = executorService;
+        this.flushSize = flushSize;
+        this.flushInterval = flushInterval;
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    @Override
+    public void addLoggingData(String logLine) {
+        if (logLine != null && logLine.trim().length() > 0) {
+            boolean flushInCaller = false;
+            synchronized (this) {
+                if (logLines.size() >= capacity) {
+                    logLines.poll();
+                }
+                logLines.add(logLine);
+                if (bufferedLogLines.size() >= capacity) {
+                    switch (overflowPolicy) {
+                        case DROP_NEWEST:
+                            ++droppedLogLines;
+                            return;
+                        case DROP_OLDEST:
+                            ++droppedLogLines;
+                            bufferedLogLines.poll();
+                            break;
+                        default:
+                            flushInCaller = true;
+                    }
+                }
+                bufferedLogLines.add(new LogLine(logLine, new Date()));
+                if (!flushInCaller) {
+                    scheduleFlush(bufferedLogLines.size() >= flushSize);
+                }
+            }
+            if (flushInCaller) {
+                flush();
+            }
+        }
+    }
+
+    /**
+     * Returns the most recent log lines, at most as many as the capacity of the buffer
+     */
+    @Override
+    public synchronized List<String> getLoggingData() {
+        return new ArrayList<>(logLines);
+    }
+
+    @Override
+    public void insertOrUpdateAdditionalData(String key, String value) {
+        synchronized (this) {
+            bufferedAdditionalData.put(key, value);
+            scheduleFlush(false);
+        }
+    }
+
+    @Override
+    public String getAdditionalData(String key) {
+        synchronized (this) {
+            if (bufferedAdditionalData.containsKey(key)) {
+                return bufferedAdditionalData.get(key);
+            }
+            if (writtenAdditionalData.containsKey(key)) {
+                return writtenAdditionalData.get(key);
+            }
+        }
+        final JobInfo jobInfo = jobInfoRepository.findById(jobId);
+        final Map<String, String> additionalData = jobInfo == null ? null : jobInfo.getAdditionalData();
+        return additionalData == null ? null : additionalData.get(key);
+    }
+
+    /**
+     * Returns the number of log lines which were not written because the buffer was full
+     */
+    synchronized long getDroppedLogLines() {
+        return droppedLogLines;
+    }
+
+    /**
+     * Writes all buffered log lines and additional data with a single update of the job
+     */
+    @Override
+    public void flush() {
+        synchronized (flushLock) {
+            final List<LogLine> lines;
+            final Map<String, String> additionalData;
+            final long dropped;
+            synchronized (this) {
+                lines = new ArrayList<>(bufferedLogLines);
+                additionalData = new HashMap<>(bufferedAdditionalData);
+                writtenAdditionalData.putAll(bufferedAdditionalData);
+                bufferedLogLines.clear();
+                bufferedAdditionalData.clear();
+                dropped = droppedLogLines;
+                delayedFlushScheduled = false;
+                flushScheduled = false;
+            }
+            if (dropped > 0) {
+                additionalData.put("droppedLogLines", String.valueOf(dropped));
+            }
+            if (!lines.isEmpty() || !additionalData.isEmpty()) {
+                try {
+                    jobInfoRepository.appendLogData(jobId, lines, additionalData);
+                } catch (RuntimeException e) {
+                    restore(lines, additionalData);
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Puts a batch which could not be written back in front of the buffer, so it is written with the next flush.
+     * Lines which do not fit into the buffer anymore are counted as dropped.
+     */
+    private synchronized void restore(List<LogLine> lines, Map<String, String> additionalData) {
+        for (int i = lines.size() - 1; i >= 0; i--) {
+            if (bufferedLogLines.size() < capacity) {
+                bufferedLogLines.addFirst(lines.get(i));
+            } else {
+                ++droppedLogLines;
+            }
+        }
+        additionalData.remove("droppedLogLines");
+        for (Map.Entry<String, String> entry : additionalData.entrySet()) {
+            if (!bufferedAdditionalData.containsKey(entry.getKey())) {
+                bufferedAdditionalData.put(entry.getKey(), entry.getValue());
+            }
+        }
+        scheduleFlush(false);
+    }
+
+    private void scheduleFlush(boolean immediately) {
+        try {
+            if (immediately && !flushScheduled) {
+                flushScheduled = true;
+                executorService.execute(flushTask);
+            } else if (!delayedFlushScheduled) {
+                delayedFlushScheduled = true;
+                executorService.schedule(flushTask, flushInterval, TimeUnit.MILLISECONDS);
+            }
+        } catch (RejectedExecutionException e) {
+            // buffered data is written with the final flush of the job
+            LOGGER.warn("ltag=BufferedJobLogger.scheduleFlush jobId={} flush could not be scheduled", jobId);
+        }
+    }
+
+}
@@ -0,0 +1,164 @@
+package de.otto.jobstore.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A timer which keeps its tasks in a hashed timing wheel: a ring of buckets of which a single daemon thread expires
+ * one per tick. Scheduling a task costs constant time no matter how many tasks are pending, tasks are run up to one
+ * tick after their delay has passed. Tasks with a delay beyond one revolution of the wheel stay in their bucket
+ * for the remaining rounds.
+ */
+public class HashedWheelTimer implements TimerEngine {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HashedWheelTimer.class);
+    private static final long DEFAULT_TICK_DURATION = 20;
+    private static final int DEFAULT_WHEEL_SIZE = 512;
+
+    private final long tickDuration;
+    private final int mask;
+    private final Queue<Timeout> pendingTimeouts = new ConcurrentLinkedQueue<>();
+    private volatile Thread worker;
+
+    public HashedWheelTimer() {
+        this(DEFAULT_TICK_DURATION, DEFAULT_WHEEL_SIZE);
+    }
+
+    /**
+     * @param tickDuration The duration of a tick in milliseconds
+     * @param wheelSize The number of buckets of the wheel, rounded up to a power of two
+     */
+    public HashedWheelTimer(long tickDuration, int wheelSize) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("tickDuration must be greater than 0: " + tickDuration);
+        }
+        if (wheelSize <= 0 || wheelSize > 1 << 30) {
+            throw new IllegalArgumentException("wheelSize must be between 1 and 2^30: " + wheelSize);
+        }
+        this.tickDuration = TimeUnit.MILLISECONDS.toNanos(tickDuration);
+        this.mask = Integer.highestOneBit(((wheelSize - 1) << 1) | 1) - 1;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (worker != null) {
+            return;
+        }
+        pendingTimeouts.clear();
+        worker = new Thread(new Worker(System.nanoTime()), "jobScheduler-timer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public void schedule(Runnable task, long delay) {
+        if (worker == null) {
+            throw new IllegalStateException("timer is not started");
+        }
+        pendingTimeouts.add(new Timeout(task, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delay))));
+    }
+
+    @Override
+    public synchronized void stop() {
+        final Thread currentWorker = worker;
+        if (currentWorker == null) {
+            return;
+        }
+        worker = null;
+        currentWorker.interrupt();
+        try {
+            currentWorker.join(TimeUnit.NANOSECONDS.toMillis(tickDuration) + 1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        pendingTimeouts.clear();
+    }
+
+    private static final class Timeout {
+
+        private final Runnable task;
+        private final long deadline;
+        private long remainingRounds;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+    }
+
+    private final class Worker implements Runnable {
+
+        private final long startTime;
+        private final List<Queue<Timeout>> wheel = new ArrayList<>(mask + 1);
+        private long tick = 0;
+
+        private Worker(long startTime) {
+            this.startTime = startTime;
+            for (int i = 0; i <= mask; i++) {
+                wheel.add(new ArrayDeque<Timeout>());
+            }
+        }
+
+        @Override
+        public void run() {
+            final Thread thread = Thread.currentThread();
+            while (worker == thread) {
+                if (!waitForNextTick()) {
+                    break;
+                }
+                transferPendingTimeouts();
+                expireTimeouts(wheel.get((int) (tick & mask)));
+                tick++;
+            }
+        }
+
+        private boolean waitForNextTick() {
+            final long deadline = startTime + (tick + 1) * tickDuration;
+            long sleepTime;
+            while ((sleepTime = deadline - System.nanoTime()) > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepTime);
+                } catch (InterruptedException e) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void transferPendingTimeouts() {
+            Timeout timeout;
+            while ((timeout = pendingTimeouts.poll()) != null) {
+                final long ticks = Math.max((timeout.deadline - startTime) / tickDuration, tick);
+                timeout.remainingRounds = (ticks - tick) / wheel.size();
+                wheel.get((int) (ticks & mask)).add(timeout);
+            }
+        }
+
+        private void expireTimeouts(Queue<Timeout> bucket) {
+            for (Iterator<Timeout> it = bucket.iterator(); it.hasNext(); ) {
+                final Timeout timeout = it.next();
+                if (timeout.remainingRounds > 0) {
+                    timeout.remainingRounds--;
+                } else {
+                    it.remove();
+                    try {
+                        timeout.task.run();
+                    } catch (Exception e) {
+                        LOGGER.error("ltag=HashedWheelTimer.expireTimeouts task failed: " + e.getMessage(), e);
+                    }
+                }
+            }
+        }
+
+    }
+
+}
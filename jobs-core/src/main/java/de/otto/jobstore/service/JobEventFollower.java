@@ -0,0 +1,123 @@
+package de.otto.jobstore.service;
+
+import de.otto.jobstore.common.JobEvent;
+import de.otto.jobstore.common.JobEventListener;
+import de.otto.jobstore.repository.ItemIterator;
+import de.otto.jobstore.repository.JobEventRepository;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Follows the lifecycle events of jobs published by all nodes with a tailable cursor in a daemon thread and passes
+ * them to a listener. Only events published after the follower was started are passed. If the cursor is
+ * invalidated, e.g. because no event was published yet, it is opened again after the retry interval.
+ */
+public class JobEventFollower {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JobEventFollower.class);
+    private static final long DEFAULT_RETRY_INTERVAL = 1000;
+
+    private final JobEventRepository jobEventRepository;
+    private final JobEventListener listener;
+    private long retryInterval = DEFAULT_RETRY_INTERVAL;
+    private volatile boolean running = false;
+    private volatile ItemIterator<JobEvent> events;
+    private Thread thread;
+
+    public JobEventFollower(JobEventRepository jobEventRepository, JobEventListener listener) {
+        this.jobEventRepository = jobEventRepository;
+        this.listener = listener;
+    }
+
+    /**
+     * Sets the time in milliseconds after which an invalidated cursor is opened again. The default is one second.
+     */
+    public void setRetryInterval(long retryInterval) {
+        this.retryInterval = retryInterval;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                follow();
+            }
+        }, "jobEventFollower");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public synchronized void stop() {
+        running = false;
+        final ItemIterator<JobEvent> currentEvents = events;
+        if (currentEvents != null) {
+            currentEvents.close();
+        }
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    private void follow() {
+        ObjectId lastId = null;
+        boolean initialized = false;
+        while (running) {
+            ObjectId previousId = lastId;
+            try {
+                if (!initialized) {
+                    lastId = previousId = jobEventRepository.findLastId();
+                    initialized = true;
+                }
+                lastId = followOnce(lastId);
+            } catch (Exception e) {
+                if (running) {
+                    LOGGER.warn("ltag=JobEventFollower.follow could not follow events: " + e.getMessage(), e);
+                }
+            }
+            if (running && (lastId == null || lastId.equals(previousId))) {
+                try {
+                    Thread.sleep(retryInterval);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Passes the events published after the event with the given id to the listener until the cursor is invalidated
+     *
+     * @param afterId The id of the last event already passed or null to pass all events
+     * @return The id of the last event passed
+     */
+    ObjectId followOnce(final ObjectId afterId) {
+        ObjectId lastId = afterId;
+        try (ItemIterator<JobEvent> tailedEvents = jobEventRepository.tail(afterId)) {
+            events = tailedEvents;
+            while (tailedEvents.hasNext()) {
+                final JobEvent event = tailedEvents.next();
+                lastId = event.getId();
+                try {
+                    listener.onEvent(event);
+                } catch (Exception e) {
+                    LOGGER.error("ltag=JobEventFollower.followOnce event=" + event + " could not be processed", e);
+                }
+            }
+        } finally {
+            events = null;
+        }
+        return lastId;
+    }
+
+}
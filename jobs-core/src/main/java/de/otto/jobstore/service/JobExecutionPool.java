@@ -0,0 +1,227 @@
+package de.otto.jobstore.service;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded pool of threads executing local jobs. A job which can neither be handed to an idle thread nor be put
+ * into the queue of the pool is rejected, so that the caller can put it back into the queue of the job store.
+ * The place of a job in the pool is released as soon as the job returned, so a job submitted afterwards is accepted
+ * even if the thread of the returned job did not wait for the next job yet.
+ */
+public final class JobExecutionPool {
+
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private final String name;
+    private final int maxThreads;
+    private final int queueCapacity;
+    private final ThreadPoolExecutor executor;
+    private final Semaphore places;
+    private final AtomicLong rejectedJobs = new AtomicLong(0);
+
+    /**
+     * Creates a JobExecutionPool
+     *
+     * @param name The name of the pool
+     * @param maxThreads The maximum number of jobs executed at the same time
+     * @param queueCapacity The maximum number of jobs waiting for a free thread, 0 if jobs should not wait at all
+     */
+    public JobExecutionPool(String name, int maxThreads, int queueCapacity) {
+        if (maxThreads < 1) {
+            throw new IllegalArgumentException("maxThreads must be at least 1 but was " + maxThreads);
+        }
+        if (queueCapacity < 0) {
+            throw new IllegalArgumentException("queueCapacity must not be negative but was " + queueCapacity);
+        }
+        this.name = name;
+        this.maxThreads = maxThreads;
+        this.queueCapacity = queueCapacity;
+        // the places limit the number of jobs, so the queue of the executor never rejects one
+        places = new Semaphore(maxThreads + queueCapacity);
+        executor = new ThreadPoolExecutor(maxThreads, maxThreads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new JobExecutionThreadFactory(name), new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxThreads() {
+        return maxThreads;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * Submits the given runnable if a thread or a place in the queue is available
+     *
+     * @param runnable The runnable to execute
+     * @return The future of the runnable, which allows to cancel it, or null if the pool is saturated or shut down
+     *          and rejected the runnable
+     */
+    public Future<?> submit(Runnable runnable) {
+        if (!places.tryAcquire()) {
+            rejectedJobs.incrementAndGet();
+            return null;
+        }
+        final FutureTask<Object> task = new FutureTask<>(runnable, null);
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        task.run();
+                    } finally {
+                        places.release();
+                    }
+                }
+            });
+            return task;
+        } catch (RejectedExecutionException e) {
+            places.release();
+            rejectedJobs.incrementAndGet();
+            return null;
+        }
+    }
+
+    /**
+     * Waits until a thread or a place in the queue is available, without taking it
+     *
+     * @param timeout The maximum time to wait
+     * @param unit The unit of the timeout
+     * @return true - A thread or a place in the queue was available<br/>
+     *         false - The pool stayed saturated until the timeout passed
+     */
+    boolean awaitAvailability(long timeout, TimeUnit unit) throws InterruptedException {
+        if (places.tryAcquire(timeout, unit)) {
+            places.release();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns a snapshot of the current utilisation of this pool
+     */
+    public Statistics getStatistics() {
+        return new Statistics(name, maxThreads, queueCapacity, executor.getActiveCount(), executor.getQueue().size(),
+                executor.getCompletedTaskCount(), rejectedJobs.get());
+    }
+
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return executor.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * Creates a new, not yet shut down pool with the configuration of this pool
+     */
+    JobExecutionPool recreate() {
+        return new JobExecutionPool(name, maxThreads, queueCapacity);
+    }
+
+    public static final class Statistics {
+
+        private final String name;
+        private final int maxThreads;
+        private final int queueCapacity;
+        private final int activeThreads;
+        private final int queuedJobs;
+        private final long completedJobs;
+        private final long rejectedJobs;
+
+        Statistics(String name, int maxThreads, int queueCapacity, int activeThreads, int queuedJobs, long completedJobs, long rejectedJobs) {
+            this.name = name;
+            this.maxThreads = maxThreads;
+            this.queueCapacity = queueCapacity;
+            this.activeThreads = activeThreads;
+            this.queuedJobs = queuedJobs;
+            this.completedJobs = completedJobs;
+            this.rejectedJobs = rejectedJobs;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getMaxThreads() {
+            return maxThreads;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public int getActiveThreads() {
+            return activeThreads;
+        }
+
+        public int getQueuedJobs() {
+            return queuedJobs;
+        }
+
+        public long getCompletedJobs() {
+            return completedJobs;
+        }
+
+        /**
+         * The number of jobs which were rejected because the pool was saturated
+         */
+        public long getRejectedJobs() {
+            return rejectedJobs;
+        }
+
+        /**
+         * The ratio of busy threads and occupied queue places to the capacity of the pool, between 0 and 1
+         */
+        public double getSaturation() {
+            return (double) (activeThreads + queuedJobs) / (maxThreads + queueCapacity);
+        }
+
+        @Override
+        public String toString() {
+            return "{\"name\":\"" + name +
+                    "\", \"maxThreads\":\"" + maxThreads +
+                    "\", \"queueCapacity\":\"" + queueCapacity +
+                    "\", \"activeThreads\":\"" + activeThreads +
+                    "\", \"queuedJobs\":\"" + queuedJobs +
+                    "\", \"completedJobs\":\"" + completedJobs +
+                    "\", \"rejectedJobs\":\"" + rejectedJobs + "\"}";
+        }
+    }
+
+    /**
+     * like Executors.DefaultThreadFactory but with the name of the pool as name prefix
+     */
+    private static class JobExecutionThreadFactory implements ThreadFactory {
+        private final ThreadGroup group;
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+        private final String namePrefix;
+
+        JobExecutionThreadFactory(String poolName) {
+            final SecurityManager s = System.getSecurityManager();
+            group = (s == null) ? Thread.currentThread().getThreadGroup() : s.getThreadGroup();
+            namePrefix = "jobExecution-" + poolName + "-thread-";
+        }
+
+        public Thread newThread(Runnable r) {
+            final Thread t = new Thread(group, r, namePrefix + threadNumber.getAndIncrement(), 0);
+            if (t.isDaemon()) {
+                t.setDaemon(false);
+            }
+            if (t.getPriority() != Thread.NORM_PRIORITY) {
+                t.setPriority(Thread.NORM_PRIORITY);
+            }
+            return t;
+        }
+    }
+
+}
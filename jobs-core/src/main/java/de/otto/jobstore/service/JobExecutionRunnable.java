@@ -8,6 +8,7 @@ import de.otto.jobstore.service.exception.JobExecutionTimeoutException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Flushable;
 import java.util.Date;
 
 final class JobExecutionRunnable implements Runnable {
@@ -18,44 +19,118 @@ final class JobExecutionRunnable implements Runnable {
     final JobInfoRepository jobInfoRepository;
     final JobDefinitionRepository jobDefinitionRepository;
     final JobExecutionContext context;
+    final JobService jobService;
+    private volatile boolean finishing = false;
 
-    JobExecutionRunnable(JobRunnable jobRunnable, JobInfoRepository jobInfoRepository, JobDefinitionRepository jobDefinitionRepository, JobExecutionContext context) {
+    JobExecutionRunnable(JobRunnable jobRunnable, JobInfoRepository jobInfoRepository, JobDefinitionRepository jobDefinitionRepository,
+                         JobExecutionContext context, JobService jobService) {
         this.jobRunnable = jobRunnable;
         this.jobInfoRepository = jobInfoRepository;
         this.jobDefinitionRepository = jobDefinitionRepository;
         this.context = context;
-
+        this.jobService = jobService;
     }
 
     @Override
     public void run() {
         final JobDefinition jobDefinition = jobRunnable.getJobDefinition();
         final String name = jobDefinition.getName();
+        boolean finished = true;
+        jobService.registerExecutingJob(context);
         try {
             LOGGER.info("ltag=JobService.JobExecutionRunnable.run start jobName={} jobId={}", name, context.getId());
             if (jobRunnable.prepare(context)) {
                 // add parameters coming from JobRunnable directly before execution, keep old ones!
                 jobInfoRepository.appendParameters(context.getId(), jobRunnable.getParameters());
                 jobRunnable.execute(context);
-                if (!jobDefinition.isRemote()) {
+                clearInterrupt();
+                if (jobDefinition.isRemote()) {
+                    finishExecution();
+                    flushJobLogger();
+                    finished = false;
+                } else {
                     LOGGER.info("ltag=JobService.JobExecutionRunnable.run finished jobName={} jobId={}", name, context.getId());
                     jobRunnable.afterExecution(context);
-                    jobInfoRepository.markAsFinished(context.getId(), context.getResultCode(), context.getResultMessage());
+                    finishExecution();
+                    flushJobLogger();
+                    jobInfoRepository.markAsFinished(context.getId(), name, context.getResultCode(), context.getResultMessage());
                 }
             } else {
                 LOGGER.info("ltag=JobService.JobExecutionRunnable.run skipped jobName={} jobId={}", name, context.getId());
+                finishExecution();
                 jobInfoRepository.remove(context.getId());
                 jobDefinitionRepository.setLastNotExecuted(name, new Date());
             }
         } catch (JobExecutionAbortedException e) {
+            finishExecution();
             LOGGER.warn("ltag=JobService.JobExecutionRunnable.run jobName=" + name + " jobId=" + context.getId() + " was aborted");
-            jobInfoRepository.markAsFinished(context.getId(), ResultCode.ABORTED);
+            flushJobLogger();
+            jobInfoRepository.markAsFinished(context.getId(), name, ResultCode.ABORTED, null);
         } catch (JobExecutionTimeoutException e) {
+            finishExecution();
             LOGGER.warn("ltag=JobService.JobExecutionRunnable.run jobName=" + name + " jobId=" + context.getId() + " timed out");
-            jobInfoRepository.markAsFinished(context.getId(), ResultCode.TIMED_OUT);
+            flushJobLogger();
+            jobInfoRepository.markAsFinished(context.getId(), name, ResultCode.TIMED_OUT, null);
         } catch (Exception e) {
-            LOGGER.error("ltag=JobService.JobExecutionRunnable.run jobName=" + name + " jobId=" + context.getId() + " failed: " + e.getMessage(), e);
-            jobInfoRepository.markAsFinished(context.getId(), e);
+            finishExecution();
+            if (context.isAborted()) {
+                // the job was interrupted because of the abort
+                LOGGER.warn("ltag=JobService.JobExecutionRunnable.run jobName=" + name + " jobId=" + context.getId() + " was aborted: " + e.getMessage());
+                flushJobLogger();
+                jobInfoRepository.markAsFinished(context.getId(), name, ResultCode.ABORTED, null);
+            } else {
+                LOGGER.error("ltag=JobService.JobExecutionRunnable.run jobName=" + name + " jobId=" + context.getId() + " failed: " + e.getMessage(), e);
+                flushJobLogger();
+                jobInfoRepository.markAsFinished(context.getId(), name, e);
+            }
+        } finally {
+            jobService.unregisterExecutingJob(context);
+        }
+        if (finished) {
+            // the running job is gone, so a queued job with the same name or a running constraint can start right away
+            jobService.executeQueuedJobsAfterInBackground(name);
+        }
+    }
+
+    /**
+     * Returns true once the job is finishing, i.e. its result is written and the executing thread must not be
+     * interrupted anymore
+     */
+    boolean isFinishing() {
+        return finishing;
+    }
+
+    /**
+     * Unregisters the job before its result is written, so that an abort does not interrupt the executing thread
+     * anymore, and clears an interrupt which arrived before
+     */
+    private void finishExecution() {
+        finishing = true;
+        jobService.unregisterExecutingJob(context);
+        clearInterrupt();
+    }
+
+    /**
+     * Clears the interrupt of the executing thread, which is left if the job was interrupted because of an abort
+     * but did not react to it. The driver fails all further writes of an interrupted thread, so the job could
+     * not be finished otherwise.
+     */
+    private void clearInterrupt() {
+        if (Thread.interrupted()) {
+            LOGGER.info("ltag=JobService.JobExecutionRunnable.clearInterrupt jobId={} interrupt cleared", context.getId());
+        }
+    }
+
+    /**
+     * Writes log lines and additional data buffered by the job logger, so they are stored before the job is finished
+     */
+    private void flushJobLogger() {
+        if (context.getJobLogger() instanceof Flushable) {
+            try {
+                ((Flushable) context.getJobLogger()).flush();
+            } catch (Exception e) {
+                LOGGER.error("ltag=JobService.JobExecutionRunnable.flushJobLogger jobId=" + context.getId() + " failed: " + e.getMessage(), e);
+            }
         }
     }
 }
@@ -3,6 +3,8 @@ package de.otto.jobstore.service;
 import de.otto.jobstore.common.JobInfo;
 import de.otto.jobstore.common.ResultCode;
 import de.otto.jobstore.common.RunningState;
+import de.otto.jobstore.repository.ItemIterator;
+import de.otto.jobstore.repository.JobInfoProjection;
 import de.otto.jobstore.repository.JobInfoRepository;
 
 import java.util.*;
@@ -40,19 +42,12 @@ public class JobInfoService {
     }
 
     /**
-     * Returns for each job name the information on the most recent job that has been executed
+     * Returns for each job name the information on the most recent job that has been executed. Log lines
+     * are not included.
      * @return The list of job information
      */
     public List<JobInfo> getMostRecentExecuted() {
-        final List<String> names = jobInfoRepository.distinctJobNames();
-        final List<JobInfo> jobInfoList = new ArrayList<>();
-        for (String name : names) {
-            final JobInfo jobInfo = getMostRecentExecuted(name);
-            if (jobInfo != null) {
-                jobInfoList.add(jobInfo);
-            }
-        }
-        return jobInfoList;
+        return jobInfoRepository.findMostRecentFinished(JobInfoProjection.SUMMARY);
     }
 
     /**
@@ -87,6 +82,18 @@ public class JobInfoService {
         return jobInfoRepository.findByName(name, limit);
     }
 
+    /**
+     * Returns for the given name all job information sorted descending by the creation time of the jobs. The jobs
+     * are read in batches while iterating, so that they need not be held in memory at once.
+     *
+     * @param name The name of the job for which to return the information
+     * @param batchSize The number of jobs to read with one round trip
+     * @return The iterator over the job information, which has to be closed
+     */
+    public ItemIterator<JobInfo> streamByName(String name, int batchSize) {
+        return jobInfoRepository.streamByName(name, JobInfoProjection.FULL, batchSize);
+    }
+
     /**
      * Returns for the given id the job information
      *
@@ -97,6 +104,16 @@ public class JobInfoService {
         return jobInfoRepository.findById(id);
     }
 
+    /**
+     * Returns the number of log lines of the job with the given id without reading the lines
+     *
+     * @param id The id of the job
+     * @return The number of log lines kept in the job log repository
+     */
+    public int countLogLines(String id) {
+        return jobInfoRepository.getJobLogRepository().countLogLines(id);
+    }
+
     /**
      * Returns all job information for the given name which were last modified after the given after date and before
      * the given before date. The result list is sorted descending by the jobs creation date.
@@ -110,6 +127,22 @@ public class JobInfoService {
         return jobInfoRepository.findByNameAndTimeRange(name, after, before, resultCodes);
     }
 
+    /**
+     * Returns all job information for the given name which were last modified after the given after date and before
+     * the given before date sorted descending by the jobs creation date. The jobs are read in batches while iterating,
+     * so that they need not be held in memory at once. Log lines are not included.
+     *
+     * @param name The name of the job for which to return the information
+     * @param after The date after which the last modified date has to be
+     * @param before The date before which the last modified date has to be
+     * @param resultCodes Limit to the jobs with the given result states, null or empty for all
+     * @param batchSize The number of jobs to read with one round trip
+     * @return The iterator over the job information, which has to be closed
+     */
+    public ItemIterator<JobInfo> streamByNameAndTimeRange(String name, Date after, Date before, Set<ResultCode> resultCodes, int batchSize) {
+        return jobInfoRepository.streamByNameAndTimeRange(name, after, before, resultCodes, JobInfoProjection.SUMMARY, batchSize);
+    }
+
     /**
      * Remove all job information.
      */
@@ -0,0 +1,136 @@
+package de.otto.jobstore.service;
+
+import de.otto.jobstore.common.JobLogger;
+import de.otto.jobstore.repository.JobInfoRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates buffered job loggers for local jobs and writes their buffers asynchronously. Log lines and additional data
+ * are collected in memory and written with a single update once the flush size is reached or the flush interval
+ * elapsed. Remaining data is written before the job is marked as finished.
+ */
+public final class JobLogFlusher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JobLogFlusher.class);
+    private static final long AWAIT_TERMINATION_SECONDS = 30;
+
+    /**
+     * Defines what happens if a log line is added while the buffer of a job logger is full because the writes
+     * cannot keep up with the job
+     */
+    public enum OverflowPolicy {
+        /** The buffer is written by the thread of the job, which blocks until the write is finished */
+        FLUSH_IN_CALLER,
+        /** The oldest buffered log line is dropped, logging never blocks */
+        DROP_OLDEST,
+        /** The new log line is dropped, logging never blocks */
+        DROP_NEWEST
+    }
+
+    private final int flushSize;
+    private final long flushInterval;
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private ScheduledThreadPoolExecutor executorService;
+
+    /**
+     * Creates a JobLogFlusher which writes the buffer after 100 lines or one second, holds at most 10000 lines
+     * per job and writes in the calling thread if the buffer is full
+     */
+    public JobLogFlusher() {
+        this(100, 1000, 10000, OverflowPolicy.FLUSH_IN_CALLER);
+    }
+
+    /**
+     * Creates a JobLogFlusher
+     *
+     * @param flushSize The number of buffered log lines after which the buffer is written
+     * @param flushInterval The time in milliseconds after which buffered data is written at the latest
+     * @param capacity The maximum number of log lines buffered per job
+     * @param overflowPolicy Defines what happens with log lines added to a full buffer
+     */
+    public JobLogFlusher(int flushSize, long flushInterval, int capacity, OverflowPolicy overflowPolicy) {
+        if (flushSize < 1) {
+            throw new IllegalArgumentException("flushSize must be at least 1 but was " + flushSize);
+        }
+        if (capacity < flushSize) {
+            throw new IllegalArgumentException("capacity must be at least the flushSize " + flushSize + " but was " + capacity);
+        }
+        this.flushSize = flushSize;
+        this.flushInterval = flushInterval;
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    public int getFlushSize() {
+        return flushSize;
+    }
+
+    public long getFlushInterval() {
+        return flushInterval;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    synchronized JobLogger createJobLogger(String jobId, JobInfoRepository jobInfoRepository) {
+        if (executorService == null) {
+            executorService = new ScheduledThreadPoolExecutor(1, new JobLogFlusherThreadFactory());
+        }
+        return new BufferedJobLogger(jobId, jobInfoRepository, executorService, flushSize, flushInterval, capacity, overflowPolicy);
+    }
+
+    /**
+     * Writes the buffers which are due to be written and stops the thread writing them. Job loggers created before
+     * write their remaining data with the final flush of their job, a job logger created afterwards starts the
+     * thread again.
+     */
+    public synchronized void shutdown() {
+        if (executorService == null) {
+            return;
+        }
+        // the delayed flushes are written right away instead of waiting for their delay, they have to run before
+        // the shutdown, a delayed task cancels itself if it runs after the executor terminated
+        for (Runnable pendingFlush : executorService.getQueue().toArray(new Runnable[0])) {
+            if (executorService.remove(pendingFlush)) {
+                pendingFlush.run();
+            }
+        }
+        executorService.shutdown();
+        try {
+            if (!executorService.awaitTermination(AWAIT_TERMINATION_SECONDS, TimeUnit.SECONDS)) {
+                LOGGER.warn("ltag=JobLogFlusher.shutdown write still in progress");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executorService = null;
+    }
+
+    private static class JobLogFlusherThreadFactory implements ThreadFactory {
+        private final ThreadGroup group;
+
+        JobLogFlusherThreadFactory() {
+            final SecurityManager s = System.getSecurityManager();
+            group = (s == null) ? Thread.currentThread().getThreadGroup() : s.getThreadGroup();
+        }
+
+        public Thread newThread(Runnable r) {
+            final Thread t = new Thread(group, r, "jobLogFlusher", 0);
+            t.setDaemon(true);
+            return t;
+        }
+    }
+
+}
@@ -7,28 +7,35 @@ import org.slf4j.LoggerFactory;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.TimeUnit;
+import java.util.*;
+import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * method to unify scheduling. This spawns some extra daemon threads
+ * method to unify scheduling. The schedules are timed by a {@link TimerEngine}, by default a {@link HashedWheelTimer},
+ * and run by a small pool of daemon threads, a {@link JobSchedule#blocking() blocking} schedule runs on a thread of its
+ * own. A schedule is timed again only after its run finished, so a slow run never piles up behind itself. The ticks
+ * which became due in the meantime are handled according to the {@link JobSchedule.MissedTickPolicy} of the schedule.
  */
 public class JobScheduler {
     private static final Logger LOGGER = LoggerFactory.getLogger(JobScheduler.class);
+    private static final int DEFAULT_DISPATCH_THREADS = 2;
 
     private List<JobSchedule> schedules;
+    private final TimerEngine timerEngine;
+    private int dispatchThreads = DEFAULT_DISPATCH_THREADS;
 
     public JobScheduler(final JobService jobService) {
         this(createDefaultSchedules(jobService));
     }
 
     public JobScheduler(List<JobSchedule> schedules) {
+        this(schedules, new HashedWheelTimer());
+    }
+
+    public JobScheduler(List<JobSchedule> schedules, TimerEngine timerEngine) {
         this.schedules = schedules;
+        this.timerEngine = timerEngine;
     }
 
     @Deprecated
@@ -36,21 +43,46 @@ public class JobScheduler {
         this(jobService);
     }
 
-    private ScheduledExecutorService executorService;
+    private ExecutorService dispatchPool;
+    private List<ExecutorService> blockingExecutors = Collections.emptyList();
+    private List<ScheduledRun> scheduledRuns = Collections.emptyList();
+
+    /**
+     * Sets the number of threads running the schedules which are not blocking, it is applied on the next startup.
+     * The default is two.
+     */
+    public void setDispatchThreads(int dispatchThreads) {
+        this.dispatchThreads = dispatchThreads;
+    }
 
     @PostConstruct
     public synchronized void startup() {
         LOGGER.info("called startup");
 
-        if(executorService != null) {
+        if(dispatchPool != null) {
             shutdown();
         }
 
-        executorService = Executors.newScheduledThreadPool(schedules.size(),new JobSchedulerThreadFactory());
+        final JobSchedulerThreadFactory threadFactory = new JobSchedulerThreadFactory();
+        dispatchPool = new ThreadPoolExecutor(dispatchThreads, dispatchThreads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(), threadFactory);
+        timerEngine.start();
 
+        final List<ScheduledRun> runs = new ArrayList<>(schedules.size());
+        final List<ExecutorService> executors = new ArrayList<>();
         for(JobSchedule schedule: schedules) {
-            executorService.scheduleAtFixedRate(schedule, 0, schedule.interval(), TimeUnit.MILLISECONDS);
+            ExecutorService pool = dispatchPool;
+            if (schedule.blocking()) {
+                pool = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                        new LinkedBlockingQueue<Runnable>(), threadFactory);
+                executors.add(pool);
+            }
+            final ScheduledRun run = new ScheduledRun(schedule, pool, System.currentTimeMillis());
+            runs.add(run);
+            run.arm(0);
         }
+        scheduledRuns = runs;
+        blockingExecutors = executors;
 
         LOGGER.info("finished startup");
     }
@@ -59,22 +91,44 @@ public class JobScheduler {
     public synchronized void shutdown() {
         LOGGER.info("called shutdown");
 
-        if(executorService == null) {
+        if(dispatchPool == null) {
             LOGGER.info("shutdown: executor service already removed, stop here.");
             return;
         }
 
-
+        for (ScheduledRun run : scheduledRuns) {
+            run.active = false;
+        }
+        timerEngine.stop();
+        final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(30);
         try {
-            executorService.shutdown();
-            executorService.awaitTermination(30, TimeUnit.SECONDS);
+            dispatchPool.shutdown();
+            for (ExecutorService executor : blockingExecutors) {
+                executor.shutdown();
+            }
+            dispatchPool.awaitTermination(30, TimeUnit.SECONDS);
+            for (ExecutorService executor : blockingExecutors) {
+                executor.awaitTermination(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            }
         } catch (InterruptedException e) {
             LOGGER.error("error await termination of tasks: " + e.getMessage(), e);
         }
-        executorService = null;
+        dispatchPool = null;
+        blockingExecutors = Collections.emptyList();
         LOGGER.info("finished shutdown");
     }
 
+    /**
+     * Returns the statistics of the schedules of the last startup by their name
+     */
+    public Map<String, Statistics> getStatistics() {
+        final Map<String, Statistics> statistics = new LinkedHashMap<>();
+        for (ScheduledRun run : scheduledRuns) {
+            statistics.put(run.schedule.getName(), run.getStatistics());
+        }
+        return statistics;
+    }
+
     private static List<JobSchedule> createDefaultSchedules(final JobService jobService) {
         List<JobSchedule> schedules = new ArrayList<>();
         schedules.add(new JobSchedule() {
@@ -97,17 +151,20 @@ public class JobScheduler {
         schedules.add(new JobSchedule() {
             @Override
             public long interval() {
-                return TimeUnit.DAYS.toMillis(1);
+                return TimeUnit.MINUTES.toMillis(1);
             }
 
             @Override
             public void schedule() {
-                jobService.cleanupOldJobs();
+                jobService.executeQueuedJobs();
             }
-
             @Override
             public String getName() {
-                return "jobInfoRepository.cleanupOldJobs()";
+                return "jobService.executeQueuedJobs()";
+            }
+            @Override
+            public boolean blocking() {
+                return true;
             }
         });
 
@@ -116,14 +173,17 @@ public class JobScheduler {
             public long interval() {
                 return TimeUnit.MINUTES.toMillis(1);
             }
-
             @Override
             public void schedule() {
-                jobService.executeQueuedJobs();
+                jobService.pollRemoteJobs();
             }
             @Override
             public String getName() {
-                return "jobService.executeQueuedJobs()";
+                return "jobService.pollRemoteJobs()";
+            }
+            @Override
+            public boolean blocking() {
+                return true;
             }
         });
 
@@ -134,32 +194,193 @@ public class JobScheduler {
             }
             @Override
             public void schedule() {
-                jobService.pollRemoteJobs();
+                jobService.retryFailedJobs();
             }
             @Override
             public String getName() {
-                return "jobService.pollRemoteJobs()";
+                return "jobService.retryFailedJobs()";
             }
         });
 
         schedules.add(new JobSchedule() {
             @Override
             public long interval() {
-                return TimeUnit.MINUTES.toMillis(1);
+                return TimeUnit.SECONDS.toMillis(10);
             }
             @Override
             public void schedule() {
-                jobService.retryFailedJobs();
+                jobService.executeScheduledJobs();
             }
             @Override
             public String getName() {
-                return "jobService.retryFailedJobs()";
+                return "jobService.executeScheduledJobs()";
             }
         });
 
         return schedules;
     }
 
+    /**
+     * Runs a schedule on the dispatch pool and times its next run once it is finished. The fire times lie on a grid
+     * of the interval of the schedule starting at the startup.
+     */
+    private final class ScheduledRun implements Runnable {
+
+        private final JobSchedule schedule;
+        private final ExecutorService pool;
+        private final Runnable dispatch = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    pool.execute(ScheduledRun.this);
+                } catch (RejectedExecutionException e) {
+                    LOGGER.info("schedule {} not run, scheduler is shut down", schedule.getName());
+                }
+            }
+        };
+        private volatile boolean active = true;
+        private long nextFireTime;
+        private volatile long runs = 0;
+        private volatile long missedTicks = 0;
+        private volatile long lastDuration = 0;
+        private volatile long maxDuration = 0;
+        private volatile long totalDuration = 0;
+
+        private ScheduledRun(JobSchedule schedule, ExecutorService pool, long firstFireTime) {
+            this.schedule = schedule;
+            this.pool = pool;
+            this.nextFireTime = firstFireTime;
+        }
+
+        private void arm(long delay) {
+            timerEngine.schedule(dispatch, delay);
+        }
+
+        @Override
+        public void run() {
+            if (!active) {
+                return;
+            }
+            final long start = System.currentTimeMillis();
+            schedule.run();
+            final long end = System.currentTimeMillis();
+            final long duration = end - start;
+            runs++;
+            lastDuration = duration;
+            totalDuration += duration;
+            if (duration > maxDuration) {
+                maxDuration = duration;
+            }
+            if (!active) {
+                return;
+            }
+
+            final long interval = Math.max(1, schedule.interval());
+            nextFireTime += interval;
+            if (nextFireTime <= end) {
+                final long missed = (end - nextFireTime) / interval + 1;
+                missedTicks += missed;
+                switch (schedule.missedTickPolicy()) {
+                    case SKIP:
+                        nextFireTime += missed * interval;
+                        break;
+                    case COALESCE:
+                        nextFireTime += (missed - 1) * interval;
+                        break;
+                    case CATCH_UP:
+                        break;
+                }
+            }
+            try {
+                arm(nextFireTime - end);
+            } catch (IllegalStateException e) {
+                LOGGER.info("schedule {} not timed again, scheduler is shut down", schedule.getName());
+            }
+        }
+
+        private Statistics getStatistics() {
+            final long currentRuns = runs;
+            return new Statistics(schedule.getName(), schedule.interval(), schedule.missedTickPolicy(), currentRuns,
+                    missedTicks, lastDuration, maxDuration, currentRuns == 0 ? 0 : totalDuration / currentRuns);
+        }
+
+    }
+
+    public static final class Statistics {
+
+        private final String name;
+        private final long interval;
+        private final JobSchedule.MissedTickPolicy missedTickPolicy;
+        private final long runs;
+        private final long missedTicks;
+        private final long lastDuration;
+        private final long maxDuration;
+        private final long averageDuration;
+
+        Statistics(String name, long interval, JobSchedule.MissedTickPolicy missedTickPolicy, long runs, long missedTicks,
+                   long lastDuration, long maxDuration, long averageDuration) {
+            this.name = name;
+            this.interval = interval;
+            this.missedTickPolicy = missedTickPolicy;
+            this.runs = runs;
+            this.missedTicks = missedTicks;
+            this.lastDuration = lastDuration;
+            this.maxDuration = maxDuration;
+            this.averageDuration = averageDuration;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getInterval() {
+            return interval;
+        }
+
+        public JobSchedule.MissedTickPolicy getMissedTickPolicy() {
+            return missedTickPolicy;
+        }
+
+        public long getRuns() {
+            return runs;
+        }
+
+        /**
+         * The number of ticks which became due while the schedule was still running or waiting for a thread
+         */
+        public long getMissedTicks() {
+            return missedTicks;
+        }
+
+        /**
+         * The duration of the last run in milliseconds
+         */
+        public long getLastDuration() {
+            return lastDuration;
+        }
+
+        public long getMaxDuration() {
+            return maxDuration;
+        }
+
+        public long getAverageDuration() {
+            return averageDuration;
+        }
+
+        @Override
+        public String toString() {
+            return "{\"name\":\"" + name +
+                    "\", \"interval\":\"" + interval +
+                    "\", \"missedTickPolicy\":\"" + missedTickPolicy +
+                    "\", \"runs\":\"" + runs +
+                    "\", \"missedTicks\":\"" + missedTicks +
+                    "\", \"lastDuration\":\"" + lastDuration +
+                    "\", \"maxDuration\":\"" + maxDuration +
+                    "\", \"averageDuration\":\"" + averageDuration + "\"}";
+        }
+
+    }
+
     /**
      * shameless copy of Executors.DefaultThreadFactory with some adjustments:
      * - changed name prefix
@@ -2,8 +2,11 @@ package de.otto.jobstore.service;
 
 import de.otto.jobstore.common.*;
 import de.otto.jobstore.common.properties.JobInfoProperty;
+import de.otto.jobstore.common.util.CronExpression;
 import de.otto.jobstore.common.util.InternetUtils;
 import de.otto.jobstore.repository.JobDefinitionRepository;
+import de.otto.jobstore.repository.JobEventRepository;
+import de.otto.jobstore.repository.JobInfoProjection;
 import de.otto.jobstore.repository.JobInfoRepository;
 import de.otto.jobstore.service.exception.*;
 import org.slf4j.Logger;
@@ -13,6 +16,9 @@ import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * This service allows to handle multiple jobs and their associated runnables. A job has to be registered before it
@@ -24,18 +30,40 @@ import java.util.concurrent.*;
 public class JobService {
 
     private static final long JOB_INFO_CACHE_UPDATE_INTERVAL = 10000;
+    private static final long JOB_DEFINITION_CACHE_UPDATE_INTERVAL = 5000;
     private static final Logger LOGGER = LoggerFactory.getLogger(JobService.class);
+    private static final int DEFAULT_EXECUTION_POOL_MAX_THREADS = 100;
+    public static final String DEFAULT_EXECUTION_POOL = "default";
+    private static final long QUEUED_JOBS_HANDOFF_TIMEOUT = 1000;
 
     static final Map<String, String> NO_PARAMETERS = Collections.emptyMap();
 
     private final Map<String, JobRunnable> jobs = new ConcurrentHashMap<>();
+    private static final Set<RunningState> ACTIVE_STATES = Collections.unmodifiableSet(EnumSet.of(RunningState.RUNNING, RunningState.QUEUED));
+    private static final Set<RunningState> RUNNING_STATE = Collections.unmodifiableSet(EnumSet.of(RunningState.RUNNING));
     private final Set<Set<String>> runningConstraints = new CopyOnWriteArraySet<>();
+    private volatile Map<String, Set<String>> runningConstraintPeers = Collections.emptyMap();
+    private final Map<String, JobExecutionPool> executionPools = new ConcurrentHashMap<>();
+    private final Map<String, String> executionPoolNames = new ConcurrentHashMap<>();
+    private final Map<String, CronExpression> cronExpressions = new ConcurrentHashMap<>();
     private JobDefinitionRepository jobDefinitionRepository;
+    private JobDefinitionCache jobDefinitionCache;
     private JobInfoRepository jobInfoRepository;
+    private JobInfoWatcher jobInfoWatcher;
+    private JobEventFollower jobEventFollower;
+    private final Map<String, JobExecutionContext> executingContexts = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Future<?>> executingFutures = new ConcurrentHashMap<>();
+    private ExecutorService queuedJobsDispatcher;
+    private final AtomicBoolean queuedJobsRequested = new AtomicBoolean(false);
     private ActiveChecker activeChecker;
+    private JobLogFlusher jobLogFlusher;
 
     protected int awaitTerminationSeconds = 30;
     protected boolean desynchronize = true;
+    private int remotePollingParallelism = 10;
+    private long remotePollingTimeout = 30 * 1000;
+    private ThreadPoolExecutor remotePollingExecutor;
+    private volatile long lastRemotePollingDuration = -1;
 
     private volatile boolean shutdown = false;
 
@@ -48,8 +76,16 @@ public class JobService {
      */
     public JobService(JobDefinitionRepository jobDefinitionRepository, final JobInfoRepository jobInfoRepository, ActiveChecker activeChecker) {
         this.jobDefinitionRepository = jobDefinitionRepository;
+        this.jobDefinitionCache = new JobDefinitionCache(jobDefinitionRepository, JOB_DEFINITION_CACHE_UPDATE_INTERVAL);
         this.jobInfoRepository = jobInfoRepository;
+        this.jobInfoWatcher = new JobInfoWatcher(jobInfoRepository, JOB_INFO_CACHE_UPDATE_INTERVAL);
+        final JobEventRepository jobEventRepository = jobInfoRepository.getJobEventRepository();
+        if (jobEventRepository != null) {
+            this.jobEventFollower = new JobEventFollower(jobEventRepository, new JobEventDispatcher());
+        }
         this.activeChecker = activeChecker;
+        this.executionPools.put(DEFAULT_EXECUTION_POOL,
+                new JobExecutionPool(DEFAULT_EXECUTION_POOL, DEFAULT_EXECUTION_POOL_MAX_THREADS, 0));
         this.jobDefinitionRepository.addOrUpdate(StoredJobDefinition.JOB_EXEC_SEMAPHORE);
     }
 
@@ -80,6 +116,7 @@ public class JobService {
      */
     public void setExecutionEnabled(boolean executionEnabled) {
         jobDefinitionRepository.setJobExecutionEnabled(StoredJobDefinition.JOB_EXEC_SEMAPHORE.getName(), executionEnabled);
+        jobDefinitionCache.invalidate();
     }
 
     /**
@@ -94,11 +131,13 @@ public class JobService {
     }
 
     /**
-     * Registers a job with the given runnable in this job service
+     * Registers a job with the given runnable in this job service. If the job defines a cron expression, it is
+     * executed automatically at the times of the expression by {@link #executeScheduledJobs()}.
      *
      * @param jobRunnable The jobRunnable
      * @return true - The job was successfully registered<br>
      * false - A job with the given name is already registered
+     * @throws IllegalArgumentException If the cron expression of the job is not valid
      */
     protected boolean registerJob(final JobRunnable jobRunnable, boolean reregister) {
         final JobDefinition jobDefinition = jobRunnable.getJobDefinition();
@@ -107,8 +146,21 @@ public class JobService {
             LOGGER.warn("ltag=JobService.createJob.registerJob Tried to re-register job with name={}", name);
             return false;
         } else {
+            // the optional properties of the definition are read from the stored definition, which defaults them
+            final StoredJobDefinition storedJobDefinition = new StoredJobDefinition(jobDefinition);
+            final CronExpression cronExpression = storedJobDefinition.getCronExpression() == null ? null :
+                    new CronExpression(storedJobDefinition.getCronExpression());
             jobs.put(name, jobRunnable);
-            jobDefinitionRepository.addOrUpdate(new StoredJobDefinition(jobDefinition));
+            jobInfoRepository.setRetentionTime(name, storedJobDefinition.getRetentionTime());
+            jobDefinitionRepository.addOrUpdate(storedJobDefinition);
+            if (cronExpression == null) {
+                // the stored schedule was removed with the definition
+                cronExpressions.remove(name);
+            } else {
+                cronExpressions.put(name, cronExpression);
+                jobDefinitionRepository.setSchedule(name, cronExpression.getExpression(), cronExpression.next(new Date()));
+            }
+            jobDefinitionCache.invalidate(name);
             return true;
         }
     }
@@ -127,7 +179,7 @@ public class JobService {
      */
     public boolean isJobExecutionEnabled(final String name) throws JobNotRegisteredException {
         checkIfJobIsRegistered(name);
-        final StoredJobDefinition jobDefinition = jobDefinitionRepository.find(name);
+        final StoredJobDefinition jobDefinition = getJobDefinition(name);
         return !jobDefinition.isDisabled();
     }
 
@@ -142,6 +194,7 @@ public class JobService {
     public void setJobExecutionEnabled(String name, boolean executionEnabled) throws JobNotRegisteredException {
         checkIfJobIsRegistered(name);
         jobDefinitionRepository.setJobExecutionEnabled(name, executionEnabled);
+        jobDefinitionCache.invalidate();
     }
 
     /**
@@ -172,7 +225,11 @@ public class JobService {
      *
      */
     public boolean addRunningConstraintWithoutChecks(final Set<String> constraint) {
-        return runningConstraints.add(Collections.unmodifiableSet(constraint));
+        final boolean added = runningConstraints.add(Collections.unmodifiableSet(constraint));
+        if (added) {
+            indexRunningConstraints();
+        }
+        return added;
     }
 
     /**
@@ -236,6 +293,38 @@ public class JobService {
         return executeJob(name, executionPriority, NO_PARAMETERS);
     }
 
+    /**
+     * Adds a bounded pool which executes the local jobs with the given names. Jobs without a pool of their own are
+     * executed by the pool {@link #DEFAULT_EXECUTION_POOL} which may be replaced by adding a pool with this name.
+     * If the pool of a job is saturated, the job is put back into the queue. An existing pool with the same name
+     * is replaced, the jobs it is currently executing are finished.
+     *
+     * @param poolName      The name of the pool, e.g. of a group of jobs
+     * @param maxThreads    The maximum number of jobs of the pool running at the same time
+     * @param queueCapacity The maximum number of jobs waiting for a free thread of the pool
+     * @param jobNames      The names of the jobs to execute with this pool
+     */
+    public synchronized void addExecutionPool(final String poolName, int maxThreads, int queueCapacity, final Set<String> jobNames) {
+        final JobExecutionPool previousPool = executionPools.put(poolName, new JobExecutionPool(poolName, maxThreads, queueCapacity));
+        if (previousPool != null) {
+            previousPool.shutdown();
+        }
+        for (String jobName : jobNames) {
+            executionPoolNames.put(jobName, poolName);
+        }
+    }
+
+    /**
+     * Returns the current utilisation of all execution pools by the name of the pool
+     */
+    public Map<String, JobExecutionPool.Statistics> getExecutionPoolStatistics() {
+        final Map<String, JobExecutionPool.Statistics> statistics = new TreeMap<>();
+        for (JobExecutionPool pool : executionPools.values()) {
+            statistics.put(pool.getName(), pool.getStatistics());
+        }
+        return statistics;
+    }
+
     /**
      * Executes a job with the given name and returns its ID. If a job is already running or running it would violate
      * running constraints it this job will be added to the queue. If a job is already queued an exception will be thrown.
@@ -262,11 +351,21 @@ public class JobService {
         checkIfJobIsRegistered(name);
         checkIfJobIsDisabled(name);
         final JobRunnable runnable = jobs.get(name);
-        final JobInfo queuedJobInfo = jobInfoRepository.findByNameAndRunningState(name, RunningState.QUEUED);
-        if (queuedJobInfo == null) {
-            return executeJobIsNecessaryAndPossible(name, executionPriority, runnable, parameters);
-        } else {
-            return queueJobIfNecessaryAndPossible(name, executionPriority, parameters, runnable, queuedJobInfo);
+        final JobDefinition jobDefinition = runnable.getJobDefinition();
+        final JobAdmission admission = jobInfoRepository.admitJob(name, jobDefinition.getMaxIdleTime(),
+                jobDefinition.getMaxExecutionTime(), jobDefinition.getMaxRetries(), executionPriority, parameters);
+        switch (admission.getDecision()) {
+            case RUN:
+                return executeJobOrQueueIfRunningConstraintsAreViolated(name, admission.getJobInfo().getId(), executionPriority, runnable);
+            case QUEUE:
+                LOGGER.debug("ltag=JobService.executeJob.queued jobInfoName={}", name);
+                return admission.getJobInfo().getId();
+            case ALREADY_QUEUED:
+                throw new JobAlreadyQueuedException("A job with name " + name + " is already queued for execution");
+            case ALREADY_RUNNING:
+                throw new JobAlreadyRunningException("A job with name " + name + " is already running and queued for execution");
+            default:
+                throw new JobExecutionNotNecessaryException("Execution of job " + name + " was not necessary");
         }
     }
 
@@ -276,21 +375,8 @@ public class JobService {
         }
     }
 
-    private String executeJobIsNecessaryAndPossible(String name, JobExecutionPriority executionPriority, JobRunnable runnable, Map<String, String> parameters)
-            throws JobAlreadyRunningException, JobAlreadyQueuedException, JobExecutionNotNecessaryException {
-        final JobInfo runningJobInfo = jobInfoRepository.findByNameAndRunningState(name, RunningState.RUNNING);
-        if (runningJobInfo == null) {
-            return executeJobOrQueueIfRunningConstraintsAreViolated(name, executionPriority, parameters, runnable);
-        } else if (runningJobInfo.hasLowerPriority(executionPriority)) {
-            return queueJob(runnable, executionPriority, parameters, "A job with name " + name + " is already running and queued for execution");
-        } else {
-            throw new JobExecutionNotNecessaryException("Execution of job " + name + " was not necessary");
-        }
-    }
-
-    private String executeJobOrQueueIfRunningConstraintsAreViolated(String name, JobExecutionPriority executionPriority, Map<String, String> parameters, JobRunnable runnable)
-            throws JobAlreadyRunningException, JobAlreadyQueuedException {
-        final String id = runJob(runnable, executionPriority, parameters, "A job with name " + name + " is already running and queued for execution");
+    private String executeJobOrQueueIfRunningConstraintsAreViolated(String name, String id, JobExecutionPriority executionPriority, JobRunnable runnable)
+            throws JobAlreadyQueuedException {
         if (violatesRunningConstraints(name, true)) {
             LOGGER.info("ltag=JobService.executeJobIsNecessary.violatesRunningConstraints jobInfoName={} jobInfoId={}", name, id);
             if (!jobInfoRepository.deactivateRunningJob(id)) {
@@ -304,15 +390,6 @@ public class JobService {
         return id;
     }
 
-    private String queueJobIfNecessaryAndPossible(String name, JobExecutionPriority executionPriority, Map<String, String> parameters, JobRunnable runnable, JobInfo queuedJobInfo) throws JobAlreadyQueuedException {
-        if (queuedJobInfo.hasLowerPriority(executionPriority)) {
-            jobInfoRepository.remove(queuedJobInfo.getId());
-            return queueJob(runnable, executionPriority, parameters, "A job with name " + name + " is already running and queued for execution");
-        } else {
-            throw new JobAlreadyQueuedException("A job with name " + name + " is already queued for execution");
-        }
-    }
-
     private void checkIfJobIsDisabled(String name) throws JobNotRegisteredException, JobExecutionDisabledException {
         if (!isJobExecutionEnabled(name)) {
             throw new JobExecutionDisabledException("Execution of jobs with name " + name + " has been disabled");
@@ -332,12 +409,70 @@ public class JobService {
     }
 
 
+    /**
+     * Requests to abort the job with the given id. If the job is executed in this JVM it is marked as aborted
+     * right away, otherwise the executing node learns about the request from the published event or its next poll.
+     *
+     * @param id The id of the job
+     */
     public void abortJob(String id) {
         jobInfoRepository.abortJob(id);
+        abortExecutingJob(id);
+    }
+
+    /**
+     * Registers the context of a job which is executed in this JVM, so that an abort request reaches it directly
+     */
+    void registerExecutingJob(JobExecutionContext context) {
+        executingContexts.put(context.getId(), context);
+    }
+
+    /**
+     * Unregisters the context of a job which is finishing, the thread executing it is not interrupted from then on.
+     * Waits for an interrupt which is in progress, so that the caller can clear it afterwards.
+     */
+    void unregisterExecutingJob(JobExecutionContext context) {
+        synchronized (context) {
+            executingContexts.remove(context.getId());
+            executingFutures.remove(context.getId());
+        }
+    }
+
+    /**
+     * Marks the job with the given id as aborted if it is executed in this JVM, the thread executing the job is
+     * interrupted if its definition allows to
+     */
+    private void abortExecutingJob(String id) {
+        final JobExecutionContext context = executingContexts.get(id);
+        if (context != null) {
+            LOGGER.info("ltag=JobService.abortExecutingJob jobId={}", id);
+            context.abort();
+            if (context.getJobDefinition() instanceof ExtendedJobDefinition &&
+                    ((ExtendedJobDefinition) context.getJobDefinition()).isInterruptible()) {
+                interruptExecutingJob(context);
+            }
+        }
+    }
+
+    /**
+     * Interrupts the thread executing the job unless the job is finishing already, an interrupt would fail the
+     * writes which finish the job
+     */
+    private void interruptExecutingJob(JobExecutionContext context) {
+        synchronized (context) {
+            if (executingContexts.get(context.getId()) == context) {
+                final Future<?> future = executingFutures.get(context.getId());
+                if (future != null) {
+                    future.cancel(true);
+                }
+            }
+        }
     }
 
     /**
      * Executes all queued jobs registered with this JobService instance asynchronously in the order they were queued.
+     * Queued jobs which cannot be executed, e.g. because they are disabled or still running, do not hold back the
+     * queued jobs behind them.
      */
     public void executeQueuedJobs() {
         if (!activeChecker.isActive()) {
@@ -365,20 +500,120 @@ public class JobService {
                 checkIfJobIsDisabled(jobInfo.getName());
             } catch (JobNotRegisteredException e) {
                 LOGGER.info("ltag=JobService.executeQueuedJobs.notRegistered jobName={}", jobInfo.getName());
-                break;
+                continue;
             } catch (JobExecutionDisabledException e) {
                 LOGGER.info("ltag=JobService.executeQueuedJobs.isDisabled jobName={}", jobInfo.getName());
-                break;
+                continue;
             }
             if (jobInfoRepository.hasJob(jobInfo.getName(), RunningState.RUNNING)) {
                 LOGGER.info("ltag=JobService.executeQueuedJobs.alreadyRunning jobInfoName={}", jobInfo.getName());
-                break;
+                continue;
             }
             final JobRunnable runnable = jobs.get(jobInfo.getName());
             executeQueuedJob(runnable, jobInfo.getId(), jobInfo.getExecutionPriority());
         }
     }
 
+    /**
+     * Executes the jobs registered with this JobService instance whose cron expression is due. Each fire time of a
+     * job is claimed by exactly one node of the cluster, which executes the job with
+     * {@link JobExecutionPriority#CHECK_PRECONDITIONS}. Fire times missed while no node was active result in
+     * a single execution.
+     */
+    public void executeScheduledJobs() {
+        if (!activeChecker.isActive()) {
+            LOGGER.info("ltag=JobService not active");
+            return;
+        }
+        if (cronExpressions.isEmpty()) {
+            return;
+        }
+        try {
+            final Date now = new Date();
+            for (StoredJobDefinition jobDefinition : jobDefinitionRepository.findDueSchedules(now)) {
+                final String name = jobDefinition.getName();
+                final CronExpression cronExpression = cronExpressions.get(name);
+                if (cronExpression == null || !cronExpression.getExpression().equals(jobDefinition.getCronExpression())) {
+                    continue;
+                }
+                if (jobDefinitionRepository.claimFire(name, cronExpression.getExpression(),
+                        jobDefinition.getNextFireTime(), cronExpression.next(now))) {
+                    LOGGER.info("ltag=JobService.executeScheduledJobs jobName={} fireTime={}", name, jobDefinition.getNextFireTime());
+                    try {
+                        executeJob(name, JobExecutionPriority.CHECK_PRECONDITIONS);
+                    } catch (JobException e) {
+                        LOGGER.info("ltag=JobService.executeScheduledJobs jobName={} not executed: {}", name, e.getMessage());
+                    }
+                }
+            }
+        } catch (Exception e) {
+            LOGGER.error("ltag=JobService.executeScheduledJobs exception occurred", e);
+        }
+    }
+
+    /**
+     * Activates the queued jobs which may have been waiting for the job with the given name to finish, i.e. the
+     * queued job with the same name and the queued jobs which share a running constraint with it. Called on the
+     * finishing node so that the queued jobs do not have to wait for the next call of {@link #executeQueuedJobs}.
+     *
+     * @param name The name of the job which finished
+     */
+    void executeQueuedJobsAfter(final String name) {
+        if (shutdown || !activeChecker.isActive()) {
+            return;
+        }
+        try {
+            if (isExecutionDisabled()) {
+                return;
+            }
+            final Set<String> names = new HashSet<>();
+            names.add(name);
+            final Set<String> peers = runningConstraintPeers.get(name);
+            if (peers != null) {
+                names.addAll(peers);
+            }
+            names.retainAll(jobs.keySet());
+            if (names.isEmpty()) {
+                return;
+            }
+            for (JobInfo jobInfo : jobInfoRepository.findQueuedJobsSortedAscByCreationTime(names)) {
+                if (isJobEnabled(jobInfo.getName())) {
+                    LOGGER.info("ltag=JobService.executeQueuedJobsAfter jobName={} jobInfoName={} jobInfoId={}", name, jobInfo.getName(), jobInfo.getId());
+                    executeQueuedJob(jobs.get(jobInfo.getName()), jobInfo.getId(), jobInfo.getExecutionPriority());
+                }
+            }
+        } catch (Exception e) {
+            LOGGER.error("ltag=JobService.executeQueuedJobsAfter jobName=" + name + " exception occurred", e);
+        }
+    }
+
+    /**
+     * Activates the queued jobs which may have been waiting for the local job with the given name in the background.
+     * Called by the thread which executed the job, the queued jobs are only activated once the place of the job in
+     * its execution pool was released, so that a queued job with the same name is not rejected by a saturated pool.
+     *
+     * @param name The name of the job which finished
+     */
+    void executeQueuedJobsAfterInBackground(final String name) {
+        if (shutdown) {
+            return;
+        }
+        final JobExecutionPool pool = getExecutionPool(name);
+        getQueuedJobsDispatcher().execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    if (!pool.awaitAvailability(QUEUED_JOBS_HANDOFF_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                        LOGGER.info("ltag=JobService.executeQueuedJobsAfterInBackground.saturated jobName={} pool={}", name, pool.getName());
+                    }
+                    executeQueuedJobsAfter(name);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+    }
+
     private void desynchronize() {
         if (desynchronize) {
             try {
@@ -408,27 +643,186 @@ public class JobService {
         LOGGER.info("ltag=JobService.pollRemoteJobs finished");
     }
 
+    /**
+     * Sets the maximum number of remote job executors which are asked for the status of their jobs at the same time
+     * while polling remote jobs. Default value is 10.
+     */
+    public void setRemotePollingParallelism(int remotePollingParallelism) {
+        if (remotePollingParallelism < 1) {
+            throw new IllegalArgumentException("remotePollingParallelism must be at least 1 but was " + remotePollingParallelism);
+        }
+        synchronized (this) {
+            this.remotePollingParallelism = remotePollingParallelism;
+            if (remotePollingExecutor != null) {
+                // recreated with the new size on the next poll, running requests are finished
+                remotePollingExecutor.shutdown();
+                remotePollingExecutor = null;
+            }
+        }
+    }
+
+    /**
+     * Sets the time in milliseconds after which a status request to a remote job executor is cancelled. The job is
+     * polled again with the next call of {@link #pollRemoteJobs}. Default value is 30 seconds.
+     */
+    public void setRemotePollingTimeout(long remotePollingTimeout) {
+        this.remotePollingTimeout = remotePollingTimeout;
+    }
+
+    /**
+     * Sets the flusher which buffers and writes the log lines and additional data of local jobs.
+     * By default the buffer is written after 100 lines or one second.
+     */
+    public synchronized void setJobLogFlusher(JobLogFlusher jobLogFlusher) {
+        this.jobLogFlusher = jobLogFlusher;
+    }
+
+    private synchronized JobLogFlusher getJobLogFlusher() {
+        if (jobLogFlusher == null) {
+            jobLogFlusher = new JobLogFlusher();
+        }
+        return jobLogFlusher;
+    }
+
+    private synchronized void shutdownJobLogFlusher() {
+        if (jobLogFlusher != null) {
+            jobLogFlusher.shutdown();
+        }
+    }
+
+    /**
+     * Returns the duration of the last call of {@link #pollRemoteJobs} in milliseconds or -1 if no remote jobs were
+     * polled yet
+     */
+    public long getLastRemotePollingDuration() {
+        return lastRemotePollingDuration;
+    }
+
     private void doPollRemoteJobs() {
         if (isExecutionDisabled()) {
             return;
         }
         desynchronize();
+        final Map<String, JobRunnable> remoteJobs = new HashMap<>();
         for (JobRunnable jobRunnable : jobs.values()) {
             if (jobRunnable.getJobDefinition().isRemote()) {
-                final JobDefinition definition = jobRunnable.getJobDefinition();
-                final JobInfo runningJob = jobInfoRepository.findByNameAndRunningState(definition.getName(), RunningState.RUNNING);
-                if (runningJob != null && jobAgedOverInterval(runningJob.getLastModifiedTime(), System.currentTimeMillis(), definition.getPollingInterval()) &&
-                        runningJob.getAdditionalData().containsKey(JobInfoProperty.REMOTE_JOB_URI.val())) {
-                    final JobRunnable runnable = jobs.get(definition.getName());
-                    final RemoteJobStatus remoteJobStatus = runnable.getRemoteStatus(
-                            createJobExecutionContext(runningJob.getId(), definition, runningJob.getExecutionPriority(), null));
+                remoteJobs.put(jobRunnable.getJobDefinition().getName(), jobRunnable);
+            }
+        }
+        if (remoteJobs.isEmpty()) {
+            return;
+        }
+        final long start = System.currentTimeMillis();
+        final List<JobInfo> runningJobs = new ArrayList<>();
+        for (JobInfo runningJob : jobInfoRepository.findByNamesAndRunningState(new HashSet<>(remoteJobs.keySet()), RunningState.RUNNING)) {
+            final JobDefinition definition = remoteJobs.get(runningJob.getName()).getJobDefinition();
+            if (jobAgedOverInterval(runningJob.getLastModifiedTime(), System.currentTimeMillis(), definition.getPollingInterval()) &&
+                    runningJob.getAdditionalData().containsKey(JobInfoProperty.REMOTE_JOB_URI.val())) {
+                runningJobs.add(runningJob);
+            } else {
+                LOGGER.info("ltag=JobService.pollRemoteJobs jobName={} is still fresh.", definition.getName());
+            }
+        }
+        if (!runningJobs.isEmpty()) {
+            pollRemoteJobStatus(runningJobs, remoteJobs);
+        }
+        lastRemotePollingDuration = System.currentTimeMillis() - start;
+        LOGGER.info("ltag=JobService.pollRemoteJobs.duration polledJobs={} durationMs={}", runningJobs.size(), lastRemotePollingDuration);
+    }
+
+    private void pollRemoteJobStatus(final List<JobInfo> runningJobs, final Map<String, JobRunnable> remoteJobs) {
+        final ExecutorService executorService = getRemotePollingExecutor();
+        final List<Future<RemoteJobStatus>> futures = new ArrayList<>();
+        final AtomicLongArray requestStarts = new AtomicLongArray(runningJobs.size());
+        for (int i = 0; i < runningJobs.size(); i++) {
+            final JobInfo runningJob = runningJobs.get(i);
+            final JobRunnable runnable = remoteJobs.get(runningJob.getName());
+            final JobExecutionContext context = createJobExecutionContext(runningJob.getId(), runnable.getJobDefinition(),
+                    runningJob.getExecutionPriority(), null);
+            final int index = i;
+            futures.add(executorService.submit(new Callable<RemoteJobStatus>() {
+                @Override
+                public RemoteJobStatus call() throws Exception {
+                    requestStarts.set(index, System.currentTimeMillis());
+                    return runnable.getRemoteStatus(context);
+                }
+            }));
+        }
+        try {
+            for (int i = 0; i < runningJobs.size(); i++) {
+                final JobInfo runningJob = runningJobs.get(i);
+                final JobRunnable runnable = remoteJobs.get(runningJob.getName());
+                try {
+                    final RemoteJobStatus remoteJobStatus = awaitRemoteStatus(futures.get(i), requestStarts, i);
                     if (remoteJobStatus != null) {
-                        updateJobStatus(runningJob, runnable, remoteJobStatus, definition);
+                        updateJobStatus(runningJob, runnable, remoteJobStatus, runnable.getJobDefinition());
                     }
-                } else {
-                    LOGGER.info("ltag=JobService.pollRemoteJobs jobName={} " + runningJob == null ? "has no running instance." : "is still fresh.", definition.getName());
+                } catch (TimeoutException e) {
+                    LOGGER.warn("ltag=JobService.pollRemoteJobs.timeout jobName={} jobId={}", runningJob.getName(), runningJob.getId());
+                    futures.get(i).cancel(true);
+                } catch (ExecutionException e) {
+                    LOGGER.error("ltag=JobService.pollRemoteJobs jobName=" + runningJob.getName() + " jobId=" + runningJob.getId() +
+                            " failed: " + e.getCause().getMessage(), e.getCause());
                 }
             }
+        } catch (InterruptedException e) {
+            LOGGER.warn("ltag=JobService.pollRemoteJobs interrupted");
+            Thread.currentThread().interrupt();
+            for (Future<RemoteJobStatus> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Waits for the status request until the polling timeout has passed since the request was started. Requests
+     * waiting for a free thread are not timed out before they are started.
+     */
+    private RemoteJobStatus awaitRemoteStatus(Future<RemoteJobStatus> future, AtomicLongArray requestStarts, int index)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        while (true) {
+            final long requestStart = requestStarts.get(index);
+            final long timeout = requestStart == 0 ? remotePollingTimeout : requestStart + remotePollingTimeout - System.currentTimeMillis();
+            try {
+                return future.get(Math.max(0, timeout), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (requestStart != 0 || requestStarts.get(index) == 0) {
+                    throw e;
+                }
+                // the request was started while waiting, its own timeout applies from now on
+            }
+        }
+    }
+
+    private synchronized ExecutorService getRemotePollingExecutor() {
+        if (remotePollingExecutor == null) {
+            remotePollingExecutor = new ThreadPoolExecutor(remotePollingParallelism, remotePollingParallelism, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new DaemonThreadFactory("remoteJobPolling"));
+            remotePollingExecutor.allowCoreThreadTimeOut(true);
+        }
+        return remotePollingExecutor;
+    }
+
+    private synchronized void shutdownRemotePollingExecutor() {
+        if (remotePollingExecutor != null) {
+            remotePollingExecutor.shutdownNow();
+            remotePollingExecutor = null;
+        }
+    }
+
+    private synchronized ExecutorService getQueuedJobsDispatcher() {
+        if (queuedJobsDispatcher == null) {
+            queuedJobsDispatcher = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+                    new DaemonThreadFactory("queuedJobsDispatcher"), new ThreadPoolExecutor.DiscardPolicy());
+        }
+        return queuedJobsDispatcher;
+    }
+
+    private synchronized void shutdownQueuedJobsDispatcher() {
+        if (queuedJobsDispatcher != null) {
+            queuedJobsDispatcher.shutdownNow();
+            queuedJobsDispatcher = null;
+            queuedJobsRequested.set(false);
         }
     }
 
@@ -436,6 +830,9 @@ public class JobService {
     public void startup() {
         LOGGER.info("startup called");
         shutdown = false;
+        if (jobEventFollower != null) {
+            jobEventFollower.start();
+        }
     }
 
     /**
@@ -444,20 +841,33 @@ public class JobService {
     @PreDestroy
     public void shutdownJobs() {
         LOGGER.info("shutdownJobs called");
+        shutdownRemotePollingExecutor();
+        if (jobEventFollower != null) {
+            jobEventFollower.stop();
+        }
         if (isExecutionDisabled()) {
+            shutdownQueuedJobsDispatcher();
+            jobInfoWatcher.shutdown();
+            shutdownJobLogFlusher();
             return;
         }
-        // abort first
-        for (JobRunnable jobRunnable : jobs.values()) {
-            if (!jobRunnable.getJobDefinition().isRemote()) {
-                final String name = jobRunnable.getJobDefinition().getName();
-                final JobInfo runningJob = jobInfoRepository.findByNameAndRunningState(name, RunningState.RUNNING);
-                if (runningJob != null && runningJob.getHost().equals(InternetUtils.getHostName())) {
-                    LOGGER.info("ltag=JobService.shutdownJobs jobInfoName={}", name);
-                    abortJob(runningJob.getId());
-                }
+        final String host = InternetUtils.getHostName();
+        // abort first, all jobs executed in this JVM are marked as aborted at once before the aborts are persisted
+        final List<String> executingIds = new ArrayList<>(executingContexts.keySet());
+        for (String id : executingIds) {
+            abortExecutingJob(id);
+        }
+        // jobs waiting for a free thread are not started anymore
+        for (Map.Entry<String, Future<?>> entry : executingFutures.entrySet()) {
+            if (!executingContexts.containsKey(entry.getKey())) {
+                entry.getValue().cancel(false);
+                executingFutures.remove(entry.getKey(), entry.getValue());
             }
         }
+        for (String id : executingIds) {
+            LOGGER.info("ltag=JobService.shutdownJobs jobInfoId={}", id);
+            jobInfoRepository.abortJob(id);
+        }
         shutdown = true;
 
         shutdownJobExecutorService(false);
@@ -466,27 +876,51 @@ public class JobService {
         for (JobRunnable jobRunnable : jobs.values()) {
             if (!jobRunnable.getJobDefinition().isRemote()) {
                 final String name = jobRunnable.getJobDefinition().getName();
-                final JobInfo runningJob = jobInfoRepository.findByNameAndRunningState(name, RunningState.RUNNING);
-                if (runningJob != null && runningJob.getHost().equals(InternetUtils.getHostName())) {
+                final JobInfo runningJob = jobInfoRepository.findByNameAndRunningState(name, RunningState.RUNNING, JobInfoProjection.CONTROL);
+                if (runningJob != null && runningJob.getHost().equals(host)) {
                     LOGGER.info("ltag=JobService.shutdownJobs jobInfoName={}", name);
-                    jobInfoRepository.markAsFinished(runningJob.getId(), ResultCode.ABORTED, "shutdownJobs called from executing host");
+                    jobInfoRepository.markAsFinished(runningJob.getId(), name, ResultCode.ABORTED, "shutdownJobs called from executing host");
                 }
             }
         }
+        // the executed jobs read the watched jobs until they are finished
+        shutdownQueuedJobsDispatcher();
+        jobInfoWatcher.shutdown();
+        shutdownJobLogFlusher();
     }
 
     /**
      * public as we use it in tests also, don't use in other contexts
      */
     public void shutdownJobExecutorService(boolean recreate) {
+        final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(awaitTerminationSeconds);
+        for (JobExecutionPool pool : executionPools.values()) {
+            pool.shutdown();
+        }
         try {
-            jobExecutorService.shutdown();
-            jobExecutorService.awaitTermination(awaitTerminationSeconds, TimeUnit.SECONDS);
+            for (JobExecutionPool pool : executionPools.values()) {
+                pool.awaitTermination(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            }
         } catch (InterruptedException e) {
             LOGGER.warn("could not terminate all running threads");
         }
+        // jobs still running after the deadline are interrupted, regardless of their definition
+        for (Map.Entry<String, Future<?>> entry : executingFutures.entrySet()) {
+            if (!entry.getValue().isDone()) {
+                LOGGER.warn("ltag=JobService.shutdownJobExecutorService.interrupt jobInfoId={}", entry.getKey());
+                final JobExecutionContext context = executingContexts.get(entry.getKey());
+                if (context != null) {
+                    interruptExecutingJob(context);
+                } else {
+                    // the job did not start yet
+                    entry.getValue().cancel(true);
+                }
+            }
+        }
         if (recreate) {
-            jobExecutorService = Executors.newCachedThreadPool();
+            for (JobExecutionPool pool : executionPools.values()) {
+                executionPools.put(pool.getName(), pool.recreate());
+            }
         }
     }
 
@@ -499,7 +933,9 @@ public class JobService {
      */
     public void clean() {
         jobs.clear();
+        cronExpressions.clear();
         runningConstraints.clear();
+        indexRunningConstraints();
     }
 
     /**
@@ -552,34 +988,57 @@ public class JobService {
             if (remoteJobStatus.result.ok) {
                 try {
                     runnable.afterExecution(context);
-                    jobInfoRepository.markAsFinished(context.getId(), context.getResultCode(), remoteJobStatus.result.message);
+                    jobInfoRepository.markAsFinished(context.getId(), jobInfo.getName(), context.getResultCode(), remoteJobStatus.result.message);
                 } catch (Exception e) {
                     LOGGER.error("ltag=JobService.updateJobStatus.afterExecution jobName=" + jobInfo.getName() + " jobId=" + jobInfo.getId() + " failed: " + e.getMessage(), e);
-                    jobInfoRepository.markAsFinished(context.getId(), e);
+                    jobInfoRepository.markAsFinished(context.getId(), jobInfo.getName(), e);
                     runnable.onException(context, e, JobRunnable.State.AFTER_EXECUTION);
                 }
             } else {
                 LOGGER.warn("ltag=JobService.updateJobStatus.resultNotOk jobName={} jobId={} exitCode={} message={}",
                         jobInfo.getName(), jobInfo.getId(), remoteJobStatus.result.exitCode, remoteJobStatus.result.message);
                 jobInfoRepository.addAdditionalData(jobInfo.getId(), "exitCode", String.valueOf(remoteJobStatus.result.exitCode));
-                jobInfoRepository.markAsFinished(jobInfo.getId(), ResultCode.FAILED, remoteJobStatus.result.message);
+                jobInfoRepository.markAsFinished(jobInfo.getId(), jobInfo.getName(), ResultCode.FAILED, remoteJobStatus.result.message);
                 runnable.onException(context, new RemoteJobFailedException(jobInfo, remoteJobStatus), JobRunnable.State.EXECUTE);
             }
+            executeQueuedJobsAfter(jobInfo.getName());
         }
     }
 
-    private ExecutorService jobExecutorService = Executors.newCachedThreadPool();
-
     private void executeJob(JobRunnable runnable, String id, JobExecutionPriority executionPriority) {
         final JobDefinition definition = runnable.getJobDefinition();
+        final JobExecutionPool pool = getExecutionPool(definition.getName());
+        final JobExecutionRunnable executionRunnable = new JobExecutionRunnable(
+                runnable, jobInfoRepository, jobDefinitionRepository,
+                createJobExecutionContext(id, getJobLogFlusher().createJobLogger(id, jobInfoRepository), definition, executionPriority), this);
+        final Future<?> future = pool.submit(executionRunnable);
+        if (future != null) {
+            executingFutures.put(id, future);
+            // the job may be finishing and have unregistered itself before its future was stored
+            if (future.isDone() || executionRunnable.isFinishing()) {
+                executingFutures.remove(id, future);
+            }
+        } else {
+            LOGGER.warn("ltag=JobService.executeJob.rejected jobInfoName={} jobInfoId={} pool={}", definition.getName(), id, pool.getName());
+            if (!jobInfoRepository.deactivateRunningJob(id)) {
+                LOGGER.info("ltag=JobService.executeJob.rejected.alreadyQueued jobInfoName={} jobInfoId={}", definition.getName(), id);
+                jobInfoRepository.remove(id);
+            }
+        }
+    }
 
-        jobExecutorService.execute(new JobExecutionRunnable(
-                runnable, jobInfoRepository, jobDefinitionRepository, createJobExecutionContext(id, definition, executionPriority, null)));
+    private JobExecutionPool getExecutionPool(String name) {
+        final String poolName = executionPoolNames.get(name);
+        final JobExecutionPool pool = poolName == null ? null : executionPools.get(poolName);
+        return pool == null ? executionPools.get(DEFAULT_EXECUTION_POOL) : pool;
     }
 
     private JobExecutionContext createJobExecutionContext(String jobId, JobDefinition jobDefinition, JobExecutionPriority priority, List<String> logLines) {
-        final JobLogger jobLogger = new SimpleJobLogger(jobId, jobInfoRepository, logLines);
-        final JobInfoCache jobInfoCache = new JobInfoCache(jobId, jobInfoRepository, JOB_INFO_CACHE_UPDATE_INTERVAL);
+        return createJobExecutionContext(jobId, new SimpleJobLogger(jobId, jobInfoRepository, logLines), jobDefinition, priority);
+    }
+
+    private JobExecutionContext createJobExecutionContext(String jobId, JobLogger jobLogger, JobDefinition jobDefinition, JobExecutionPriority priority) {
+        final JobInfoCache jobInfoCache = new JobInfoCache(jobId, jobInfoWatcher);
         return new JobExecutionContext(jobId, jobLogger, jobInfoCache, priority, jobDefinition);
     }
 
@@ -590,8 +1049,9 @@ public class JobService {
      * - wenn running constraints verletzt, dann job wieder zurueck auf queued
      */
     void executeQueuedJob(JobRunnable runnable, String id, JobExecutionPriority executionPriority) {
-        final String name = runnable.getJobDefinition().getName();
-        if (!jobInfoRepository.activateQueuedJobById(id)) {
+        final JobDefinition jobDefinition = runnable.getJobDefinition();
+        final String name = jobDefinition.getName();
+        if (!jobInfoRepository.activateQueuedJobById(id, jobDefinition.getMaxIdleTime(), jobDefinition.getMaxExecutionTime())) {
             LOGGER.info("ltag=JobService.executeQueuedJob.activateQueuedJobFailed jobInfoName={} jobInfoId={}", name, id);
         } else if (violatesRunningConstraints(name, false)) {
             LOGGER.info("ltag=JobService.executeQueuedJob.violatesRunningConstraints jobInfoName={} jobInfoId={}", name, id);
@@ -603,31 +1063,6 @@ public class JobService {
         }
     }
 
-    private String queueJob(JobRunnable runnable, JobExecutionPriority jobExecutionPriority, Map<String, String> parameters, String exceptionMessage)
-            throws JobAlreadyQueuedException {
-        final String id = createJob(runnable, jobExecutionPriority, RunningState.QUEUED, parameters);
-        if (id == null) {
-            throw new JobAlreadyQueuedException(exceptionMessage);
-        }
-        return id;
-    }
-
-    private String runJob(JobRunnable runnable, JobExecutionPriority jobExecutionPriority, Map<String, String> parameters, String exceptionMessage)
-            throws JobAlreadyRunningException {
-        final String id = createJob(runnable, jobExecutionPriority, RunningState.RUNNING, parameters);
-        if (id == null) {
-            throw new JobAlreadyRunningException(exceptionMessage);
-        }
-        return id;
-    }
-
-    private String createJob(JobRunnable runnable, JobExecutionPriority jobExecutionPriority, RunningState runningState, Map<String, String> parameters) {
-        final JobDefinition jobDefinition = runnable.getJobDefinition();
-        // TODO: create-Methode mit JobRunnable in jobInfoRepository erzeugen
-        return jobInfoRepository.create(jobDefinition.getName(), jobDefinition.getMaxIdleTime(), jobDefinition.getMaxExecutionTime(),
-                jobDefinition.getMaxRetries(), runningState, jobExecutionPriority, parameters);
-    }
-
     private void checkIfJobIsRegistered(final String name) throws JobNotRegisteredException {
         if (!isJobRegistered(name)) {
             throw new JobNotRegisteredException("job with name " + name + " is not registered with this jobService instance");
@@ -635,25 +1070,34 @@ public class JobService {
     }
 
     private boolean violatesRunningConstraints(final String name, boolean alsoCheckForQueuedJobs) {
-        for (Set<String> constraint : runningConstraints) {
-            if (constraint.contains(name)) {
-                for (String constraintJobName : constraint) {
-                    if (name.equals(constraintJobName)) {
-                        continue; // no self check here
-                    }
-                    if (jobInfoRepository.hasJob(constraintJobName, RunningState.RUNNING)) {
-                        return true;
-                    }
-                    if (alsoCheckForQueuedJobs) {
-                        if (jobInfoRepository.hasJob(constraintJobName, RunningState.QUEUED)) {
-                            return true;
-                        }
+        final Set<String> peers = runningConstraintPeers.get(name);
+        return peers != null && jobInfoRepository.hasAnyJob(peers, alsoCheckForQueuedJobs ? ACTIVE_STATES : RUNNING_STATE);
+    }
 
-                    }
+    /**
+     * Compiles the running constraints into a map from job name to the names of all jobs which are not allowed
+     * to run at the same time, so that a constraint check only needs one lookup and one query.
+     */
+    private synchronized void indexRunningConstraints() {
+        final Map<String, Set<String>> peersByName = new HashMap<>();
+        for (Set<String> constraint : runningConstraints) {
+            for (String name : constraint) {
+                Set<String> peers = peersByName.get(name);
+                if (peers == null) {
+                    peers = new HashSet<>();
+                    peersByName.put(name, peers);
                 }
+                peers.addAll(constraint);
+                peers.remove(name); // no self check here
             }
         }
-        return false;
+        final Map<String, Set<String>> index = new HashMap<>();
+        for (Map.Entry<String, Set<String>> entry : peersByName.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                index.put(entry.getKey(), Collections.unmodifiableSet(entry.getValue()));
+            }
+        }
+        runningConstraintPeers = Collections.unmodifiableMap(index);
     }
 
     private boolean isJobEnabled(String name) {
@@ -664,7 +1108,7 @@ public class JobService {
     }
 
     private StoredJobDefinition getJobDefinition(String name) {
-        return jobDefinitionRepository.find(name);
+        return jobDefinitionCache.get(name);
     }
 
     /**
@@ -686,16 +1130,22 @@ public class JobService {
             return;
         }
         desynchronize();
+        final Map<String, JobDefinition> definitions = new HashMap<>();
         for (JobRunnable jobRunnable : jobs.values()) {
-            JobDefinition definition = jobRunnable.getJobDefinition();
-            String name = definition.getName();
-            long maxRetries = definition.getMaxRetries();
-
-            if (maxRetries <= 0) {
-                LOGGER.debug("ltag=JobService.retryFailedJobs jobInfoName={} no retries defined, skipping job", name);
-                continue;
+            final JobDefinition definition = jobRunnable.getJobDefinition();
+            if (definition.getMaxRetries() <= 0) {
+                LOGGER.debug("ltag=JobService.retryFailedJobs jobInfoName={} no retries defined, skipping job", definition.getName());
+            } else {
+                definitions.put(definition.getName(), definition);
             }
-            JobInfo jobInfo = jobInfoRepository.findMostRecentFinished(name);
+        }
+        if (definitions.isEmpty()) {
+            return;
+        }
+        final Map<String, JobInfo> mostRecentFinishedJobs = jobInfoRepository.findMostRecentFinished(new HashSet<>(definitions.keySet()));
+        for (JobDefinition definition : definitions.values()) {
+            final String name = definition.getName();
+            final JobInfo jobInfo = mostRecentFinishedJobs.get(name);
 
             if (jobInfo == null) {
                 LOGGER.debug("ltag=JobService.retryFailedJobs jobInfoName={} no last execution found, skipping job", name);
@@ -717,8 +1167,7 @@ public class JobService {
                 }
 
                 // Prüfung, ob gerade ein job läuft, um doppeltes Starten/Queueing zu vermeiden
-                final JobInfo runningJobInfo = jobInfoRepository.findByNameAndRunningState(name, RunningState.RUNNING);
-                if (runningJobInfo != null) {
+                if (jobInfoRepository.hasJob(name, RunningState.RUNNING)) {
                     LOGGER.debug("ltag=JobService.retryFailedJobs jobInfoName={} found already running job, skipping job", name);
                     continue;
                 }
@@ -733,14 +1182,6 @@ public class JobService {
         }
     }
 
-    void cleanupOldJobs() {
-        if (!activeChecker.isActive()) {
-            LOGGER.info("ltag=JobService not active");
-            return;
-        }
-        jobInfoRepository.cleanupOldJobs();
-    }
-
     void cleanupTimedOutJobs() {
         if (!activeChecker.isActive()) {
             LOGGER.info("ltag=JobService not active");
@@ -753,4 +1194,72 @@ public class JobService {
         final JobRunnable jobRunnable = jobs.get(jobName);
         return (jobRunnable != null) ? jobRunnable.getJobDefinition() : null;
     }
+
+    /**
+     * Executes the queued jobs in the background, a request arriving while the queued jobs are executed leads to
+     * one more execution at most
+     */
+    private void executeQueuedJobsInBackground() {
+        if (shutdown || !queuedJobsRequested.compareAndSet(false, true)) {
+            return;
+        }
+        getQueuedJobsDispatcher().execute(new Runnable() {
+            @Override
+            public void run() {
+                queuedJobsRequested.set(false);
+                try {
+                    executeQueuedJobs();
+                } catch (Exception e) {
+                    LOGGER.error("ltag=JobService.executeQueuedJobsInBackground failed: " + e.getMessage(), e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Reacts to the lifecycle events of jobs published by any node, polling remains in place in case an event is
+     * missed
+     */
+    private class JobEventDispatcher implements JobEventListener {
+
+        @Override
+        public void onEvent(JobEvent event) {
+            LOGGER.debug("ltag=JobService.onEvent event={}", event);
+            switch (event.getType()) {
+                case ABORT_REQUESTED:
+                    abortExecutingJob(event.getJobId());
+                    jobInfoWatcher.refresh(event.getJobId());
+                    break;
+                case FINISHED:
+                    jobInfoWatcher.unwatch(event.getJobId());
+                    executeQueuedJobsInBackground();
+                    break;
+                case QUEUED:
+                    if (event.getName() == null || jobs.containsKey(event.getName())) {
+                        executeQueuedJobsInBackground();
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private static class DaemonThreadFactory implements ThreadFactory {
+        private final ThreadGroup group;
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+        private final String namePrefix;
+
+        DaemonThreadFactory(String name) {
+            final SecurityManager s = System.getSecurityManager();
+            group = (s == null) ? Thread.currentThread().getThreadGroup() : s.getThreadGroup();
+            namePrefix = name + "-";
+        }
+
+        public Thread newThread(Runnable r) {
+            final Thread t = new Thread(group, r, namePrefix + threadNumber.getAndIncrement(), 0);
+            t.setDaemon(true);
+            return t;
+        }
+    }
 }
@@ -0,0 +1,130 @@
+package de.otto.jobstore.service;
+
+import de.otto.jobstore.common.JobInfo;
+import de.otto.jobstore.common.Node;
+import de.otto.jobstore.common.RunningState;
+import de.otto.jobstore.common.util.InternetUtils;
+import de.otto.jobstore.repository.JobInfoRepository;
+import de.otto.jobstore.repository.NodeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registers this node in the node repository and keeps its heartbeat up to date. The id of the node is the host name
+ * which is stored with every job this node executes, so running jobs owned by nodes without a recent heartbeat can
+ * be identified. Several JVMs on the same host share one node, it is only considered to be dead once all of them
+ * stopped sending heartbeats.
+ */
+public class NodeRegistry {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NodeRegistry.class);
+    private static final int MISSED_HEARTBEATS_UNTIL_DEAD = 3;
+
+    private final NodeRepository nodeRepository;
+    private final JobInfoRepository jobInfoRepository;
+    private final String nodeId;
+    private long heartbeatInterval = TimeUnit.SECONDS.toMillis(30);
+    private ScheduledExecutorService executorService;
+
+    public NodeRegistry(NodeRepository nodeRepository, JobInfoRepository jobInfoRepository) {
+        this.nodeRepository = nodeRepository;
+        this.jobInfoRepository = jobInfoRepository;
+        this.nodeId = InternetUtils.getHostName();
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public long getHeartbeatInterval() {
+        return heartbeatInterval;
+    }
+
+    /**
+     * Sets the interval in which the heartbeat of this node is stored, a node is considered to be dead
+     * if it missed three heartbeats. The default is 30 seconds.
+     *
+     * @param heartbeatInterval The interval in milliseconds
+     */
+    public void setHeartbeatInterval(long heartbeatInterval) {
+        this.heartbeatInterval = heartbeatInterval;
+    }
+
+    @PostConstruct
+    public synchronized void startup() {
+        if (executorService != null) {
+            shutdown();
+        }
+        nodeRepository.register(new Node(nodeId, nodeId, new Date()));
+        LOGGER.info("ltag=NodeRegistry.startup nodeId={}", nodeId);
+        executorService = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                final Thread t = new Thread(r, "nodeRegistry-heartbeat");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        executorService.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                heartbeat();
+            }
+        }, heartbeatInterval, heartbeatInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (executorService == null) {
+            return;
+        }
+        executorService.shutdownNow();
+        executorService = null;
+        // the node is not removed as it may be shared with another JVM on this host, it dies with its heartbeats
+        LOGGER.info("ltag=NodeRegistry.shutdown nodeId={}", nodeId);
+    }
+
+    /**
+     * Stores the heartbeat of this node, the node is registered again if it was removed in the meantime
+     */
+    public void heartbeat() {
+        try {
+            if (!nodeRepository.heartbeat(nodeId)) {
+                LOGGER.warn("ltag=NodeRegistry.heartbeat nodeId={} was not registered, registering it again", nodeId);
+                nodeRepository.register(new Node(nodeId, nodeId, new Date()));
+            }
+        } catch (Exception e) {
+            LOGGER.error("ltag=NodeRegistry.heartbeat nodeId=" + nodeId + " error=" + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns all nodes which did not miss three heartbeats
+     */
+    public List<Node> findAliveNodes() {
+        return nodeRepository.findAlive(heartbeatInterval * MISSED_HEARTBEATS_UNTIL_DEAD);
+    }
+
+    /**
+     * Returns all running jobs which are owned by nodes which are not alive anymore. Jobs started on a remote job
+     * executor are not returned, as they are polled by the nodes which are still alive.
+     */
+    public List<JobInfo> findRunningJobsOfDeadNodes() {
+        final List<String> aliveNodeIds = new ArrayList<>();
+        for (Node node : findAliveNodes()) {
+            aliveNodeIds.add(node.getId());
+        }
+        return jobInfoRepository.findLocalJobsByRunningStateAndHostNotIn(RunningState.RUNNING, aliveNodeIds);
+    }
+
+}
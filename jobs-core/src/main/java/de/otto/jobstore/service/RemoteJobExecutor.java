@@ -7,6 +7,18 @@ import de.otto.jobstore.service.exception.JobException;
 import java.net.URI;
 
 public interface RemoteJobExecutor {
+
+    /**
+     * The default time in milliseconds to wait for a connection to the remote executor
+     */
+    int DEFAULT_CONNECT_TIMEOUT = 5000;
+
+    /**
+     * The default time in milliseconds to wait for data from the remote executor. Requests ignore interruptions,
+     * so a hanging executor would block the calling thread without it.
+     */
+    int DEFAULT_READ_TIMEOUT = 30000;
+
     String getJobExecutorUri();
 
     URI startJob(RemoteJob job) throws JobException;
@@ -28,12 +28,23 @@ public class RemoteJobExecutorService implements RemoteJobExecutor {
     private Client client;
 
     public RemoteJobExecutorService(String jobExecutorUri) {
+        this(jobExecutorUri, DEFAULT_CONNECT_TIMEOUT, DEFAULT_READ_TIMEOUT);
+    }
+
+    /**
+     * @param jobExecutorUri The uri of the remote executor
+     * @param connectTimeout The time in milliseconds to wait for a connection, applies to all requests
+     * @param readTimeout The time in milliseconds to wait for data, applies to all requests including startJob
+     */
+    public RemoteJobExecutorService(String jobExecutorUri, int connectTimeout, int readTimeout) {
         this.jobExecutorUri = jobExecutorUri;
 
         // since Flask (with WSGI) does not suppport HTTP 1.1 chunked encoding, turn it off
         //    see: https://github.com/mitsuhiko/flask/issues/367
         final ClientConfig cc = new DefaultClientConfig();
         cc.getProperties().put(ClientConfig.PROPERTY_CHUNKED_ENCODING_SIZE, null);
+        cc.getProperties().put(ClientConfig.PROPERTY_CONNECT_TIMEOUT, connectTimeout);
+        cc.getProperties().put(ClientConfig.PROPERTY_READ_TIMEOUT, readTimeout);
         this.client = Client.create(cc);
         remoteJobExecutorStatusRetriever = new RemoteJobExecutorStatusRetriever(client);
     }
@@ -60,6 +60,8 @@ public class RemoteJobExecutorWithScriptTransferService implements RemoteJobExec
     private Client client;
     private HttpClient httpclient;
     private TarArchiveProvider tarArchiveProvider;
+    private final int connectTimeout;
+    private final int readTimeout;
 
     @Override
     public String getJobExecutorUri() {
@@ -67,13 +69,29 @@ public class RemoteJobExecutorWithScriptTransferService implements RemoteJobExec
     }
 
     public RemoteJobExecutorWithScriptTransferService(String jobExecutorUri, TarArchiveProvider tarArchiveProvider) {
+        this(jobExecutorUri, tarArchiveProvider, DEFAULT_CONNECT_TIMEOUT, DEFAULT_READ_TIMEOUT);
+    }
+
+    /**
+     * @param jobExecutorUri The uri of the remote executor
+     * @param tarArchiveProvider The provider of the scripts sent with startJob
+     * @param connectTimeout The time in milliseconds to wait for a connection, applies to all requests
+     * @param readTimeout The time in milliseconds to wait for data, applies to all requests including the upload
+     *                    of the scripts by startJob
+     */
+    public RemoteJobExecutorWithScriptTransferService(String jobExecutorUri, TarArchiveProvider tarArchiveProvider,
+                                                      int connectTimeout, int readTimeout) {
         this.jobExecutorUri = jobExecutorUri;
         this.tarArchiveProvider = tarArchiveProvider;
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
 
         // since Flask (with WSGI) does not suppport HTTP 1.1 chunked encoding, turn it off
         //    see: https://github.com/mitsuhiko/flask/issues/367
         final ClientConfig cc = new DefaultClientConfig();
         cc.getProperties().put(ClientConfig.PROPERTY_CHUNKED_ENCODING_SIZE, null);
+        cc.getProperties().put(ClientConfig.PROPERTY_CONNECT_TIMEOUT, connectTimeout);
+        cc.getProperties().put(ClientConfig.PROPERTY_READ_TIMEOUT, readTimeout);
         this.client = Client.create(cc);
         remoteJobExecutorStatusRetriever = new RemoteJobExecutorStatusRetriever(client);
 
@@ -87,7 +105,7 @@ public class RemoteJobExecutorWithScriptTransferService implements RemoteJobExec
         cm.setDefaultMaxPerRoute(100);
 
         cm.setDefaultSocketConfig(SocketConfig.custom()
-                .setSoTimeout(5000)
+                .setSoTimeout(readTimeout)
                 .build());
 
         return HttpClients.custom()
@@ -149,7 +167,8 @@ public class RemoteJobExecutorWithScriptTransferService implements RemoteJobExec
         HttpResponse response;
         try {
             httpPost.setConfig(RequestConfig.custom()
-                    .setConnectTimeout(60000) // wait max 60 seconds
+                    .setConnectTimeout(connectTimeout)
+                    .setSocketTimeout(readTimeout)
                     .build());
             response = httpclient.execute(httpPost);
         } catch (IOException e) {
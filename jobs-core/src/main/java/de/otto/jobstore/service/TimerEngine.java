@@ -0,0 +1,28 @@
+package de.otto.jobstore.service;
+
+/**
+ * Runs tasks after a delay on behalf of the {@link JobScheduler}. The tasks are run by the timer itself and
+ * thus have to return quickly, e.g. by handing the actual work to an executor.
+ */
+public interface TimerEngine {
+
+    /**
+     * Starts the timer, a stopped timer may be started again
+     */
+    void start();
+
+    /**
+     * Runs the task once after the given delay
+     *
+     * @param task The task to run
+     * @param delay The delay in milliseconds, tasks with a delay of zero or less are run as soon as possible
+     * @throws IllegalStateException If the timer is not started
+     */
+    void schedule(Runnable task, long delay);
+
+    /**
+     * Stops the timer, tasks which are not run yet are dropped
+     */
+    void stop();
+
+}
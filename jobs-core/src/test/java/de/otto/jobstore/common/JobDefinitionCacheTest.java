@@ -0,0 +1,93 @@
+package de.otto.jobstore.common;
+
+import de.otto.jobstore.repository.JobDefinitionRepository;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.*;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+
+public class JobDefinitionCacheTest {
+
+    private static final String NAME = "test";
+
+    private JobDefinitionRepository jobDefinitionRepository = mock(JobDefinitionRepository.class);
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        reset(jobDefinitionRepository);
+        when(jobDefinitionRepository.find(NAME)).thenReturn(new StoredJobDefinition(NAME, 0, 0, 0, 0, 0, false, false));
+    }
+
+    @Test
+    public void testThatRepoIsHitOnlyOnceWhileVersionIsUnchanged() throws Exception {
+        when(jobDefinitionRepository.getVersion()).thenReturn(1L);
+
+        JobDefinitionCache jobDefinitionCache = new JobDefinitionCache(jobDefinitionRepository, 0);
+        jobDefinitionCache.get(NAME);
+        Thread.sleep(10);
+        jobDefinitionCache.get(NAME);
+
+        verify(jobDefinitionRepository, times(1)).find(NAME);
+        verify(jobDefinitionRepository, times(2)).getVersion();
+    }
+
+    @Test
+    public void testThatVersionIsNotCheckedWithinUpdateInterval() throws Exception {
+        JobDefinitionCache jobDefinitionCache = new JobDefinitionCache(jobDefinitionRepository, 10000);
+        jobDefinitionCache.get(NAME);
+        jobDefinitionCache.get(NAME);
+
+        verify(jobDefinitionRepository, times(1)).find(NAME);
+        verify(jobDefinitionRepository, times(1)).getVersion();
+    }
+
+    @Test
+    public void testThatDefinitionIsReloadedIfVersionChanged() throws Exception {
+        when(jobDefinitionRepository.getVersion()).thenReturn(1L);
+        JobDefinitionCache jobDefinitionCache = new JobDefinitionCache(jobDefinitionRepository, 0);
+        assertFalse(jobDefinitionCache.get(NAME).isDisabled());
+
+        StoredJobDefinition disabled = new StoredJobDefinition(NAME, 0, 0, 0, 0, 0, false, false);
+        disabled.setDisabled(true);
+        when(jobDefinitionRepository.find(NAME)).thenReturn(disabled);
+        when(jobDefinitionRepository.getVersion()).thenReturn(2L);
+        Thread.sleep(10);
+
+        assertTrue(jobDefinitionCache.get(NAME).isDisabled());
+        verify(jobDefinitionRepository, times(2)).find(NAME);
+    }
+
+    @Test
+    public void testThatInvalidateForcesReload() throws Exception {
+        JobDefinitionCache jobDefinitionCache = new JobDefinitionCache(jobDefinitionRepository, 10000);
+        jobDefinitionCache.get(NAME);
+        jobDefinitionCache.invalidate();
+        jobDefinitionCache.get(NAME);
+
+        verify(jobDefinitionRepository, times(2)).find(NAME);
+        verify(jobDefinitionRepository, times(2)).getVersion();
+    }
+
+    @Test
+    public void testThatDefinitionLoadedDuringInvalidationIsNotKept() throws Exception {
+        final JobDefinitionCache jobDefinitionCache = new JobDefinitionCache(jobDefinitionRepository, 10000);
+        when(jobDefinitionRepository.find(NAME)).thenAnswer(new Answer<StoredJobDefinition>() {
+            @Override
+            public StoredJobDefinition answer(InvocationOnMock invocation) throws Throwable {
+                // a concurrent version change drops the cache while the stale definition is read
+                jobDefinitionCache.invalidate();
+                return new StoredJobDefinition(NAME, 0, 0, 0, 0, 0, false, false);
+            }
+        });
+
+        jobDefinitionCache.get(NAME);
+        jobDefinitionCache.get(NAME);
+
+        verify(jobDefinitionRepository, times(2)).find(NAME);
+    }
+
+}
@@ -0,0 +1,61 @@
+package de.otto.jobstore.common;
+
+import de.otto.jobstore.TestSetup;
+import de.otto.jobstore.service.exception.JobExecutionAbortedException;
+import de.otto.jobstore.service.exception.JobExecutionTimeoutException;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.*;
+import static org.testng.AssertJUnit.*;
+
+public class JobExecutionContextTest {
+
+    private JobInfoCache jobInfoCache;
+    private JobExecutionContext context;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        jobInfoCache = mock(JobInfoCache.class);
+        context = new JobExecutionContext("1234", mock(JobLogger.class), jobInfoCache,
+                JobExecutionPriority.CHECK_PRECONDITIONS, TestSetup.localJobDefinition("test", 0));
+    }
+
+    @Test(expectedExceptions = JobExecutionAbortedException.class)
+    public void testAbortedJobIsStoppedWithoutReadingCache() throws Exception {
+        context.abort();
+        try {
+            context.checkForAbort();
+        } finally {
+            verifyZeroInteractions(jobInfoCache);
+        }
+    }
+
+    @Test
+    public void testCacheIsReadAtMostOncePerSecond() throws Exception {
+        context.checkForAbort();
+        context.checkForAbort();
+        context.checkForAbort();
+
+        verify(jobInfoCache, times(1)).isAborted();
+        verify(jobInfoCache, times(1)).isTimedOut();
+    }
+
+    @Test
+    public void testAbortReadFromCacheIsKept() throws Exception {
+        when(jobInfoCache.isAborted()).thenReturn(true);
+        try {
+            context.checkForAbort();
+            fail("job should be aborted");
+        } catch (JobExecutionAbortedException e) {
+            assertTrue(context.isAborted());
+        }
+    }
+
+    @Test(expectedExceptions = JobExecutionTimeoutException.class)
+    public void testTimedOutJobIsStopped() throws Exception {
+        when(jobInfoCache.isTimedOut()).thenReturn(true);
+        context.checkForAbort();
+    }
+
+}
@@ -2,6 +2,7 @@ package de.otto.jobstore.common;
 
 
 import com.mongodb.DBObject;
+import de.otto.jobstore.repository.JobInfoProjection;
 import de.otto.jobstore.repository.JobInfoRepository;
 import org.testng.annotations.Test;
 
@@ -16,7 +17,7 @@ public class JobInfoCacheTest {
     @Test
     public void testThatRepoIsHitOnlyOnce() throws Exception {
         reset(jobInfoRepository);
-        when(jobInfoRepository.findById(id)).thenReturn(jobInfo);
+        when(jobInfoRepository.findById(id, JobInfoProjection.CONTROL)).thenReturn(jobInfo);
 
         JobInfoCache jobInfoCache = new JobInfoCache(id, jobInfoRepository, 10000);
         Thread.sleep(100);
@@ -24,19 +25,19 @@ public class JobInfoCacheTest {
         Thread.sleep(100);
         jobInfoCache.isAborted();
 
-        verify(jobInfoRepository, times(1)).findById(id);
+        verify(jobInfoRepository, times(1)).findById(id, JobInfoProjection.CONTROL);
     }
 
     @Test
     public void testThatRepoIsHitTwice() throws Exception {
         reset(jobInfoRepository);
-        when(jobInfoRepository.findById(id)).thenReturn(jobInfo);
+        when(jobInfoRepository.findById(id, JobInfoProjection.CONTROL)).thenReturn(jobInfo);
 
         JobInfoCache jobInfoCache = new JobInfoCache(id, jobInfoRepository, 0);
         Thread.sleep(100);
         jobInfoCache.isAborted();
 
-        verify(jobInfoRepository, times(2)).findById(id);
+        verify(jobInfoRepository, times(2)).findById(id, JobInfoProjection.CONTROL);
     }
 
 }
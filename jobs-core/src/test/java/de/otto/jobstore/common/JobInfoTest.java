@@ -1,17 +1,30 @@
 package de.otto.jobstore.common;
 
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+import com.mongodb.DefaultDBEncoder;
+import com.mongodb.LazyDBDecoder;
 import de.otto.jobstore.common.properties.JobInfoProperty;
+import de.otto.jobstore.repository.JobLogRepository;
 import org.bson.types.ObjectId;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.util.ReflectionUtils;
 import org.testng.annotations.Test;
 
 import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
 
 import static org.testng.AssertJUnit.assertEquals;
 import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNull;
 import static org.testng.AssertJUnit.assertTrue;
+import static org.mockito.Mockito.*;
 
 public class JobInfoTest {
 
@@ -35,4 +48,111 @@ public class JobInfoTest {
         assertTrue(jobInfo.isTimedOut(new Date(startTime.getTime() + 1500))); //Kein Timeout da job erst eine eineinhalb Sekunde alt
     }
 
+    @Test
+    public void testDeadlinesOfRunningJob() throws Exception {
+        Date dt = new Date();
+        JobInfo jobInfo = new JobInfo(dt, "test", null, null, 1000L, 2000L, 0L, RunningState.RUNNING);
+        assertEquals(new Date(dt.getTime() + 2000L), jobInfo.getExecutionDeadline());
+        assertEquals(new Date(dt.getTime() + 1000L), jobInfo.getIdleDeadline());
+
+        jobInfo.setLastModifiedTime(new Date(dt.getTime() + 500L));
+        assertEquals(new Date(dt.getTime() + 1500L), jobInfo.getIdleDeadline());
+    }
+
+    @Test
+    public void testQueuedJobHasNoExecutionDeadline() throws Exception {
+        JobInfo jobInfo = new JobInfo("test", null, null, 1000L, 1000L, 0L, RunningState.QUEUED);
+        assertNull(jobInfo.getExecutionDeadline());
+    }
+
+    @Test
+    public void testLazilyDecodedJobInfo() throws Exception {
+        JobInfo jobInfo = new JobInfo("test", "host", "thread", 1000L, 1000L, 0L, RunningState.RUNNING,
+                JobExecutionPriority.CHECK_PRECONDITIONS, Collections.singletonMap("key", "value"));
+        jobInfo.appendLogLine(new LogLine("line", new Date()));
+        DBObject lazy = new LazyDBDecoder().decode(new DefaultDBEncoder().encode(jobInfo.toDbObject()), (DBCollection) null);
+
+        JobInfo lazyJobInfo = new JobInfo(lazy);
+        assertEquals("test", lazyJobInfo.getName());
+        assertEquals(Collections.singletonMap("key", "value"), lazyJobInfo.getParameters());
+        assertEquals("line", lazyJobInfo.getLogLines().get(0).getLine());
+        assertTrue(lazyJobInfo.toDbObject() instanceof BasicDBObject);
+
+        lazyJobInfo = new JobInfo(lazy);
+        Date lastModified = new Date(jobInfo.getCreationTime().getTime() + 500L);
+        lazyJobInfo.setLastModifiedTime(lastModified);
+        assertEquals(lastModified, lazyJobInfo.getLastModifiedTime());
+        assertEquals("test", lazyJobInfo.getName());
+    }
+
+    @Test
+    public void testLazilyDecodedJobInfoIsReadByConcurrentThreads() throws Exception {
+        JobInfo jobInfo = new JobInfo("test", "host", "thread", 1000L, 1000L, 0L, RunningState.RUNNING,
+                JobExecutionPriority.CHECK_PRECONDITIONS, Collections.singletonMap("key", "value"));
+        DBObject lazy = new LazyDBDecoder().decode(new DefaultDBEncoder().encode(jobInfo.toDbObject()), (DBCollection) null);
+        final JobInfo lazyJobInfo = new JobInfo(lazy);
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Object> parameters = Collections.synchronizedList(new ArrayList<>());
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            final boolean materialize = i % 2 == 0;
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        if (materialize) {
+                            lazyJobInfo.toDbObject();
+                        }
+                        parameters.add(lazyJobInfo.getParameters());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(8, parameters.size());
+        for (Object value : parameters) {
+            assertEquals(Collections.singletonMap("key", "value"), value);
+        }
+        assertTrue(lazyJobInfo.toDbObject() instanceof BasicDBObject);
+    }
+
+    @Test
+    public void testLastLogLinesAreReadFromJobLogRepository() throws Exception {
+        JobLogRepository jobLogRepository = mock(JobLogRepository.class);
+        String id = new ObjectId().toString();
+        JobInfo jobInfo = new JobInfo(new BasicDBObject(JobInfoProperty.ID.val(), new ObjectId(id)), jobLogRepository);
+        when(jobLogRepository.findLastLogLines(id, 2)).thenReturn(Arrays.asList(new LogLine("b", new Date()), new LogLine("c", new Date())));
+
+        List<LogLine> logLines = jobInfo.getLastLogLines(2);
+
+        assertEquals(2, logLines.size());
+        assertEquals("b", logLines.get(0).getLine());
+        verify(jobLogRepository, never()).findLogLines(id);
+    }
+
+    @Test
+    public void testLogLinesCombineEmbeddedAndStoredLines() throws Exception {
+        JobLogRepository jobLogRepository = mock(JobLogRepository.class);
+        String id = new ObjectId().toString();
+        JobInfo jobInfo = new JobInfo(new BasicDBObject(JobInfoProperty.ID.val(), new ObjectId(id)), jobLogRepository);
+        jobInfo.appendLogLine(new LogLine("a", new Date()));
+        when(jobLogRepository.findLogLines(id)).thenReturn(Arrays.asList(new LogLine("b", new Date())));
+        when(jobLogRepository.findLastLogLines(id, 5)).thenReturn(Arrays.asList(new LogLine("b", new Date())));
+
+        assertEquals(2, jobInfo.getLogLines().size());
+        assertEquals("a", jobInfo.getLogLines().get(0).getLine());
+        assertEquals(2, jobInfo.getLastLogLines(5).size());
+        verify(jobLogRepository, times(1)).findLogLines(id);
+    }
+
 }
@@ -0,0 +1,153 @@
+package de.otto.jobstore.common;
+
+import com.mongodb.BasicDBObject;
+import de.otto.jobstore.common.properties.JobInfoProperty;
+import de.otto.jobstore.repository.JobInfoProjection;
+import de.otto.jobstore.repository.JobInfoRepository;
+import org.bson.types.ObjectId;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+import static org.testng.AssertJUnit.*;
+
+public class JobInfoWatcherTest {
+
+    private JobInfoRepository jobInfoRepository;
+    private JobInfoWatcher jobInfoWatcher;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        jobInfoRepository = mock(JobInfoRepository.class);
+        jobInfoWatcher = new JobInfoWatcher(jobInfoRepository, 60000);
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        jobInfoWatcher.shutdown();
+    }
+
+    @Test
+    public void testWatchedJobIsReadOnlyOnce() throws Exception {
+        final JobInfo jobInfo = createJobInfo(false);
+        when(jobInfoRepository.findById(jobInfo.getId(), JobInfoProjection.WATCH)).thenReturn(jobInfo);
+
+        assertSame(jobInfo, jobInfoWatcher.get(jobInfo.getId()));
+        assertSame(jobInfo, jobInfoWatcher.get(jobInfo.getId()));
+
+        verify(jobInfoRepository, times(1)).findById(jobInfo.getId(), JobInfoProjection.WATCH);
+        assertEquals(1, jobInfoWatcher.size());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testAllWatchedJobsAreUpdatedWithOneQuery() throws Exception {
+        final JobInfo jobInfo1 = createJobInfo(false);
+        final JobInfo jobInfo2 = createJobInfo(false);
+        when(jobInfoRepository.findById(jobInfo1.getId(), JobInfoProjection.WATCH)).thenReturn(jobInfo1);
+        when(jobInfoRepository.findById(jobInfo2.getId(), JobInfoProjection.WATCH)).thenReturn(jobInfo2);
+        jobInfoWatcher.get(jobInfo1.getId());
+        jobInfoWatcher.get(jobInfo2.getId());
+
+        final JobInfo abortedJobInfo1 = createJobInfo(jobInfo1.getId(), true);
+        when(jobInfoRepository.findByIdsAndRunningState(any(Collection.class), eq(RunningState.RUNNING), eq(JobInfoProjection.WATCH))).
+                thenReturn(Arrays.asList(abortedJobInfo1, jobInfo2));
+        jobInfoWatcher.update();
+
+        verify(jobInfoRepository, times(1)).findByIdsAndRunningState(
+                new HashSet<>(Arrays.asList(jobInfo1.getId(), jobInfo2.getId())), RunningState.RUNNING, JobInfoProjection.WATCH);
+        assertTrue(jobInfoWatcher.get(jobInfo1.getId()).isAborted());
+        assertFalse(jobInfoWatcher.get(jobInfo2.getId()).isAborted());
+        verify(jobInfoRepository, times(2)).findById(anyString(), eq(JobInfoProjection.WATCH));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testJobsNoLongerRunningAreNotWatchedAnymore() throws Exception {
+        final JobInfo jobInfo = createJobInfo(false);
+        when(jobInfoRepository.findById(jobInfo.getId(), JobInfoProjection.WATCH)).thenReturn(jobInfo);
+        jobInfoWatcher.get(jobInfo.getId());
+        when(jobInfoRepository.findByIdsAndRunningState(any(Collection.class), eq(RunningState.RUNNING), eq(JobInfoProjection.WATCH))).
+                thenReturn(new ArrayList<JobInfo>());
+
+        jobInfoWatcher.update();
+
+        assertEquals(0, jobInfoWatcher.size());
+    }
+
+    @Test
+    public void testUnwatchedJobIsNotQueried() throws Exception {
+        final JobInfo jobInfo = createJobInfo(false);
+        when(jobInfoRepository.findById(jobInfo.getId(), JobInfoProjection.WATCH)).thenReturn(jobInfo);
+        jobInfoWatcher.get(jobInfo.getId());
+        jobInfoWatcher.unwatch(jobInfo.getId());
+
+        jobInfoWatcher.update();
+
+        verify(jobInfoRepository, never()).findByIdsAndRunningState(
+                anyCollectionOf(String.class), any(RunningState.class), any(JobInfoProjection.class));
+    }
+
+    @Test
+    public void testRefreshReadsOnlyWatchedJob() throws Exception {
+        final JobInfo jobInfo = createJobInfo(false);
+        final JobInfo abortedJobInfo = createJobInfo(jobInfo.getId(), true);
+        when(jobInfoRepository.findById(jobInfo.getId(), JobInfoProjection.WATCH)).thenReturn(jobInfo, abortedJobInfo);
+        jobInfoWatcher.get(jobInfo.getId());
+
+        jobInfoWatcher.refresh(jobInfo.getId());
+        jobInfoWatcher.refresh(new ObjectId().toString());
+
+        assertTrue(jobInfoWatcher.get(jobInfo.getId()).isAborted());
+        verify(jobInfoRepository, times(2)).findById(anyString(), eq(JobInfoProjection.WATCH));
+    }
+
+    @Test
+    public void testJobInfoCacheReadsFromWatcher() throws Exception {
+        final JobInfo jobInfo = createJobInfo(true);
+        when(jobInfoRepository.findById(jobInfo.getId(), JobInfoProjection.WATCH)).thenReturn(jobInfo);
+
+        final JobInfoCache jobInfoCache = new JobInfoCache(jobInfo.getId(), jobInfoWatcher);
+
+        assertTrue(jobInfoCache.isAborted());
+        assertFalse(jobInfoCache.isTimedOut());
+        verify(jobInfoRepository, times(1)).findById(jobInfo.getId(), JobInfoProjection.WATCH);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testWatcherIsStartedAgainAfterShutdown() throws Exception {
+        jobInfoWatcher = new JobInfoWatcher(jobInfoRepository, 10);
+        final JobInfo jobInfo = createJobInfo(false);
+        when(jobInfoRepository.findById(jobInfo.getId(), JobInfoProjection.WATCH)).thenReturn(jobInfo);
+        jobInfoWatcher.get(jobInfo.getId());
+
+        jobInfoWatcher.shutdown();
+        assertEquals(0, jobInfoWatcher.size());
+        reset(jobInfoRepository);
+        when(jobInfoRepository.findById(jobInfo.getId(), JobInfoProjection.WATCH)).thenReturn(jobInfo);
+
+        jobInfoWatcher.get(jobInfo.getId());
+        verify(jobInfoRepository, timeout(2000).atLeastOnce()).
+                findByIdsAndRunningState(any(Collection.class), eq(RunningState.RUNNING), eq(JobInfoProjection.WATCH));
+    }
+
+    private JobInfo createJobInfo(boolean aborted) {
+        return createJobInfo(new ObjectId().toString(), aborted);
+    }
+
+    private JobInfo createJobInfo(String id, boolean aborted) {
+        return new JobInfo(new BasicDBObject(JobInfoProperty.ID.val(), new ObjectId(id)).
+                append(JobInfoProperty.START_TIME.val(), new Date()).
+                append(JobInfoProperty.MAX_EXECUTION_TIME.val(), 60000L).
+                append(JobInfoProperty.ABORTED.val(), aborted));
+    }
+
+}
@@ -0,0 +1,96 @@
+package de.otto.jobstore.common.util;
+
+import org.testng.annotations.Test;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.TimeZone;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+
+public class CronExpressionTest {
+
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    @Test
+    public void testNextMinute() throws Exception {
+        assertEquals(date("2013-05-10 12:01"), new CronExpression("* * * * *", UTC).next(date("2013-05-10 12:00:30")));
+    }
+
+    @Test
+    public void testNextWithStep() throws Exception {
+        final CronExpression cronExpression = new CronExpression("*/15 * * * *", UTC);
+        assertEquals(date("2013-05-10 12:15"), cronExpression.next(date("2013-05-10 12:00")));
+        assertEquals(date("2013-05-10 13:00"), cronExpression.next(date("2013-05-10 12:45")));
+    }
+
+    @Test
+    public void testNextDailyRollsOverToNextDay() throws Exception {
+        assertEquals(date("2013-05-11 03:00"), new CronExpression("0 3 * * *", UTC).next(date("2013-05-10 03:00")));
+    }
+
+    @Test
+    public void testNextWithListAndRange() throws Exception {
+        final CronExpression cronExpression = new CronExpression("30 8-10,14 * * *", UTC);
+        assertEquals(date("2013-05-10 10:30"), cronExpression.next(date("2013-05-10 09:30")));
+        assertEquals(date("2013-05-10 14:30"), cronExpression.next(date("2013-05-10 10:30")));
+    }
+
+    @Test
+    public void testNextOnWeekdays() throws Exception {
+        // 2013-05-10 is a friday
+        assertEquals(date("2013-05-13 03:00"), new CronExpression("0 3 * * 1-5", UTC).next(date("2013-05-10 04:00")));
+    }
+
+    @Test
+    public void testSundayAsSeven() throws Exception {
+        assertEquals(date("2013-05-12 00:00"), new CronExpression("0 0 * * 7", UTC).next(date("2013-05-10 00:00")));
+    }
+
+    @Test
+    public void testDayOfMonthOrDayOfWeek() throws Exception {
+        // the 15th or any monday
+        final CronExpression cronExpression = new CronExpression("0 0 15 * 1", UTC);
+        assertEquals(date("2013-05-13 00:00"), cronExpression.next(date("2013-05-10 00:00")));
+        assertEquals(date("2013-05-15 00:00"), cronExpression.next(date("2013-05-13 00:00")));
+    }
+
+    @Test
+    public void testNextInOtherMonth() throws Exception {
+        assertEquals(date("2014-02-01 00:00"), new CronExpression("0 0 1 2 *", UTC).next(date("2013-05-10 00:00")));
+    }
+
+    @Test
+    public void testNextForImpossibleDate() throws Exception {
+        assertNull(new CronExpression("0 0 30 2 *", UTC).next(date("2013-05-10 00:00")));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testTooFewFields() throws Exception {
+        new CronExpression("* * * *");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testValueOutOfRange() throws Exception {
+        new CronExpression("60 * * * *");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidValue() throws Exception {
+        new CronExpression("a * * * *");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidStep() throws Exception {
+        new CronExpression("*/0 * * * *");
+    }
+
+    private Date date(String date) throws ParseException {
+        final SimpleDateFormat format = new SimpleDateFormat(date.length() > 16 ? "yyyy-MM-dd HH:mm:ss" : "yyyy-MM-dd HH:mm");
+        format.setTimeZone(UTC);
+        return format.parse(date);
+    }
+
+}
@@ -0,0 +1,94 @@
+package de.otto.jobstore.repository;
+
+import com.mongodb.*;
+import org.mockito.InOrder;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.*;
+import static org.testng.AssertJUnit.assertSame;
+
+public class AbstractRepositoryTest {
+
+    private DB db;
+    private JobLogRepository repository;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        final Mongo mongo = mock(Mongo.class);
+        db = mock(DB.class);
+        final DBCollection collection = mock(DBCollection.class);
+        when(mongo.getDB("db")).thenReturn(db);
+        when(db.getCollection("logs")).thenReturn(collection);
+        when(collection.getDB()).thenReturn(db);
+        when(collection.getWriteConcern()).thenReturn(WriteConcern.ACKNOWLEDGED);
+        repository = new JobLogRepository(mongo, "db", "logs");
+    }
+
+    @Test
+    public void testCommandAwaitsWriteConcernOfCategoryOnSameConnection() throws Exception {
+        repository.setWriteConcernPolicy(WriteConcernPolicy.tiered());
+        final DBObject command = new BasicDBObject("findandmodify", "logs");
+        final CommandResult result = commandResult(true);
+        final CommandResult lastError = commandResult(true);
+        when(db.command(command)).thenReturn(result);
+        when(db.getLastError(WriteConcern.JOURNALED)).thenReturn(lastError);
+
+        assertSame(result, repository.command(WriteConcernPolicy.Category.DEFINITION, command));
+
+        final InOrder inOrder = inOrder(db);
+        inOrder.verify(db).requestStart();
+        inOrder.verify(db).command(command);
+        inOrder.verify(db).getLastError(WriteConcern.JOURNALED);
+        inOrder.verify(db).requestDone();
+    }
+
+    @Test
+    public void testCommandDoesNotAwaitAcknowledgedWriteConcern() throws Exception {
+        final DBObject command = new BasicDBObject("findandmodify", "logs");
+        final CommandResult result = commandResult(true);
+        when(db.command(command)).thenReturn(result);
+
+        repository.command(WriteConcernPolicy.Category.STATE_TRANSITION, command);
+
+        verify(db, never()).requestStart();
+        verify(db, never()).getLastError(any(WriteConcern.class));
+    }
+
+    @Test
+    public void testCommandDoesNotAwaitWriteConcernOfFailedCommand() throws Exception {
+        repository.setWriteConcernPolicy(WriteConcernPolicy.tiered());
+        final DBObject command = new BasicDBObject("findandmodify", "logs");
+        final CommandResult result = commandResult(false);
+        when(db.command(command)).thenReturn(result);
+
+        repository.command(WriteConcernPolicy.Category.DEFINITION, command);
+
+        verify(db, never()).getLastError(any(WriteConcern.class));
+        verify(db).requestDone();
+    }
+
+    @Test(expectedExceptions = MongoException.class)
+    public void testCommandFailsIfWriteConcernIsNotFulfilled() throws Exception {
+        repository.setWriteConcernPolicy(WriteConcernPolicy.tiered());
+        final DBObject command = new BasicDBObject("findandmodify", "logs");
+        final CommandResult result = commandResult(true);
+        final CommandResult lastError = commandResult(true);
+        when(db.command(command)).thenReturn(result);
+        doThrow(new MongoException("timeout")).when(lastError).throwOnError();
+        when(db.getLastError(WriteConcern.JOURNALED)).thenReturn(lastError);
+
+        try {
+            repository.command(WriteConcernPolicy.Category.DEFINITION, command);
+        } finally {
+            verify(db).requestDone();
+        }
+    }
+
+    private CommandResult commandResult(boolean ok) {
+        final CommandResult result = mock(CommandResult.class);
+        when(result.ok()).thenReturn(ok);
+        return result;
+    }
+
+}
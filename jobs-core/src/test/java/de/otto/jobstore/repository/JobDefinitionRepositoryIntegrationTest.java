@@ -7,6 +7,7 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import javax.annotation.Resource;
+import java.util.Date;
 
 import static org.testng.AssertJUnit.*;
 
@@ -88,6 +89,22 @@ public class JobDefinitionRepositoryIntegrationTest extends AbstractTestNGSpring
         assertFalse(retrievedJobDefinition.isDisabled());
     }
 
+    @Test
+    public void testEnablingOrDisablingJobIncreasesVersion() throws Exception {
+        jobDefinitionRepository.addOrUpdate(StoredJobDefinition.JOB_EXEC_SEMAPHORE);
+        StoredJobDefinition jd = new StoredJobDefinition(JOB_NAME, 1, 1, 1, 0, 0, true, false);
+        jobDefinitionRepository.save(jd);
+        assertEquals(0L, jobDefinitionRepository.getVersion());
+
+        jobDefinitionRepository.setJobExecutionEnabled(JOB_NAME, false);
+        assertEquals(1L, jobDefinitionRepository.getVersion());
+        jobDefinitionRepository.setJobExecutionEnabled(StoredJobDefinition.JOB_EXEC_SEMAPHORE.getName(), false);
+        assertEquals(2L, jobDefinitionRepository.getVersion());
+
+        jobDefinitionRepository.addOrUpdate(StoredJobDefinition.JOB_EXEC_SEMAPHORE);
+        assertEquals(2L, jobDefinitionRepository.getVersion());
+    }
+
     @Test
     public void testUpdatingPausedJob() throws Exception {
         StoredJobDefinition jd = new StoredJobDefinition(JOB_NAME, 1, 1, 1, 0, 0, true, false);
@@ -100,4 +117,44 @@ public class JobDefinitionRepositoryIntegrationTest extends AbstractTestNGSpring
         assertEquals(2, retrievedJobDefinition.getPollingInterval());
         assertTrue(retrievedJobDefinition.isDisabled());
     }
+
+    @Test
+    public void testSettingUnchangedScheduleKeepsNextFireTime() throws Exception {
+        jobDefinitionRepository.addOrUpdate(new StoredJobDefinition(JOB_NAME, 1, 1, 1, 0, 0, false, false));
+        jobDefinitionRepository.setSchedule(JOB_NAME, "0 3 * * *", new Date(1000));
+        jobDefinitionRepository.setSchedule(JOB_NAME, "0 3 * * *", new Date(2000));
+        assertEquals(new Date(1000), jobDefinitionRepository.find(JOB_NAME).getNextFireTime());
+
+        jobDefinitionRepository.setSchedule(JOB_NAME, "0 4 * * *", new Date(3000));
+        assertEquals(new Date(3000), jobDefinitionRepository.find(JOB_NAME).getNextFireTime());
+
+        jobDefinitionRepository.setSchedule(JOB_NAME, null, null);
+        assertNull(jobDefinitionRepository.find(JOB_NAME).getCronExpression());
+        assertTrue(jobDefinitionRepository.findDueSchedules(new Date()).isEmpty());
+    }
+
+    @Test
+    public void testUpdatingDefinitionWithoutCronExpressionRemovesSchedule() throws Exception {
+        jobDefinitionRepository.addOrUpdate(new StoredJobDefinition(JOB_NAME, 1, 1, 1, 0, 0, false, false));
+        jobDefinitionRepository.setSchedule(JOB_NAME, "* * * * *", new Date(1000));
+
+        jobDefinitionRepository.addOrUpdate(new StoredJobDefinition(JOB_NAME, 1, 1, 1, 0, 0, false, false));
+        assertNull(jobDefinitionRepository.find(JOB_NAME).getCronExpression());
+        assertNull(jobDefinitionRepository.find(JOB_NAME).getNextFireTime());
+    }
+
+    @Test
+    public void testFireTimeCanBeClaimedOnlyOnce() throws Exception {
+        jobDefinitionRepository.addOrUpdate(new StoredJobDefinition(JOB_NAME, 1, 1, 1, 0, 0, false, false));
+        final Date fireTime = new Date(System.currentTimeMillis() - 1000);
+        jobDefinitionRepository.setSchedule(JOB_NAME, "* * * * *", fireTime);
+        assertEquals(1, jobDefinitionRepository.findDueSchedules(new Date()).size());
+
+        final Date nextFireTime = new Date(System.currentTimeMillis() + 60000);
+        assertTrue(jobDefinitionRepository.claimFire(JOB_NAME, "* * * * *", fireTime, nextFireTime));
+        assertFalse(jobDefinitionRepository.claimFire(JOB_NAME, "* * * * *", fireTime, nextFireTime));
+        assertEquals(nextFireTime, jobDefinitionRepository.find(JOB_NAME).getNextFireTime());
+        assertTrue(jobDefinitionRepository.findDueSchedules(new Date()).isEmpty());
+    }
+
 }
@@ -0,0 +1,104 @@
+package de.otto.jobstore.repository;
+
+import com.mongodb.DBObject;
+import de.otto.jobstore.common.JobEvent;
+import de.otto.jobstore.common.JobExecutionPriority;
+import de.otto.jobstore.common.ResultCode;
+import de.otto.jobstore.common.RunningState;
+import de.otto.jobstore.common.properties.JobEventProperty;
+import org.bson.types.ObjectId;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.testng.AssertJUnit.*;
+
+@ContextConfiguration(locations = {"classpath:spring/jobs-context.xml"})
+public class JobEventRepositoryIntegrationTest extends AbstractTestNGSpringContextTests {
+
+    @Resource
+    private JobInfoRepository jobInfoRepository;
+
+    private JobEventRepository jobEventRepository;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        jobInfoRepository.clear(true);
+        jobEventRepository = jobInfoRepository.getJobEventRepository();
+        jobEventRepository.clear(true);
+    }
+
+    @Test
+    public void testLifecycleOfJobIsPublished() throws Exception {
+        String id = jobInfoRepository.create("testjob", 1000, 1000, 0, RunningState.QUEUED,
+                JobExecutionPriority.CHECK_PRECONDITIONS, null);
+        jobInfoRepository.activateQueuedJobById(id);
+        jobInfoRepository.abortJob(id);
+        jobInfoRepository.markAsFinished(id, ResultCode.ABORTED);
+
+        List<JobEvent> events = readEvents(null, 4);
+        assertEquals(4, events.size());
+        assertEquals(JobEvent.Type.QUEUED, events.get(0).getType());
+        assertEquals("testjob", events.get(0).getName());
+        assertEquals(JobEvent.Type.ACTIVATED, events.get(1).getType());
+        assertEquals(JobEvent.Type.ABORT_REQUESTED, events.get(2).getType());
+        assertEquals(JobEvent.Type.FINISHED, events.get(3).getType());
+        for (JobEvent event : events) {
+            assertEquals(id, event.getJobId());
+        }
+    }
+
+    @Test
+    public void testTailReturnsEventsAfterGivenId() throws Exception {
+        assertNull(jobEventRepository.findLastId());
+        jobEventRepository.publish(JobEvent.Type.QUEUED, new ObjectId().toString(), "job1");
+        ObjectId lastId = jobEventRepository.findLastId();
+        jobEventRepository.publish(JobEvent.Type.QUEUED, new ObjectId().toString(), "job2");
+
+        List<JobEvent> events = readEvents(lastId, 1);
+        assertEquals(1, events.size());
+        assertEquals("job2", events.get(0).getName());
+    }
+
+    @Test
+    public void testTailReturnsEventsWithOlderIdsPublishedAfterGivenId() throws Exception {
+        jobEventRepository.publish(JobEvent.Type.QUEUED, new ObjectId().toString(), "job1");
+        ObjectId lastId = jobEventRepository.findLastId();
+        // an event published by a node whose clock is behind
+        JobEvent event = new JobEvent(JobEvent.Type.QUEUED, new ObjectId().toString(), "job2");
+        DBObject dbObject = event.toDbObject();
+        dbObject.put(JobEventProperty.ID.val(), new ObjectId(new Date(lastId.getTime() - 60000L)));
+        jobEventRepository.collection.insert(dbObject);
+
+        List<JobEvent> events = readEvents(lastId, 1);
+        assertEquals(1, events.size());
+        assertEquals("job2", events.get(0).getName());
+    }
+
+    @Test
+    public void testTailReturnsAllEventsIfGivenIdIsNotKept() throws Exception {
+        jobEventRepository.publish(JobEvent.Type.QUEUED, new ObjectId().toString(), "job1");
+
+        List<JobEvent> events = readEvents(new ObjectId(), 1);
+        assertEquals(1, events.size());
+        assertEquals("job1", events.get(0).getName());
+    }
+
+    private List<JobEvent> readEvents(ObjectId afterId, int count) {
+        final List<JobEvent> events = new ArrayList<>();
+        try (ItemIterator<JobEvent> iterator = jobEventRepository.tail(afterId)) {
+            // the tailable cursor waits for further events, thus only the expected number of events is read
+            while (events.size() < count && iterator.hasNext()) {
+                events.add(iterator.next());
+            }
+        }
+        return events;
+    }
+
+}
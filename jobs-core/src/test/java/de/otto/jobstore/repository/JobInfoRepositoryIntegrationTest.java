@@ -2,6 +2,7 @@ package de.otto.jobstore.repository;
 
 import com.mongodb.BasicDBList;
 import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
 import com.mongodb.DBObject;
 import de.otto.jobstore.common.*;
 import de.otto.jobstore.common.properties.JobInfoProperty;
@@ -17,8 +18,6 @@ import javax.annotation.Resource;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
 
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
 import static org.testng.AssertJUnit.*;
 import static org.testng.AssertJUnit.assertEquals;
 
@@ -52,6 +51,36 @@ public class JobInfoRepositoryIntegrationTest extends AbstractTestNGSpringContex
         assertNull(createJobInfo(TESTVALUE_JOBNAME, 60 * 1000, RunningState.RUNNING));
     }
 
+    @Test
+    public void testAdmitJobRunsJobIfNoneIsRunningOrQueued() throws Exception {
+        JobAdmission admission = jobInfoRepository.admitJob(TESTVALUE_JOBNAME, 1000, 1000, 0, JobExecutionPriority.CHECK_PRECONDITIONS, new HashMap<String, String>());
+        assertEquals(JobAdmission.Decision.RUN, admission.getDecision());
+        assertEquals(RunningState.RUNNING.name(), admission.getJobInfo().getRunningState());
+        assertEquals(admission.getJobInfo().getId(), jobInfoRepository.findByNameAndRunningState(TESTVALUE_JOBNAME, RunningState.RUNNING).getId());
+    }
+
+    @Test
+    public void testAdmitJobQueuesJobWithHigherPriorityIfJobIsRunning() throws Exception {
+        assertEquals(JobAdmission.Decision.RUN, jobInfoRepository.admitJob(TESTVALUE_JOBNAME, 1000, 1000, 0,
+                JobExecutionPriority.CHECK_PRECONDITIONS, new HashMap<String, String>()).getDecision());
+        assertEquals(JobAdmission.Decision.NOT_NECESSARY, jobInfoRepository.admitJob(TESTVALUE_JOBNAME, 1000, 1000, 0,
+                JobExecutionPriority.CHECK_PRECONDITIONS, new HashMap<String, String>()).getDecision());
+        JobAdmission admission = jobInfoRepository.admitJob(TESTVALUE_JOBNAME, 1000, 1000, 0, JobExecutionPriority.IGNORE_PRECONDITIONS, new HashMap<String, String>());
+        assertEquals(JobAdmission.Decision.QUEUE, admission.getDecision());
+        assertTrue(jobInfoRepository.hasJob(TESTVALUE_JOBNAME, RunningState.QUEUED));
+    }
+
+    @Test
+    public void testAdmitJobReplacesQueuedJobWithLowerPriority() throws Exception {
+        String id = createJobInfo(TESTVALUE_JOBNAME, 1000, RunningState.QUEUED);
+        assertEquals(JobAdmission.Decision.ALREADY_QUEUED, jobInfoRepository.admitJob(TESTVALUE_JOBNAME, 1000, 1000, 0,
+                JobExecutionPriority.CHECK_PRECONDITIONS, new HashMap<String, String>()).getDecision());
+        JobAdmission admission = jobInfoRepository.admitJob(TESTVALUE_JOBNAME, 1000, 1000, 0, JobExecutionPriority.FORCE_EXECUTION, new HashMap<String, String>());
+        assertEquals(JobAdmission.Decision.QUEUE, admission.getDecision());
+        assertNull(jobInfoRepository.findById(id));
+        assertEquals(JobExecutionPriority.FORCE_EXECUTION, jobInfoRepository.findById(admission.getJobInfo().getId()).getExecutionPriority());
+    }
+
     @Test
     public void activatingQueuedJobWhenAJobIsAlreadyRunningShouldFail() throws Exception {
         String id = createJobInfo(TESTVALUE_JOBNAME, 60 * 1000, RunningState.QUEUED);
@@ -64,6 +93,17 @@ public class JobInfoRepositoryIntegrationTest extends AbstractTestNGSpringContex
         assertFalse(jobInfoRepository.activateQueuedJobById(id));
     }
 
+    @Test
+    public void activatingQueuedJobWithGivenTimesSetsDeadlinesFromThem() throws Exception {
+        String id = createJobInfo(TESTVALUE_JOBNAME, 60 * 1000, RunningState.QUEUED);
+        assertTrue(jobInfoRepository.activateQueuedJobById(id, 1000L, 2000L));
+
+        JobInfo jobInfo = jobInfoRepository.findById(id);
+        assertEquals(Long.valueOf(1000L), jobInfo.getMaxIdleTime());
+        assertEquals(jobInfo.getStartTime().getTime() + 1000L, jobInfo.getIdleDeadline().getTime());
+        assertEquals(jobInfo.getStartTime().getTime() + 2000L, jobInfo.getExecutionDeadline().getTime());
+    }
+
     @Test
     public void deactivatingARunningJobWhenAJobIsAlreadyQueuedShouldFail() throws Exception {
         String id = createJobInfo(TESTVALUE_JOBNAME, 60 * 1000, RunningState.RUNNING);
@@ -76,6 +116,16 @@ public class JobInfoRepositoryIntegrationTest extends AbstractTestNGSpringContex
         assertFalse(jobInfoRepository.deactivateRunningJob(id));
     }
 
+    @Test
+    public void testDeactivatingARunningJobRemovesItsDeadlines() throws Exception {
+        String id = createJobInfo(TESTVALUE_JOBNAME, 60 * 1000, RunningState.RUNNING);
+        assertTrue(jobInfoRepository.deactivateRunningJob(id));
+
+        DBObject jobInfo = jobInfoRepository.findById(id).toDbObject();
+        assertFalse(jobInfo.containsField(JobInfoProperty.EXECUTION_DEADLINE.val()));
+        assertFalse(jobInfo.containsField(JobInfoProperty.IDLE_DEADLINE.val()));
+    }
+
     @Test
     public void testHasRunningJob() throws InterruptedException {
         assertFalse(jobInfoRepository.hasJob(TESTVALUE_JOBNAME, RunningState.RUNNING));
@@ -98,6 +148,16 @@ public class JobInfoRepositoryIntegrationTest extends AbstractTestNGSpringContex
         assertTrue(jobInfoRepository.hasJob(TESTVALUE_JOBNAME, RunningState.QUEUED));
     }
 
+    @Test
+    public void testHasAnyJob() throws Exception {
+        final Set<String> names = new HashSet<>(Arrays.asList(TESTVALUE_JOBNAME, "otherJob"));
+        assertFalse(jobInfoRepository.hasAnyJob(names, EnumSet.of(RunningState.RUNNING, RunningState.QUEUED)));
+        createJobInfo("otherJob", 1000, RunningState.QUEUED);
+        assertFalse(jobInfoRepository.hasAnyJob(names, EnumSet.of(RunningState.RUNNING)));
+        assertTrue(jobInfoRepository.hasAnyJob(names, EnumSet.of(RunningState.RUNNING, RunningState.QUEUED)));
+        assertFalse(jobInfoRepository.hasAnyJob(Collections.singleton(TESTVALUE_JOBNAME), EnumSet.of(RunningState.QUEUED)));
+    }
+
     @Test
     public void testClear() {
         createJobInfo(TESTVALUE_JOBNAME, 300, RunningState.RUNNING);
@@ -123,6 +183,20 @@ public class JobInfoRepositoryIntegrationTest extends AbstractTestNGSpringContex
         assertNotNull(jobInfoRepository.findByName(TESTVALUE_JOBNAME, null).get(0).getFinishTime());
     }
 
+    @Test
+    public void testJobsWithoutExpireAtAreExpiredExceptRunningOnes() throws Exception {
+        final DBCollection collection = (DBCollection) ReflectionTestUtils.getField(jobInfoRepository, "collection");
+        collection.insert(new BasicDBObject(JobInfoProperty.NAME.val(), "finished").
+                append(JobInfoProperty.RUNNING_STATE.val(), "FINISHED_" + new ObjectId()));
+        collection.insert(new BasicDBObject(JobInfoProperty.NAME.val(), "running").
+                append(JobInfoProperty.RUNNING_STATE.val(), RunningState.RUNNING.name()));
+
+        ReflectionTestUtils.invokeMethod(jobInfoRepository, "prepareCollection");
+
+        assertNotNull(collection.findOne(new BasicDBObject(JobInfoProperty.NAME.val(), "finished")).get(JobInfoProperty.EXPIRE_AT.val()));
+        assertNull(collection.findOne(new BasicDBObject(JobInfoProperty.NAME.val(), "running")).get(JobInfoProperty.EXPIRE_AT.val()));
+    }
+
     @Test
     public void testCleanupTimedOutJobs() throws InterruptedException {
         for(int i=0; i < 100; i++) {
@@ -140,6 +214,56 @@ public class JobInfoRepositoryIntegrationTest extends AbstractTestNGSpringContex
         }
     }
 
+    @Test
+    public void testIdleDeadlineIsAdvancedAndJobIsTimedOutAfterIt() throws Exception {
+        String id = createJobInfo(TESTVALUE_JOBNAME, 1000, RunningState.RUNNING);
+        Date idleDeadline = jobInfoRepository.findById(id).getIdleDeadline();
+        assertNotNull(jobInfoRepository.findById(id).getExecutionDeadline());
+        Thread.sleep(10);
+        jobInfoRepository.addLogLine(id, "test");
+        assertTrue(jobInfoRepository.findById(id).getIdleDeadline().after(idleDeadline));
+        assertEquals(0, jobInfoRepository.cleanupTimedOutJobs());
+
+        Thread.sleep(1100);
+        assertEquals(1, jobInfoRepository.cleanupTimedOutJobs());
+        assertEquals(ResultCode.TIMED_OUT, jobInfoRepository.findById(id).getResultState());
+    }
+
+    @Test
+    public void testStreamByNameReadsAllJobsInBatches() throws Exception {
+        for (int i = 0; i < 25; i++) {
+            jobInfoRepository.save(new JobInfo(new BasicDBObject().append("name", TESTVALUE_JOBNAME).
+                    append("runningState", RunningState.FINISHED.name() + "_" + i).append("creationTime", new Date(i * 1000L))));
+        }
+        List<JobInfo> jobInfos = new ArrayList<>();
+        try (ItemIterator<JobInfo> iterator = jobInfoRepository.streamByName(TESTVALUE_JOBNAME, JobInfoProjection.SUMMARY, 10)) {
+            for (JobInfo jobInfo : iterator) {
+                jobInfos.add(jobInfo);
+            }
+        }
+        assertEquals(25, jobInfos.size());
+        assertEquals(new Date(24000L), jobInfos.get(0).getCreationTime());
+        assertEquals(new Date(0L), jobInfos.get(24).getCreationTime());
+    }
+
+    @Test
+    public void testFindByNameWithLazyDecoding() throws Exception {
+        String id = createJobInfo(TESTVALUE_JOBNAME, 1000, RunningState.RUNNING);
+        jobInfoRepository.addAdditionalData(id, "key", "value");
+        jobInfoRepository.setLazyDecoding(true);
+        try {
+            JobInfo jobInfo = jobInfoRepository.findByName(TESTVALUE_JOBNAME, null).get(0);
+            assertEquals(RunningState.RUNNING.name(), jobInfo.getRunningState());
+            assertEquals("value", jobInfo.getAdditionalData().get("key"));
+
+            jobInfo.setParameters(Collections.singletonMap("param", "value"));
+            jobInfoRepository.save(jobInfo);
+            assertEquals("value", jobInfoRepository.findById(id).getParameters().get("param"));
+        } finally {
+            jobInfoRepository.setLazyDecoding(false);
+        }
+    }
+
     @Test
     public void testAddOrUpdateAdditionalData_Insert() {
         String id = createJobInfo(TESTVALUE_JOBNAME, 1000, RunningState.RUNNING);
@@ -181,6 +305,24 @@ public class JobInfoRepositoryIntegrationTest extends AbstractTestNGSpringContex
         assertEquals(3, jobInfoRepository.findMostRecent().size());
     }
 
+    @Test
+    public void testFindMostRecentAndMostRecentFinishedForAllNames() {
+        String id = createJobInfo(TESTVALUE_JOBNAME + 1, 1000, RunningState.RUNNING);
+        jobInfoRepository.markAsFinished(id, ResultCode.FAILED);
+        String runningId = createJobInfo(TESTVALUE_JOBNAME + 1, 1000, RunningState.RUNNING);
+        createJobInfo(TESTVALUE_JOBNAME + 2, 1000, RunningState.RUNNING);
+
+        List<JobInfo> mostRecent = jobInfoRepository.findMostRecent(JobInfoProjection.SUMMARY);
+        assertEquals(2, mostRecent.size());
+        assertEquals(runningId, mostRecent.get(0).getId());
+        assertEquals(TESTVALUE_HOST, mostRecent.get(0).getHost());
+
+        List<JobInfo> mostRecentFinished = jobInfoRepository.findMostRecentFinished(JobInfoProjection.SUMMARY);
+        assertEquals(1, mostRecentFinished.size());
+        assertEquals(id, mostRecentFinished.get(0).getId());
+        assertEquals(ResultCode.FAILED, mostRecentFinished.get(0).getResultState());
+    }
+
     @Test
     public void testByNameAndTimeRange() {
         createJobInfo(TESTVALUE_JOBNAME, 1000, RunningState.RUNNING);
@@ -224,6 +366,40 @@ public class JobInfoRepositoryIntegrationTest extends AbstractTestNGSpringContex
         assertEquals("test3", jobs.get(2).getName());
     }
 
+    @Test
+    public void testFindQueuedJobsWithNamesSortedAscByCreationTime() throws Exception {
+        createJobInfo("test", 1000, RunningState.QUEUED);
+        Thread.sleep(100);
+        createJobInfo("test2", 1000, RunningState.QUEUED);
+        Thread.sleep(100);
+        createJobInfo("test3", 1000, RunningState.QUEUED);
+        List<JobInfo> jobs = jobInfoRepository.findQueuedJobsSortedAscByCreationTime(Arrays.asList("test3", "test"));
+        assertEquals(2, jobs.size());
+        assertEquals("test", jobs.get(0).getName());
+        assertEquals("test3", jobs.get(1).getName());
+    }
+
+    @Test
+    public void testFindMostRecentFinishedForNames() throws Exception {
+        String id = createJobInfo("test", 1000, RunningState.RUNNING);
+        jobInfoRepository.markAsFinished(id, ResultCode.FAILED);
+        Thread.sleep(100);
+        id = createJobInfo("test", 1000, RunningState.RUNNING);
+        jobInfoRepository.markAsFinished(id, ResultCode.SUCCESSFUL);
+        createJobInfo("test", 1000, RunningState.RUNNING);
+        createJobInfo("test2", 1000, RunningState.RUNNING);
+        final String id3 = createJobInfo("test3", 1000, RunningState.RUNNING);
+        jobInfoRepository.markAsFinished(id3, ResultCode.FAILED);
+
+        Map<String, JobInfo> jobs = jobInfoRepository.findMostRecentFinished(Arrays.asList("test", "test2", "test3"));
+        assertEquals(2, jobs.size());
+        assertEquals(id, jobs.get("test").getId());
+        assertEquals(ResultCode.SUCCESSFUL, jobs.get("test").getResultState());
+        assertEquals(ResultCode.FAILED, jobs.get("test3").getResultState());
+        assertEquals(JobExecutionPriority.CHECK_PRECONDITIONS, jobs.get("test3").getExecutionPriority());
+        assertNotNull(jobs.get("test3").getLastModifiedTime());
+    }
+
     @Test
     public void testUpdateHostAndThreadInformation() throws Exception {
         String id = createJobInfo(TESTVALUE_JOBNAME, 1000, RunningState.RUNNING);
@@ -257,24 +433,36 @@ public class JobInfoRepositoryIntegrationTest extends AbstractTestNGSpringContex
     }
 
     @Test
-    public void testCleanupOldRunningJobs() throws Exception {
+    public void testRunningJobDoesNotExpire() throws Exception {
+        String id = createJobInfo(TESTVALUE_JOBNAME, 1000, RunningState.RUNNING);
+        assertNull(jobInfoRepository.findById(id).getExpireAt());
+    }
+
+    @Test
+    public void testQueuedJobExpiresUnlessActivated() throws Exception {
         jobInfoRepository.setHoursAfterWhichOldJobsAreDeleted(1);
-        JobInfo jobInfo = newJobInfo(1000L, RunningState.RUNNING);
-        ReflectionTestUtils.invokeMethod(jobInfo, "addProperty", JobInfoProperty.LAST_MODIFICATION_TIME, new Date(new Date().getTime() - 1000 * 60 * 60 * 24 * 5));
-        jobInfoRepository.save(jobInfo);
-        assertEquals(1L, jobInfoRepository.count());
-        jobInfoRepository.cleanupOldJobs();
-        assertNotNull(jobInfoRepository.findMostRecent(TESTVALUE_JOBNAME)); //Job should still be there as it is running
+        String id = createJobInfo(TESTVALUE_JOBNAME, 1000, RunningState.QUEUED);
+        JobInfo jobInfo = jobInfoRepository.findById(id);
+        assertEquals(jobInfo.getCreationTime().getTime() + TimeUnit.HOURS.toMillis(1), jobInfo.getExpireAt().getTime(), 1000);
+
+        assertTrue(jobInfoRepository.activateQueuedJobById(id));
+        assertNull(jobInfoRepository.findById(id).getExpireAt());
     }
 
     @Test
-    public void testCleanupOldJobs() throws Exception {
+    public void testFinishedJobExpiresAfterRetentionTime() throws Exception {
         jobInfoRepository.setHoursAfterWhichOldJobsAreDeleted(1);
-        JobInfo jobInfo = new JobInfo(new Date(new Date().getTime() - TimeUnit.DAYS.toMillis(12)), TESTVALUE_JOBNAME, TESTVALUE_HOST, TESTVALUE_THREAD, 1000L, 1000L, 0L, RunningState.FINISHED);
-        jobInfoRepository.save(jobInfo);
-        assertEquals(1L, jobInfoRepository.count());
-        jobInfoRepository.cleanupOldJobs();
-        assertNull(jobInfoRepository.findMostRecent(TESTVALUE_JOBNAME)); //Job should be gone
+        String id = createJobInfo(TESTVALUE_JOBNAME, 1000, RunningState.RUNNING);
+        jobInfoRepository.markAsFinished(id, ResultCode.SUCCESSFUL);
+        JobInfo jobInfo = jobInfoRepository.findById(id);
+        assertEquals(jobInfo.getFinishTime().getTime() + TimeUnit.HOURS.toMillis(1), jobInfo.getExpireAt().getTime());
+
+        jobInfoRepository.setRetentionTime(TESTVALUE_JOBNAME, 1000L);
+        id = createJobInfo(TESTVALUE_JOBNAME, 1000, RunningState.RUNNING);
+        jobInfoRepository.markAsFinished(id, ResultCode.SUCCESSFUL);
+        jobInfo = jobInfoRepository.findById(id);
+        assertEquals(jobInfo.getFinishTime().getTime() + 1000L, jobInfo.getExpireAt().getTime());
+        jobInfoRepository.setRetentionTime(TESTVALUE_JOBNAME, 0);
     }
 
     @Test
@@ -453,6 +641,37 @@ public class JobInfoRepositoryIntegrationTest extends AbstractTestNGSpringContex
         assertEquals("foo", jobInfo.getStatusMessage());
     }
 
+    @Test
+    public void testFindWithControlProjection() throws Exception {
+        String id = createJobInfo(TESTVALUE_JOBNAME, 1000, RunningState.RUNNING);
+        jobInfoRepository.addAdditionalData(id, "key1", "value1");
+        jobInfoRepository.abortJob(id);
+
+        JobInfo jobInfo = jobInfoRepository.findById(id, JobInfoProjection.CONTROL);
+        assertEquals(TESTVALUE_JOBNAME, jobInfo.getName());
+        assertTrue(jobInfo.isAborted());
+        assertEquals(Long.valueOf(1000), jobInfo.getMaxExecutionTime());
+        assertTrue(jobInfo.getAdditionalData().isEmpty());
+
+        jobInfo = jobInfoRepository.findByNameAndRunningState(TESTVALUE_JOBNAME, RunningState.RUNNING, JobInfoProjection.SUMMARY);
+        assertEquals("value1", jobInfo.getAdditionalData().get("key1"));
+    }
+
+    @Test
+    public void testFindByIdsAndRunningState() throws Exception {
+        String runningId = createJobInfo(TESTVALUE_JOBNAME, 1000, RunningState.RUNNING);
+        createJobInfo("other", 1000, RunningState.RUNNING);
+        String queuedId = createJobInfo(TESTVALUE_JOBNAME, 1000, RunningState.QUEUED);
+        jobInfoRepository.abortJob(runningId);
+
+        List<JobInfo> jobInfos = jobInfoRepository.findByIdsAndRunningState(
+                Arrays.asList(runningId, queuedId, "invalid"), RunningState.RUNNING, JobInfoProjection.WATCH);
+        assertEquals(1, jobInfos.size());
+        assertEquals(runningId, jobInfos.get(0).getId());
+        assertTrue(jobInfos.get(0).isAborted());
+        assertNull(jobInfos.get(0).getName());
+    }
+
     private String createJobInfo(String name, long timeoutPeriod, RunningState runningState) {
         return jobInfoRepository.create(name, TESTVALUE_HOST, TESTVALUE_THREAD, timeoutPeriod, timeoutPeriod, 0L, runningState, JobExecutionPriority.CHECK_PRECONDITIONS, null);
     }
@@ -491,24 +710,47 @@ public class JobInfoRepositoryIntegrationTest extends AbstractTestNGSpringContex
 
     @Test
     public void testParameterMerge() {
-        JobInfo jobInfo = mock(JobInfo.class);
-
         Map<String, String> startupParameters = new HashMap<>();
         startupParameters.put("a", "aa");
         startupParameters.put("b", "bb");
-
-        when(jobInfo.getParameters()).thenReturn(startupParameters);
+        String id = jobInfoRepository.create(TESTVALUE_JOBNAME, TESTVALUE_HOST, TESTVALUE_THREAD, 1000L, 1000L, 0L,
+                RunningState.RUNNING, JobExecutionPriority.CHECK_PRECONDITIONS, startupParameters);
 
         Map<String, String> runtimeParameters = new HashMap<>();
         runtimeParameters.put("a", "aaa");
         runtimeParameters.put("c", "cc");
-
+        jobInfoRepository.appendParameters(id, runtimeParameters);
 
         Map<String, String> expectedParameters = new HashMap<>();
-        expectedParameters.putAll(startupParameters);
+        expectedParameters.put("a", "aa");
+        expectedParameters.put("b", "bb");
         expectedParameters.put("c", "cc");
+        assertEquals(expectedParameters, jobInfoRepository.findById(id).getParameters());
+    }
 
-        assertEquals(jobInfoRepository.appendParameters(jobInfo, runtimeParameters), expectedParameters);
+    @Test
+    public void testAppendParametersKeepsExistingParametersAndOtherUpdates() {
+        Map<String, String> startupParameters = new HashMap<>();
+        startupParameters.put("a", "aa");
+        String id = jobInfoRepository.create(TESTVALUE_JOBNAME, TESTVALUE_HOST, TESTVALUE_THREAD, 1000L, 1000L, 0L,
+                RunningState.RUNNING, JobExecutionPriority.CHECK_PRECONDITIONS, startupParameters);
+        jobInfoRepository.abortJob(id);
 
+        Map<String, String> runtimeParameters = new HashMap<>();
+        runtimeParameters.put("a", "aaa");
+        runtimeParameters.put("c", "cc");
+        jobInfoRepository.appendParameters(id, runtimeParameters);
+
+        JobInfo jobInfo = jobInfoRepository.findById(id);
+        assertEquals("aa", jobInfo.getParameters().get("a"));
+        assertEquals("cc", jobInfo.getParameters().get("c"));
+        assertTrue(jobInfo.isAborted());
+    }
+
+    @Test
+    public void testAppendParametersToJobWithoutParameters() {
+        String id = createJobInfo(TESTVALUE_JOBNAME, 1000, RunningState.RUNNING);
+        jobInfoRepository.appendParameters(id, Collections.singletonMap("c", "cc"));
+        assertEquals(Collections.singletonMap("c", "cc"), jobInfoRepository.findById(id).getParameters());
     }
 }
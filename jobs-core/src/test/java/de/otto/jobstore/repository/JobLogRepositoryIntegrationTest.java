@@ -0,0 +1,88 @@
+package de.otto.jobstore.repository;
+
+import com.mongodb.BasicDBObject;
+import de.otto.jobstore.common.LogLine;
+import de.otto.jobstore.common.properties.JobLogProperty;
+import org.bson.types.ObjectId;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.testng.AssertJUnit.*;
+
+@ContextConfiguration(locations = {"classpath:spring/jobs-context.xml"})
+public class JobLogRepositoryIntegrationTest extends AbstractTestNGSpringContextTests {
+
+    @Resource
+    private JobInfoRepository jobInfoRepository;
+
+    private JobLogRepository jobLogRepository;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        jobLogRepository = jobInfoRepository.getJobLogRepository();
+        jobLogRepository.clear(true);
+        jobLogRepository.setBucketSize(3);
+    }
+
+    @Test
+    public void testAppendStartsNewBucketWhenFull() throws Exception {
+        String jobId = new ObjectId().toString();
+        for (int i = 0; i < 7; i++) {
+            jobLogRepository.append(jobId, Arrays.asList(new LogLine("line " + i, new Date())));
+        }
+
+        List<LogLine> logLines = jobLogRepository.findLogLines(jobId);
+        assertEquals(7, logLines.size());
+        assertEquals("line 0", logLines.get(0).getLine());
+        assertEquals("line 6", logLines.get(6).getLine());
+        assertEquals(7, jobLogRepository.countLogLines(jobId));
+    }
+
+    @Test
+    public void testFindLastLogLines() throws Exception {
+        String jobId = new ObjectId().toString();
+        List<LogLine> lines = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            lines.add(new LogLine("line " + i, new Date()));
+        }
+        jobLogRepository.append(jobId, lines);
+        jobLogRepository.append(jobId, Arrays.asList(new LogLine("line 2", new Date()), new LogLine("line 3", new Date())));
+        jobLogRepository.append(jobId, Arrays.asList(new LogLine("line 4", new Date())));
+
+        List<LogLine> lastLogLines = jobLogRepository.findLastLogLines(jobId, 2);
+        assertEquals(2, lastLogLines.size());
+        assertEquals("line 3", lastLogLines.get(0).getLine());
+        assertEquals("line 4", lastLogLines.get(1).getLine());
+    }
+
+    @Test
+    public void testLinesAppendedAfterExpireExpireAsWell() throws Exception {
+        String jobId = new ObjectId().toString();
+        jobLogRepository.expire(jobId, new Date(System.currentTimeMillis() + 60000L));
+        for (int i = 0; i < 4; i++) {
+            jobLogRepository.append(jobId, Arrays.asList(new LogLine("line " + i, new Date())));
+        }
+
+        assertEquals(4, jobLogRepository.findLogLines(jobId).size());
+        assertEquals(2, jobLogRepository.collection.count(new BasicDBObject(JobLogProperty.JOB_ID.val(), jobId)));
+        assertEquals(0, jobLogRepository.collection.count(new BasicDBObject(JobLogProperty.JOB_ID.val(), jobId).
+                append(JobLogProperty.EXPIRE_AT.val(), new BasicDBObject(MongoOperator.EXISTS.op(), false))));
+    }
+
+    @Test
+    public void testRemove() throws Exception {
+        String jobId = new ObjectId().toString();
+        jobLogRepository.append(jobId, Arrays.asList(new LogLine("line", new Date())));
+        jobLogRepository.remove(jobId);
+        assertTrue(jobLogRepository.findLogLines(jobId).isEmpty());
+    }
+
+}
@@ -0,0 +1,63 @@
+package de.otto.jobstore.repository;
+
+import de.otto.jobstore.common.Node;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.annotation.Resource;
+import java.util.Date;
+import java.util.List;
+
+import static org.testng.AssertJUnit.*;
+
+@ContextConfiguration(locations = {"classpath:spring/jobs-context.xml"})
+public class NodeRepositoryIntegrationTest extends AbstractTestNGSpringContextTests {
+
+    private static final String NODE_ID = "test";
+
+    @Resource
+    private NodeRepository nodeRepository;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        nodeRepository.clear(true);
+    }
+
+    @Test
+    public void testRegisterAndFindNode() throws Exception {
+        final Date startTime = new Date();
+        nodeRepository.register(new Node(NODE_ID, "host", startTime));
+        final Node node = nodeRepository.find(NODE_ID);
+        assertNotNull(node);
+        assertEquals("host", node.getHost());
+        assertEquals(startTime, node.getStartTime());
+    }
+
+    @Test
+    public void testHeartbeatOfUnknownNode() throws Exception {
+        assertFalse(nodeRepository.heartbeat(NODE_ID));
+    }
+
+    @Test
+    public void testFindAlive() throws Exception {
+        nodeRepository.register(new Node(NODE_ID, "host", new Date(0)));
+        nodeRepository.register(new Node("other", "host", new Date()));
+        List<Node> nodes = nodeRepository.findAlive(60000);
+        assertEquals(1, nodes.size());
+        assertEquals("other", nodes.get(0).getId());
+
+        assertTrue(nodeRepository.heartbeat(NODE_ID));
+        nodes = nodeRepository.findAlive(60000);
+        assertEquals(2, nodes.size());
+    }
+
+    @Test
+    public void testRemove() throws Exception {
+        nodeRepository.register(new Node(NODE_ID, "host", new Date()));
+        nodeRepository.remove(NODE_ID);
+        assertNull(nodeRepository.find(NODE_ID));
+    }
+
+}
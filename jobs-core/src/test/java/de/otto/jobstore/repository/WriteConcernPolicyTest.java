@@ -0,0 +1,43 @@
+package de.otto.jobstore.repository;
+
+import com.mongodb.WriteConcern;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+public class WriteConcernPolicyTest {
+
+    @Test
+    public void testTieredPolicy() throws Exception {
+        WriteConcernPolicy policy = WriteConcernPolicy.tiered();
+        assertEquals("majority", policy.getWriteConcern(WriteConcernPolicy.Category.STATE_TRANSITION).getWString());
+        assertEquals(true, policy.getWriteConcern(WriteConcernPolicy.Category.STATE_TRANSITION).getJ());
+        assertEquals(WriteConcernPolicy.MAJORITY_TIMEOUT, policy.getWriteConcern(WriteConcernPolicy.Category.STATE_TRANSITION).getWtimeout());
+        assertEquals(WriteConcern.JOURNALED, policy.getWriteConcern(WriteConcernPolicy.Category.DEFINITION));
+        assertEquals(WriteConcern.ACKNOWLEDGED, policy.getWriteConcern(WriteConcernPolicy.Category.LOG));
+        assertEquals(WriteConcern.UNACKNOWLEDGED, policy.getWriteConcern(WriteConcernPolicy.Category.STATUS));
+        assertEquals(WriteConcern.UNACKNOWLEDGED, policy.getWriteConcern(WriteConcernPolicy.Category.EVENT));
+    }
+
+    @Test
+    public void testLatencyIsRecordedPerCategory() throws Exception {
+        WriteConcernPolicy policy = new WriteConcernPolicy(WriteConcern.ACKNOWLEDGED);
+        policy.recordLatency(WriteConcernPolicy.Category.LOG, TimeUnit.MICROSECONDS.toNanos(100));
+        policy.recordLatency(WriteConcernPolicy.Category.LOG, TimeUnit.MICROSECONDS.toNanos(300));
+
+        WriteConcernPolicy.Statistics statistics = policy.getStatistics(WriteConcernPolicy.Category.LOG);
+        assertEquals(2, statistics.getWrites());
+        assertEquals(200, statistics.getAverageLatency());
+        assertEquals(300, statistics.getMaxLatency());
+        assertEquals(0, policy.getStatistics(WriteConcernPolicy.Category.STATUS).getWrites());
+        assertEquals(0, policy.getStatistics(WriteConcernPolicy.Category.STATUS).getAverageLatency());
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testWriteConcernMayNotBeNull() throws Exception {
+        new WriteConcernPolicy(WriteConcern.ACKNOWLEDGED).setWriteConcern(WriteConcernPolicy.Category.LOG, null);
+    }
+
+}
@@ -0,0 +1,157 @@
+package de.otto.jobstore.service;
+
+import com.mongodb.MongoException;
+import de.otto.jobstore.common.LogLine;
+import de.otto.jobstore.repository.JobInfoRepository;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyMap;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+public class BufferedJobLoggerTest {
+
+    private static final String JOB_ID = "1234";
+
+    private JobInfoRepository jobInfoRepository;
+    private ScheduledExecutorService executorService;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        jobInfoRepository = mock(JobInfoRepository.class);
+        executorService = mock(ScheduledExecutorService.class);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testLogLinesAreWrittenWithOneUpdate() throws Exception {
+        BufferedJobLogger jobLogger = createJobLogger(3, 10, JobLogFlusher.OverflowPolicy.FLUSH_IN_CALLER);
+        jobLogger.addLoggingData("line 1");
+        jobLogger.addLoggingData("line 2");
+        jobLogger.insertOrUpdateAdditionalData("key", "value");
+        jobLogger.addLoggingData("line 3");
+
+        verify(executorService, times(1)).schedule(any(Runnable.class), eq(1000L), eq(TimeUnit.MILLISECONDS));
+        verify(executorService, times(1)).execute(any(Runnable.class));
+        verify(jobInfoRepository, never()).appendLogData(anyString(), anyListOf(LogLine.class), anyMap());
+        assertEquals(jobLogger.getAdditionalData("key"), "value");
+
+        jobLogger.flush();
+        ArgumentCaptor<List> logLines = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<Map> additionalData = ArgumentCaptor.forClass(Map.class);
+        verify(jobInfoRepository, times(1)).appendLogData(eq(JOB_ID), logLines.capture(), additionalData.capture());
+        assertEquals(logLines.getValue().size(), 3);
+        assertEquals(additionalData.getValue(), Collections.singletonMap("key", "value"));
+        assertEquals(jobLogger.getLoggingData().size(), 3);
+
+        jobLogger.flush();
+        verifyNoMoreInteractions(jobInfoRepository);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFullBufferIsFlushedInCaller() throws Exception {
+        BufferedJobLogger jobLogger = createJobLogger(2, 2, JobLogFlusher.OverflowPolicy.FLUSH_IN_CALLER);
+        jobLogger.addLoggingData("line 1");
+        jobLogger.addLoggingData("line 2");
+        jobLogger.addLoggingData("line 3");
+
+        verify(jobInfoRepository, times(1)).appendLogData(eq(JOB_ID), anyListOf(LogLine.class), anyMap());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testNewestLinesAreDroppedIfBufferIsFull() throws Exception {
+        BufferedJobLogger jobLogger = createJobLogger(2, 2, JobLogFlusher.OverflowPolicy.DROP_NEWEST);
+        jobLogger.addLoggingData("line 1");
+        jobLogger.addLoggingData("line 2");
+        jobLogger.addLoggingData("line 3");
+        assertEquals(jobLogger.getDroppedLogLines(), 1L);
+
+        jobLogger.flush();
+        ArgumentCaptor<List> logLines = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<Map> additionalData = ArgumentCaptor.forClass(Map.class);
+        verify(jobInfoRepository, times(1)).appendLogData(eq(JOB_ID), logLines.capture(), additionalData.capture());
+        assertEquals(logLines.getValue().size(), 2);
+        assertEquals(((LogLine) logLines.getValue().get(1)).getLine(), "line 2");
+        assertEquals(additionalData.getValue().get("droppedLogLines"), "1");
+    }
+
+    @Test
+    public void testLogLinesKeptInMemoryAreBounded() throws Exception {
+        BufferedJobLogger jobLogger = createJobLogger(10, 2, JobLogFlusher.OverflowPolicy.DROP_NEWEST);
+        for (int i = 1; i <= 5; i++) {
+            jobLogger.addLoggingData("line " + i);
+        }
+
+        assertEquals(jobLogger.getLoggingData(), Arrays.asList("line 4", "line 5"));
+        assertEquals(jobLogger.getDroppedLogLines(), 3L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testBatchIsWrittenAgainIfWriteFailed() throws Exception {
+        BufferedJobLogger jobLogger = createJobLogger(10, 10, JobLogFlusher.OverflowPolicy.FLUSH_IN_CALLER);
+        doThrow(new MongoException("write failed")).doNothing().
+                when(jobInfoRepository).appendLogData(eq(JOB_ID), anyListOf(LogLine.class), anyMap());
+        jobLogger.addLoggingData("line 1");
+        jobLogger.insertOrUpdateAdditionalData("key", "value");
+        try {
+            jobLogger.flush();
+            fail("write failure expected");
+        } catch (MongoException e) {
+            // expected
+        }
+        jobLogger.addLoggingData("line 2");
+
+        jobLogger.flush();
+        ArgumentCaptor<List> logLines = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<Map> additionalData = ArgumentCaptor.forClass(Map.class);
+        verify(jobInfoRepository, times(2)).appendLogData(eq(JOB_ID), logLines.capture(), additionalData.capture());
+        assertEquals(logLines.getValue().size(), 2);
+        assertEquals(((LogLine) logLines.getValue().get(0)).getLine(), "line 1");
+        assertEquals(additionalData.getValue(), Collections.singletonMap("key", "value"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testAdditionalDataIsReadBackWhileItIsWritten() throws Exception {
+        final BufferedJobLogger jobLogger = createJobLogger(10, 10, JobLogFlusher.OverflowPolicy.FLUSH_IN_CALLER);
+        final List<String> valuesDuringWrite = new ArrayList<>();
+        doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                valuesDuringWrite.add(jobLogger.getAdditionalData("key"));
+                return null;
+            }
+        }).when(jobInfoRepository).appendLogData(eq(JOB_ID), anyListOf(LogLine.class), anyMap());
+        jobLogger.insertOrUpdateAdditionalData("key", "value");
+
+        jobLogger.flush();
+
+        assertEquals(valuesDuringWrite, Collections.singletonList("value"));
+        assertEquals(jobLogger.getAdditionalData("key"), "value");
+        verify(jobInfoRepository, never()).findById(anyString());
+    }
+
+    private BufferedJobLogger createJobLogger(int flushSize, int capacity, JobLogFlusher.OverflowPolicy overflowPolicy) {
+        return new BufferedJobLogger(JOB_ID, jobInfoRepository, executorService, flushSize, 1000L, capacity, overflowPolicy);
+    }
+
+}
@@ -0,0 +1,106 @@
+package de.otto.jobstore.service;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class HashedWheelTimerTest {
+
+    private HashedWheelTimer timer;
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        if (timer != null) {
+            timer.stop();
+        }
+    }
+
+    @Test
+    public void testRunsTasksAfterTheirDelay() throws Exception {
+        timer = new HashedWheelTimer(10, 8);
+        timer.start();
+        final List<String> runs = new CopyOnWriteArrayList<>();
+        final CountDownLatch done = new CountDownLatch(2);
+        final long start = System.nanoTime();
+
+        timer.schedule(record("second", runs, done), 100);
+        timer.schedule(record("first", runs, done), 0);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+        assertEquals(runs.get(0), "first");
+        assertEquals(runs.get(1), "second");
+    }
+
+    @Test
+    public void testRunsTasksBeyondOneRevolutionAfterTheirDelay() throws Exception {
+        timer = new HashedWheelTimer(10, 4);
+        timer.start();
+        final CountDownLatch done = new CountDownLatch(1);
+        final long start = System.nanoTime();
+
+        timer.schedule(record("late", new CopyOnWriteArrayList<String>(), done), 200);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(200));
+    }
+
+    @Test
+    public void testRunsManyTasks() throws Exception {
+        timer = new HashedWheelTimer(10, 64);
+        timer.start();
+        final CountDownLatch done = new CountDownLatch(10000);
+        final Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                done.countDown();
+            }
+        };
+
+        for (int i = 0; i < 10000; i++) {
+            timer.schedule(task, i % 500);
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testStopDropsPendingTasks() throws Exception {
+        timer = new HashedWheelTimer(10, 8);
+        timer.start();
+        final CountDownLatch done = new CountDownLatch(1);
+
+        timer.schedule(record("dropped", new CopyOnWriteArrayList<String>(), done), 100);
+        timer.stop();
+
+        assertFalse(done.await(300, TimeUnit.MILLISECONDS));
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testScheduleFailsIfTimerIsNotStarted() throws Exception {
+        new HashedWheelTimer().schedule(new Runnable() {
+            @Override
+            public void run() {
+            }
+        }, 0);
+    }
+
+    private Runnable record(final String name, final List<String> runs, final CountDownLatch done) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                runs.add(name);
+                done.countDown();
+            }
+        };
+    }
+
+}
@@ -0,0 +1,75 @@
+package de.otto.jobstore.service;
+
+import de.otto.jobstore.common.JobEvent;
+import de.otto.jobstore.common.JobEventListener;
+import de.otto.jobstore.repository.ItemIterator;
+import de.otto.jobstore.repository.JobEventRepository;
+import org.bson.types.ObjectId;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+import static org.testng.AssertJUnit.assertEquals;
+
+public class JobEventFollowerTest {
+
+    private JobEventRepository jobEventRepository;
+    private JobEventListener listener;
+    private JobEventFollower jobEventFollower;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        jobEventRepository = mock(JobEventRepository.class);
+        listener = mock(JobEventListener.class);
+        jobEventFollower = new JobEventFollower(jobEventRepository, listener);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testEventsArePassedToListener() throws Exception {
+        final ObjectId afterId = new ObjectId();
+        final JobEvent queued = new JobEvent(JobEvent.Type.QUEUED, "1", "job");
+        final JobEvent finished = new JobEvent(JobEvent.Type.FINISHED, "2", null);
+        final ItemIterator<JobEvent> events = mock(ItemIterator.class);
+        when(events.hasNext()).thenReturn(true, true, false);
+        when(events.next()).thenReturn(queued, finished);
+        when(jobEventRepository.tail(afterId)).thenReturn(events);
+
+        assertEquals(finished.getId(), jobEventFollower.followOnce(afterId));
+
+        verify(listener).onEvent(queued);
+        verify(listener).onEvent(finished);
+        verify(events).close();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFailingListenerDoesNotStopFollowing() throws Exception {
+        final JobEvent aborted = new JobEvent(JobEvent.Type.ABORT_REQUESTED, "1", null);
+        final JobEvent finished = new JobEvent(JobEvent.Type.FINISHED, "1", null);
+        final ItemIterator<JobEvent> events = mock(ItemIterator.class);
+        when(events.hasNext()).thenReturn(true, true, false);
+        when(events.next()).thenReturn(aborted, finished);
+        when(jobEventRepository.tail(null)).thenReturn(events);
+        doThrow(new IllegalStateException()).when(listener).onEvent(aborted);
+
+        assertEquals(finished.getId(), jobEventFollower.followOnce(null));
+
+        verify(listener).onEvent(finished);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testLastIdIsKeptWithoutEvents() throws Exception {
+        final ObjectId afterId = new ObjectId();
+        final ItemIterator<JobEvent> events = mock(ItemIterator.class);
+        when(events.hasNext()).thenReturn(false);
+        when(jobEventRepository.tail(afterId)).thenReturn(events);
+
+        assertEquals(afterId, jobEventFollower.followOnce(afterId));
+
+        verify(listener, never()).onEvent(any(JobEvent.class));
+    }
+
+}
@@ -0,0 +1,103 @@
+package de.otto.jobstore.service;
+
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class JobExecutionPoolTest {
+
+    @Test
+    public void testRejectsJobsIfThreadsAndQueueAreSaturated() throws Exception {
+        final JobExecutionPool pool = new JobExecutionPool("test", 1, 1);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Runnable blocking = new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+
+        assertNotNull(pool.submit(blocking));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertNotNull(pool.submit(blocking));
+        assertNull(pool.submit(blocking));
+
+        JobExecutionPool.Statistics statistics = pool.getStatistics();
+        assertEquals(statistics.getActiveThreads(), 1);
+        assertEquals(statistics.getQueuedJobs(), 1);
+        assertEquals(statistics.getRejectedJobs(), 1L);
+        assertEquals(statistics.getSaturation(), 1d);
+
+        release.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(pool.getStatistics().getCompletedJobs(), 2L);
+    }
+
+    @Test
+    public void testRecreatedPoolAcceptsJobsAfterShutdown() throws Exception {
+        final JobExecutionPool pool = new JobExecutionPool("test", 2, 0);
+        pool.shutdown();
+        assertNull(pool.submit(new Runnable() {
+            @Override
+            public void run() {
+            }
+        }));
+
+        final JobExecutionPool recreated = pool.recreate();
+        assertEquals(recreated.getMaxThreads(), 2);
+        assertNotNull(recreated.submit(new Runnable() {
+            @Override
+            public void run() {
+            }
+        }));
+        recreated.shutdown();
+    }
+
+    @Test
+    public void testSubmittedJobCanBeCancelled() throws Exception {
+        final JobExecutionPool pool = new JobExecutionPool("test", 1, 0);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        final Runnable blocking = new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    Thread.sleep(5000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+            }
+        };
+
+        final Future<?> future = pool.submit(blocking);
+        assertNotNull(future);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertNull(pool.submit(blocking));
+
+        future.cancel(true);
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        pool.shutdown();
+        assertEquals(pool.getStatistics().getRejectedJobs(), 1L);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testPoolNeedsAtLeastOneThread() throws Exception {
+        new JobExecutionPool("test", 0, 10);
+    }
+
+}
@@ -3,7 +3,9 @@ package de.otto.jobstore.service;
 
 import de.otto.jobstore.common.JobInfo;
 import de.otto.jobstore.common.ResultCode;
+import de.otto.jobstore.repository.JobInfoProjection;
 import de.otto.jobstore.repository.JobInfoRepository;
+import de.otto.jobstore.repository.JobLogRepository;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
@@ -11,8 +13,7 @@ import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.List;
 
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 import static org.testng.AssertJUnit.assertEquals;
 
 public class JobInfoServiceTest {
@@ -47,12 +48,21 @@ public class JobInfoServiceTest {
 
     @Test
     public void testGetMostRecentExecutedList() throws Exception {
-        when(jobInfoRepository.distinctJobNames()).thenReturn(Arrays.asList("test", "test2"));
-        when(jobInfoRepository.findMostRecentFinished("test")).thenReturn(new JobInfo("test", "host", "thread", 1234L, 1234L, 0L));
-        when(jobInfoRepository.findMostRecentFinished("test2")).thenReturn(null);
+        when(jobInfoRepository.findMostRecentFinished(JobInfoProjection.SUMMARY)).thenReturn(Arrays.asList(new JobInfo("test", "host", "thread", 1234L, 1234L, 0L)));
 
         List<JobInfo> jobInfoList = jobInfoService.getMostRecentExecuted();
         assertEquals(1, jobInfoList.size());
         assertEquals("test", jobInfoList.get(0).getName());
+        verify(jobInfoRepository, never()).distinctJobNames();
+    }
+
+    @Test
+    public void testCountLogLinesDoesNotReadJob() throws Exception {
+        final JobLogRepository jobLogRepository = mock(JobLogRepository.class);
+        when(jobInfoRepository.getJobLogRepository()).thenReturn(jobLogRepository);
+        when(jobLogRepository.countLogLines("1234")).thenReturn(7);
+
+        assertEquals(7, jobInfoService.countLogLines("1234"));
+        verify(jobInfoRepository, never()).findById(anyString());
     }
 }
@@ -0,0 +1,49 @@
+package de.otto.jobstore.service;
+
+import de.otto.jobstore.common.JobLogger;
+import de.otto.jobstore.common.LogLine;
+import de.otto.jobstore.repository.JobInfoRepository;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyMap;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+public class JobLogFlusherTest {
+
+    private JobInfoRepository jobInfoRepository;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        jobInfoRepository = mock(JobInfoRepository.class);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testShutdownWritesBuffersWhichAreDue() throws Exception {
+        final JobLogFlusher jobLogFlusher = new JobLogFlusher(10, 60000, 100, JobLogFlusher.OverflowPolicy.FLUSH_IN_CALLER);
+        final JobLogger jobLogger = jobLogFlusher.createJobLogger("1234", jobInfoRepository);
+        jobLogger.addLoggingData("line 1");
+        verify(jobInfoRepository, never()).appendLogData(anyString(), anyListOf(LogLine.class), anyMap());
+
+        jobLogFlusher.shutdown();
+
+        verify(jobInfoRepository, times(1)).appendLogData(eq("1234"), anyListOf(LogLine.class), anyMap());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testJobLoggerCreatedAfterShutdownIsFlushed() throws Exception {
+        final JobLogFlusher jobLogFlusher = new JobLogFlusher(1, 60000, 100, JobLogFlusher.OverflowPolicy.FLUSH_IN_CALLER);
+        jobLogFlusher.shutdown();
+
+        final JobLogger jobLogger = jobLogFlusher.createJobLogger("1234", jobInfoRepository);
+        jobLogger.addLoggingData("line 1");
+
+        verify(jobInfoRepository, timeout(2000)).appendLogData(eq("1234"), anyListOf(LogLine.class), anyMap());
+        jobLogFlusher.shutdown();
+    }
+
+}
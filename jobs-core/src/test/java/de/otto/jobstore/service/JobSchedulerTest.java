@@ -5,7 +5,14 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotNull;
 import static org.testng.AssertJUnit.assertTrue;
 
 public class JobSchedulerTest {
@@ -34,4 +41,149 @@ public class JobSchedulerTest {
         assertTrue(jobSchedule2.count() > 5);
     }
 
+    @Test
+    public void testSlowScheduleDoesNotRunConcurrently() throws Exception {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        JobSchedule slowSchedule = JobSchedule.create("slowSchedule", 20, new Runnable() {
+            @Override
+            public void run() {
+                maxRunning.set(Math.max(maxRunning.get(), running.incrementAndGet()));
+                sleep(100);
+                running.decrementAndGet();
+            }
+        });
+
+        JobScheduler jobScheduler = new JobScheduler(Collections.singletonList(slowSchedule));
+        jobScheduler.setDispatchThreads(4);
+        jobScheduler.startup();
+        Thread.sleep(500);
+        jobScheduler.shutdown();
+
+        assertEquals(1, maxRunning.get());
+        JobScheduler.Statistics statistics = jobScheduler.getStatistics().get("slowSchedule");
+        assertTrue(statistics.getRuns() > 1);
+        assertTrue(statistics.getMissedTicks() > 0);
+        assertTrue(statistics.getMaxDuration() >= 100);
+    }
+
+    @Test
+    public void testBlockingSchedulesDoNotDelayOtherSchedules() throws Exception {
+        JobSchedule blockingSchedule1 = createBlockingSchedule("blockingSchedule1");
+        JobSchedule blockingSchedule2 = createBlockingSchedule("blockingSchedule2");
+        JobSchedule blockingSchedule3 = createBlockingSchedule("blockingSchedule3");
+        JobSchedule fastSchedule = JobSchedule.create("fastSchedule", 50, null);
+
+        JobScheduler jobScheduler = new JobScheduler(Arrays.asList(blockingSchedule1, blockingSchedule2,
+                blockingSchedule3, fastSchedule));
+        jobScheduler.startup();
+        Thread.sleep(600);
+        final long fastRuns = fastSchedule.count();
+        jobScheduler.shutdown();
+
+        assertTrue(fastRuns > 5);
+        assertEquals(blockingSchedule1.count(), 1);
+        assertEquals(blockingSchedule3.count(), 1);
+    }
+
+    @Test
+    public void testSkipPolicyTimesNextRegularTick() throws Exception {
+        assertTrue(delayAfterSlowRun(JobSchedule.MissedTickPolicy.SKIP) > 0);
+    }
+
+    @Test
+    public void testCoalescePolicyTimesSingleRunRightAway() throws Exception {
+        final long delay = delayAfterSlowRun(JobSchedule.MissedTickPolicy.COALESCE);
+        assertTrue(delay <= 0 && delay > -50);
+    }
+
+    @Test
+    public void testCatchUpPolicyTimesFirstMissedTick() throws Exception {
+        assertTrue(delayAfterSlowRun(JobSchedule.MissedTickPolicy.CATCH_UP) <= -50);
+    }
+
+    private JobSchedule createBlockingSchedule(final String name) {
+        return new JobSchedule() {
+            @Override
+            public long interval() {
+                return 20;
+            }
+
+            @Override
+            public void schedule() {
+                sleep(2000);
+            }
+
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public boolean blocking() {
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Runs a schedule with an interval of 50ms once for 130ms and returns the delay it is timed with afterwards
+     */
+    private long delayAfterSlowRun(JobSchedule.MissedTickPolicy missedTickPolicy) throws Exception {
+        final RecordingTimerEngine timerEngine = new RecordingTimerEngine();
+        JobSchedule slowSchedule = JobSchedule.create("slowSchedule", 50, missedTickPolicy, new Runnable() {
+            @Override
+            public void run() {
+                sleep(130);
+            }
+        });
+        JobScheduler jobScheduler = new JobScheduler(Collections.singletonList(slowSchedule), timerEngine);
+        jobScheduler.startup();
+        try {
+            timerEngine.fireNext();
+            final Long delay = timerEngine.delays.poll(5, TimeUnit.SECONDS);
+            assertNotNull(delay);
+            JobScheduler.Statistics statistics = jobScheduler.getStatistics().get("slowSchedule");
+            assertEquals(1, statistics.getRuns());
+            assertTrue(statistics.getMissedTicks() >= 2);
+            return delay;
+        } finally {
+            jobScheduler.shutdown();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class RecordingTimerEngine implements TimerEngine {
+
+        private final BlockingQueue<Runnable> tasks = new LinkedBlockingQueue<>();
+        private final BlockingQueue<Long> delays = new LinkedBlockingQueue<>();
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void schedule(Runnable task, long delay) {
+            tasks.add(task);
+            delays.add(delay);
+        }
+
+        @Override
+        public void stop() {
+        }
+
+        private void fireNext() throws InterruptedException {
+            delays.take();
+            tasks.take().run();
+        }
+
+    }
+
 }
@@ -61,13 +61,6 @@ public class JobServiceNotActiveTest {
         verify(jobInfoRepository, never()).findMostRecentFinished(JOB_NAME_01);
     }
 
-    @Test
-    public void doesNotCleanupOldJobsIfNotActive() throws Exception {
-        jobService.cleanupOldJobs();
-
-        verify(jobInfoRepository, never()).cleanupOldJobs();
-    }
-
     @Test
     public void doesNotCleanupTimedOutJobsIfNotActive() throws Exception {
         jobService.cleanupTimedOutJobs();
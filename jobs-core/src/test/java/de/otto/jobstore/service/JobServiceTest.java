@@ -1,15 +1,21 @@
 package de.otto.jobstore.service;
 
+import com.mongodb.BasicDBObject;
+import com.mongodb.MongoException;
 import de.otto.jobstore.TestSetup;
 import de.otto.jobstore.common.*;
+import de.otto.jobstore.common.properties.JobDefinitionProperty;
 import de.otto.jobstore.common.properties.JobInfoProperty;
 import de.otto.jobstore.common.util.InternetUtils;
 import de.otto.jobstore.repository.JobDefinitionRepository;
+import de.otto.jobstore.repository.JobInfoProjection;
 import de.otto.jobstore.repository.JobInfoRepository;
+import de.otto.jobstore.repository.JobLogRepository;
 import de.otto.jobstore.service.exception.*;
 import edu.umd.cs.mtc.MultithreadedTestCase;
 import edu.umd.cs.mtc.TestFramework;
 import org.bson.types.ObjectId;
+import org.mockito.InOrder;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 import org.springframework.test.util.ReflectionTestUtils;
@@ -18,6 +24,8 @@ import org.testng.annotations.Test;
 
 import java.net.URI;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.mockito.Mockito.*;
@@ -46,6 +54,8 @@ public class JobServiceTest {
         remoteJobExecutorService = mock(RemoteJobExecutorService.class);
         jobService = new JobService(jobDefinitionRepository, jobInfoRepository);
         jobInfoService = new JobInfoService(jobInfoRepository);
+        final JobLogRepository jobLogRepository = mock(JobLogRepository.class);
+        when(jobInfoRepository.getJobLogRepository()).thenReturn(jobLogRepository);
         when(jobDefinitionRepository.find(StoredJobDefinition.JOB_EXEC_SEMAPHORE.getName())).thenReturn(StoredJobDefinition.JOB_EXEC_SEMAPHORE);
         jobService.awaitTerminationSeconds = 1;
         jobService.desynchronize = false;
@@ -69,9 +79,9 @@ public class JobServiceTest {
         jobService.addRunningConstraint(constraint);
 
         String jobId2 = "abcd";
-        when(jobInfoRepository.hasJob(JOB_NAME_01, RunningState.RUNNING)).thenReturn(false);
-        when(jobInfoRepository.hasJob(JOB_NAME_01, RunningState.QUEUED)).thenReturn(true);
-        when(jobInfoRepository.create(eq(JOB_NAME_02), anyLong(), anyLong(), anyLong(), eq(RunningState.RUNNING), any(JobExecutionPriority.class), anyMap())).thenReturn(jobId2);
+        when(jobInfoRepository.hasAnyJob(Collections.singleton(JOB_NAME_01), EnumSet.of(RunningState.RUNNING, RunningState.QUEUED))).thenReturn(true);
+        when(jobInfoRepository.admitJob(eq(JOB_NAME_02), anyLong(), anyLong(), anyLong(), any(JobExecutionPriority.class), anyMap())).
+                thenReturn(createAdmission(JobAdmission.Decision.RUN, jobId2));
         when(jobInfoRepository.deactivateRunningJob(jobId2)).thenReturn(true);
 
         jobService.executeJob(JOB_NAME_02);
@@ -79,6 +89,129 @@ public class JobServiceTest {
         verify(jobInfoRepository, times(1)).deactivateRunningJob(jobId2);
     }
 
+    @Test
+    public void runningConstraintsAreCheckedWithOneQuery() throws Exception {
+        final String jobName03 = "test3";
+        jobService.registerJob(TestSetup.localJobRunnable(JOB_NAME_01, 0));
+        jobService.registerJob(TestSetup.localJobRunnable(JOB_NAME_02, 0));
+        jobService.registerJob(TestSetup.localJobRunnable(jobName03, 0));
+        when(jobDefinitionRepository.find(JOB_NAME_01)).thenReturn(createSimpleJd());
+        jobService.addRunningConstraint(new HashSet<>(Arrays.asList(JOB_NAME_01, JOB_NAME_02)));
+        jobService.addRunningConstraint(new HashSet<>(Arrays.asList(JOB_NAME_01, jobName03)));
+        jobService.addRunningConstraint(new HashSet<>(Arrays.asList(JOB_NAME_02, jobName03)));
+
+        final String jobId = "abcd";
+        when(jobInfoRepository.admitJob(eq(JOB_NAME_01), anyLong(), anyLong(), anyLong(), any(JobExecutionPriority.class), anyMap())).
+                thenReturn(createAdmission(JobAdmission.Decision.RUN, jobId));
+        when(jobInfoRepository.hasAnyJob(new HashSet<>(Arrays.asList(JOB_NAME_02, jobName03)),
+                EnumSet.of(RunningState.RUNNING, RunningState.QUEUED))).thenReturn(true);
+        when(jobInfoRepository.deactivateRunningJob(jobId)).thenReturn(true);
+
+        jobService.executeJob(JOB_NAME_01);
+
+        verify(jobInfoRepository, times(1)).hasAnyJob(anyCollectionOf(String.class), anySetOf(RunningState.class));
+        verify(jobInfoRepository, never()).hasJob(anyString(), any(RunningState.class));
+        verify(jobInfoRepository, times(1)).deactivateRunningJob(jobId);
+    }
+
+    @Test
+    public void jobRejectedBySaturatedExecutionPoolIsQueuedAgain() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final JobRunnable blockingJob = new AbstractLocalJobRunnable() {
+            @Override
+            public JobDefinition getJobDefinition() {
+                return TestSetup.localJobDefinition(JOB_NAME_01, 0);
+            }
+
+            @Override
+            public void execute(JobExecutionContext context) throws JobException {
+                try {
+                    latch.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        jobService.registerJob(blockingJob);
+        jobService.addExecutionPool("single", 1, 0, Collections.singleton(JOB_NAME_01));
+        when(jobInfoRepository.activateQueuedJobById(anyString(), anyLong(), anyLong())).thenReturn(true);
+        when(jobInfoRepository.deactivateRunningJob("2")).thenReturn(true);
+
+        jobService.executeQueuedJob(blockingJob, "1", JobExecutionPriority.CHECK_PRECONDITIONS);
+        jobService.executeQueuedJob(blockingJob, "2", JobExecutionPriority.CHECK_PRECONDITIONS);
+        latch.countDown();
+
+        verify(jobInfoRepository, never()).deactivateRunningJob("1");
+        verify(jobInfoRepository, times(1)).deactivateRunningJob("2");
+        final JobExecutionPool.Statistics statistics = jobService.getExecutionPoolStatistics().get("single");
+        assertEquals(statistics.getMaxThreads(), 1);
+        assertEquals(statistics.getRejectedJobs(), 1L);
+    }
+
+    @Test
+    public void queuedJobsOfSameNameAndConstraintAreExecutedWhenJobFinishes() throws Exception {
+        final TestSetup.LocalMockJobRunnable job1 = TestSetup.localJobRunnable(JOB_NAME_01, 0);
+        final TestSetup.LocalMockJobRunnable job2 = TestSetup.localJobRunnable(JOB_NAME_02, 0);
+        jobService.registerJob(job1);
+        jobService.registerJob(job2);
+        when(jobDefinitionRepository.find(anyString())).thenReturn(createSimpleJd());
+        jobService.addRunningConstraint(new HashSet<>(Arrays.asList(JOB_NAME_01, JOB_NAME_02)));
+
+        final JobInfo queuedJob = createJobInfo(JOB_NAME_02, JobExecutionPriority.CHECK_PRECONDITIONS, RunningState.QUEUED);
+        ReflectionTestUtils.invokeMethod(queuedJob, "addProperty", JobInfoProperty.ID, "queued");
+        when(jobInfoRepository.findQueuedJobsSortedAscByCreationTime(new HashSet<>(Arrays.asList(JOB_NAME_01, JOB_NAME_02)))).
+                thenReturn(Arrays.asList(queuedJob)).thenReturn(Collections.<JobInfo>emptyList());
+        when(jobInfoRepository.activateQueuedJobById(anyString(), anyLong(), anyLong())).thenReturn(true);
+
+        jobService.executeQueuedJob(job1, "running", JobExecutionPriority.CHECK_PRECONDITIONS);
+        Thread.sleep(500);
+
+        assertTrue(job1.isExecuted());
+        assertTrue(job2.isExecuted());
+        final InOrder inOrder = inOrder(jobInfoRepository);
+        inOrder.verify(jobInfoRepository).markAsFinished("running", JOB_NAME_01, ResultCode.SUCCESSFUL, null);
+        inOrder.verify(jobInfoRepository).activateQueuedJobById(eq("queued"), anyLong(), anyLong());
+    }
+
+    @Test
+    public void queuedJobIsExecutedWhenJobOfSingleThreadPoolFinishes() throws Exception {
+        final CountDownLatch executed = new CountDownLatch(2);
+        final JobRunnable job = new AbstractLocalJobRunnable() {
+            @Override
+            public JobDefinition getJobDefinition() {
+                return TestSetup.localJobDefinition(JOB_NAME_01, 0);
+            }
+
+            @Override
+            public void execute(JobExecutionContext context) throws JobException {
+                executed.countDown();
+            }
+        };
+        jobService.registerJob(job);
+        jobService.addExecutionPool("single", 1, 0, Collections.singleton(JOB_NAME_01));
+        when(jobDefinitionRepository.find(anyString())).thenReturn(createSimpleJd());
+        final JobInfo queuedJob = createJobInfo(JOB_NAME_01, JobExecutionPriority.CHECK_PRECONDITIONS, RunningState.QUEUED);
+        ReflectionTestUtils.invokeMethod(queuedJob, "addProperty", JobInfoProperty.ID, "queued");
+        when(jobInfoRepository.findQueuedJobsSortedAscByCreationTime(Collections.singleton(JOB_NAME_01))).
+                thenReturn(Arrays.asList(queuedJob)).thenReturn(Collections.<JobInfo>emptyList());
+        when(jobInfoRepository.activateQueuedJobById(anyString(), anyLong(), anyLong())).thenReturn(true);
+        final CountDownLatch finished = new CountDownLatch(1);
+        when(jobInfoRepository.markAsFinished("queued", JOB_NAME_01, ResultCode.SUCCESSFUL, null)).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                finished.countDown();
+                return true;
+            }
+        });
+
+        jobService.executeQueuedJob(job, "running", JobExecutionPriority.CHECK_PRECONDITIONS);
+
+        assertTrue(executed.await(5, TimeUnit.SECONDS));
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        verify(jobInfoRepository, never()).deactivateRunningJob(anyString());
+        assertEquals(jobService.getExecutionPoolStatistics().get("single").getRejectedJobs(), 0L);
+    }
+
     @Test
     public void runQueuedJobEvenIfConstraintJobIsQueued() throws Exception {
         JobRunnable job1 = TestSetup.localJobRunnable(JOB_NAME_01, 0);
@@ -95,11 +228,11 @@ public class JobServiceTest {
         jobService.addRunningConstraint(constraint);
 
         String jobId2 = "abcd";
-        when(jobInfoRepository.hasJob(JOB_NAME_01, RunningState.QUEUED)).thenReturn(true);
+        when(jobInfoRepository.hasAnyJob(Collections.singleton(JOB_NAME_01), EnumSet.of(RunningState.QUEUED))).thenReturn(true);
         JobInfo jobInfo2 = new JobInfo(JOB_NAME_02, "localhost", "thread", 0L, 0L, 2L, RunningState.QUEUED);
         JobInfo jobInfo2Spy = spy(jobInfo2);
         when(jobInfo2Spy.getId()).thenReturn(jobId2);
-        when(jobInfoRepository.activateQueuedJobById(jobId2)).thenReturn(true);
+        when(jobInfoRepository.activateQueuedJobById(eq(jobId2), anyLong(), anyLong())).thenReturn(true);
 
         when(jobInfoRepository.findQueuedJobsSortedAscByCreationTime()).thenReturn(Arrays.asList(jobInfo2Spy));
 
@@ -187,21 +320,14 @@ public class JobServiceTest {
         }).when(jobInfoRepository).updateHostThreadInformation(anyString());
 
         final AtomicInteger state1 = new AtomicInteger(0);
-        when(jobInfoRepository.hasJob(JOB_NAME_01, RunningState.QUEUED)).thenAnswer(new Answer<Object>() {
-            @Override
-            public Object answer(InvocationOnMock invocation) throws Throwable {
-                printIt("hasJob.QUEUED.1");
-                return state1.get() == 0;
-            }
-        });
-        when(jobInfoRepository.hasJob(JOB_NAME_01, RunningState.RUNNING)).thenAnswer(new Answer<Object>() {
+        when(jobInfoRepository.hasAnyJob(Collections.singleton(JOB_NAME_01), EnumSet.of(RunningState.RUNNING))).thenAnswer(new Answer<Object>() {
             @Override
             public Object answer(InvocationOnMock invocation) throws Throwable {
                 printIt("hasJob.RUNNING.1");
                 return state1.get() == 1;
             }
         });
-        when(jobInfoRepository.activateQueuedJobById(id1)).thenAnswer(new Answer<Object>() {
+        when(jobInfoRepository.activateQueuedJobById(eq(id1), anyLong(), anyLong())).thenAnswer(new Answer<Object>() {
             @Override
             public Object answer(InvocationOnMock invocation) throws Throwable {
                 printIt("activateQueuedJob.1");
@@ -217,21 +343,14 @@ public class JobServiceTest {
         });
 
         final AtomicInteger state2 = new AtomicInteger(0);
-        when(jobInfoRepository.hasJob(JOB_NAME_02, RunningState.QUEUED)).thenAnswer(new Answer<Object>() {
-            @Override
-            public Object answer(InvocationOnMock invocation) throws Throwable {
-                printIt("hasJob.QUEUED.2");
-                return state2.get() == 0;
-            }
-        });
-        when(jobInfoRepository.hasJob(JOB_NAME_02, RunningState.RUNNING)).thenAnswer(new Answer<Object>() {
+        when(jobInfoRepository.hasAnyJob(Collections.singleton(JOB_NAME_02), EnumSet.of(RunningState.RUNNING))).thenAnswer(new Answer<Object>() {
             @Override
             public Object answer(InvocationOnMock invocation) throws Throwable {
                 printIt("hasJob.RUNNING.2");
                 return state2.get() == 1;
             }
         });
-        when(jobInfoRepository.activateQueuedJobById(id2)).thenAnswer(new Answer<Object>() {
+        when(jobInfoRepository.activateQueuedJobById(eq(id2), anyLong(), anyLong())).thenAnswer(new Answer<Object>() {
             @Override
             public Object answer(InvocationOnMock invocation) throws Throwable {
                 printIt("activateQueuedJob.2");
@@ -285,22 +404,22 @@ public class JobServiceTest {
         jobService.registerJob(TestSetup.localJobRunnable(JOB_NAME_01, 0));
         JobInfo job = new JobInfo(JOB_NAME_01, InternetUtils.getHostName(), "bla", 60000L, 60000L, 0L);
         ReflectionTestUtils.invokeMethod(job, "addProperty", JobInfoProperty.ID, new ObjectId());
-        when(jobInfoRepository.findByNameAndRunningState(JOB_NAME_01, RunningState.RUNNING)).thenReturn(job);
+        when(jobInfoRepository.findByNameAndRunningState(JOB_NAME_01, RunningState.RUNNING, JobInfoProjection.CONTROL)).thenReturn(job);
 
         jobService.registerJob(TestSetup.localJobRunnable(JOB_NAME_01, 0));
         jobService.shutdownJobs();
-        verify(jobInfoRepository).markAsFinished(job.getId(), ResultCode.ABORTED, "shutdownJobs called from executing host");
+        verify(jobInfoRepository).markAsFinished(job.getId(), JOB_NAME_01, ResultCode.ABORTED, "shutdownJobs called from executing host");
     }
 
     @Test
     public void testStopAllJobsJobRunningOnDifferentHost() throws Exception {
         JobInfo jobInfo = new JobInfo(JOB_NAME_01, "differentHost", "bla", 60000L, 60000L, 0L);
         ReflectionTestUtils.invokeMethod(jobInfo, "addProperty", JobInfoProperty.ID, new ObjectId());
-        when(jobInfoRepository.findByNameAndRunningState(JOB_NAME_01, RunningState.RUNNING)).thenReturn(jobInfo);
+        when(jobInfoRepository.findByNameAndRunningState(JOB_NAME_01, RunningState.RUNNING, JobInfoProjection.CONTROL)).thenReturn(jobInfo);
 
         jobService.registerJob(TestSetup.localJobRunnable(JOB_NAME_01, 0));
         jobService.shutdownJobs();
-        verify(jobInfoRepository, never()).markAsFinished(jobInfo.getId(), ResultCode.FAILED, "shutdownJobs called from executing host");
+        verify(jobInfoRepository, never()).markAsFinished(jobInfo.getId(), JOB_NAME_01, ResultCode.FAILED, "shutdownJobs called from executing host");
     }
 
     @Test
@@ -309,7 +428,7 @@ public class JobServiceTest {
         jobService.registerJob(TestSetup.localJobRunnable(JOB_NAME_02, 0));
         jobService.shutdownJobs();
 
-        verify(jobInfoRepository, never()).markAsFinished(anyString(), any(ResultCode.class), anyString());
+        verify(jobInfoRepository, never()).markAsFinished(anyString(), anyString(), any(ResultCode.class), anyString());
     }
 
     @Test
@@ -317,11 +436,11 @@ public class JobServiceTest {
         final ObjectId id1 = new ObjectId();
         JobInfo jobInfo = new JobInfo(JOB_NAME_01, "bla", "bla", 1000L, 1000L, 0L);
         ReflectionTestUtils.invokeMethod(jobInfo, "addProperty", JobInfoProperty.ID, id1);
-        when(jobInfoRepository.activateQueuedJobById(id1.toString())).thenReturn(true);
+        when(jobInfoRepository.activateQueuedJobById(eq(id1.toString()), anyLong(), anyLong())).thenReturn(true);
         final ObjectId id2 = new ObjectId();
         final JobInfo jobInfo2 = new JobInfo(JOB_NAME_02, "bla", "bla", 1000L, 1000L, 0L);
         ReflectionTestUtils.invokeMethod(jobInfo2, "addProperty", JobInfoProperty.ID, id2);
-        when(jobInfoRepository.activateQueuedJobById(id2.toString())).thenReturn(false);
+        when(jobInfoRepository.activateQueuedJobById(eq(id2.toString()), anyLong(), anyLong())).thenReturn(false);
         when(jobInfoRepository.findQueuedJobsSortedAscByCreationTime()).thenReturn(
                 Arrays.asList(jobInfo, jobInfo2));
         TestSetup.LocalMockJobRunnable runnable = TestSetup.localJobRunnable(JOB_NAME_01, 1000);
@@ -335,13 +454,13 @@ public class JobServiceTest {
         verify(jobInfoRepository, times(1)).updateHostThreadInformation(jobInfo.getId());
         verify(jobInfoRepository, times(0)).updateHostThreadInformation(jobInfo2.getId());
         assertTrue(runnable.isExecuted());
-        verify(jobInfoRepository, times(1)).markAsFinished(jobInfo.getId(), ResultCode.SUCCESSFUL, null);
+        verify(jobInfoRepository, times(1)).markAsFinished(jobInfo.getId(), JOB_NAME_01, ResultCode.SUCCESSFUL, null);
     }
 
     @Test
     public void testExecuteForcedQueuedJobs() throws Exception {
         final ObjectId id = new ObjectId();
-        when(jobInfoRepository.activateQueuedJobById(id.toString())).thenReturn(true);
+        when(jobInfoRepository.activateQueuedJobById(eq(id.toString()), anyLong(), anyLong())).thenReturn(true);
         JobInfo jobInfo = new JobInfo(JOB_NAME_01, "bla", "bla", 1000L, 1000L, 0L, RunningState.QUEUED, JobExecutionPriority.IGNORE_PRECONDITIONS, Collections.<String, String>emptyMap());
         ReflectionTestUtils.invokeMethod(jobInfo, "addProperty", JobInfoProperty.ID, id);
         when(jobInfoRepository.findQueuedJobsSortedAscByCreationTime()).thenReturn(Arrays.asList(jobInfo));
@@ -354,7 +473,7 @@ public class JobServiceTest {
         Thread.sleep(500);
         verify(jobInfoRepository, times(1)).updateHostThreadInformation(jobInfo.getId());
         assertTrue(runnable.isExecuted());
-        verify(jobInfoRepository, times(1)).markAsFinished(jobInfo.getId(), ResultCode.SUCCESSFUL, null);
+        verify(jobInfoRepository, times(1)).markAsFinished(jobInfo.getId(), JOB_NAME_01, ResultCode.SUCCESSFUL, null);
     }
 
     @Test
@@ -362,11 +481,11 @@ public class JobServiceTest {
         final ObjectId id1 = new ObjectId();
         JobInfo jobInfo = new JobInfo(JOB_NAME_01, "bla", "bla", 1000L, 1000L, 0L);
         ReflectionTestUtils.invokeMethod(jobInfo, "addProperty", JobInfoProperty.ID, id1);
-        when(jobInfoRepository.activateQueuedJobById(id1.toString())).thenReturn(true);
+        when(jobInfoRepository.activateQueuedJobById(eq(id1.toString()), anyLong(), anyLong())).thenReturn(true);
         final JobInfo jobInfo2 = new JobInfo(JOB_NAME_02, "bla", "bla", 1000L, 1000L, 0L);
         final ObjectId id2 = new ObjectId();
         ReflectionTestUtils.invokeMethod(jobInfo2, "addProperty", JobInfoProperty.ID, id2);
-        when(jobInfoRepository.activateQueuedJobById(id2.toString())).thenReturn(false);
+        when(jobInfoRepository.activateQueuedJobById(eq(id2.toString()), anyLong(), anyLong())).thenReturn(false);
         when(jobInfoRepository.findQueuedJobsSortedAscByCreationTime()).thenReturn(
                 Arrays.asList(jobInfo, jobInfo2));
         when(jobDefinitionRepository.find(JOB_NAME_01)).thenReturn(createSimpleJd());
@@ -380,7 +499,7 @@ public class JobServiceTest {
         Thread.sleep(500);
         verify(jobInfoRepository, times(1)).updateHostThreadInformation(jobInfo.getId());
         verify(jobInfoRepository, times(0)).updateHostThreadInformation(jobInfo2.getId());
-        verify(jobInfoRepository, times(1)).markAsFinished(jobInfo.getId(), exception);
+        verify(jobInfoRepository, times(1)).markAsFinished(jobInfo.getId(), JOB_NAME_01, exception);
     }
 
     @Test
@@ -390,9 +509,9 @@ public class JobServiceTest {
         ReflectionTestUtils.invokeMethod(jobInfo, "addProperty", JobInfoProperty.ID, id);
         when(jobInfoRepository.findQueuedJobsSortedAscByCreationTime()).thenReturn(
                 Arrays.asList(jobInfo));
-        when(jobInfoRepository.hasJob(JOB_NAME_02, RunningState.RUNNING)).thenReturn(Boolean.TRUE);
+        when(jobInfoRepository.hasAnyJob(Collections.singleton(JOB_NAME_02), EnumSet.of(RunningState.RUNNING))).thenReturn(Boolean.TRUE);
         when(jobDefinitionRepository.find(JOB_NAME_01)).thenReturn(createSimpleJd());
-        when(jobInfoRepository.activateQueuedJobById(id.toString())).thenReturn(true);
+        when(jobInfoRepository.activateQueuedJobById(eq(id.toString()), anyLong(), anyLong())).thenReturn(true);
 
         jobService.registerJob(TestSetup.localJobRunnable(JOB_NAME_01, 0));
         jobService.registerJob(TestSetup.localJobRunnable(JOB_NAME_02, 0));
@@ -416,7 +535,33 @@ public class JobServiceTest {
         jobService.registerJob(TestSetup.localJobRunnable(JOB_NAME_01, 0));
         jobService.executeQueuedJobs();
 
-        verify(jobInfoRepository, times(0)).activateQueuedJobById(anyString());
+        verify(jobInfoRepository, times(0)).activateQueuedJobById(anyString(), anyLong(), anyLong());
+    }
+
+    @Test
+    public void testExecuteQueuedJobsBehindDisabledAndRunningJobs() throws Exception {
+        final String jobName03 = "test3";
+        final JobInfo queuedJob = createJobInfo(jobName03, JobExecutionPriority.CHECK_PRECONDITIONS, RunningState.QUEUED);
+        ReflectionTestUtils.invokeMethod(queuedJob, "addProperty", JobInfoProperty.ID, "queued");
+        when(jobInfoRepository.findQueuedJobsSortedAscByCreationTime()).thenReturn(Arrays.asList(
+                createJobInfo(JOB_NAME_01, JobExecutionPriority.CHECK_PRECONDITIONS, RunningState.QUEUED),
+                createJobInfo(JOB_NAME_02, JobExecutionPriority.CHECK_PRECONDITIONS, RunningState.QUEUED),
+                queuedJob));
+        final StoredJobDefinition disabledJd = createSimpleJd();
+        disabledJd.setDisabled(true);
+        when(jobDefinitionRepository.find(JOB_NAME_01)).thenReturn(disabledJd);
+        when(jobDefinitionRepository.find(JOB_NAME_02)).thenReturn(createSimpleJd());
+        when(jobDefinitionRepository.find(jobName03)).thenReturn(createSimpleJd());
+        when(jobInfoRepository.hasJob(JOB_NAME_02, RunningState.RUNNING)).thenReturn(Boolean.TRUE);
+        when(jobInfoRepository.activateQueuedJobById(eq("queued"), anyLong(), anyLong())).thenReturn(true);
+
+        jobService.registerJob(TestSetup.localJobRunnable(JOB_NAME_01, 0));
+        jobService.registerJob(TestSetup.localJobRunnable(JOB_NAME_02, 0));
+        jobService.registerJob(TestSetup.localJobRunnable(jobName03, 0));
+        jobService.executeQueuedJobs();
+
+        verify(jobInfoRepository, times(1)).activateQueuedJobById(anyString(), anyLong(), anyLong());
+        verify(jobInfoRepository, times(1)).updateHostThreadInformation("queued");
     }
 
     @Test
@@ -429,13 +574,14 @@ public class JobServiceTest {
         jobService.registerJob(TestSetup.localJobRunnable(JOB_NAME_01, 0));
         jobService.executeQueuedJobs();
 
-        verify(jobInfoRepository, times(0)).activateQueuedJobById(anyString());
+        verify(jobInfoRepository, times(0)).activateQueuedJobById(anyString(), anyLong(), anyLong());
     }
 
     @Test
     public void testExecuteJobWithSamePriorityOfJobWhichIsAlreadyQueued() throws Exception {
-        when(jobInfoRepository.findByNameAndRunningState(JOB_NAME_01, RunningState.QUEUED)).
-                thenReturn(createJobInfo(JOB_NAME_01, JobExecutionPriority.CHECK_PRECONDITIONS, RunningState.QUEUED));
+        when(jobInfoRepository.admitJob(JOB_NAME_01, 0, 0, 0, JobExecutionPriority.CHECK_PRECONDITIONS, JobService.NO_PARAMETERS)).
+                thenReturn(new JobAdmission(JobAdmission.Decision.ALREADY_QUEUED,
+                        createJobInfo(JOB_NAME_01, JobExecutionPriority.CHECK_PRECONDITIONS, RunningState.QUEUED)));
         when(jobDefinitionRepository.find(JOB_NAME_01)).thenReturn(createSimpleJd());
 
         try {
@@ -449,10 +595,8 @@ public class JobServiceTest {
 
     @Test
     public void testExecuteJobWithHigherPriorityOfJobWhichIsAlreadyQueued() throws Exception {
-        when(jobInfoRepository.findByNameAndRunningState(JOB_NAME_01, RunningState.QUEUED)).
-                thenReturn(createJobInfo(JOB_NAME_01, JobExecutionPriority.CHECK_PRECONDITIONS, RunningState.QUEUED));
-        when(jobInfoRepository.create(JOB_NAME_01, 0, 0, 0, RunningState.QUEUED, JobExecutionPriority.IGNORE_PRECONDITIONS, JobService.NO_PARAMETERS))
-                .thenReturn("1234");
+        when(jobInfoRepository.admitJob(JOB_NAME_01, 0, 0, 0, JobExecutionPriority.IGNORE_PRECONDITIONS, JobService.NO_PARAMETERS))
+                .thenReturn(createAdmission(JobAdmission.Decision.QUEUE, "1234"));
         when(jobDefinitionRepository.find(JOB_NAME_01)).thenReturn(createSimpleJd());
 
         jobService.registerJob(TestSetup.localJobRunnable(JOB_NAME_01, 0));
@@ -462,8 +606,9 @@ public class JobServiceTest {
 
     @Test
     public void testExecuteJobWithSamePriorityOfJobWhichIsAlreadyRunning() throws Exception {
-        when(jobInfoRepository.findByNameAndRunningState(JOB_NAME_01, RunningState.RUNNING)).
-                thenReturn(createJobInfo(JOB_NAME_01, JobExecutionPriority.CHECK_PRECONDITIONS, RunningState.RUNNING));
+        when(jobInfoRepository.admitJob(JOB_NAME_01, 0, 0, 0, JobExecutionPriority.CHECK_PRECONDITIONS, JobService.NO_PARAMETERS)).
+                thenReturn(new JobAdmission(JobAdmission.Decision.NOT_NECESSARY,
+                        createJobInfo(JOB_NAME_01, JobExecutionPriority.CHECK_PRECONDITIONS, RunningState.RUNNING)));
         when(jobDefinitionRepository.find(JOB_NAME_01)).thenReturn(createSimpleJd());
 
 
@@ -479,10 +624,8 @@ public class JobServiceTest {
 
     @Test
     public void testExecuteJobWithHigherPriorityOfJobWhichIsAlreadyRunning() throws Exception {
-        when(jobInfoRepository.create(JOB_NAME_01, 0, 0, 0, RunningState.QUEUED, JobExecutionPriority.IGNORE_PRECONDITIONS, JobService.NO_PARAMETERS)).
-                thenReturn("1234");
-        when(jobInfoRepository.findByNameAndRunningState(JOB_NAME_01, RunningState.RUNNING)).
-                thenReturn(createJobInfo(JOB_NAME_01, JobExecutionPriority.CHECK_PRECONDITIONS, RunningState.RUNNING));
+        when(jobInfoRepository.admitJob(JOB_NAME_01, 0, 0, 0, JobExecutionPriority.IGNORE_PRECONDITIONS, JobService.NO_PARAMETERS)).
+                thenReturn(createAdmission(JobAdmission.Decision.QUEUE, "1234"));
         when(jobDefinitionRepository.find(JOB_NAME_01)).thenReturn(createSimpleJd());
 
         jobService.registerJob(TestSetup.localJobRunnable(JOB_NAME_01, 0));
@@ -493,9 +636,9 @@ public class JobServiceTest {
     @Test
     public void testExecuteJobForced() throws Exception {
         final String jobId = "1234";
-        when(jobInfoRepository.create(JOB_NAME_01, 0, 0, 0, RunningState.RUNNING, JobExecutionPriority.IGNORE_PRECONDITIONS, JobService.NO_PARAMETERS)).
-                thenReturn(jobId);
-        when(jobInfoRepository.activateQueuedJobById(jobId)).thenReturn(Boolean.TRUE);
+        when(jobInfoRepository.admitJob(JOB_NAME_01, 0, 0, 0, JobExecutionPriority.IGNORE_PRECONDITIONS, JobService.NO_PARAMETERS)).
+                thenReturn(createAdmission(JobAdmission.Decision.RUN, jobId));
+        when(jobInfoRepository.activateQueuedJobById(eq(jobId), anyLong(), anyLong())).thenReturn(Boolean.TRUE);
         when(jobInfoRepository.hasJob(JOB_NAME_01, RunningState.QUEUED)).thenReturn(Boolean.FALSE);
         when(jobInfoRepository.hasJob(JOB_NAME_01, RunningState.RUNNING)).thenReturn(Boolean.FALSE);
         when(jobDefinitionRepository.find(JOB_NAME_01)).thenReturn(createSimpleJd());
@@ -511,9 +654,9 @@ public class JobServiceTest {
     @Test
     public void testExecuteJobForcedFailedWithException() throws Exception {
         final String jobId = "1234";
-        when(jobInfoRepository.create(JOB_NAME_01, 0, 0, 0, RunningState.RUNNING, JobExecutionPriority.IGNORE_PRECONDITIONS, JobService.NO_PARAMETERS)).
-                thenReturn(jobId);
-        when(jobInfoRepository.activateQueuedJobById(JOB_NAME_01)).thenReturn(Boolean.TRUE);
+        when(jobInfoRepository.admitJob(JOB_NAME_01, 0, 0, 0, JobExecutionPriority.IGNORE_PRECONDITIONS, JobService.NO_PARAMETERS)).
+                thenReturn(createAdmission(JobAdmission.Decision.RUN, jobId));
+        when(jobInfoRepository.activateQueuedJobById(eq(JOB_NAME_01), anyLong(), anyLong())).thenReturn(Boolean.TRUE);
         when(jobInfoRepository.hasJob(JOB_NAME_01, RunningState.QUEUED)).thenReturn(Boolean.FALSE);
         when(jobInfoRepository.hasJob(JOB_NAME_01, RunningState.RUNNING)).thenReturn(Boolean.FALSE);
         when(jobDefinitionRepository.find(JOB_NAME_01)).thenReturn(createSimpleJd());
@@ -524,7 +667,7 @@ public class JobServiceTest {
         String id = jobService.executeJob(JOB_NAME_01, JobExecutionPriority.IGNORE_PRECONDITIONS);
         assertEquals(jobId, id);
         Thread.sleep(500);
-        verify(jobInfoRepository, times(1)).markAsFinished(id, exception);
+        verify(jobInfoRepository, times(1)).markAsFinished(id, JOB_NAME_01, exception);
     }
 
     @Test
@@ -568,13 +711,15 @@ public class JobServiceTest {
 
         final JobInfo jobInfo = new JobInfo(jobId, "localhost", "thread", 0L, 0L, 2L, RunningState.FINISHED);
         jobInfo.setResultState(ResultCode.FAILED);
+        ReflectionTestUtils.invokeMethod(jobInfo, "addProperty", JobInfoProperty.LAST_MODIFICATION_TIME, new Date(0));
 
-        when(jobInfoRepository.findMostRecentFinished(JOB_NAME_01)).thenReturn(jobInfo);
+        when(jobInfoRepository.findMostRecentFinished(JOB_NAME_01, JobInfoProjection.CONTROL)).thenReturn(jobInfo);
+        when(jobInfoRepository.findMostRecentFinished(Collections.singleton(JOB_NAME_01))).thenReturn(Collections.singletonMap(JOB_NAME_01, jobInfo));
         when(jobInfoRepository.evaluateRetriesBasedOnPreviouslyFailedJobs(JOB_NAME_01, 2L)).thenCallRealMethod();
 
-        when(jobInfoRepository.create(JOB_NAME_01, 0, 0, 2, RunningState.RUNNING, JobExecutionPriority.CHECK_PRECONDITIONS, JobService.NO_PARAMETERS)).
-                thenReturn(jobId);
-        when(jobInfoRepository.activateQueuedJobById(JOB_NAME_01)).thenReturn(Boolean.TRUE);
+        when(jobInfoRepository.admitJob(JOB_NAME_01, 0, 0, 2, JobExecutionPriority.CHECK_PRECONDITIONS, JobService.NO_PARAMETERS)).
+                thenReturn(createAdmission(JobAdmission.Decision.RUN, jobId));
+        when(jobInfoRepository.activateQueuedJobById(eq(JOB_NAME_01), anyLong(), anyLong())).thenReturn(Boolean.TRUE);
         when(jobInfoRepository.hasJob(JOB_NAME_01, RunningState.QUEUED)).thenReturn(Boolean.FALSE);
         when(jobInfoRepository.hasJob(JOB_NAME_01, RunningState.RUNNING)).thenReturn(Boolean.FALSE);
 
@@ -588,7 +733,7 @@ public class JobServiceTest {
         jobService.doRetryFailedJobs();
 
         assertEquals(jobInfoRepository.evaluateRetriesBasedOnPreviouslyFailedJobs(JOB_NAME_01, 2L), 1L);
-        verify(jobInfoRepository, times(1)).create(JOB_NAME_01, 0, 0, 2, RunningState.RUNNING, JobExecutionPriority.CHECK_PRECONDITIONS, JobService.NO_PARAMETERS);
+        verify(jobInfoRepository, times(1)).admitJob(JOB_NAME_01, 0, 0, 2, JobExecutionPriority.CHECK_PRECONDITIONS, JobService.NO_PARAMETERS);
     }
 
     @Test
@@ -599,13 +744,14 @@ public class JobServiceTest {
         final JobInfo jobInfo = new JobInfo(jobId, "localhost", "thread", 0L, 0L, 2L, RunningState.FINISHED);
         jobInfo.setResultState(ResultCode.SUCCESSFUL);
 
-        when(jobInfoRepository.findMostRecentFinished(JOB_NAME_01)).thenReturn(jobInfo);
+        when(jobInfoRepository.findMostRecentFinished(JOB_NAME_01, JobInfoProjection.CONTROL)).thenReturn(jobInfo);
+        when(jobInfoRepository.findMostRecentFinished(Collections.singleton(JOB_NAME_01))).thenReturn(Collections.singletonMap(JOB_NAME_01, jobInfo));
         when(jobInfoRepository.evaluateRetriesBasedOnPreviouslyFailedJobs(JOB_NAME_01, 2L)).thenCallRealMethod();
 
 
-        when(jobInfoRepository.create(JOB_NAME_01, 0, 0, 2, RunningState.RUNNING, JobExecutionPriority.CHECK_PRECONDITIONS, JobService.NO_PARAMETERS)).
-                thenReturn(jobId);
-        when(jobInfoRepository.activateQueuedJobById(JOB_NAME_01)).thenReturn(Boolean.TRUE);
+        when(jobInfoRepository.admitJob(JOB_NAME_01, 0, 0, 2, JobExecutionPriority.CHECK_PRECONDITIONS, JobService.NO_PARAMETERS)).
+                thenReturn(createAdmission(JobAdmission.Decision.RUN, jobId));
+        when(jobInfoRepository.activateQueuedJobById(eq(JOB_NAME_01), anyLong(), anyLong())).thenReturn(Boolean.TRUE);
         when(jobInfoRepository.hasJob(JOB_NAME_01, RunningState.QUEUED)).thenReturn(Boolean.FALSE);
         when(jobInfoRepository.hasJob(JOB_NAME_01, RunningState.RUNNING)).thenReturn(Boolean.FALSE);
 
@@ -619,7 +765,7 @@ public class JobServiceTest {
         jobService.doRetryFailedJobs();
 
         assertEquals(jobInfoRepository.evaluateRetriesBasedOnPreviouslyFailedJobs(JOB_NAME_01, 2L), 2L);
-        verify(jobInfoRepository, times(0)).create(JOB_NAME_01, 0, 0, 2, RunningState.RUNNING, JobExecutionPriority.CHECK_PRECONDITIONS, JobService.NO_PARAMETERS);
+        verify(jobInfoRepository, times(0)).admitJob(JOB_NAME_01, 0, 0, 2, JobExecutionPriority.CHECK_PRECONDITIONS, JobService.NO_PARAMETERS);
     }
 
 
@@ -627,14 +773,14 @@ public class JobServiceTest {
     public void testPollRemoteJobsNoRemoteJobs() throws Exception {
         jobService.registerJob(TestSetup.localJobRunnable(JOB_NAME_01, 0));
         jobService.pollRemoteJobs();
-        verify(jobInfoRepository, times(0)).findByNameAndRunningState(anyString(), any(RunningState.class));
+        verify(jobInfoRepository, times(0)).findByNamesAndRunningState(anyCollectionOf(String.class), any(RunningState.class));
     }
 
     @Test
     public void testPollRemoteJobsNoUpdateNecessary() throws Exception {
         jobService.registerJob(new RemoteMockJobRunnable(JOB_NAME_01, remoteJobExecutorService, jobInfoService, 0, 1000 * 60 * 60));
-        when(jobInfoRepository.findByNameAndRunningState(JOB_NAME_01, RunningState.RUNNING)).
-                thenReturn(new JobInfo(JOB_NAME_01, "host", "thread", 1000L, 1000L, 0L));
+        when(jobInfoRepository.findByNamesAndRunningState(Collections.singleton(JOB_NAME_01), RunningState.RUNNING)).
+                thenReturn(Arrays.asList(new JobInfo(JOB_NAME_01, "host", "thread", 1000L, 1000L, 0L)));
         jobService.pollRemoteJobs();
         verify(remoteJobExecutorService, times(0)).getStatus(any(URI.class));
     }
@@ -644,10 +790,11 @@ public class JobServiceTest {
         jobService.registerJob(jobRunnable);
         JobInfo job = new JobInfo(JOB_NAME_01, "host", "thread", 1000L, 1000L, 0L);
         job.putAdditionalData(JobInfoProperty.REMOTE_JOB_URI.val(), "http://example.com");
+        ReflectionTestUtils.invokeMethod(job, "addProperty", JobInfoProperty.LAST_MODIFICATION_TIME, new Date(0));
         final ObjectId id = new ObjectId();
         ReflectionTestUtils.invokeMethod(job, "addProperty", JobInfoProperty.ID, id);
         when(jobInfoRepository.findById(id.toString())).thenReturn(job);
-        when(jobInfoRepository.findByNameAndRunningState(JOB_NAME_01, RunningState.RUNNING)).thenReturn(job);
+        when(jobInfoRepository.findByNamesAndRunningState(Collections.singleton(JOB_NAME_01), RunningState.RUNNING)).thenReturn(Arrays.asList(job));
 
         List<String> logLines = Arrays.asList("test", "test1");
         when(remoteJobExecutorService.getStatus(any(URI.class)))
@@ -661,16 +808,17 @@ public class JobServiceTest {
         jobService.registerJob(jobRunnable);
         JobInfo job = new JobInfo(JOB_NAME_01, "host", "thread", 1000L, 1000L, 0L);
         job.putAdditionalData(JobInfoProperty.REMOTE_JOB_URI.val(), "http://example.com");
+        ReflectionTestUtils.invokeMethod(job, "addProperty", JobInfoProperty.LAST_MODIFICATION_TIME, new Date(0));
         ObjectId id = new ObjectId();
         ReflectionTestUtils.invokeMethod(job, "addProperty", JobInfoProperty.ID, id);
         when(jobInfoRepository.findById(id.toString())).thenReturn(job);
-        when(jobInfoRepository.findByNameAndRunningState(JOB_NAME_01, RunningState.RUNNING)).thenReturn(job);
+        when(jobInfoRepository.findByNamesAndRunningState(Collections.singleton(JOB_NAME_01), RunningState.RUNNING)).thenReturn(Arrays.asList(job));
         List<String> logLines = Arrays.asList("test", "test1");
         when(remoteJobExecutorService.getStatus(any(URI.class))).thenReturn(
                 new RemoteJobStatus(RemoteJobStatus.Status.FINISHED, logLines, new RemoteJobResult(false, 1, "foo"), null));
 
         jobService.pollRemoteJobs();
-        verify(jobInfoRepository, times(1)).markAsFinished(job.getId(), ResultCode.FAILED, "foo");
+        verify(jobInfoRepository, times(1)).markAsFinished(job.getId(), JOB_NAME_01, ResultCode.FAILED, "foo");
         // We expect a RemoteJobFailedException, which originates frm execute()
         assertEquals(this.jobRunnable.onExceptionCalled, JobRunnable.State.EXECUTE);
     }
@@ -681,17 +829,18 @@ public class JobServiceTest {
         jobService.registerJob(runnable);
         JobInfo job = new JobInfo(JOB_NAME_01, "host", "thread", 1000L, 1000L, 0L);
         job.putAdditionalData(JobInfoProperty.REMOTE_JOB_URI.val(), "http://example.com");
+        ReflectionTestUtils.invokeMethod(job, "addProperty", JobInfoProperty.LAST_MODIFICATION_TIME, new Date(0));
         final ObjectId id = new ObjectId();
         ReflectionTestUtils.invokeMethod(job, "addProperty", JobInfoProperty.ID, id);
         when(jobInfoRepository.findById(id.toString())).thenReturn(job);
-        when(jobInfoRepository.findByNameAndRunningState(JOB_NAME_01, RunningState.RUNNING)).thenReturn(job);
+        when(jobInfoRepository.findByNamesAndRunningState(Collections.singleton(JOB_NAME_01), RunningState.RUNNING)).thenReturn(Arrays.asList(job));
         List<String> logLines = Arrays.asList("test", "test1");
         when(remoteJobExecutorService.getStatus(any(URI.class))).thenReturn(
                 new RemoteJobStatus(RemoteJobStatus.Status.FINISHED, logLines, new RemoteJobResult(true, 0, "foo"), null));
 
         jobService.pollRemoteJobs();
         Thread.sleep(1000);
-        verify(jobInfoRepository, times(1)).markAsFinished(job.getId(), ResultCode.SUCCESSFUL, "foo");
+        verify(jobInfoRepository, times(1)).markAsFinished(job.getId(), JOB_NAME_01, ResultCode.SUCCESSFUL, "foo");
         assertEquals(ResultCode.SUCCESSFUL, runnable.afterSuccessContext.getResultCode());
     }
 
@@ -702,22 +851,98 @@ public class JobServiceTest {
         jobService.registerJob(runnable);
         JobInfo job = new JobInfo(JOB_NAME_01, "host", "thread", 1000L, 1000L, 0L);
         job.putAdditionalData(JobInfoProperty.REMOTE_JOB_URI.val(), "http://example.com");
+        ReflectionTestUtils.invokeMethod(job, "addProperty", JobInfoProperty.LAST_MODIFICATION_TIME, new Date(0));
         final ObjectId id = new ObjectId();
         ReflectionTestUtils.invokeMethod(job, "addProperty", JobInfoProperty.ID, id);
         when(jobInfoRepository.findById(id.toString())).thenReturn(job);
-        when(jobInfoRepository.findByNameAndRunningState(JOB_NAME_01, RunningState.RUNNING)).thenReturn(job);
+        when(jobInfoRepository.findByNamesAndRunningState(Collections.singleton(JOB_NAME_01), RunningState.RUNNING)).thenReturn(Arrays.asList(job));
         List<String> logLines = Arrays.asList("test", "test1");
         when(remoteJobExecutorService.getStatus(any(URI.class))).thenReturn(
                 new RemoteJobStatus(RemoteJobStatus.Status.FINISHED, logLines, new RemoteJobResult(true, 0, "foo"), null));
 
         jobService.pollRemoteJobs();
         Thread.sleep(100);
-        verify(jobInfoRepository, times(1)).markAsFinished(job.getId(), jobExecutionException);
+        verify(jobInfoRepository, times(1)).markAsFinished(job.getId(), JOB_NAME_01, jobExecutionException);
         assertEquals(ResultCode.SUCCESSFUL, runnable.afterSuccessContext.getResultCode());
         // The exception occurred somewhere in afterExecution()
         assertEquals(jobRunnable.onExceptionCalled, JobRunnable.State.AFTER_EXECUTION);
     }
 
+    @Test
+    public void testPollRemoteJobsIsNotBlockedBySlowExecutor() throws Exception {
+        final RemoteJobExecutorService slowRemoteJobExecutorService = mock(RemoteJobExecutorService.class);
+        jobService.registerJob(jobRunnable);
+        jobService.registerJob(new RemoteMockJobRunnable(JOB_NAME_02, slowRemoteJobExecutorService, jobInfoService, 0, 0));
+        jobService.setRemotePollingTimeout(200);
+        final JobInfo job = new JobInfo(JOB_NAME_01, "host", "thread", 1000L, 1000L, 0L);
+        job.putAdditionalData(JobInfoProperty.REMOTE_JOB_URI.val(), "http://example.com/1");
+        ReflectionTestUtils.invokeMethod(job, "addProperty", JobInfoProperty.LAST_MODIFICATION_TIME, new Date(0));
+        ReflectionTestUtils.invokeMethod(job, "addProperty", JobInfoProperty.ID, new ObjectId());
+        final JobInfo slowJob = new JobInfo(JOB_NAME_02, "host", "thread", 1000L, 1000L, 0L);
+        slowJob.putAdditionalData(JobInfoProperty.REMOTE_JOB_URI.val(), "http://example.com/2");
+        ReflectionTestUtils.invokeMethod(slowJob, "addProperty", JobInfoProperty.LAST_MODIFICATION_TIME, new Date(0));
+        ReflectionTestUtils.invokeMethod(slowJob, "addProperty", JobInfoProperty.ID, new ObjectId());
+        when(jobInfoRepository.findById(job.getId())).thenReturn(job);
+        when(jobInfoRepository.findById(slowJob.getId())).thenReturn(slowJob);
+        when(jobInfoRepository.findByNamesAndRunningState(new HashSet<>(Arrays.asList(JOB_NAME_01, JOB_NAME_02)), RunningState.RUNNING)).
+                thenReturn(Arrays.asList(slowJob, job));
+        when(slowRemoteJobExecutorService.getStatus(any(URI.class))).thenAnswer(new Answer<RemoteJobStatus>() {
+            @Override
+            public RemoteJobStatus answer(InvocationOnMock invocation) throws Throwable {
+                Thread.sleep(5000);
+                return new RemoteJobStatus(RemoteJobStatus.Status.RUNNING, Arrays.asList("slow"), null, null);
+            }
+        });
+        final List<String> logLines = Arrays.asList("test");
+        when(remoteJobExecutorService.getStatus(any(URI.class))).thenReturn(new RemoteJobStatus(RemoteJobStatus.Status.RUNNING, logLines, null, null));
+
+        jobService.pollRemoteJobs();
+
+        verify(jobInfoRepository, times(1)).appendLogLines(job.getId(), logLines);
+        verify(jobInfoRepository, never()).appendLogLines(eq(slowJob.getId()), anyListOf(String.class));
+        assertTrue(jobService.getLastRemotePollingDuration() < 5000);
+    }
+
+    @Test
+    public void testPollRemoteJobsTimesOutRequestsFromTheirStartAndReusesThreads() throws Exception {
+        final RemoteJobExecutorService otherRemoteJobExecutorService = mock(RemoteJobExecutorService.class);
+        jobService.registerJob(new RemoteMockJobRunnable(JOB_NAME_01, remoteJobExecutorService, jobInfoService, 0, 0));
+        jobService.registerJob(new RemoteMockJobRunnable(JOB_NAME_02, otherRemoteJobExecutorService, jobInfoService, 0, 0));
+        jobService.setRemotePollingParallelism(1);
+        jobService.setRemotePollingTimeout(300);
+        final JobInfo job = new JobInfo(JOB_NAME_01, "host", "thread", 1000L, 1000L, 0L);
+        job.putAdditionalData(JobInfoProperty.REMOTE_JOB_URI.val(), "http://example.com/1");
+        ReflectionTestUtils.invokeMethod(job, "addProperty", JobInfoProperty.LAST_MODIFICATION_TIME, new Date(0));
+        ReflectionTestUtils.invokeMethod(job, "addProperty", JobInfoProperty.ID, new ObjectId());
+        final JobInfo otherJob = new JobInfo(JOB_NAME_02, "host", "thread", 1000L, 1000L, 0L);
+        otherJob.putAdditionalData(JobInfoProperty.REMOTE_JOB_URI.val(), "http://example.com/2");
+        ReflectionTestUtils.invokeMethod(otherJob, "addProperty", JobInfoProperty.LAST_MODIFICATION_TIME, new Date(0));
+        ReflectionTestUtils.invokeMethod(otherJob, "addProperty", JobInfoProperty.ID, new ObjectId());
+        when(jobInfoRepository.findById(job.getId())).thenReturn(job);
+        when(jobInfoRepository.findById(otherJob.getId())).thenReturn(otherJob);
+        when(jobInfoRepository.findByNamesAndRunningState(new HashSet<>(Arrays.asList(JOB_NAME_01, JOB_NAME_02)), RunningState.RUNNING)).
+                thenReturn(Arrays.asList(job, otherJob));
+        final Set<String> pollingThreads = Collections.synchronizedSet(new HashSet<String>());
+        final Answer<RemoteJobStatus> slowAnswer = new Answer<RemoteJobStatus>() {
+            @Override
+            public RemoteJobStatus answer(InvocationOnMock invocation) throws Throwable {
+                pollingThreads.add(Thread.currentThread().getName());
+                // together the requests take longer than the timeout, each one alone does not
+                Thread.sleep(200);
+                return new RemoteJobStatus(RemoteJobStatus.Status.RUNNING, Arrays.asList("line"), null, null);
+            }
+        };
+        when(remoteJobExecutorService.getStatus(any(URI.class))).thenAnswer(slowAnswer);
+        when(otherRemoteJobExecutorService.getStatus(any(URI.class))).thenAnswer(slowAnswer);
+
+        jobService.pollRemoteJobs();
+        jobService.pollRemoteJobs();
+
+        verify(jobInfoRepository, times(2)).appendLogLines(job.getId(), Arrays.asList("line"));
+        verify(jobInfoRepository, times(2)).appendLogLines(otherJob.getId(), Arrays.asList("line"));
+        assertEquals(pollingThreads.size(), 1);
+    }
+
     @Test
     public void testJobDoesRequireUpdate() throws Exception {
         Date dt = new Date();
@@ -756,10 +981,135 @@ public class JobServiceTest {
     }
 
     @Test
-    public void executesOldJobsCleanup() throws Exception {
-        jobService.cleanupOldJobs();
+    public void abortJobInterruptsInterruptibleJob() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final JobRunnable blockingJob = blockingLocalJobRunnable(started, true);
+        jobService.registerJob(blockingJob);
+        when(jobInfoRepository.activateQueuedJobById(eq("1"), anyLong(), anyLong())).thenReturn(true);
+
+        jobService.executeQueuedJob(blockingJob, "1", JobExecutionPriority.CHECK_PRECONDITIONS);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        jobService.abortJob("1");
+
+        verify(jobInfoRepository, timeout(2000)).markAsFinished("1", JOB_NAME_01, ResultCode.ABORTED, null);
+    }
+
+    @Test
+    public void abortJobMarksInterruptedJobIgnoringTheInterruptAsAborted() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final JobRunnable spinningJob = new AbstractLocalJobRunnable() {
+            @Override
+            public JobDefinition getJobDefinition() {
+                return longRunningJobDefinition(true);
+            }
+
+            @Override
+            public void execute(JobExecutionContext context) throws JobException {
+                started.countDown();
+                // neither checks for the abort nor clears the interrupt
+                while (!Thread.currentThread().isInterrupted()) {
+                    Thread.yield();
+                }
+                throw new JobExecutionException("stopped");
+            }
+        };
+        jobService.registerJob(spinningJob);
+        when(jobInfoRepository.activateQueuedJobById(eq("1"), anyLong(), anyLong())).thenReturn(true);
+        final CountDownLatch finished = new CountDownLatch(1);
+        when(jobInfoRepository.markAsFinished("1", JOB_NAME_01, ResultCode.ABORTED, null)).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                // the driver fails writes of an interrupted thread
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new MongoException("interrupted");
+                }
+                finished.countDown();
+                return true;
+            }
+        });
+
+        jobService.executeQueuedJob(spinningJob, "1", JobExecutionPriority.CHECK_PRECONDITIONS);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        jobService.abortJob("1");
+
+        assertTrue(finished.await(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void abortJobDoesNotInterruptJobWhichIsBeingMarkedAsFinished() throws Exception {
+        final JobRunnable job = new AbstractLocalJobRunnable() {
+            @Override
+            public JobDefinition getJobDefinition() {
+                return longRunningJobDefinition(true);
+            }
+
+            @Override
+            public void execute(JobExecutionContext context) throws JobException {
+            }
+        };
+        jobService.registerJob(job);
+        when(jobInfoRepository.activateQueuedJobById(eq("1"), anyLong(), anyLong())).thenReturn(true);
+        final CountDownLatch finishing = new CountDownLatch(1);
+        final CountDownLatch aborted = new CountDownLatch(1);
+        final CountDownLatch finished = new CountDownLatch(1);
+        when(jobInfoRepository.markAsFinished("1", JOB_NAME_01, ResultCode.SUCCESSFUL, null)).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                finishing.countDown();
+                aborted.await(5, TimeUnit.SECONDS);
+                // the driver fails writes of an interrupted thread
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new MongoException("interrupted");
+                }
+                finished.countDown();
+                return true;
+            }
+        });
+
+        jobService.executeQueuedJob(job, "1", JobExecutionPriority.CHECK_PRECONDITIONS);
+        assertTrue(finishing.await(5, TimeUnit.SECONDS));
+        jobService.abortJob("1");
+        aborted.countDown();
+
+        assertTrue(finished.await(2, TimeUnit.SECONDS));
+        verify(jobInfoRepository, never()).markAsFinished("1", JOB_NAME_01, ResultCode.ABORTED, null);
+    }
+
+    @Test
+    public void shutdownInterruptsJobsStillRunningAfterDeadline() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final JobRunnable blockingJob = blockingLocalJobRunnable(started, false);
+        jobService.registerJob(blockingJob);
+        when(jobInfoRepository.activateQueuedJobById(eq("1"), anyLong(), anyLong())).thenReturn(true);
+
+        jobService.executeQueuedJob(blockingJob, "1", JobExecutionPriority.CHECK_PRECONDITIONS);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        final long start = System.currentTimeMillis();
+        jobService.shutdownJobs();
+
+        assertTrue(System.currentTimeMillis() - start < 5000);
+        verify(jobInfoRepository).abortJob("1");
+        verify(jobInfoRepository, timeout(2000)).markAsFinished("1", JOB_NAME_01, ResultCode.ABORTED, null);
+    }
 
-        verify(jobInfoRepository).cleanupOldJobs();
+    @Test
+    public void abortJobMarksJobExecutedInThisJvmAsAborted() throws Exception {
+        JobExecutionContext context = new JobExecutionContext("1234", mock(JobLogger.class), mock(JobInfoCache.class),
+                JobExecutionPriority.CHECK_PRECONDITIONS, TestSetup.localJobDefinition(JOB_NAME_01, 0));
+        JobExecutionContext otherContext = new JobExecutionContext("5678", mock(JobLogger.class), mock(JobInfoCache.class),
+                JobExecutionPriority.CHECK_PRECONDITIONS, TestSetup.localJobDefinition(JOB_NAME_02, 0));
+        jobService.registerExecutingJob(context);
+        jobService.registerExecutingJob(otherContext);
+
+        jobService.abortJob("1234");
+
+        verify(jobInfoRepository).abortJob("1234");
+        assertTrue(context.isAborted());
+        assertFalse(otherContext.isAborted());
+
+        jobService.unregisterExecutingJob(otherContext);
+        jobService.abortJob("5678");
+        assertFalse(otherContext.isAborted());
     }
 
     private class RemoteMockJobRunnable extends AbstractRemoteJobRunnable {
@@ -800,10 +1150,152 @@ public class JobServiceTest {
         }
     }
 
+    @Test
+    public void registerJobStoresScheduleOfJobWithCronExpression() throws Exception {
+        jobService.registerJob(TestSetup.localJobRunnable(scheduledLocalJobDefinition("*/5 * * * *"), null));
+
+        verify(jobDefinitionRepository).setSchedule(eq(JOB_NAME_01), eq("*/5 * * * *"), any(Date.class));
+    }
+
+    @Test
+    public void registerJobAcceptsDefinitionWithoutOptionalProperties() throws Exception {
+        final JobDefinition jobDefinition = mock(JobDefinition.class);
+        when(jobDefinition.getName()).thenReturn(JOB_NAME_01);
+
+        assertTrue(jobService.registerJob(TestSetup.localJobRunnable(jobDefinition, null)));
+
+        verify(jobInfoRepository).setRetentionTime(JOB_NAME_01, -1);
+        verify(jobDefinitionRepository, never()).setSchedule(anyString(), anyString(), any(Date.class));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void registerJobFailsForInvalidCronExpression() throws Exception {
+        jobService.registerJob(TestSetup.localJobRunnable(scheduledLocalJobDefinition("* * *"), null));
+    }
+
+    @Test
+    public void executeScheduledJobsExecutesJobIfFireTimeWasClaimed() throws Exception {
+        final JobRunnable job = TestSetup.localJobRunnable(scheduledLocalJobDefinition("*/5 * * * *"), null);
+        jobService.registerJob(job);
+        when(jobDefinitionRepository.find(JOB_NAME_01)).thenReturn(new StoredJobDefinition(job.getJobDefinition()));
+        final Date fireTime = new Date(System.currentTimeMillis() - 1000);
+        when(jobDefinitionRepository.findDueSchedules(any(Date.class))).thenReturn(Arrays.asList(dueJobDefinition("*/5 * * * *", fireTime)));
+        when(jobDefinitionRepository.claimFire(eq(JOB_NAME_01), eq("*/5 * * * *"), eq(fireTime), any(Date.class))).thenReturn(true);
+        when(jobInfoRepository.admitJob(eq(JOB_NAME_01), anyLong(), anyLong(), anyLong(), any(JobExecutionPriority.class), anyMap())).
+                thenReturn(createAdmission(JobAdmission.Decision.RUN, "1"));
+
+        jobService.executeScheduledJobs();
+
+        verify(jobInfoRepository).admitJob(eq(JOB_NAME_01), anyLong(), anyLong(), anyLong(), eq(JobExecutionPriority.CHECK_PRECONDITIONS), anyMap());
+    }
+
+    @Test
+    public void executeScheduledJobsDoesNotExecuteJobIfFireTimeWasClaimedByOtherNode() throws Exception {
+        jobService.registerJob(TestSetup.localJobRunnable(scheduledLocalJobDefinition("*/5 * * * *"), null));
+        final Date fireTime = new Date(System.currentTimeMillis() - 1000);
+        when(jobDefinitionRepository.findDueSchedules(any(Date.class))).thenReturn(Arrays.asList(dueJobDefinition("*/5 * * * *", fireTime)));
+        when(jobDefinitionRepository.claimFire(eq(JOB_NAME_01), eq("*/5 * * * *"), eq(fireTime), any(Date.class))).thenReturn(false);
+
+        jobService.executeScheduledJobs();
+
+        verify(jobInfoRepository, never()).admitJob(anyString(), anyLong(), anyLong(), anyLong(), any(JobExecutionPriority.class), anyMap());
+    }
+
+    @Test
+    public void executeScheduledJobsDoesNotClaimFireTimeOfChangedSchedule() throws Exception {
+        jobService.registerJob(TestSetup.localJobRunnable(scheduledLocalJobDefinition("*/5 * * * *"), null));
+        when(jobDefinitionRepository.findDueSchedules(any(Date.class))).thenReturn(Arrays.asList(dueJobDefinition("0 * * * *", new Date())));
+
+        jobService.executeScheduledJobs();
+
+        verify(jobDefinitionRepository, never()).claimFire(anyString(), anyString(), any(Date.class), any(Date.class));
+    }
+
+    private JobDefinition scheduledLocalJobDefinition(final String cronExpression) {
+        return new AbstractLocalJobDefinition() {
+            @Override
+            public String getName() {
+                return JOB_NAME_01;
+            }
+
+            @Override
+            public long getMaxIdleTime() {
+                return 0;
+            }
+
+            @Override
+            public long getMaxExecutionTime() {
+                return 0;
+            }
+
+            @Override
+            public String getCronExpression() {
+                return cronExpression;
+            }
+        };
+    }
+
+    private StoredJobDefinition dueJobDefinition(String cronExpression, Date nextFireTime) {
+        return new StoredJobDefinition(new BasicDBObject(JobDefinitionProperty.NAME.val(), JOB_NAME_01).
+                append(JobDefinitionProperty.CRON_EXPRESSION.val(), cronExpression).
+                append(JobDefinitionProperty.NEXT_FIRE_TIME.val(), nextFireTime));
+    }
+
+    private JobRunnable blockingLocalJobRunnable(final CountDownLatch started, final boolean interruptible) {
+        return new AbstractLocalJobRunnable() {
+            @Override
+            public JobDefinition getJobDefinition() {
+                return longRunningJobDefinition(interruptible);
+            }
+
+            @Override
+            public void execute(JobExecutionContext context) throws JobException {
+                started.countDown();
+                try {
+                    // ignores checkForAbort and can only be stopped by an interruption
+                    Thread.sleep(5000);
+                } catch (InterruptedException e) {
+                    throw new JobExecutionException("interrupted");
+                }
+            }
+        };
+    }
+
+    private JobDefinition longRunningJobDefinition(final boolean interruptible) {
+        return new AbstractLocalJobDefinition() {
+            @Override
+            public String getName() {
+                return JOB_NAME_01;
+            }
+
+            @Override
+            public long getMaxIdleTime() {
+                return 60000;
+            }
+
+            @Override
+            public long getMaxExecutionTime() {
+                return 60000;
+            }
+
+            @Override
+            public boolean isInterruptible() {
+                return interruptible;
+            }
+        };
+    }
+
     private JobInfo createJobInfo(String name, JobExecutionPriority executionPriority, RunningState runningState) {
         return new JobInfo(name, "test", "test", 1000L, 1000L, 0L, runningState, executionPriority, Collections.<String, String>emptyMap());
     }
 
+    private JobAdmission createAdmission(JobAdmission.Decision decision, String id) {
+        final JobInfo jobInfo = createJobInfo(JOB_NAME_01, JobExecutionPriority.CHECK_PRECONDITIONS,
+                decision == JobAdmission.Decision.QUEUE ? RunningState.QUEUED : RunningState.RUNNING);
+        ReflectionTestUtils.invokeMethod(jobInfo, "addProperty", JobInfoProperty.ID, id);
+        return new JobAdmission(decision, jobInfo);
+    }
+
     private StoredJobDefinition createSimpleJd() {
         return new StoredJobDefinition("foo", 0, 0, 0, 0, 0, false, false);
     }
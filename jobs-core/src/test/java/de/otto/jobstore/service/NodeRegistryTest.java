@@ -0,0 +1,89 @@
+package de.otto.jobstore.service;
+
+import de.otto.jobstore.common.JobInfo;
+import de.otto.jobstore.common.Node;
+import de.otto.jobstore.common.RunningState;
+import de.otto.jobstore.common.util.InternetUtils;
+import de.otto.jobstore.repository.JobInfoRepository;
+import de.otto.jobstore.repository.NodeRepository;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+
+public class NodeRegistryTest {
+
+    private NodeRepository nodeRepository;
+    private JobInfoRepository jobInfoRepository;
+    private NodeRegistry nodeRegistry;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        nodeRepository = mock(NodeRepository.class);
+        jobInfoRepository = mock(JobInfoRepository.class);
+        nodeRegistry = new NodeRegistry(nodeRepository, jobInfoRepository);
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        nodeRegistry.shutdown();
+    }
+
+    @Test
+    public void testNodeIdIsHostName() throws Exception {
+        assertEquals(nodeRegistry.getNodeId(), InternetUtils.getHostName());
+    }
+
+    @Test
+    public void testStartupRegistersNodeAndSendsHeartbeats() throws Exception {
+        when(nodeRepository.heartbeat(nodeRegistry.getNodeId())).thenReturn(true);
+        nodeRegistry.setHeartbeatInterval(10);
+
+        nodeRegistry.startup();
+
+        verify(nodeRepository).register(any(Node.class));
+        verify(nodeRepository, timeout(2000).atLeast(2)).heartbeat(nodeRegistry.getNodeId());
+    }
+
+    @Test
+    public void testHeartbeatRegistersRemovedNodeAgain() throws Exception {
+        when(nodeRepository.heartbeat(nodeRegistry.getNodeId())).thenReturn(false);
+
+        nodeRegistry.heartbeat();
+
+        verify(nodeRepository).register(any(Node.class));
+    }
+
+    @Test
+    public void testShutdownKeepsNodeSharedWithOtherJvmsOnThisHost() throws Exception {
+        nodeRegistry.startup();
+
+        nodeRegistry.shutdown();
+
+        verify(nodeRepository, never()).remove(anyString());
+    }
+
+    @Test
+    public void testRunningLocalJobsOfHostsWithoutAliveNodeAreReturned() throws Exception {
+        final Date now = new Date();
+        when(nodeRepository.findAlive(anyLong())).thenReturn(Arrays.asList(new Node("host1", "host1", now), new Node("host2", "host2", now)));
+        final List<JobInfo> orphanedJobs = Collections.singletonList(mock(JobInfo.class));
+        when(jobInfoRepository.findLocalJobsByRunningStateAndHostNotIn(RunningState.RUNNING, Arrays.asList("host1", "host2"))).
+                thenReturn(orphanedJobs);
+
+        assertSame(nodeRegistry.findRunningJobsOfDeadNodes(), orphanedJobs);
+        verify(nodeRepository).findAlive(nodeRegistry.getHeartbeatInterval() * 3);
+    }
+
+}